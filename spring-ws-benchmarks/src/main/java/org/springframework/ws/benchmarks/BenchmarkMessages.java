@@ -0,0 +1,148 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.TransportConstants;
+import org.springframework.ws.transport.TransportInputStream;
+
+/**
+ * Messages and message factories shared by the benchmarks.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+public abstract class BenchmarkMessages {
+
+	public static final String NAMESPACE = "http://springframework.org/spring-ws/benchmarks";
+
+	/** Number of items in the payloads. */
+	public static final int ITEM_COUNT = 20;
+
+	private BenchmarkMessages() {
+	}
+
+	/** Returns the serialized {@code echoRequest} payload. */
+	public static byte[] requestPayload() {
+		return payload("echoRequest").getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** Returns a serialized SOAP 1.1 message containing an {@code echoRequest} payload. */
+	public static byte[] soapRequest() {
+		return envelope(payload("echoRequest")).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** Returns a serialized SOAP 1.1 message containing an {@code echoResponse} payload. */
+	public static byte[] soapResponse() {
+		return envelope(payload("echoResponse")).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** Returns a request object with the same content as the {@linkplain #requestPayload() request payload}. */
+	public static EchoRequest request() {
+		EchoRequest request = new EchoRequest();
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			request.getItems().add(item(i));
+		}
+		return request;
+	}
+
+	/**
+	 * Creates and initializes a message factory of the given type.
+	 *
+	 * @param type one of {@code saaj}, {@code saaj-shared} (sharing the {@code SOAPPart} as DOM document), {@code
+	 * axiom}, or {@code axiom-dom} (DOM-compatible Axiom)
+	 */
+	public static WebServiceMessageFactory messageFactory(String type) throws Exception {
+		if ("saaj".equals(type) || "saaj-shared".equals(type)) {
+			SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+			messageFactory.setDocumentSharing("saaj-shared".equals(type));
+			messageFactory.afterPropertiesSet();
+			return messageFactory;
+		}
+		else if ("axiom".equals(type) || "axiom-dom".equals(type)) {
+			AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+			messageFactory.setDomCompatible("axiom-dom".equals(type));
+			messageFactory.afterPropertiesSet();
+			return messageFactory;
+		}
+		throw new IllegalArgumentException("Unknown message factory type [" + type + "]");
+	}
+
+	/**
+	 * Returns a stream of the given serialized SOAP 1.1 message, as received from a transport. Unlike the SAAJ message
+	 * factory, the Axiom message factory requires a {@link TransportInputStream}, to read the content type from.
+	 */
+	public static InputStream transportInputStream(final byte[] message) {
+		return new TransportInputStream() {
+
+			@Override
+			protected InputStream createInputStream() {
+				return new ByteArrayInputStream(message);
+			}
+
+			@Override
+			public Iterator<String> getHeaderNames() {
+				return Collections.singletonList(TransportConstants.HEADER_CONTENT_TYPE).iterator();
+			}
+
+			@Override
+			public Iterator<String> getHeaders(String name) {
+				if (TransportConstants.HEADER_CONTENT_TYPE.equalsIgnoreCase(name)) {
+					return Collections.singletonList("text/xml; charset=UTF-8").iterator();
+				}
+				return Collections.<String>emptyList().iterator();
+			}
+		};
+	}
+
+	/** Creates and initializes a marshaller for the payload classes. */
+	public static Jaxb2Marshaller marshaller() throws Exception {
+		Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+		marshaller.setClassesToBeBound(EchoRequest.class, EchoResponse.class);
+		marshaller.afterPropertiesSet();
+		return marshaller;
+	}
+
+	private static String payload(String localName) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("<b:").append(localName).append(" xmlns:b='").append(NAMESPACE).append("'>");
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			builder.append("<b:item>").append(item(i)).append("</b:item>");
+		}
+		builder.append("</b:").append(localName).append('>');
+		return builder.toString();
+	}
+
+	private static String item(int i) {
+		return "Item " + i;
+	}
+
+	private static String envelope(String payload) {
+		return "<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<SOAP-ENV:Header/><SOAP-ENV:Body>" + payload + "</SOAP-ENV:Body></SOAP-ENV:Envelope>";
+	}
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
+import org.springframework.ws.server.endpoint.annotation.RequestPayload;
+import org.springframework.ws.server.endpoint.annotation.ResponsePayload;
+
+/**
+ * Annotated endpoint that echoes the items of the request.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@Endpoint
+public class EchoEndpoint {
+
+	@PayloadRoot(namespace = BenchmarkMessages.NAMESPACE, localPart = "echoRequest")
+	@ResponsePayload
+	public EchoResponse echo(@RequestPayload EchoRequest request) {
+		return new EchoResponse(request.getItems());
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * JAXB request payload of the benchmarks.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@XmlRootElement(name = "echoRequest", namespace = BenchmarkMessages.NAMESPACE)
+@XmlAccessorType(XmlAccessType.FIELD)
+public class EchoRequest {
+
+	@XmlElement(name = "item", namespace = BenchmarkMessages.NAMESPACE)
+	private List<String> items = new ArrayList<String>();
+
+	public List<String> getItems() {
+		return items;
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.ws.config.annotation.EnableWs;
+
+/**
+ * Server-side configuration of the benchmarks, equivalent to a typical annotation-driven application.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@Configuration
+@EnableWs
+public class EndpointConfiguration {
+
+	@Bean
+	public EchoEndpoint echoEndpoint() {
+		return new EchoEndpoint();
+	}
+
+}
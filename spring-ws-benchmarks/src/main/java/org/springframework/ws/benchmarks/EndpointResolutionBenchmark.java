@@ -0,0 +1,110 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.MessageDispatcher;
+
+/**
+ * Benchmarks endpoint resolution by the {@link MessageDispatcher}, with and without {@linkplain
+ * MessageDispatcher#setEndpointResolutionCaching(boolean) caching}, next to the cost of the request fingerprint that
+ * the cache is keyed by. Messages are parsed before measuring, so that only the resolution itself is measured. The
+ * protected resolution methods of the dispatcher are invoked reflectively.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EndpointResolutionBenchmark {
+
+	@Param({"saaj", "axiom"})
+	public String messageFactory;
+
+	@Param({"false", "true"})
+	public boolean endpointResolutionCaching;
+
+	private AnnotationConfigApplicationContext applicationContext;
+
+	private WebServiceMessageFactory factory;
+
+	private MessageDispatcher dispatcher;
+
+	private Method getEndpointResolutionKey;
+
+	private Method getEndpoint;
+
+	private WebServiceMessage request;
+
+	@Setup
+	public void setUp() throws Exception {
+		applicationContext = new AnnotationConfigApplicationContext(EndpointConfiguration.class);
+		factory = BenchmarkMessages.messageFactory(messageFactory);
+		dispatcher = new MessageDispatcher();
+		dispatcher.setEndpointResolutionCaching(endpointResolutionCaching);
+		dispatcher.setApplicationContext(applicationContext);
+		getEndpointResolutionKey = accessibleMethod("getEndpointResolutionKey");
+		getEndpoint = accessibleMethod("getEndpoint");
+		request = factory.createWebServiceMessage(
+				BenchmarkMessages.transportInputStream(BenchmarkMessages.soapRequest()));
+		// parses the message, and warms up the cache
+		if (resolve() == null) {
+			throw new IllegalStateException("No endpoint found for benchmark request");
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		applicationContext.close();
+	}
+
+	@Benchmark
+	public Object fingerprint() throws Exception {
+		return getEndpointResolutionKey.invoke(dispatcher, new DefaultMessageContext(request, factory));
+	}
+
+	@Benchmark
+	public Object resolve() throws Exception {
+		return getEndpoint.invoke(dispatcher, new DefaultMessageContext(request, factory));
+	}
+
+	private static Method accessibleMethod(String name) {
+		Method method = ReflectionUtils.findMethod(MessageDispatcher.class, name, MessageContext.class);
+		ReflectionUtils.makeAccessible(method);
+		return method;
+	}
+
+}
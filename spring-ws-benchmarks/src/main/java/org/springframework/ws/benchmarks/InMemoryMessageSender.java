@@ -0,0 +1,100 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.WebServiceMessageSender;
+
+/**
+ * {@link WebServiceMessageSender} that serializes the request without sending it, and returns a fixed response. Used
+ * to measure the client-side overhead without network I/O.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+public class InMemoryMessageSender implements WebServiceMessageSender {
+
+	private final byte[] response;
+
+	public InMemoryMessageSender(byte[] response) {
+		this.response = response;
+	}
+
+	@Override
+	public WebServiceConnection createConnection(URI uri) throws IOException {
+		return new InMemoryConnection(uri);
+	}
+
+	@Override
+	public boolean supports(URI uri) {
+		return true;
+	}
+
+	private class InMemoryConnection implements WebServiceConnection {
+
+		private final URI uri;
+
+		private InMemoryConnection(URI uri) {
+			this.uri = uri;
+		}
+
+		@Override
+		public void send(WebServiceMessage message) throws IOException {
+			message.writeTo(new OutputStream() {
+
+				@Override
+				public void write(int b) {
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+				}
+			});
+		}
+
+		@Override
+		public WebServiceMessage receive(WebServiceMessageFactory messageFactory) throws IOException {
+			return messageFactory.createWebServiceMessage(BenchmarkMessages.transportInputStream(response));
+		}
+
+		@Override
+		public URI getUri() {
+			return uri;
+		}
+
+		@Override
+		public boolean hasError() {
+			return false;
+		}
+
+		@Override
+		public String getErrorMessage() {
+			return null;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
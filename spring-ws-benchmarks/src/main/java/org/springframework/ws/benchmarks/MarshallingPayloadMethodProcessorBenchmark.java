@@ -0,0 +1,91 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.adapter.method.MarshallingPayloadMethodProcessor;
+
+/**
+ * Benchmarks JAXB unmarshalling of requests and marshalling of responses through the {@link
+ * MarshallingPayloadMethodProcessor}.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MarshallingPayloadMethodProcessorBenchmark {
+
+	@Param({"saaj", "axiom"})
+	public String messageFactory;
+
+	private WebServiceMessageFactory factory;
+
+	private MarshallingPayloadMethodProcessor processor;
+
+	private MethodParameter requestParameter;
+
+	private MethodParameter responseParameter;
+
+	private byte[] request;
+
+	private EchoResponse response;
+
+	@Setup
+	public void setUp() throws Exception {
+		factory = BenchmarkMessages.messageFactory(messageFactory);
+		Jaxb2Marshaller marshaller = BenchmarkMessages.marshaller();
+		processor = new MarshallingPayloadMethodProcessor(marshaller, marshaller);
+		Method echo = EchoEndpoint.class.getMethod("echo", EchoRequest.class);
+		requestParameter = new MethodParameter(echo, 0);
+		responseParameter = new MethodParameter(echo, -1);
+		request = BenchmarkMessages.soapRequest();
+		response = new EchoResponse(BenchmarkMessages.request().getItems());
+	}
+
+	@Benchmark
+	public Object unmarshal() throws Exception {
+		WebServiceMessage message = factory.createWebServiceMessage(BenchmarkMessages.transportInputStream(request));
+		return processor.resolveArgument(new DefaultMessageContext(message, factory), requestParameter);
+	}
+
+	@Benchmark
+	public WebServiceMessage marshal() throws Exception {
+		MessageContext messageContext = new DefaultMessageContext(factory);
+		processor.handleReturnValue(messageContext, responseParameter, response);
+		return messageContext.getResponse();
+	}
+
+}
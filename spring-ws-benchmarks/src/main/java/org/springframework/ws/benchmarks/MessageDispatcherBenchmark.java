@@ -0,0 +1,89 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.MessageDispatcher;
+
+/**
+ * Benchmarks the server-side hot path: parsing a request, {@link MessageDispatcher#receive(MessageContext)
+ * dispatching} it to an annotated JAXB endpoint, and serializing the response.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageDispatcherBenchmark {
+
+	@Param({"saaj", "axiom"})
+	public String messageFactory;
+
+	@Param({"false", "true"})
+	public boolean endpointResolutionCaching;
+
+	private AnnotationConfigApplicationContext applicationContext;
+
+	private WebServiceMessageFactory factory;
+
+	private MessageDispatcher dispatcher;
+
+	private byte[] request;
+
+	@Setup
+	public void setUp() throws Exception {
+		applicationContext = new AnnotationConfigApplicationContext(EndpointConfiguration.class);
+		factory = BenchmarkMessages.messageFactory(messageFactory);
+		dispatcher = new MessageDispatcher();
+		dispatcher.setEndpointResolutionCaching(endpointResolutionCaching);
+		dispatcher.setApplicationContext(applicationContext);
+		request = BenchmarkMessages.soapRequest();
+	}
+
+	@TearDown
+	public void tearDown() {
+		applicationContext.close();
+	}
+
+	@Benchmark
+	public int receive() throws Exception {
+		MessageContext messageContext = new DefaultMessageContext(
+				factory.createWebServiceMessage(BenchmarkMessages.transportInputStream(request)), factory);
+		dispatcher.receive(messageContext);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		messageContext.getResponse().writeTo(outputStream);
+		return outputStream.size();
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
+import org.springframework.xml.transform.TransformerHelper;
+
+/**
+ * Benchmarks {@link PayloadRootUtils#getPayloadRootQName(Source, TransformerHelper)}, which is evaluated for every
+ * request by the payload root endpoint mappings, for the payload sources of the supported message factories.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PayloadRootQNameBenchmark {
+
+	@Param({"saaj", "axiom", "stream"})
+	public String source;
+
+	private final TransformerHelper transformerHelper = new TransformerHelper();
+
+	private WebServiceMessage message;
+
+	private byte[] payload;
+
+	@Setup
+	public void setUp() throws Exception {
+		payload = BenchmarkMessages.requestPayload();
+		if (!"stream".equals(source)) {
+			message = BenchmarkMessages.messageFactory(source)
+					.createWebServiceMessage(BenchmarkMessages.transportInputStream(BenchmarkMessages.soapRequest()));
+			// make sure the message is parsed before measuring
+			Source payloadSource = message.getPayloadSource();
+			if (payloadSource instanceof DOMSource) {
+				((DOMSource) payloadSource).getNode().getFirstChild();
+			}
+		}
+	}
+
+	@Benchmark
+	public QName getPayloadRootQName() throws Exception {
+		Source payloadSource = message != null ? message.getPayloadSource() :
+				new StreamSource(new ByteArrayInputStream(payload));
+		return PayloadRootUtils.getPayloadRootQName(payloadSource, transformerHelper);
+	}
+
+}
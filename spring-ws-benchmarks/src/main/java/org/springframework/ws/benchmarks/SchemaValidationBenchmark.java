@@ -0,0 +1,97 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXParseException;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.xml.validation.XmlValidator;
+import org.springframework.xml.validation.XmlValidatorFactory;
+
+/**
+ * Benchmarks schema validation of payloads with an {@link XmlValidator}, as done by the {@code
+ * PayloadValidatingInterceptor}. A validator pool size of 0 creates a new {@code Validator} for every validation;
+ * a positive size uses a {@link org.springframework.xml.validation.PooledXmlValidator}, which reuses them.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchemaValidationBenchmark {
+
+	@Param({"stream", "dom"})
+	public String source;
+
+	@Param({"0", "4"})
+	public int validatorPoolSize;
+
+	private XmlValidator validator;
+
+	private byte[] payload;
+
+	private Document document;
+
+	@Setup
+	public void setUp() throws Exception {
+		validator = XmlValidatorFactory.createValidator(new Resource[]{new ClassPathResource("echo.xsd", SchemaValidationBenchmark.class)},
+				XmlValidatorFactory.SCHEMA_W3C_XML, validatorPoolSize);
+		payload = BenchmarkMessages.requestPayload();
+		DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		documentBuilderFactory.setNamespaceAware(true);
+		document = documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(payload));
+		SAXParseException[] errors = validator.validate(createSource());
+		if (errors.length > 0) {
+			throw errors[0];
+		}
+	}
+
+	private Source createSource() {
+		return "dom".equals(source) ? new DOMSource(document) : new StreamSource(new ByteArrayInputStream(payload));
+	}
+
+	@Benchmark
+	public SAXParseException[] validate() throws Exception {
+		return validator.validate(createSource());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public SAXParseException[] validateConcurrently() throws Exception {
+		return validator.validate(createSource());
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javax.xml.transform.Source;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.soap.SoapMessage;
+
+/**
+ * Benchmarks parsing of SOAP messages, and the {@link SoapMessage#getDocument() getDocument}/{@link
+ * SoapMessage#setDocument(Document) setDocument} round trip performed by the WS-Security interceptors, comparing SAAJ,
+ * SAAJ with document sharing, Axiom, and DOM-compatible Axiom.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SoapMessageBenchmark {
+
+	@Param({"saaj", "saaj-shared", "axiom", "axiom-dom"})
+	public String messageFactory;
+
+	private WebServiceMessageFactory factory;
+
+	private byte[] request;
+
+	@Setup
+	public void setUp() throws Exception {
+		factory = BenchmarkMessages.messageFactory(messageFactory);
+		request = BenchmarkMessages.soapRequest();
+	}
+
+	@Benchmark
+	public Source parse() throws Exception {
+		return factory.createWebServiceMessage(BenchmarkMessages.transportInputStream(request)).getPayloadSource();
+	}
+
+	@Benchmark
+	public SoapMessage documentRoundTrip() throws Exception {
+		SoapMessage message =
+				(SoapMessage) factory.createWebServiceMessage(BenchmarkMessages.transportInputStream(request));
+		Document document = message.getDocument();
+		message.setDocument(document);
+		return message;
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.client.core.WebServiceTemplate;
+
+/**
+ * Benchmarks the client-side hot path: {@link WebServiceTemplate#marshalSendAndReceive(Object) marshalling} a request,
+ * serializing it, and parsing and unmarshalling the response, using an {@link InMemoryMessageSender}.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WebServiceTemplateBenchmark {
+
+	@Param({"saaj", "axiom"})
+	public String messageFactory;
+
+	private WebServiceTemplate template;
+
+	private EchoRequest request;
+
+	@Setup
+	public void setUp() throws Exception {
+		Jaxb2Marshaller marshaller = BenchmarkMessages.marshaller();
+		template = new WebServiceTemplate(BenchmarkMessages.messageFactory(messageFactory));
+		template.setMarshaller(marshaller);
+		template.setUnmarshaller(marshaller);
+		template.setMessageSender(new InMemoryMessageSender(BenchmarkMessages.soapResponse()));
+		template.setDefaultUri("http://localhost/echo");
+		template.afterPropertiesSet();
+		request = BenchmarkMessages.request();
+	}
+
+	@Benchmark
+	public Object marshalSendAndReceive() {
+		return template.marshalSendAndReceive(request);
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import org.springframework.xml.xpath.XPathExpression;
+import org.springframework.xml.xpath.XPathExpressionFactory;
+
+/**
+ * Benchmarks the evaluation of a compiled {@link XPathExpression}, as used by the XPath endpoint mapping and XPath
+ * parameters of endpoint methods, from a single thread and from multiple threads sharing the expression.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class XPathBenchmark {
+
+	private XPathExpression itemsExpression;
+
+	private XPathExpression countExpression;
+
+	private Document document;
+
+	@Setup
+	public void setUp() throws Exception {
+		itemsExpression = XPathExpressionFactory.createXPathExpression("/b:echoRequest/b:item",
+				Collections.singletonMap("b", BenchmarkMessages.NAMESPACE));
+		countExpression = XPathExpressionFactory.createXPathExpression("count(//b:item)",
+				Collections.singletonMap("b", BenchmarkMessages.NAMESPACE));
+		DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		documentBuilderFactory.setNamespaceAware(true);
+		document = documentBuilderFactory.newDocumentBuilder()
+				.parse(new ByteArrayInputStream(BenchmarkMessages.requestPayload()));
+	}
+
+	@Benchmark
+	public List<Node> evaluateAsNodeList() {
+		return itemsExpression.evaluateAsNodeList(document);
+	}
+
+	@Benchmark
+	public double evaluateAsNumber() {
+		return countExpression.evaluateAsNumber(document);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public double evaluateAsNumberConcurrently() {
+		return countExpression.evaluateAsNumber(document);
+	}
+
+}
@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class EndpointResolutionBenchmark_jmhType extends EndpointResolutionBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class MarshallingPayloadMethodProcessorBenchmark_jmhType extends MarshallingPayloadMethodProcessorBenchmark_jmhType_B3 {
+}
+
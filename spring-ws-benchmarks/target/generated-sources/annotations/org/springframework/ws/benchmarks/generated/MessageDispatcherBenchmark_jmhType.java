@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class MessageDispatcherBenchmark_jmhType extends MessageDispatcherBenchmark_jmhType_B3 {
+}
+
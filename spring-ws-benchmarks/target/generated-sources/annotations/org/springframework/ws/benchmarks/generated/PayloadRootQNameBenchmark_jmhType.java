@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class PayloadRootQNameBenchmark_jmhType extends PayloadRootQNameBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class SchemaValidationBenchmark_jmhType extends SchemaValidationBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class SoapMessageBenchmark_jmhType extends SoapMessageBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class WebServiceTemplateBenchmark_jmhType extends WebServiceTemplateBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.springframework.ws.benchmarks.generated;
+public class XPathBenchmark_jmhType extends XPathBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ws.client.core;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.springframework.util.Assert;
+
+/**
+ * Limits the number of asynchronous requests of a {@link WebServiceTemplate} that are in flight at the same time.
+ * Requests beyond the limit are queued, rather than blocking the caller, and are started on their executor as soon as
+ * an earlier request completes. Requests whose future completes while they are queued, for instance because they were
+ * cancelled, are not started.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+class AsyncRequestLimiter {
+
+	private final int limit;
+
+	private final AtomicInteger active = new AtomicInteger();
+
+	private final Queue<QueuedRequest> waiting = new ConcurrentLinkedQueue<QueuedRequest>();
+
+	/** Number of pending drain passes; only the thread that raises it from zero drains. */
+	private final AtomicInteger drainPasses = new AtomicInteger();
+
+	AsyncRequestLimiter(int limit) {
+		Assert.isTrue(limit > 0, "'limit' must be larger than 0");
+		this.limit = limit;
+	}
+
+	/** Returns the number of requests that are currently in flight. */
+	int getActiveCount() {
+		return active.get();
+	}
+
+	/** Returns the number of requests that are waiting to be started. */
+	int getWaitingCount() {
+		return waiting.size();
+	}
+
+	/**
+	 * Starts the given request on the given executor as soon as the limit permits. The request counts as in flight
+	 * until the given future completes. If the executor rejects the request, the future is completed exceptionally.
+	 *
+	 * @param future   the future of the request
+	 * @param executor the executor to run the request on
+	 * @param request  the request
+	 */
+	void submit(CompletableFuture<?> future, Executor executor, Runnable request) {
+		waiting.offer(new QueuedRequest(future, executor, request));
+		drain();
+	}
+
+	private void release() {
+		active.decrementAndGet();
+		drain();
+	}
+
+	private void drain() {
+		if (drainPasses.getAndIncrement() != 0) {
+			// another thread is draining, and will make another pass
+			return;
+		}
+		do {
+			QueuedRequest queued;
+			while (active.get() < limit && (queued = waiting.poll()) != null) {
+				if (!queued.future.isDone()) {
+					active.incrementAndGet();
+					start(queued);
+				}
+			}
+		}
+		while (drainPasses.decrementAndGet() != 0);
+	}
+
+	private void start(QueuedRequest queued) {
+		// if the future is already complete, release() only schedules another pass of the running drain loop
+		queued.future.whenComplete(new BiConsumer<Object, Throwable>() {
+
+			public void accept(Object result, Throwable ex) {
+				release();
+			}
+		});
+		try {
+			queued.executor.execute(queued.request);
+		}
+		catch (RuntimeException ex) {
+			queued.future.completeExceptionally(ex);
+		}
+	}
+
+	private static class QueuedRequest {
+
+		private final CompletableFuture<?> future;
+
+		private final Executor executor;
+
+		private final Runnable request;
+
+		private QueuedRequest(CompletableFuture<?> future, Executor executor, Runnable request) {
+			this.future = future;
+			this.executor = executor;
+			this.request = request;
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ws.client.core;
+
+import java.util.concurrent.CompletableFuture;
+import javax.xml.transform.Source;
+
+/**
+ * Specifies a basic set of asynchronous Web service operations. Implemented by {@link WebServiceTemplate}.
+ *
+ * <p>Each method returns immediately with a {@link CompletableFuture}, which completes with the result of the
+ * exchange, or exceptionally with a {@link org.springframework.ws.client.WebServiceClientException} (or a
+ * {@link org.springframework.oxm.XmlMappingException} for the marshalling methods). Registered
+ * {@linkplain org.springframework.ws.client.support.interceptor.ClientInterceptor client interceptors} are invoked
+ * just as for the synchronous {@link WebServiceOperations}.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ * @see WebServiceTemplate#setAsyncTaskExecutor(org.springframework.core.task.TaskExecutor)
+ * @see WebServiceTemplate#setMaxConcurrentAsyncRequests(int)
+ */
+public interface AsyncWebServiceOperations {
+
+	/**
+	 * Asynchronously sends a web service message that can be manipulated with the given callback, reading the result
+	 * with a {@code WebServiceMessageExtractor}.
+	 *
+	 * <p>This will only work with a default uri specified!
+	 *
+	 * @param requestCallback	the requestCallback to be used for manipulating the request message
+	 * @param responseExtractor object that will extract results
+	 * @return a future for the result object, as returned by the {@code WebServiceMessageExtractor}
+	 */
+	<T> CompletableFuture<T> sendAndReceiveAsync(WebServiceMessageCallback requestCallback,
+			WebServiceMessageExtractor<T> responseExtractor);
+
+	/**
+	 * Asynchronously sends a web service message that can be manipulated with the given callback, reading the result
+	 * with a {@code WebServiceMessageExtractor}.
+	 *
+	 * @param uri				the URI to send the message to
+	 * @param requestCallback	the requestCallback to be used for manipulating the request message
+	 * @param responseExtractor object that will extract results
+	 * @return a future for the result object, as returned by the {@code WebServiceMessageExtractor}
+	 */
+	<T> CompletableFuture<T> sendAndReceiveAsync(String uri,
+			WebServiceMessageCallback requestCallback,
+			WebServiceMessageExtractor<T> responseExtractor);
+
+	/**
+	 * Asynchronously sends a web service message that contains the given payload, marshalled by the configured
+	 * {@code Marshaller}. Returns the unmarshalled payload of the response message, if any.
+	 *
+	 * <p>This will only work with a default uri specified!
+	 *
+	 * @param requestPayload the object to marshal into the request message payload
+	 * @return a future for the unmarshalled payload of the response message, or {@code null} if no response is given
+	 */
+	CompletableFuture<Object> marshalSendAndReceiveAsync(Object requestPayload);
+
+	/**
+	 * Asynchronously sends a web service message that contains the given payload, marshalled by the configured
+	 * {@code Marshaller}. Returns the unmarshalled payload of the response message, if any.
+	 *
+	 * @param uri			 the URI to send the message to
+	 * @param requestPayload the object to marshal into the request message payload
+	 * @return a future for the unmarshalled payload of the response message, or {@code null} if no response is given
+	 */
+	CompletableFuture<Object> marshalSendAndReceiveAsync(String uri, Object requestPayload);
+
+	/**
+	 * Asynchronously sends a web service message that contains the given payload, marshalled by the configured
+	 * {@code Marshaller}. Returns the unmarshalled payload of the response message, if any. The given callback allows
+	 * changing of the request message after the payload has been marshalled to it.
+	 *
+	 * <p>This will only work with a default uri specified!
+	 *
+	 * @param requestPayload  the object to marshal into the request message payload
+	 * @param requestCallback callback to change message, can be {@code null}
+	 * @return a future for the unmarshalled payload of the response message, or {@code null} if no response is given
+	 */
+	CompletableFuture<Object> marshalSendAndReceiveAsync(Object requestPayload,
+			WebServiceMessageCallback requestCallback);
+
+	/**
+	 * Asynchronously sends a web service message that contains the given payload, marshalled by the configured
+	 * {@code Marshaller}. Returns the unmarshalled payload of the response message, if any. The given callback allows
+	 * changing of the request message after the payload has been marshalled to it.
+	 *
+	 * @param uri			  the URI to send the message to
+	 * @param requestPayload  the object to marshal into the request message payload
+	 * @param requestCallback callback to change message, can be {@code null}
+	 * @return a future for the unmarshalled payload of the response message, or {@code null} if no response is given
+	 */
+	CompletableFuture<Object> marshalSendAndReceiveAsync(String uri,
+			Object requestPayload,
+			WebServiceMessageCallback requestCallback);
+
+	/**
+	 * Asynchronously sends a web service message that contains the given payload, reading the result with a
+	 * {@link SourceExtractor}.
+	 *
+	 * <p>This will only work with a default uri specified!
+	 *
+	 * @param requestPayload	the payload of the request message
+	 * @param responseExtractor object that will extract results
+	 * @return a future for the result object, as returned by the {@code SourceExtractor}
+	 */
+	<T> CompletableFuture<T> sendSourceAndReceiveAsync(Source requestPayload, SourceExtractor<T> responseExtractor);
+
+	/**
+	 * Asynchronously sends a web service message that contains the given payload, reading the result with a
+	 * {@link SourceExtractor}.
+	 *
+	 * @param uri				the URI to send the message to
+	 * @param requestPayload	the payload of the request message
+	 * @param responseExtractor object that will extract results
+	 * @return a future for the result object, as returned by the {@code SourceExtractor}
+	 */
+	<T> CompletableFuture<T> sendSourceAndReceiveAsync(String uri,
+			Source requestPayload,
+			SourceExtractor<T> responseExtractor);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
@@ -30,9 +37,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.oxm.Marshaller;
 import org.springframework.oxm.Unmarshaller;
 import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
 import org.springframework.util.ObjectUtils;
 import org.springframework.ws.FaultAwareWebServiceMessage;
 import org.springframework.ws.WebServiceMessage;
@@ -49,6 +59,7 @@ import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.soap.client.core.SoapFaultMessageResolver;
 import org.springframework.ws.support.DefaultStrategiesHelper;
 import org.springframework.ws.support.MarshallingUtils;
+import org.springframework.ws.transport.AsyncWebServiceConnection;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
 import org.springframework.ws.transport.TransportException;
 import org.springframework.ws.transport.WebServiceConnection;
@@ -95,14 +106,23 @@ import org.springframework.ws.transport.support.TransportUtils;
  * {@link WebServiceMessageCallback#doWithMessage(WebServiceMessage) doWithMessage} on the response callback.</li> </ul>
  * <li>Call to {@link WebServiceConnection#close() close} on the connection.</li> </ol>
  *
+ * <p>The {@link AsyncWebServiceOperations asynchronous methods} follow the same algorithm, but return a {@link
+ * CompletableFuture} immediately. The exchange is started on the {@linkplain #setAsyncTaskExecutor(TaskExecutor) async
+ * task executor}. If the connection is an {@link AsyncWebServiceConnection}, no thread is blocked while waiting for the
+ * response; otherwise, the exchange occupies an executor thread until it completes. The number of asynchronous
+ * requests in flight can be limited with {@link #setMaxConcurrentAsyncRequests(int)}.
+ *
  * @author Arjen Poutsma
  * @since 1.0.0
  */
-public class WebServiceTemplate extends WebServiceAccessor implements WebServiceOperations {
+public class WebServiceTemplate extends WebServiceAccessor implements WebServiceOperations, AsyncWebServiceOperations {
 
 	/** Log category to use for message tracing. */
 	public static final String MESSAGE_TRACING_LOG_CATEGORY = "org.springframework.ws.client.MessageTracing";
 
+	/** The number of threads of the default {@linkplain #setAsyncTaskExecutor(TaskExecutor) async task executor}. */
+	public static final int DEFAULT_ASYNC_POOL_SIZE = 10;
+
 	/** Additional logger to use for sent message tracing. */
 	protected static final Log sentMessageTracingLogger =
 			LogFactory.getLog(WebServiceTemplate.MESSAGE_TRACING_LOG_CATEGORY + ".sent");
@@ -125,6 +145,12 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 
 	private DestinationProvider destinationProvider;
 
+	private volatile TaskExecutor asyncTaskExecutor;
+
+	private volatile AsyncRequestLimiter asyncRequestLimiter;
+
+	private volatile boolean asyncRequestSent;
+
 	/** Creates a new {@code WebServiceTemplate} using default settings. */
 	public WebServiceTemplate() {
 		initDefaultStrategies();
@@ -327,6 +353,77 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		this.interceptors = interceptors;
 	}
 
+	/**
+	 * Returns the task executor used to start asynchronous requests. Creates a pool of
+	 * {@value #DEFAULT_ASYNC_POOL_SIZE} threads if none was set.
+	 */
+	public TaskExecutor getAsyncTaskExecutor() {
+		if (asyncTaskExecutor == null) {
+			synchronized (this) {
+				if (asyncTaskExecutor == null) {
+					asyncTaskExecutor = createDefaultAsyncTaskExecutor();
+				}
+			}
+		}
+		return asyncTaskExecutor;
+	}
+
+	private static TaskExecutor createDefaultAsyncTaskExecutor() {
+		final CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("WebServiceTemplate-");
+		threadCreator.setDaemon(true);
+		ThreadFactory threadFactory = new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return threadCreator.createThread(runnable);
+			}
+		};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_ASYNC_POOL_SIZE, DEFAULT_ASYNC_POOL_SIZE, 60,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+		return new TaskExecutorAdapter(executor);
+	}
+
+	/**
+	 * Sets the task executor used to start asynchronous requests. Default is a pool of
+	 * {@value #DEFAULT_ASYNC_POOL_SIZE} daemon threads, which queues further requests; idle threads are stopped after a
+	 * minute.
+	 *
+	 * <p>Exchanges over an {@link AsyncWebServiceConnection} only use the executor to prepare the request; other
+	 * exchanges occupy an executor thread until they complete.
+	 */
+	public void setAsyncTaskExecutor(TaskExecutor asyncTaskExecutor) {
+		this.asyncTaskExecutor = asyncTaskExecutor;
+	}
+
+	/**
+	 * Sets the maximum number of asynchronous requests that are in flight at the same time. Further requests are queued
+	 * without blocking the caller, and are started as earlier requests complete. Default is {@code 0}, meaning no
+	 * limit.
+	 *
+	 * <p>This property can only be set before the first asynchronous request is sent, as requests in flight would not
+	 * count towards a new limit.
+	 *
+	 * @throws IllegalStateException if an asynchronous request has been sent already
+	 */
+	public void setMaxConcurrentAsyncRequests(int maxConcurrentAsyncRequests) {
+		Assert.isTrue(maxConcurrentAsyncRequests >= 0, "'maxConcurrentAsyncRequests' must not be negative");
+		Assert.state(!asyncRequestSent,
+				"'maxConcurrentAsyncRequests' cannot be changed once asynchronous requests have been sent");
+		this.asyncRequestLimiter =
+				maxConcurrentAsyncRequests > 0 ? new AsyncRequestLimiter(maxConcurrentAsyncRequests) : null;
+	}
+
+	/** Returns the number of asynchronous requests that are currently in flight, if a limit is set. */
+	public int getActiveAsyncRequestCount() {
+		return asyncRequestLimiter != null ? asyncRequestLimiter.getActiveCount() : 0;
+	}
+
+	/** Returns the number of asynchronous requests that wait for the concurrency limit, if a limit is set. */
+	public int getQueuedAsyncRequestCount() {
+		return asyncRequestLimiter != null ? asyncRequestLimiter.getWaitingCount() : 0;
+	}
+
 	/**
 	 * Initialize the default implementations for the template's strategies: {@link SoapFaultMessageResolver}, {@link
 	 * org.springframework.ws.soap.saaj.SaajSoapMessageFactory}, and {@link HttpUrlConnectionMessageSender}.
@@ -387,7 +484,13 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 	public Object marshalSendAndReceive(String uri,
 										final Object requestPayload,
 										final WebServiceMessageCallback requestCallback) {
-		return sendAndReceive(uri, new WebServiceMessageCallback() {
+		return sendAndReceive(uri, createMarshallingCallback(requestPayload, requestCallback),
+				createUnmarshallingExtractor());
+	}
+
+	private WebServiceMessageCallback createMarshallingCallback(final Object requestPayload,
+			final WebServiceMessageCallback requestCallback) {
+		return new WebServiceMessageCallback() {
 
 			public void doWithMessage(WebServiceMessage request) throws IOException, TransformerException {
 				if (requestPayload != null) {
@@ -402,7 +505,11 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 					}
 				}
 			}
-		}, new WebServiceMessageExtractor<Object>() {
+		};
+	}
+
+	private WebServiceMessageExtractor<Object> createUnmarshallingExtractor() {
+		return new WebServiceMessageExtractor<Object>() {
 
 			public Object extractData(WebServiceMessage response) throws IOException {
 				Unmarshaller unmarshaller = getUnmarshaller();
@@ -412,7 +519,7 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 				}
 				return MarshallingUtils.unmarshal(unmarshaller, response);
 			}
-		});
+		};
 	}
 
 	//
@@ -503,14 +610,21 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 									final WebServiceMessageCallback requestCallback,
 									final SourceExtractor<T> responseExtractor) {
 		Assert.notNull(responseExtractor, "responseExtractor must not be null");
-		return sendAndReceive(uri, new WebServiceMessageCallback() {
+		return sendAndReceive(uri, createSourceCallback(transformer, requestPayload, requestCallback),
+				new SourceExtractorMessageExtractor<T>(responseExtractor));
+	}
+
+	private WebServiceMessageCallback createSourceCallback(final Transformer transformer,
+			final Source requestPayload,
+			final WebServiceMessageCallback requestCallback) {
+		return new WebServiceMessageCallback() {
 			public void doWithMessage(WebServiceMessage message) throws IOException, TransformerException {
 				transformer.transform(requestPayload, message.getPayloadResult());
 				if (requestCallback != null) {
 					requestCallback.doWithMessage(message);
 				}
 			}
-		}, new SourceExtractorMessageExtractor<T>(responseExtractor));
+		};
 	}
 
 	//
@@ -566,6 +680,230 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		}
 	}
 
+	//
+	// Asynchronous methods
+	//
+
+	@Override
+	public CompletableFuture<Object> marshalSendAndReceiveAsync(Object requestPayload) {
+		return marshalSendAndReceiveAsync(requestPayload, null);
+	}
+
+	@Override
+	public CompletableFuture<Object> marshalSendAndReceiveAsync(String uri, Object requestPayload) {
+		return marshalSendAndReceiveAsync(uri, requestPayload, null);
+	}
+
+	@Override
+	public CompletableFuture<Object> marshalSendAndReceiveAsync(Object requestPayload,
+			WebServiceMessageCallback requestCallback) {
+		return marshalSendAndReceiveAsync(getDefaultUri(), requestPayload, requestCallback);
+	}
+
+	@Override
+	public CompletableFuture<Object> marshalSendAndReceiveAsync(String uri,
+			Object requestPayload,
+			WebServiceMessageCallback requestCallback) {
+		return sendAndReceiveAsync(uri, createMarshallingCallback(requestPayload, requestCallback),
+				createUnmarshallingExtractor());
+	}
+
+	@Override
+	public <T> CompletableFuture<T> sendSourceAndReceiveAsync(Source requestPayload,
+			SourceExtractor<T> responseExtractor) {
+		return sendSourceAndReceiveAsync(getDefaultUri(), requestPayload, responseExtractor);
+	}
+
+	@Override
+	public <T> CompletableFuture<T> sendSourceAndReceiveAsync(String uri,
+			Source requestPayload,
+			SourceExtractor<T> responseExtractor) {
+		Assert.notNull(responseExtractor, "responseExtractor must not be null");
+		Transformer transformer;
+		try {
+			transformer = createTransformer();
+		}
+		catch (TransformerConfigurationException ex) {
+			CompletableFuture<T> future = new CompletableFuture<T>();
+			future.completeExceptionally(new WebServiceTransformerException("Could not create transformer", ex));
+			return future;
+		}
+		return sendAndReceiveAsync(uri, createSourceCallback(transformer, requestPayload, null),
+				new SourceExtractorMessageExtractor<T>(responseExtractor));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> sendAndReceiveAsync(WebServiceMessageCallback requestCallback,
+			WebServiceMessageExtractor<T> responseExtractor) {
+		return sendAndReceiveAsync(getDefaultUri(), requestCallback, responseExtractor);
+	}
+
+	@Override
+	public <T> CompletableFuture<T> sendAndReceiveAsync(final String uriString,
+			final WebServiceMessageCallback requestCallback,
+			final WebServiceMessageExtractor<T> responseExtractor) {
+		Assert.notNull(responseExtractor, "'responseExtractor' must not be null");
+		Assert.hasLength(uriString, "'uri' must not be empty");
+		asyncRequestSent = true;
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		Runnable request = new Runnable() {
+
+			public void run() {
+				if (!future.isDone()) {
+					doSendAndReceiveAsync(uriString, requestCallback, responseExtractor, future);
+				}
+			}
+		};
+		AsyncRequestLimiter limiter = this.asyncRequestLimiter;
+		if (limiter != null) {
+			limiter.submit(future, getAsyncTaskExecutor(), request);
+		}
+		else {
+			try {
+				getAsyncTaskExecutor().execute(request);
+			}
+			catch (RuntimeException ex) {
+				future.completeExceptionally(ex);
+			}
+		}
+		return future;
+	}
+
+	private <T> void doSendAndReceiveAsync(String uriString,
+										   WebServiceMessageCallback requestCallback,
+										   WebServiceMessageExtractor<T> responseExtractor,
+										   CompletableFuture<T> future) {
+		TransportContext previousTransportContext = TransportContextHolder.getTransportContext();
+		try {
+			final WebServiceConnection connection = createConnection(URI.create(uriString));
+			future.whenComplete(new BiConsumer<T, Throwable>() {
+
+				public void accept(T result, Throwable ex) {
+					TransportUtils.closeConnection(connection);
+				}
+			});
+			TransportContextHolder.setTransportContext(new DefaultTransportContext(connection));
+			MessageContext messageContext = new DefaultMessageContext(getMessageFactory());
+
+			if (connection instanceof AsyncWebServiceConnection) {
+				doSendAndReceiveAsync(messageContext, (AsyncWebServiceConnection) connection, requestCallback,
+						responseExtractor, future);
+			}
+			else {
+				future.complete(doSendAndReceive(messageContext, connection, requestCallback, responseExtractor));
+			}
+		}
+		catch (Throwable ex) {
+			future.completeExceptionally(translateException(ex));
+		}
+		finally {
+			TransportContextHolder.setTransportContext(previousTransportContext);
+		}
+	}
+
+	/**
+	 * Asynchronous counterpart of {@link #doSendAndReceive(MessageContext, WebServiceConnection,
+	 * WebServiceMessageCallback, WebServiceMessageExtractor)}. The response is handled by the thread that completes the
+	 * {@linkplain AsyncWebServiceConnection#sendAsync(WebServiceMessage) send}.
+	 */
+	private <T> void doSendAndReceiveAsync(final MessageContext messageContext,
+										   final AsyncWebServiceConnection connection,
+										   WebServiceMessageCallback requestCallback,
+										   final WebServiceMessageExtractor<T> responseExtractor,
+										   final CompletableFuture<T> future) {
+		int interceptorIndex = -1;
+		try {
+			if (requestCallback != null) {
+				requestCallback.doWithMessage(messageContext.getRequest());
+			}
+			// Apply handleRequest of registered interceptors
+			boolean intercepted = false;
+			if (interceptors != null) {
+				for (int i = 0; i < interceptors.length; i++) {
+					interceptorIndex = i;
+					if (!interceptors[i].handleRequest(messageContext)) {
+						intercepted = true;
+						break;
+					}
+				}
+			}
+			if (messageContext.hasResponse() || intercepted) {
+				future.complete(handleResponse(interceptorIndex, messageContext, connection, responseExtractor, false));
+				return;
+			}
+			logRequest(messageContext.getRequest());
+			final int lastInterceptorIndex = interceptorIndex;
+			connection.sendAsync(messageContext.getRequest()).whenComplete(new BiConsumer<Void, Throwable>() {
+
+				public void accept(Void result, Throwable ex) {
+					if (ex != null) {
+						completeExceptionally(lastInterceptorIndex, messageContext, ex, future);
+					}
+					else {
+						receiveAsync(lastInterceptorIndex, messageContext, connection, responseExtractor, future);
+					}
+				}
+			});
+		}
+		catch (Throwable ex) {
+			completeExceptionally(interceptorIndex, messageContext, ex, future);
+		}
+	}
+
+	private <T> void receiveAsync(int interceptorIndex,
+								  MessageContext messageContext,
+								  WebServiceConnection connection,
+								  WebServiceMessageExtractor<T> responseExtractor,
+								  CompletableFuture<T> future) {
+		TransportContext previousTransportContext = TransportContextHolder.getTransportContext();
+		TransportContextHolder.setTransportContext(new DefaultTransportContext(connection));
+		try {
+			future.complete(handleResponse(interceptorIndex, messageContext, connection, responseExtractor, true));
+		}
+		catch (Throwable ex) {
+			completeExceptionally(interceptorIndex, messageContext, ex, future);
+		}
+		finally {
+			TransportContextHolder.setTransportContext(previousTransportContext);
+		}
+	}
+
+	/** Triggers the after-completion callbacks for the given exception, and completes the future with it. */
+	private void completeExceptionally(int interceptorIndex,
+									   MessageContext messageContext,
+									   Throwable ex,
+									   CompletableFuture<?> future) {
+		if (ex instanceof CompletionException && ex.getCause() != null) {
+			ex = ex.getCause();
+		}
+		try {
+			triggerAfterCompletion(interceptorIndex, messageContext, ex instanceof Exception ? (Exception) ex : null);
+		}
+		catch (RuntimeException afterCompletionEx) {
+			future.completeExceptionally(afterCompletionEx);
+			return;
+		}
+		future.completeExceptionally(translateException(ex));
+	}
+
+	/** Translates the given exception in the same way as the synchronous methods of this template. */
+	private static Throwable translateException(Throwable ex) {
+		if (ex instanceof TransformerException) {
+			return new WebServiceTransformerException("Transformation error: " + ex.getMessage(),
+					(TransformerException) ex);
+		}
+		else if (ex instanceof TransportException) {
+			return new WebServiceTransportException("Could not use transport: " + ex.getMessage(),
+					(TransportException) ex);
+		}
+		else if (ex instanceof IOException) {
+			return new WebServiceIOException("I/O error: " + ex.getMessage(), (IOException) ex);
+		}
+		else {
+			return ex;
+		}
+	}
+
 	/**
 	 * Sends and receives a {@link MessageContext}. Sends the {@link MessageContext#getRequest() request message}, and
 	 * received to the {@link MessageContext#getResponse() repsonse message}. Invocates the defined {@link
@@ -602,32 +940,11 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 			}
 			// no send/receive if an interceptor has set a response or if the chain
 			// has been interrupted
-			if (!messageContext.hasResponse() && !intercepted) {
+			boolean send = !messageContext.hasResponse() && !intercepted;
+			if (send) {
 				sendRequest(connection, messageContext.getRequest());
-				if (hasError(connection, messageContext.getRequest())) {
-					triggerAfterCompletion(interceptorIndex, messageContext, null);
-					return (T) handleError(connection, messageContext.getRequest());
-				}
-				WebServiceMessage response = connection.receive(getMessageFactory());
-				messageContext.setResponse(response);
-			}
-			logResponse(messageContext);
-			if (messageContext.hasResponse()) {
-				if (!hasFault(connection, messageContext.getResponse())) {
-					triggerHandleResponse(interceptorIndex, messageContext);
-					triggerAfterCompletion(interceptorIndex, messageContext, null);
-					return responseExtractor.extractData(messageContext.getResponse());
-				}
-				else {
-					triggerHandleFault(interceptorIndex, messageContext);
-					triggerAfterCompletion(interceptorIndex, messageContext, null);
-					return (T)handleFault(connection, messageContext);
-				}
-			}
-			else {
-				triggerAfterCompletion(interceptorIndex, messageContext, null);
-				return null;
 			}
+			return handleResponse(interceptorIndex, messageContext, connection, responseExtractor, send);
 		}
 		catch (TransformerException ex) {
 			triggerAfterCompletion(interceptorIndex, messageContext, ex);
@@ -645,8 +962,50 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		}
 	}
 
+	/**
+	 * Receives the response of the given message context, if the request was sent, and extracts the result from it.
+	 * Invokes the response and fault callbacks of the interceptors.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T handleResponse(int interceptorIndex,
+								 MessageContext messageContext,
+								 WebServiceConnection connection,
+								 WebServiceMessageExtractor<T> responseExtractor,
+								 boolean sent) throws IOException, TransformerException {
+		if (sent) {
+			if (hasError(connection, messageContext.getRequest())) {
+				triggerAfterCompletion(interceptorIndex, messageContext, null);
+				return (T) handleError(connection, messageContext.getRequest());
+			}
+			WebServiceMessage response = connection.receive(getMessageFactory());
+			messageContext.setResponse(response);
+		}
+		logResponse(messageContext);
+		if (messageContext.hasResponse()) {
+			if (!hasFault(connection, messageContext.getResponse())) {
+				triggerHandleResponse(interceptorIndex, messageContext);
+				triggerAfterCompletion(interceptorIndex, messageContext, null);
+				return responseExtractor.extractData(messageContext.getResponse());
+			}
+			else {
+				triggerHandleFault(interceptorIndex, messageContext);
+				triggerAfterCompletion(interceptorIndex, messageContext, null);
+				return (T)handleFault(connection, messageContext);
+			}
+		}
+		else {
+			triggerAfterCompletion(interceptorIndex, messageContext, null);
+			return null;
+		}
+	}
+
 	/** Sends the request in the given message context over the connection. */
 	private void sendRequest(WebServiceConnection connection, WebServiceMessage request) throws IOException {
+		logRequest(request);
+		connection.send(request);
+	}
+
+	private void logRequest(WebServiceMessage request) throws IOException {
 		if (sentMessageTracingLogger.isTraceEnabled()) {
 			ByteArrayOutputStream os = new ByteArrayOutputStream();
 			request.writeTo(os);
@@ -655,7 +1014,6 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		else if (sentMessageTracingLogger.isDebugEnabled()) {
 			sentMessageTracingLogger.debug("Sent request [" + request + "]");
 		}
-		connection.send(request);
 	}
 
 	/**
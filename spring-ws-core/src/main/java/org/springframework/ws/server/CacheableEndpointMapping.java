@@ -0,0 +1,37 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server;
+
+/**
+ * Marker interface for {@link EndpointMapping} implementations that resolve a request based solely on properties
+ * included in the {@linkplain MessageDispatcher#getEndpointResolutionKey(org.springframework.ws.context.MessageContext)
+ * endpoint resolution key}, such as the payload root element or the {@code SOAPAction}. Such a mapping resolves all
+ * requests with equal keys in the same way.
+ *
+ * <p>When {@linkplain MessageDispatcher#setEndpointResolutionCaching(boolean) endpoint resolution caching} is enabled,
+ * the {@link MessageDispatcher} only caches resolutions by mappings that implement this interface, and only skips
+ * such mappings for requests they did not resolve before. Other mappings are always consulted, in order.
+ *
+ * <p>Subclasses of implementing classes that resolve requests based on other properties must not be used with
+ * endpoint resolution caching.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+public interface CacheableEndpointMapping extends EndpointMapping {
+
+}
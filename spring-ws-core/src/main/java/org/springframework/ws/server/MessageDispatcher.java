@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.namespace.QName;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -43,9 +45,12 @@ import org.springframework.ws.server.endpoint.MessageEndpoint;
 import org.springframework.ws.server.endpoint.PayloadEndpoint;
 import org.springframework.ws.server.endpoint.adapter.MessageEndpointAdapter;
 import org.springframework.ws.server.endpoint.adapter.PayloadEndpointAdapter;
+import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
 import org.springframework.ws.soap.server.SoapMessageDispatcher;
+import org.springframework.ws.support.BoundedCache;
 import org.springframework.ws.support.DefaultStrategiesHelper;
 import org.springframework.ws.transport.WebServiceMessageReceiver;
+import org.springframework.xml.transform.TransformerHelper;
 
 /**
  * Central dispatcher for use within Spring-WS, dispatching Web service messages to registered endpoints.
@@ -69,6 +74,9 @@ import org.springframework.ws.transport.WebServiceMessageReceiver;
  * property.</li>
  * </ul>
  *
+ * <p>Optionally, the dispatcher can {@linkplain #setEndpointResolutionCaching(boolean) cache} which endpoint mapping
+ * resolved a request, keyed by a fingerprint of that request, and which endpoint adapter supports an endpoint.
+ *
  * @author Arjen Poutsma
  * @see EndpointMapping
  * @see EndpointAdapter
@@ -99,6 +107,9 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 	protected static final Log receivedMessageTracingLogger =
 			LogFactory.getLog(MessageDispatcher.MESSAGE_TRACING_LOG_CATEGORY + ".received");
 
+	/** Maximum number of entries in each resolution cache. */
+	private static final int MAX_CACHED_RESOLUTIONS = 256;
+
 	private final DefaultStrategiesHelper defaultStrategiesHelper;
 
 	/** The registered bean name for this dispatcher. */
@@ -113,6 +124,22 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 	/** List of EndpointMappings used in this dispatcher. */
 	private List<EndpointMapping> endpointMappings;
 
+	private boolean endpointResolutionCaching = false;
+
+	/** Winning CacheableEndpointMapping, keyed by request fingerprint. */
+	private final BoundedCache<Object, EndpointMapping> cachedEndpointMappings =
+			new BoundedCache<Object, EndpointMapping>(MAX_CACHED_RESOLUTIONS);
+
+	/** Supporting EndpointAdapter, keyed by endpoint. */
+	private final BoundedCache<Object, EndpointAdapter> cachedEndpointAdapters =
+			new BoundedCache<Object, EndpointAdapter>(MAX_CACHED_RESOLUTIONS);
+
+	private final AtomicLong endpointResolutionCacheHits = new AtomicLong();
+
+	private final AtomicLong endpointResolutionCacheMisses = new AtomicLong();
+
+	private final TransformerHelper transformerHelper = new TransformerHelper();
+
 	/** Initializes a new instance of the {@code MessageDispatcher}. */
 	public MessageDispatcher() {
 		defaultStrategiesHelper = new DefaultStrategiesHelper(getClass());
@@ -126,6 +153,7 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 	/** Sets the {@code EndpointAdapter}s to use by this {@code MessageDispatcher}. */
 	public void setEndpointAdapters(List<EndpointAdapter> endpointAdapters) {
 		this.endpointAdapters = endpointAdapters;
+		clearEndpointResolutionCache();
 	}
 
 	/** Returns the {@code EndpointExceptionResolver}s to use by this {@code MessageDispatcher}. */
@@ -146,6 +174,47 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 	/** Sets the {@code EndpointMapping}s to use by this {@code MessageDispatcher}. */
 	public void setEndpointMappings(List<EndpointMapping> endpointMappings) {
 		this.endpointMappings = endpointMappings;
+		clearEndpointResolutionCache();
+	}
+
+	/**
+	 * Indicates whether endpoint resolution is cached. When enabled, the {@link CacheableEndpointMapping} that resolves a
+	 * request is remembered for the {@linkplain #getEndpointResolutionKey(MessageContext) fingerprint} of that request,
+	 * and subsequent requests with the same fingerprint skip the cacheable mappings ordered before it. Mappings that do
+	 * not implement {@code CacheableEndpointMapping}, such as XPath-based mappings, are still consulted for every
+	 * request. The endpoint adapter that supports an endpoint is remembered as well. Both caches are bounded, and evict
+	 * the least recently used entries when full.
+	 *
+	 * <p>Computing the fingerprint and consulting the cache costs about as much as a payload root lookup. Caching
+	 * therefore only pays off when requests are usually resolved by a mapping that is preceded by other, or more
+	 * expensive, cacheable mappings. Default is {@code false}.
+	 */
+	public void setEndpointResolutionCaching(boolean endpointResolutionCaching) {
+		this.endpointResolutionCaching = endpointResolutionCaching;
+		clearEndpointResolutionCache();
+	}
+
+	/** Returns the number of requests resolved through the endpoint resolution cache. */
+	public long getEndpointResolutionCacheHitCount() {
+		return endpointResolutionCacheHits.get();
+	}
+
+	/** Returns the number of requests that could not be resolved through the endpoint resolution cache. */
+	public long getEndpointResolutionCacheMissCount() {
+		return endpointResolutionCacheMisses.get();
+	}
+
+	/** Returns the fraction of requests resolved through the endpoint resolution cache, or {@code 0} if none. */
+	public double getEndpointResolutionCacheHitRate() {
+		long hits = endpointResolutionCacheHits.get();
+		long total = hits + endpointResolutionCacheMisses.get();
+		return total > 0 ? (double) hits / total : 0;
+	}
+
+	/** Removes all cached endpoint mappings and adapters. */
+	public void clearEndpointResolutionCache() {
+		cachedEndpointMappings.clear();
+		cachedEndpointAdapters.clear();
 	}
 
 	@Override
@@ -155,6 +224,7 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+		clearEndpointResolutionCache();
 		initEndpointAdapters(applicationContext);
 		initEndpointExceptionResolvers(applicationContext);
 		initEndpointMappings(applicationContext);
@@ -265,22 +335,66 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 	/**
 	 * Returns the endpoint for this request. All endpoint mappings are tried, in order.
 	 *
+	 * <p>If {@linkplain #setEndpointResolutionCaching(boolean) caching} is enabled, and a {@link
+	 * CacheableEndpointMapping} previously resolved a request with the same fingerprint, the cacheable mappings ordered
+	 * before it are skipped.
+	 *
 	 * @return the {@code EndpointInvocationChain}, or {@code null} if no endpoint could be found.
 	 */
 	protected EndpointInvocationChain getEndpoint(MessageContext messageContext) throws Exception {
+		try {
+			return resolveEndpoint(messageContext);
+		}
+		finally {
+			// interceptors can modify the request after this point
+			messageContext.removeProperty(PayloadRootUtils.PAYLOAD_ROOT_QNAME_PROPERTY_NAME);
+		}
+	}
+
+	private EndpointInvocationChain resolveEndpoint(MessageContext messageContext) throws Exception {
+		Object cacheKey = endpointResolutionCaching ? getEndpointResolutionKey(messageContext) : null;
+		EndpointMapping cachedEndpointMapping = cacheKey != null ? cachedEndpointMappings.get(cacheKey) : null;
+		boolean skipCacheableMappings = cachedEndpointMapping != null;
 		for (EndpointMapping endpointMapping : getEndpointMappings()) {
+			boolean cacheable = endpointMapping instanceof CacheableEndpointMapping;
+			if (endpointMapping == cachedEndpointMapping) {
+				skipCacheableMappings = false;
+			}
+			else if (skipCacheableMappings && cacheable) {
+				// did not resolve requests with this fingerprint before
+				continue;
+			}
 			EndpointInvocationChain endpoint = endpointMapping.getEndpoint(messageContext);
 			if (endpoint != null) {
 				if (logger.isDebugEnabled()) {
 					logger.debug("Endpoint mapping [" + endpointMapping + "] maps request to endpoint [" +
 							endpoint.getEndpoint() + "]");
 				}
+				if (cacheKey != null) {
+					if (endpointMapping == cachedEndpointMapping) {
+						endpointResolutionCacheHits.incrementAndGet();
+					}
+					else {
+						endpointResolutionCacheMisses.incrementAndGet();
+						if (cacheable) {
+							cachedEndpointMappings.put(cacheKey, endpointMapping);
+						}
+					}
+				}
 				return endpoint;
 			}
-			else if (logger.isDebugEnabled()) {
-				logger.debug("Endpoint mapping [" + endpointMapping + "] has no mapping for request");
+			else {
+				if (endpointMapping == cachedEndpointMapping) {
+					cachedEndpointMappings.remove(cacheKey, endpointMapping);
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Endpoint mapping [" + endpointMapping + "] has no mapping for request");
+				}
 			}
 		}
+		if (cacheKey != null) {
+			endpointResolutionCacheMisses.incrementAndGet();
+		}
 		return null;
 	}
 
@@ -291,11 +405,20 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 	 * @return the adapter
 	 */
 	protected EndpointAdapter getEndpointAdapter(Object endpoint) {
+		if (endpointResolutionCaching) {
+			EndpointAdapter endpointAdapter = cachedEndpointAdapters.get(endpoint);
+			if (endpointAdapter != null) {
+				return endpointAdapter;
+			}
+		}
 		for (EndpointAdapter endpointAdapter : getEndpointAdapters()) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Testing endpoint adapter [" + endpointAdapter + "]");
 			}
 			if (endpointAdapter.supports(endpoint)) {
+				if (endpointResolutionCaching) {
+					cachedEndpointAdapters.put(endpoint, endpointAdapter);
+				}
 				return endpointAdapter;
 			}
 		}
@@ -303,6 +426,43 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 				"@Endpoint, or does it implement a supported interface like MessageHandler or PayloadEndpoint?");
 	}
 
+	/**
+	 * Returns the fingerprint of the request in the given message context, used as key for caching the endpoint mapping
+	 * that resolves it. Requests with equal fingerprints must be resolved by the same mapping.
+	 *
+	 * <p>Default implementation returns the qualified name of the payload root element, or {@code null} if the payload
+	 * of the request {@linkplain #isPayloadRepeatable(WebServiceMessage) cannot be read repeatedly}. The name is kept in
+	 * the {@link PayloadRootUtils#PAYLOAD_ROOT_QNAME_PROPERTY_NAME} property of the message context while the endpoint
+	 * is resolved, so that the payload root endpoint mappings do not read the payload again. Subclasses can add further
+	 * properties of the request.
+	 *
+	 * @param messageContext the message context
+	 * @return the fingerprint, or {@code null} if the request should not be resolved through the cache
+	 * @see #setEndpointResolutionCaching(boolean)
+	 */
+	protected Object getEndpointResolutionKey(MessageContext messageContext) throws Exception {
+		WebServiceMessage request = messageContext.getRequest();
+		if (!isPayloadRepeatable(request)) {
+			return null;
+		}
+		QName payloadRootQName = PayloadRootUtils.getPayloadRootQName(request.getPayloadSource(), transformerHelper);
+		messageContext.setProperty(PayloadRootUtils.PAYLOAD_ROOT_QNAME_PROPERTY_NAME, payloadRootQName);
+		return payloadRootQName;
+	}
+
+	/**
+	 * Indicates whether the payload of the given request can be read more than once. If not, the payload is left for
+	 * the endpoint, and the request is not resolved through the endpoint resolution cache.
+	 *
+	 * <p>Default implementation returns {@code true}.
+	 *
+	 * @param request the request message
+	 * @return {@code true} if reading the payload does not consume it; {@code false} otherwise
+	 */
+	protected boolean isPayloadRepeatable(WebServiceMessage request) {
+		return true;
+	}
+
 	/**
 	 * Callback for pre-processing of given invocation chain and message context. Gets called before invocation of
 	 * {@code handleRequest} on the interceptors.
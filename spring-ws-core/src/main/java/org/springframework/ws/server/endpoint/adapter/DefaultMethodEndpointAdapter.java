@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,23 @@
 
 package org.springframework.ws.server.endpoint.adapter;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.validation.Schema;
+
+import org.xml.sax.SAXException;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.ws.context.MessageContext;
@@ -40,11 +49,16 @@ import org.springframework.ws.server.endpoint.adapter.method.dom.JDomPayloadMeth
 import org.springframework.ws.server.endpoint.adapter.method.dom.XomPayloadMethodProcessor;
 import org.springframework.ws.server.endpoint.adapter.method.jaxb.JaxbElementPayloadMethodProcessor;
 import org.springframework.ws.server.endpoint.adapter.method.jaxb.XmlRootElementPayloadMethodProcessor;
+import org.springframework.xml.validation.SchemaLoaderUtils;
+import org.springframework.xml.validation.XmlValidatorFactory;
 
 /**
  * Default extension of {@link AbstractMethodEndpointAdapter} with support for pluggable {@linkplain
  * MethodArgumentResolver argument resolvers} and {@linkplain MethodReturnValueHandler return value handlers}.
  *
+ * <p>The resolver for each parameter and the handler for the return type of an endpoint method are determined once, the
+ * first time the method is used, and are reused for all subsequent invocations.
+ *
  * @author Arjen Poutsma
  * @since 2.0
  */
@@ -77,6 +91,11 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 
 	private ClassLoader classLoader;
 
+	private Schema schema;
+
+	private final ConcurrentMap<Method, InvocationPlan> invocationPlans =
+			new ConcurrentHashMap<Method, InvocationPlan>();
+
 	/**
 	 * Returns the list of {@code MethodArgumentResolver}s to use.
 	 */
@@ -89,6 +108,7 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 	 */
 	public void setMethodArgumentResolvers(List<MethodArgumentResolver> methodArgumentResolvers) {
 		this.methodArgumentResolvers = methodArgumentResolvers;
+		this.invocationPlans.clear();
 	}
 
 	/**
@@ -120,6 +140,7 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 	 */
 	public void setMethodReturnValueHandlers(List<MethodReturnValueHandler> methodReturnValueHandlers) {
 		this.methodReturnValueHandlers = methodReturnValueHandlers;
+		this.invocationPlans.clear();
 	}
 
 	/**
@@ -139,6 +160,32 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 		this.customMethodReturnValueHandlers = customMethodReturnValueHandlers;
 	}
 
+	/**
+	 * Sets the schema that the default JAXB2 argument resolvers validate request payloads against while unmarshalling
+	 * them. Invalid payloads result in a client fault. Default is {@code null}, i.e. no validation.
+	 *
+	 * <p>This property only applies to the default argument resolvers, i.e. when no {@linkplain
+	 * #setMethodArgumentResolvers(List) argument resolvers} are set explicitly.
+	 *
+	 * @see org.springframework.ws.server.endpoint.adapter.method.jaxb.AbstractJaxb2PayloadMethodProcessor#setSchema(Schema)
+	 */
+	public void setSchema(Schema schema) {
+		this.schema = schema;
+	}
+
+	/**
+	 * Sets the W3C XML Schema resources that the default JAXB2 argument resolvers validate request payloads against.
+	 *
+	 * @param schemaResources the schema resources to load
+	 * @throws IOException  if a schema resource cannot be read
+	 * @throws SAXException if a schema cannot be parsed
+	 * @see #setSchema(Schema)
+	 */
+	public void setSchemas(Resource... schemaResources) throws IOException, SAXException {
+		Assert.notEmpty(schemaResources, "'schemaResources' must not be empty");
+		setSchema(SchemaLoaderUtils.loadSchema(schemaResources, XmlValidatorFactory.SCHEMA_W3C_XML));
+	}
+
 	private ClassLoader getClassLoader() {
 		return this.classLoader != null ? this.classLoader : DefaultMethodEndpointAdapter.class.getClassLoader();
 	}
@@ -172,8 +219,12 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 				methodArgumentResolvers.add(new Dom4jPayloadMethodProcessor());
 			}
 			if (isPresent(JAXB2_CLASS_NAME)) {
-				methodArgumentResolvers.add(new XmlRootElementPayloadMethodProcessor());
-				methodArgumentResolvers.add(new JaxbElementPayloadMethodProcessor());
+				XmlRootElementPayloadMethodProcessor xmlRootElementProcessor = new XmlRootElementPayloadMethodProcessor();
+				xmlRootElementProcessor.setSchema(schema);
+				methodArgumentResolvers.add(xmlRootElementProcessor);
+				JaxbElementPayloadMethodProcessor jaxbElementProcessor = new JaxbElementPayloadMethodProcessor();
+				jaxbElementProcessor.setSchema(schema);
+				methodArgumentResolvers.add(jaxbElementProcessor);
 			}
 			if (isPresent(JDOM_CLASS_NAME)) {
 				methodArgumentResolvers.add(new JDomPayloadMethodProcessor());
@@ -244,40 +295,65 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 
 	@Override
 	protected boolean supportsInternal(MethodEndpoint methodEndpoint) {
-		return supportsParameters(methodEndpoint.getMethodParameters()) &&
-				supportsReturnType(methodEndpoint.getReturnType());
+		InvocationPlan invocationPlan = getInvocationPlan(methodEndpoint);
+		return invocationPlan.supportsParameters() &&
+				(invocationPlan.isVoid() || getMethodReturnValueHandler(invocationPlan) != null);
 	}
 
-	private boolean supportsParameters(MethodParameter[] methodParameters) {
-		for (MethodParameter methodParameter : methodParameters) {
-			boolean supported = false;
-			for (MethodArgumentResolver methodArgumentResolver : methodArgumentResolvers) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Testing if argument resolver [" + methodArgumentResolver + "] supports [" +
-							methodParameter.getGenericParameterType() + "]");
-				}
-				if (methodArgumentResolver.supportsParameter(methodParameter)) {
-					supported = true;
-					break;
-				}
+	/**
+	 * Returns the invocation plan for the given method endpoint, creating it if necessary.
+	 */
+	private InvocationPlan getInvocationPlan(MethodEndpoint methodEndpoint) {
+		Method method = methodEndpoint.getMethod();
+		InvocationPlan invocationPlan = invocationPlans.get(method);
+		if (invocationPlan == null) {
+			invocationPlan = createInvocationPlan(methodEndpoint);
+			invocationPlans.putIfAbsent(method, invocationPlan);
+		}
+		return invocationPlan;
+	}
+
+	private InvocationPlan createInvocationPlan(MethodEndpoint methodEndpoint) {
+		MethodParameter[] parameters = methodEndpoint.getMethodParameters();
+		MethodArgumentResolver[] argumentResolvers = new MethodArgumentResolver[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			argumentResolvers[i] = findMethodArgumentResolver(parameters[i]);
+		}
+		return new InvocationPlan(parameters, argumentResolvers, methodEndpoint.getReturnType());
+	}
+
+	/**
+	 * Returns the return value handler bound to the given plan. The handler is looked up on first use only, as the return
+	 * type is not relevant when parameters are unsupported, or when the method throws an exception.
+	 */
+	private MethodReturnValueHandler getMethodReturnValueHandler(InvocationPlan invocationPlan) {
+		if (!invocationPlan.returnValueHandlerResolved) {
+			invocationPlan.returnValueHandler = findMethodReturnValueHandler(invocationPlan.returnType);
+			invocationPlan.returnValueHandlerResolved = true;
+		}
+		return invocationPlan.returnValueHandler;
+	}
+
+	private MethodArgumentResolver findMethodArgumentResolver(MethodParameter methodParameter) {
+		for (MethodArgumentResolver methodArgumentResolver : methodArgumentResolvers) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Testing if argument resolver [" + methodArgumentResolver + "] supports [" +
+						methodParameter.getGenericParameterType() + "]");
 			}
-			if (!supported) {
-				return false;
+			if (methodArgumentResolver.supportsParameter(methodParameter)) {
+				return methodArgumentResolver;
 			}
 		}
-		return true;
+		return null;
 	}
 
-	private boolean supportsReturnType(MethodParameter methodReturnType) {
-		if (Void.TYPE.equals(methodReturnType.getParameterType())) {
-			return true;
-		}
+	private MethodReturnValueHandler findMethodReturnValueHandler(MethodParameter methodReturnType) {
 		for (MethodReturnValueHandler methodReturnValueHandler : methodReturnValueHandlers) {
 			if (methodReturnValueHandler.supportsReturnType(methodReturnType)) {
-				return true;
+				return methodReturnValueHandler;
 			}
 		}
-		return false;
+		return null;
 	}
 
 	@Override
@@ -303,8 +379,8 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 	/**
 	 * Returns the argument array for the given method endpoint.
 	 *
-	 * <p>This implementation iterates over the set {@linkplain #setMethodArgumentResolvers(List) argument resolvers} to
-	 * resolve each argument.
+	 * <p>This implementation uses the {@linkplain #setMethodArgumentResolvers(List) argument resolver} that was found to
+	 * support each parameter when the method was first used.
 	 *
 	 * @param messageContext the current message context
 	 * @param methodEndpoint the method endpoint to get arguments for
@@ -313,14 +389,13 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 	 */
 	protected Object[] getMethodArguments(MessageContext messageContext, MethodEndpoint methodEndpoint)
 			throws Exception {
-		MethodParameter[] parameters = methodEndpoint.getMethodParameters();
+		InvocationPlan invocationPlan = getInvocationPlan(methodEndpoint);
+		MethodParameter[] parameters = invocationPlan.parameters;
 		Object[] args = new Object[parameters.length];
 		for (int i = 0; i < parameters.length; i++) {
-			for (MethodArgumentResolver methodArgumentResolver : methodArgumentResolvers) {
-				if (methodArgumentResolver.supportsParameter(parameters[i])) {
-					args[i] = methodArgumentResolver.resolveArgument(messageContext, parameters[i]);
-					break;
-				}
+			MethodArgumentResolver methodArgumentResolver = invocationPlan.argumentResolvers[i];
+			if (methodArgumentResolver != null) {
+				args[i] = methodArgumentResolver.resolveArgument(messageContext, parameters[i]);
 			}
 		}
 		return args;
@@ -329,8 +404,8 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 	/**
 	 * Handle the return value for the given method endpoint.
 	 *
-	 * <p>This implementation iterates over the set {@linkplain #setMethodReturnValueHandlers(java.util.List)}	return value
-	 * handlers} to resolve the return value.
+	 * <p>This implementation uses the {@linkplain #setMethodReturnValueHandlers(java.util.List) return value handler}
+	 * that was found to support the return type when the method was first used.
 	 *
 	 * @param messageContext the current message context
 	 * @param returnValue	 the return value
@@ -340,14 +415,51 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 	protected void handleMethodReturnValue(MessageContext messageContext,
 										   Object returnValue,
 										   MethodEndpoint methodEndpoint) throws Exception {
-		MethodParameter returnType = methodEndpoint.getReturnType();
-		for (MethodReturnValueHandler methodReturnValueHandler : methodReturnValueHandlers) {
-			if (methodReturnValueHandler.supportsReturnType(returnType)) {
-				methodReturnValueHandler.handleReturnValue(messageContext, returnType, returnValue);
-				return;
-			}
+		InvocationPlan invocationPlan = getInvocationPlan(methodEndpoint);
+		MethodReturnValueHandler methodReturnValueHandler = getMethodReturnValueHandler(invocationPlan);
+		if (methodReturnValueHandler != null) {
+			methodReturnValueHandler.handleReturnValue(messageContext, invocationPlan.returnType, returnValue);
+			return;
 		}
 		throw new IllegalStateException(
 				"Return value [" + returnValue + "] not resolved by any MethodReturnValueHandler");
 	}
+
+	/**
+	 * The argument resolvers and return value handler bound to the parameters and return type of an endpoint method.
+	 * Array elements, or the return value handler, are {@code null} when nothing supports the corresponding parameter or
+	 * return type. The return value handler is resolved lazily.
+	 */
+	private static class InvocationPlan {
+
+		private final MethodParameter[] parameters;
+
+		private final MethodArgumentResolver[] argumentResolvers;
+
+		private final MethodParameter returnType;
+
+		private volatile MethodReturnValueHandler returnValueHandler;
+
+		private volatile boolean returnValueHandlerResolved;
+
+		private InvocationPlan(MethodParameter[] parameters, MethodArgumentResolver[] argumentResolvers,
+				MethodParameter returnType) {
+			this.parameters = parameters;
+			this.argumentResolvers = argumentResolvers;
+			this.returnType = returnType;
+		}
+
+		private boolean supportsParameters() {
+			for (MethodArgumentResolver argumentResolver : argumentResolvers) {
+				if (argumentResolver == null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean isVoid() {
+			return Void.TYPE.equals(returnType.getParameterType());
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import javax.xml.bind.JAXBContext;
@@ -42,14 +44,17 @@ import javax.xml.transform.Source;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
 
 import org.w3c.dom.Node;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.ext.LexicalHandler;
 
 import org.springframework.core.MethodParameter;
+import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.context.MessageContext;
@@ -57,6 +62,8 @@ import org.springframework.ws.server.endpoint.adapter.method.AbstractPayloadMeth
 import org.springframework.ws.stream.StreamingPayload;
 import org.springframework.ws.stream.StreamingWebServiceMessage;
 import org.springframework.xml.transform.TraxUtils;
+import org.springframework.xml.validation.SchemaLoaderUtils;
+import org.springframework.xml.validation.XmlValidatorFactory;
 
 /**
  * Abstract base class for {@link org.springframework.ws.server.endpoint.adapter.method.MethodArgumentResolver
@@ -66,13 +73,86 @@ import org.springframework.xml.transform.TraxUtils;
  * {@linkplain #unmarshalFromRequestPayload(org.springframework.ws.context.MessageContext, Class) unmarshalling}
  * methods.
  *
+ * <p>Since {@link Marshaller} and {@link Unmarshaller} instances are not thread-safe, but are expensive to create, this
+ * class keeps a bounded pool of them per payload class. Instances are borrowed for the duration of a single
+ * (un)marshalling operation, and returned afterwards. The size of each pool can be set using {@link #setPoolSize(int)}.
+ * Properties that are changed for a single operation are restored to their previous value before an instance is
+ * returned, and instances whose operation failed are discarded rather than returned, so that every borrowed instance
+ * is configured as if it were newly created.
+ *
+ * <p>If a {@linkplain #setSchema(Schema) schema} is set, request payloads are validated while they are unmarshalled. As
+ * opposed to using a {@link org.springframework.ws.server.endpoint.interceptor.PayloadValidatingInterceptor
+ * PayloadValidatingInterceptor}, this parses the payload only once. Note that the payload is still read through
+ * {@link WebServiceMessage#getPayloadSource()}, so message implementations that buffer the payload, such as SAAJ
+ * messages, or Axiom messages with payload caching enabled, still hold it in memory.
+ *
  * @author Arjen Poutsma
  * @since 2.0
  */
 public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloadMethodProcessor {
 
+	/** The default maximum number of pooled marshallers and unmarshallers per class. */
+	public static final int DEFAULT_POOL_SIZE = 8;
+
 	private final ConcurrentMap<Class<?>, JAXBContext> jaxbContexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
 
+	private final ConcurrentMap<Class<?>, BlockingQueue<Marshaller>> marshallerPools =
+			new ConcurrentHashMap<Class<?>, BlockingQueue<Marshaller>>();
+
+	private final ConcurrentMap<Class<?>, BlockingQueue<Unmarshaller>> unmarshallerPools =
+			new ConcurrentHashMap<Class<?>, BlockingQueue<Unmarshaller>>();
+
+	private final ConcurrentMap<Class<?>, QName> elementNames = new ConcurrentHashMap<Class<?>, QName>();
+
+	private int poolSize = DEFAULT_POOL_SIZE;
+
+	private Schema schema;
+
+	/**
+	 * Sets the maximum number of {@link Marshaller} and {@link Unmarshaller} instances that are kept for reuse, per
+	 * payload class. Defaults to {@link #DEFAULT_POOL_SIZE}.
+	 *
+	 * <p>Setting this property to {@code 0} disables pooling, and creates a new (un)marshaller for every message.
+	 */
+	public void setPoolSize(int poolSize) {
+		Assert.isTrue(poolSize >= 0, "'poolSize' must not be negative");
+		this.poolSize = poolSize;
+		this.marshallerPools.clear();
+		this.unmarshallerPools.clear();
+	}
+
+	/**
+	 * Returns the maximum number of (un)marshallers that are kept for reuse, per payload class.
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * Sets the schema to validate request payloads against while unmarshalling them. If a request payload is invalid,
+	 * unmarshalling fails with a {@link PayloadValidationException}, which results in a client fault. Default is
+	 * {@code null}, i.e. no validation.
+	 *
+	 * @see Unmarshaller#setSchema(Schema)
+	 */
+	public void setSchema(Schema schema) {
+		this.schema = schema;
+		this.unmarshallerPools.clear();
+	}
+
+	/**
+	 * Sets the W3C XML Schema resources to validate request payloads against while unmarshalling them.
+	 *
+	 * @param schemaResources the schema resources to load
+	 * @throws IOException  if a schema resource cannot be read
+	 * @throws SAXException if a schema cannot be parsed
+	 * @see #setSchema(Schema)
+	 */
+	public void setSchemas(Resource... schemaResources) throws IOException, SAXException {
+		Assert.notEmpty(schemaResources, "'schemaResources' must not be empty");
+		setSchema(SchemaLoaderUtils.loadSchema(schemaResources, XmlValidatorFactory.SCHEMA_W3C_XML));
+	}
+
 	@Override
 	public final void handleReturnValue(MessageContext messageContext,
 			MethodParameter returnType, Object returnValue) throws Exception {
@@ -110,8 +190,16 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 		else {
 			Result responsePayload = response.getPayloadResult();
 			try {
-				Jaxb2ResultCallback callback = new Jaxb2ResultCallback(clazz, jaxbElement);
-				TraxUtils.doWithResult(responsePayload, callback);
+				Marshaller marshaller = borrowMarshaller(clazz);
+				boolean completed = false;
+				try {
+					Jaxb2ResultCallback callback = new Jaxb2ResultCallback(marshaller, jaxbElement);
+					TraxUtils.doWithResult(responsePayload, callback);
+					completed = true;
+				}
+				finally {
+					releaseMarshaller(clazz, marshaller, completed);
+				}
 			}
 			catch (Exception ex) {
 				throw convertToJaxbException(ex);
@@ -134,14 +222,23 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 			return null;
 		}
 		try {
-			Jaxb2SourceCallback callback = new Jaxb2SourceCallback(clazz);
-			TraxUtils.doWithSource(requestPayload, callback);
+			Unmarshaller unmarshaller = borrowUnmarshaller(clazz);
+			Jaxb2SourceCallback callback = new Jaxb2SourceCallback(unmarshaller);
+			boolean completed = false;
+			try {
+				TraxUtils.doWithSource(requestPayload, callback);
+				completed = true;
+			}
+			finally {
+				releaseUnmarshaller(clazz, unmarshaller, completed);
+			}
 			if (logger.isDebugEnabled()) {
 				logger.debug("Unmarshalled payload request to [" + callback.result + "]");
 			}
 			return callback.result;
 		}
 		catch (Exception ex) {
+			throwValidationException(ex);
 			throw convertToJaxbException(ex);
 		}
 	}
@@ -161,14 +258,23 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 			return null;
 		}
 		try {
-			JaxbElementSourceCallback<T> callback = new JaxbElementSourceCallback<T>(clazz);
-			TraxUtils.doWithSource(requestPayload, callback);
+			Unmarshaller unmarshaller = borrowUnmarshaller(clazz);
+			JaxbElementSourceCallback<T> callback = new JaxbElementSourceCallback<T>(unmarshaller, clazz);
+			boolean completed = false;
+			try {
+				TraxUtils.doWithSource(requestPayload, callback);
+				completed = true;
+			}
+			finally {
+				releaseUnmarshaller(clazz, unmarshaller, completed);
+			}
 			if (logger.isDebugEnabled()) {
 				logger.debug("Unmarshalled payload request to [" + callback.result + "]");
 			}
 			return callback.result;
 		}
 		catch (Exception ex) {
+			throwValidationException(ex);
 			throw convertToJaxbException(ex);
 		}
 	}
@@ -178,6 +284,31 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 		return request != null ? request.getPayloadSource() : null;
 	}
 
+	/**
+	 * Throws a {@link PayloadValidationException} if the given unmarshalling exception was caused by a validation error.
+	 */
+	private void throwValidationException(Exception ex) {
+		if (schema != null) {
+			SAXException validationError = getValidationError(ex);
+			if (validationError != null) {
+				throw new PayloadValidationException(validationError);
+			}
+		}
+	}
+
+	private static SAXException getValidationError(Exception ex) {
+		if (ex instanceof SAXException) {
+			return (SAXException) ex;
+		}
+		else if (ex instanceof JAXBException) {
+			Throwable linkedException = ((JAXBException) ex).getLinkedException();
+			if (linkedException instanceof SAXException) {
+				return (SAXException) linkedException;
+			}
+		}
+		return null;
+	}
+
 	private JAXBException convertToJaxbException(Exception ex) {
 		if (ex instanceof JAXBException) {
 			return (JAXBException) ex;
@@ -218,9 +349,76 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 	}
 
 	private Unmarshaller createUnmarshaller(Class<?> clazz) throws JAXBException {
-		return createUnmarshaller(getJaxbContext(clazz));
+		Unmarshaller unmarshaller = createUnmarshaller(getJaxbContext(clazz));
+		if (schema != null) {
+			unmarshaller.setSchema(schema);
+		}
+		return unmarshaller;
 	}
 
+	private Marshaller borrowMarshaller(Class<?> clazz) throws JAXBException {
+		Marshaller marshaller = poll(marshallerPools, clazz);
+		return marshaller != null ? marshaller : createMarshaller(clazz);
+	}
+
+	/**
+	 * Returns the given marshaller to the pool, unless the operation it was borrowed for failed, in which case it might
+	 * be left in an inconsistent state.
+	 */
+	private void releaseMarshaller(Class<?> clazz, Marshaller marshaller, boolean completed) {
+		if (completed && poolSize > 0) {
+			offer(marshallerPools, clazz, marshaller);
+		}
+	}
+
+	private Unmarshaller borrowUnmarshaller(Class<?> clazz) throws JAXBException {
+		Unmarshaller unmarshaller = poll(unmarshallerPools, clazz);
+		return unmarshaller != null ? unmarshaller : createUnmarshaller(clazz);
+	}
+
+	/**
+	 * Returns the given unmarshaller to the pool, unless the operation it was borrowed for failed, in which case it might
+	 * be left in an inconsistent state.
+	 */
+	private void releaseUnmarshaller(Class<?> clazz, Unmarshaller unmarshaller, boolean completed) {
+		if (completed && poolSize > 0) {
+			offer(unmarshallerPools, clazz, unmarshaller);
+		}
+	}
+
+	private <T> T poll(ConcurrentMap<Class<?>, BlockingQueue<T>> pools, Class<?> clazz) {
+		BlockingQueue<T> pool = pools.get(clazz);
+		return pool != null ? pool.poll() : null;
+	}
+
+	private <T> void offer(ConcurrentMap<Class<?>, BlockingQueue<T>> pools, Class<?> clazz, T instance) {
+		BlockingQueue<T> pool = pools.get(clazz);
+		if (pool == null) {
+			pool = new ArrayBlockingQueue<T>(poolSize);
+			BlockingQueue<T> existing = pools.putIfAbsent(clazz, pool);
+			if (existing != null) {
+				pool = existing;
+			}
+		}
+		// if the pool is full, the instance is simply discarded
+		pool.offer(instance);
+	}
+
+	private QName getElementName(Class<?> clazz, Object jaxbElement) throws JAXBException {
+		if (jaxbElement instanceof JAXBElement) {
+			return ((JAXBElement<?>) jaxbElement).getName();
+		}
+		Class<?> elementClass = jaxbElement.getClass();
+		QName name = elementNames.get(elementClass);
+		if (name == null) {
+			JAXBIntrospector introspector = getJaxbContext(clazz).createJAXBIntrospector();
+			name = introspector.getElementName(jaxbElement);
+			if (name != null) {
+				elementNames.putIfAbsent(elementClass, name);
+			}
+		}
+		return name;
+	}
 
 	private JAXBContext getJaxbContext(Class<?> clazz) throws JAXBException {
 		Assert.notNull(clazz, "'clazz' must not be null");
@@ -240,8 +438,8 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 		private Object result;
 
-		public Jaxb2SourceCallback(Class<?> clazz) throws JAXBException {
-			this.unmarshaller = createUnmarshaller(clazz);
+		public Jaxb2SourceCallback(Unmarshaller unmarshaller) {
+			this.unmarshaller = unmarshaller;
 		}
 
 		@Override
@@ -305,8 +503,8 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 		private JAXBElement<T> result;
 
-		public JaxbElementSourceCallback(Class<T> declaredType) throws JAXBException {
-			this.unmarshaller = createUnmarshaller(declaredType);
+		public JaxbElementSourceCallback(Unmarshaller unmarshaller, Class<T> declaredType) {
+			this.unmarshaller = unmarshaller;
 			this.declaredType = declaredType;
 		}
 
@@ -352,8 +550,8 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 		private final Object jaxbElement;
 
-		private Jaxb2ResultCallback(Class<?> clazz, Object jaxbElement) throws JAXBException {
-			this.marshaller = createMarshaller(clazz);
+		private Jaxb2ResultCallback(Marshaller marshaller, Object jaxbElement) {
+			this.marshaller = marshaller;
 			this.jaxbElement = jaxbElement;
 		}
 
@@ -395,19 +593,16 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 	private class JaxbStreamingPayload implements StreamingPayload {
 
-		private final Object jaxbElement;
+		private final Class<?> clazz;
 
-		private final Marshaller marshaller;
+		private final Object jaxbElement;
 
 		private final QName name;
 
 		private JaxbStreamingPayload(Class<?> clazz, Object jaxbElement) throws JAXBException {
-			JAXBContext jaxbContext = getJaxbContext(clazz);
-			this.marshaller = jaxbContext.createMarshaller();
-			this.marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+			this.clazz = clazz;
 			this.jaxbElement = jaxbElement;
-			JAXBIntrospector introspector = jaxbContext.createJAXBIntrospector();
-			this.name = introspector.getElementName(jaxbElement);
+			this.name = getElementName(clazz, jaxbElement);
 		}
 
 		@Override
@@ -417,8 +612,21 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 		@Override
 		public void writeTo(XMLStreamWriter streamWriter) throws XMLStreamException {
+			// the payload can be written more than once, so borrow a marshaller for every write
 			try {
-				marshaller.marshal(jaxbElement, streamWriter);
+				Marshaller marshaller = borrowMarshaller(clazz);
+				boolean completed = false;
+				try {
+					// restore the configured value, rather than assuming the default
+					Object fragment = marshaller.getProperty(Marshaller.JAXB_FRAGMENT);
+					marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+					marshaller.marshal(jaxbElement, streamWriter);
+					marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment != null ? fragment : Boolean.FALSE);
+					completed = true;
+				}
+				finally {
+					releaseMarshaller(clazz, marshaller, completed);
+				}
 			}
 			catch (JAXBException ex) {
 				throw new XMLStreamException("Could not marshal [" + jaxbElement + "]: " + ex.getMessage(), ex);
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.adapter.method.jaxb;
+
+import org.springframework.ws.WebServiceException;
+
+/**
+ * Exception thrown when a request payload does not conform to the {@linkplain
+ * AbstractJaxb2PayloadMethodProcessor#setSchema(javax.xml.validation.Schema) schema} it is validated against while
+ * being unmarshalled. For SOAP messages, resolved to a {@code Client} (SOAP 1.1) or {@code Sender} (SOAP 1.2) fault
+ * by the {@link org.springframework.ws.soap.server.endpoint.SoapFaultAnnotationExceptionResolver}.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+@SuppressWarnings("serial")
+public class PayloadValidationException extends WebServiceException {
+
+	/**
+	 * Create a new instance of the {@code PayloadValidationException} class.
+	 *
+	 * @param cause the validation error reported while unmarshalling
+	 */
+	public PayloadValidationException(Throwable cause) {
+		super("XML validation error on request: " + cause.getMessage(), cause);
+	}
+}
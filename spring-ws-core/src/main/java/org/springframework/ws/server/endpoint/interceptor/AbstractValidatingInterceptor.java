@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,6 +66,12 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 
 	private XmlValidator validator;
 
+	private XsdSchema xsdSchema;
+
+	private XsdSchemaCollection xsdSchemaCollection;
+
+	private int validatorPoolSize = 0;
+
 	private ValidationErrorHandler errorHandler;
 
 	public String getSchemaLanguage() {
@@ -120,6 +126,8 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 	 */
 	public void setXsdSchema(XsdSchema schema) {
 		this.validator = schema.createValidator();
+		this.xsdSchema = schema;
+		this.xsdSchemaCollection = null;
 	}
 
 	/**
@@ -132,6 +140,8 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 	 */
 	public void setXsdSchemaCollection(XsdSchemaCollection schemaCollection) {
 		this.validator = schemaCollection.createValidator();
+		this.xsdSchema = null;
+		this.xsdSchemaCollection = schemaCollection;
 	}
 
 	/**
@@ -143,6 +153,21 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 		this.errorHandler = errorHandler;
 	}
 
+	/**
+	 * Sets the maximum number of JAXP validators to keep for reuse. Default is {@code 0}, which creates a new validator
+	 * for every message.
+	 *
+	 * <p>Applies to the {@link #setSchemas(Resource[]) schemas}, as well as to the {@link #setXsdSchema(XsdSchema)
+	 * xsdSchema} and {@link #setXsdSchemaCollection(XsdSchemaCollection) xsdSchemaCollection}, provided that these
+	 * support {@linkplain XsdSchema#createValidator(int) pooling}.
+	 *
+	 * @see XmlValidatorFactory#createValidator(Resource[], String, int)
+	 */
+	public void setValidatorPoolSize(int validatorPoolSize) {
+		Assert.isTrue(validatorPoolSize >= 0, "'validatorPoolSize' must not be negative");
+		this.validatorPoolSize = validatorPoolSize;
+	}
+
 	/** Indicates whether the request should be validated against the schema. Default is {@code true}. */
 	public void setValidateRequest(boolean validateRequest) {
 		this.validateRequest = validateRequest;
@@ -163,7 +188,13 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 			if (logger.isInfoEnabled()) {
 				logger.info("Validating using " + StringUtils.arrayToCommaDelimitedString(schemas));
 			}
-			validator = XmlValidatorFactory.createValidator(schemas, schemaLanguage);
+			validator = XmlValidatorFactory.createValidator(schemas, schemaLanguage, validatorPoolSize);
+		}
+		else if (validatorPoolSize > 0 && xsdSchema != null) {
+			validator = xsdSchema.createValidator(validatorPoolSize);
+		}
+		else if (validatorPoolSize > 0 && xsdSchemaCollection != null) {
+			validator = xsdSchemaCollection.createValidator(validatorPoolSize);
 		}
 		Assert.notNull(validator, "Setting 'schema', 'schemas', 'xsdSchema', or 'xsdSchemaCollection' is required");
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import javax.xml.transform.TransformerFactory;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.CacheableEndpointMapping;
 import org.springframework.ws.server.EndpointMapping;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoots;
@@ -50,7 +51,8 @@ import org.springframework.xml.transform.TransformerFactoryUtils;
  * @author Arjen Poutsma
  * @since 1.0.0
  */
-public class PayloadRootAnnotationMethodEndpointMapping extends AbstractAnnotationMethodEndpointMapping<QName> {
+public class PayloadRootAnnotationMethodEndpointMapping extends AbstractAnnotationMethodEndpointMapping<QName>
+		implements CacheableEndpointMapping {
 
 	private static TransformerFactory transformerFactory;
 
@@ -69,7 +71,7 @@ public class PayloadRootAnnotationMethodEndpointMapping extends AbstractAnnotati
 
 	@Override
 	protected QName getLookupKeyForMessage(MessageContext messageContext) throws Exception {
-		return PayloadRootUtils.getPayloadRootQName(messageContext.getRequest().getPayloadSource(), transformerFactory);
+		return PayloadRootUtils.getRequestPayloadRootQName(messageContext, transformerFactory);
 	}
 
 	@Override
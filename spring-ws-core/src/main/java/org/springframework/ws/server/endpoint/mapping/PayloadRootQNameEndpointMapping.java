@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.CacheableEndpointMapping;
 import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
 import org.springframework.xml.transform.TransformerFactoryUtils;
 
@@ -45,7 +46,7 @@ import org.springframework.xml.transform.TransformerFactoryUtils;
  * @see org.springframework.xml.namespace.QNameEditor
  * @since 1.0.0
  */
-public class PayloadRootQNameEndpointMapping extends AbstractQNameEndpointMapping {
+public class PayloadRootQNameEndpointMapping extends AbstractQNameEndpointMapping implements CacheableEndpointMapping {
 
 	private static TransformerFactory transformerFactory;
 
@@ -64,6 +65,6 @@ public class PayloadRootQNameEndpointMapping extends AbstractQNameEndpointMappin
 	
 	@Override
 	protected QName resolveQName(MessageContext messageContext) throws TransformerException {
-		return PayloadRootUtils.getPayloadRootQName(messageContext.getRequest().getPayloadSource(), transformerFactory);
+		return PayloadRootUtils.getRequestPayloadRootQName(messageContext, transformerFactory);
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,6 +34,7 @@ import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
 import org.xml.sax.XMLReader;
 
+import org.springframework.ws.context.MessageContext;
 import org.springframework.xml.namespace.QNameUtils;
 import org.springframework.xml.transform.TransformerHelper;
 import org.springframework.xml.transform.TraxUtils;
@@ -46,9 +47,46 @@ import org.springframework.xml.transform.TraxUtils;
  */
 public abstract class PayloadRootUtils {
 
+	/**
+	 * Name of the message context property that holds the root qualified name of the request payload while the
+	 * {@link org.springframework.ws.server.MessageDispatcher} resolves the endpoint of the request.
+	 *
+	 * @since 3.0.8
+	 */
+	public static final String PAYLOAD_ROOT_QNAME_PROPERTY_NAME =
+			PayloadRootUtils.class.getName() + ".PAYLOAD_ROOT_QNAME";
+
 	private PayloadRootUtils() {
 	}
 
+	/**
+	 * Returns the root qualified name of the request payload of the given message context. If the message context has a
+	 * {@link #PAYLOAD_ROOT_QNAME_PROPERTY_NAME} property, its value is returned without reading the payload again.
+	 *
+	 * @param messageContext	 the message context of the request
+	 * @param transformerFactory a transformer factory, necessary if the payload is not a {@code DOMSource}
+	 * @return the root element, or {@code null} if the request has no payload
+	 * @since 3.0.8
+	 */
+	public static QName getRequestPayloadRootQName(MessageContext messageContext, TransformerFactory transformerFactory)
+			throws TransformerException {
+		return getRequestPayloadRootQName(messageContext, new TransformerHelper(transformerFactory));
+	}
+
+	/**
+	 * Returns the root qualified name of the request payload of the given message context.
+	 *
+	 * @see #getRequestPayloadRootQName(MessageContext, TransformerFactory)
+	 * @since 3.0.8
+	 */
+	public static QName getRequestPayloadRootQName(MessageContext messageContext, TransformerHelper transformerHelper)
+			throws TransformerException {
+		if (messageContext.containsProperty(PAYLOAD_ROOT_QNAME_PROPERTY_NAME)) {
+			return (QName) messageContext.getProperty(PAYLOAD_ROOT_QNAME_PROPERTY_NAME);
+		}
+		return getPayloadRootQName(messageContext.getRequest().getPayloadSource(), transformerHelper);
+	}
+
 	/**
 	 * Returns the root qualified name of the given source, transforming it if necessary.
 	 *
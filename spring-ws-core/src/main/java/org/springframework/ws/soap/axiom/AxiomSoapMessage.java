@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.io.Writer;
 import java.util.Iterator;
 import javax.activation.DataHandler;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.dom.DOMSource;
 
 import org.apache.axiom.attachments.Attachments;
@@ -40,6 +41,7 @@ import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.SOAPMessage;
 import org.apache.axiom.soap.SOAPProcessingException;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -83,6 +85,8 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 
 	private OMOutputFormat outputFormat;
 
+	private XmlStreamWriterFactory xmlStreamWriterFactory;
+
 	/**
 	 * Create a new, empty {@code AxiomSoapMessage}.
 	 *
@@ -153,6 +157,13 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 		return axiomMessage;
 	}
 
+	/**
+	 * Indicates whether the contents of the SOAP body are cached. If not, the payload can only be read once.
+	 */
+	public boolean isPayloadCaching() {
+		return payloadCaching;
+	}
+
 	/**
 	 * Sets the AXIOM {@code SOAPMessage} that this {@code AxiomSoapMessage} is based on.
 	 *
@@ -174,6 +185,16 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 		this.outputFormat = outputFormat;
 	}
 
+	/**
+	 * Sets the {@link XmlStreamWriterFactory} that creates the writer this message is serialized to when it is
+	 * {@linkplain #writeTo(java.io.OutputStream) written}. Not supported for messages with attachments.
+	 *
+	 * @see #writeTo(java.io.OutputStream)
+	 */
+	public void setXmlStreamWriterFactory(XmlStreamWriterFactory xmlStreamWriterFactory) {
+		this.xmlStreamWriterFactory = xmlStreamWriterFactory;
+	}
+
 	@Override
 	public void setStreamingPayload(StreamingPayload payload) {
 		AxiomSoapBody soapBody = (AxiomSoapBody) getSoapBody();
@@ -212,6 +233,11 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 
 	@Override
 	public void setDocument(Document document) {
+		SOAPEnvelope currentEnvelope = axiomMessage.getSOAPEnvelope();
+		if (currentEnvelope instanceof Element && ((Element) currentEnvelope).getOwnerDocument() == document) {
+			// DOM-compatible message, changed in place
+			return;
+		}
 		// save the Soap Action
 		String soapAction = getSoapAction();
 		// replace the Axiom message
@@ -287,7 +313,22 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 				transportOutputStream.addHeader(TransportConstants.HEADER_CONTENT_TYPE, contentType);
 
 			}
-			if (!(outputFormat.isOptimized()) & outputFormat.isDoingSWA()) {
+			if (xmlStreamWriterFactory != null) {
+				if (outputFormat.isOptimized() || outputFormat.isDoingSWA()) {
+					throw new AxiomSoapMessageException(
+							"Writing through an XmlStreamWriterFactory is not supported for messages with attachments");
+				}
+				XMLStreamWriter streamWriter =
+						xmlStreamWriterFactory.createXmlStreamWriter(outputStream, outputFormat.getCharSetEncoding());
+				if (payloadCaching) {
+					axiomMessage.serialize(streamWriter);
+				}
+				else {
+					axiomMessage.serializeAndConsume(streamWriter);
+				}
+				streamWriter.close();
+			}
+			else if (!(outputFormat.isOptimized()) & outputFormat.isDoingSWA()) {
 				writeSwAMessage(outputStream, outputFormat);
 			}
 			else {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import javax.xml.stream.XMLStreamReader;
 
 import org.apache.axiom.attachments.Attachments;
 import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMMetaFactory;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.impl.MTOMConstants;
 import org.apache.axiom.soap.SOAP11Constants;
@@ -72,6 +73,10 @@ import org.springframework.xml.XMLInputFactoryUtils;
  * Optionally, the location where attachments are stored can be defined via the {@link #setAttachmentCacheDir(File)
  * attachmentCacheDir} property (defaults to the system temp file path).
  *
+ * <p>Setting the {@link #setDomCompatible(boolean) domCompatible} property to {@code true} creates messages using
+ * Axiom's DOM-compatible implementation. The SOAP envelope of such messages is a DOM {@code Element}, so that DOM-based
+ * processing such as WS-Security can operate on the message directly.
+ *
  * <p>Mostly derived from {@code org.apache.axis2.transport.http.HTTPTransportUtils} and
  * {@code org.apache.axis2.transport.TransportUtils}, which we cannot use since they are not part of the Axiom
  * distribution.
@@ -103,6 +108,10 @@ public class AxiomSoapMessageFactory implements SoapMessageFactory, Initializing
 	private int attachmentCacheThreshold = 4096;
 
 	// use SOAP 1.1 by default
+	private SoapVersion soapVersion = SoapVersion.SOAP_11;
+
+	private boolean domCompatible = false;
+
 	private SOAPFactory soapFactory = OMAbstractFactory.getSOAP11Factory();
 
 	private boolean langAttributeOnSoap11FaultString = true;
@@ -160,16 +169,32 @@ public class AxiomSoapMessageFactory implements SoapMessageFactory, Initializing
 
 	@Override
 	public void setSoapVersion(SoapVersion version) {
-		if (SoapVersion.SOAP_11 == version) {
-			soapFactory = OMAbstractFactory.getSOAP11Factory();
-		}
-		else if (SoapVersion.SOAP_12 == version) {
-			soapFactory = OMAbstractFactory.getSOAP12Factory();
-		}
-		else {
+		if (SoapVersion.SOAP_11 != version && SoapVersion.SOAP_12 != version) {
 			throw new IllegalArgumentException(
 					"Invalid version [" + version + "]. " + "Expected the SOAP_11 or SOAP_12 constant");
 		}
+		this.soapVersion = version;
+		this.soapFactory = createSoapFactory();
+	}
+
+	/**
+	 * Indicates whether messages should be created using Axiom's DOM-compatible implementation (DOOM). Default is
+	 * {@code false}.
+	 *
+	 * <p>Setting this to {@code true} makes {@link AxiomSoapMessage#getDocument()} return the document of the message
+	 * itself, and {@link AxiomSoapMessage#setDocument(org.w3c.dom.Document)} a no-op for that document, so that
+	 * WS-Security does not serialize and parse the message. Applies to XOP (MTOM) packages as well. Requires
+	 * {@code axiom-dom} on the classpath.
+	 */
+	public void setDomCompatible(boolean domCompatible) {
+		this.domCompatible = domCompatible;
+		this.soapFactory = createSoapFactory();
+	}
+
+	private SOAPFactory createSoapFactory() {
+		OMMetaFactory metaFactory = domCompatible ? OMAbstractFactory.getMetaFactory(OMAbstractFactory.FEATURE_DOM) :
+				OMAbstractFactory.getMetaFactory();
+		return SoapVersion.SOAP_12 == soapVersion ? metaFactory.getSOAP12Factory() : metaFactory.getSOAP11Factory();
 	}
 
 	/**
@@ -296,7 +321,11 @@ public class AxiomSoapMessageFactory implements SoapMessageFactory, Initializing
 			builder = new StAXSOAPModelBuilder(reader, soapFactory, envelopeNamespace);
 		}
 		else if (MTOMConstants.MTOM_TYPE.equals(attachments.getAttachmentSpecType())) {
-			builder = new MTOMStAXSOAPModelBuilder(reader, attachments, envelopeNamespace);
+			// use the configured implementation, so that domCompatible also applies to XOP packages
+			OMMetaFactory metaFactory = soapFactory.getMetaFactory();
+			SOAPFactory mtomSoapFactory = SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI.equals(envelopeNamespace) ?
+					metaFactory.getSOAP12Factory() : metaFactory.getSOAP11Factory();
+			builder = new MTOMStAXSOAPModelBuilder(reader, mtomSoapFactory, attachments, envelopeNamespace);
 		}
 		else {
 			throw new AxiomSoapMessageCreationException(
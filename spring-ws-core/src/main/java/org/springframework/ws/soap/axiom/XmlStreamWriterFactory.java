@@ -0,0 +1,45 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.axiom;
+
+import java.io.OutputStream;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Strategy interface for creating the {@link XMLStreamWriter} that an {@link AxiomSoapMessage} is serialized to when
+ * it is {@linkplain AxiomSoapMessage#writeTo(OutputStream) written}. Allows for transforming the message while it
+ * streams to the transport, for instance to sign or encrypt it, without building an intermediate copy.
+ *
+ * @author Greg Turnquist
+ * @see AxiomSoapMessage#setXmlStreamWriterFactory(XmlStreamWriterFactory)
+ * @since 3.0.8
+ */
+public interface XmlStreamWriterFactory {
+
+	/**
+	 * Creates a writer that writes to the given output stream. The writer is closed once the message has been written
+	 * to it; closing it must not close the output stream.
+	 *
+	 * @param outputStream the output stream to write to
+	 * @param encoding     the character encoding of the message
+	 * @return the writer
+	 * @throws XMLStreamException in case of errors
+	 */
+	XMLStreamWriter createXmlStreamWriter(OutputStream outputStream, String encoding) throws XMLStreamException;
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -73,6 +73,8 @@ public class SaajSoapMessage extends AbstractSoapMessage {
 
 	private final boolean langAttributeOnSoap11FaultString;
 
+	private boolean documentSharing = false;
+
 	/**
 	 * Create a new {@code SaajSoapMessage} based on the given SAAJ {@code SOAPMessage}.
 	 *
@@ -130,6 +132,16 @@ public class SaajSoapMessage extends AbstractSoapMessage {
 		envelope = null;
 	}
 
+	/**
+	 * Indicates whether {@link #getDocument()} returns the SAAJ {@code SOAPPart} itself, rather than a reparsed copy of
+	 * the message. Sharing avoids serializing and parsing the message, for instance when it is secured or validated by
+	 * WS-Security, but requires a SAAJ implementation whose {@code SOAPPart} is a fully functional DOM {@code Document}.
+	 * Default is {@code false}.
+	 */
+	public void setDocumentSharing(boolean documentSharing) {
+		this.documentSharing = documentSharing;
+	}
+
 	@Override
 	public SoapEnvelope getEnvelope() {
 		if (envelope == null) {
@@ -190,6 +202,9 @@ public class SaajSoapMessage extends AbstractSoapMessage {
 
 	@Override
 	public Document getDocument() {
+		if (documentSharing) {
+			return getSaajMessage().getSOAPPart();
+		}
 		Assert.state(messageFactory != null, "Could find message factory to use");
 		// return saajSoapMessage.getSaajMessage().getSOAPPart(); // does not work, see SWS-345
 		try {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -69,6 +69,8 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 
 	private boolean langAttributeOnSoap11FaultString = true;
 
+	private boolean documentSharing = false;
+
 	private Map<String, ?> messageProperties;
 
 	/** Default, empty constructor. */
@@ -110,6 +112,20 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 		this.langAttributeOnSoap11FaultString = langAttributeOnSoap11FaultString;
 	}
 
+	/**
+	 * Defines whether created messages share their SAAJ {@code SOAPPart} as DOM document, rather than returning a
+	 * reparsed copy from {@link SaajSoapMessage#getDocument()}. Default is {@code false}.
+	 *
+	 * <p>Setting this to {@code true} lets WS-Security process SAAJ messages without serializing and parsing them again.
+	 * It requires a SAAJ implementation whose {@code SOAPPart} is a fully functional DOM {@code Document}, such as the
+	 * SAAJ 1.3 reference implementation or later.
+	 *
+	 * @see SaajSoapMessage#setDocumentSharing(boolean)
+	 */
+	public void setDocumentSharing(boolean documentSharing) {
+		this.documentSharing = documentSharing;
+	}
+
 	@Override
 	public void setSoapVersion(SoapVersion version) {
 		if (SaajUtils.getSaajVersion() >= SaajUtils.SAAJ_13) {
@@ -175,7 +191,7 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 		try {
 			SOAPMessage saajMessage = messageFactory.createMessage();
 			postProcess(saajMessage);
-			return new SaajSoapMessage(saajMessage, langAttributeOnSoap11FaultString, messageFactory);
+			return createSaajSoapMessage(saajMessage);
 		}
 		catch (SOAPException ex) {
 			throw new SoapMessageCreationException("Could not create empty message: " + ex.getMessage(), ex);
@@ -190,7 +206,7 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 			SOAPMessage saajMessage = messageFactory.createMessage(mimeHeaders, inputStream);
 			saajMessage.getSOAPPart().getEnvelope();
 			postProcess(saajMessage);
-			return new SaajSoapMessage(saajMessage, langAttributeOnSoap11FaultString, messageFactory);
+			return createSaajSoapMessage(saajMessage);
 		}
 		catch (SOAPException ex) {
 			// SAAJ 1.3 RI has a issue with handling multipart XOP content types which contain "startinfo" rather than
@@ -203,8 +219,7 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 				try {
 					SOAPMessage saajMessage = messageFactory.createMessage(mimeHeaders, inputStream);
 					postProcess(saajMessage);
-					return new SaajSoapMessage(saajMessage,
-							langAttributeOnSoap11FaultString);
+					return createSaajSoapMessage(saajMessage);
 				}
 				catch (SOAPException e) {
 					// fall-through
@@ -280,6 +295,12 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 		return bytes.length == 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF;
 	}
 
+	private SaajSoapMessage createSaajSoapMessage(SOAPMessage saajMessage) {
+		SaajSoapMessage message = new SaajSoapMessage(saajMessage, langAttributeOnSoap11FaultString, messageFactory);
+		message.setDocumentSharing(documentSharing);
+		return message;
+	}
+
 	/**
 	 * Template method that allows for post-processing of the given {@link SOAPMessage}.
 	 * <p>Default implementation sets {@linkplain SOAPMessage#setProperty(String, Object) message properties}, if any.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,13 +17,16 @@
 package org.springframework.ws.soap.server;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import javax.xml.namespace.QName;
 
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.EndpointInterceptor;
 import org.springframework.ws.server.EndpointInvocationChain;
@@ -33,6 +36,7 @@ import org.springframework.ws.soap.SoapFault;
 import org.springframework.ws.soap.SoapHeader;
 import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessage;
 import org.springframework.ws.soap.soap11.Soap11Header;
 import org.springframework.ws.soap.soap12.Soap12Header;
 
@@ -51,6 +55,16 @@ public class SoapMessageDispatcher extends MessageDispatcher {
 	public static final String DEFAULT_MUST_UNDERSTAND_FAULT_STRING =
 			"One or more mandatory SOAP header blocks not understood";
 
+	private static final boolean axiomPresent =
+			ClassUtils.isPresent("org.apache.axiom.soap.SOAPMessage", SoapMessageDispatcher.class.getClassLoader());
+
+	/** WS-Addressing 1.0 {@code Action} header. */
+	private static final QName ADDRESSING_10_ACTION = new QName("http://www.w3.org/2005/08/addressing", "Action");
+
+	/** WS-Addressing August 2004 {@code Action} header. */
+	private static final QName ADDRESSING_200408_ACTION =
+			new QName("http://schemas.xmlsoap.org/ws/2004/08/addressing", "Action");
+
 	private String mustUnderstandFaultString = DEFAULT_MUST_UNDERSTAND_FAULT_STRING;
 
 	private Locale mustUnderstandFaultStringLocale = Locale.ENGLISH;
@@ -95,6 +109,45 @@ public class SoapMessageDispatcher extends MessageDispatcher {
 		return true;
 	}
 
+	/**
+	 * Returns the fingerprint of the request in the given message context. For SOAP messages, the fingerprint consists
+	 * of the payload root name, the {@code SOAPAction}, and the WS-Addressing {@code Action} header, if any.
+	 */
+	@Override
+	protected Object getEndpointResolutionKey(MessageContext messageContext) throws Exception {
+		Object payloadRootKey = super.getEndpointResolutionKey(messageContext);
+		if (payloadRootKey == null || !(messageContext.getRequest() instanceof SoapMessage)) {
+			return payloadRootKey;
+		}
+		SoapMessage soapRequest = (SoapMessage) messageContext.getRequest();
+		return Arrays.asList(payloadRootKey, soapRequest.getSoapAction(), getAddressingAction(soapRequest));
+	}
+
+	/**
+	 * Returns {@code false} for {@linkplain AxiomSoapMessage Axiom messages} that do not {@linkplain
+	 * AxiomSoapMessage#isPayloadCaching() cache} their payload.
+	 */
+	@Override
+	protected boolean isPayloadRepeatable(WebServiceMessage request) {
+		return !axiomPresent || AxiomPayloadCachingCheck.isPayloadCaching(request);
+	}
+
+	private String getAddressingAction(SoapMessage soapRequest) {
+		SoapHeader soapHeader = soapRequest.getSoapHeader();
+		if (soapHeader == null) {
+			return null;
+		}
+		Iterator<SoapHeaderElement> headerIterator = soapHeader.examineAllHeaderElements();
+		while (headerIterator.hasNext()) {
+			SoapHeaderElement headerElement = headerIterator.next();
+			QName headerName = headerElement.getName();
+			if (ADDRESSING_10_ACTION.equals(headerName) || ADDRESSING_200408_ACTION.equals(headerName)) {
+				return StringUtils.trimWhitespace(headerElement.getText());
+			}
+		}
+		return null;
+	}
+
 	private boolean handleHeaders(EndpointInvocationChain mappedEndpoint,
 								  MessageContext messageContext,
 								  String[] actorsOrRoles,
@@ -177,4 +230,12 @@ public class SoapMessageDispatcher extends MessageDispatcher {
 		}
 	}
 
+	/** Inner class to avoid a hard dependency on Axiom. */
+	private static class AxiomPayloadCachingCheck {
+
+		private static boolean isPayloadCaching(WebServiceMessage request) {
+			return !(request instanceof AxiomSoapMessage) || ((AxiomSoapMessage) request).isPayloadCaching();
+		}
+	}
+
 }
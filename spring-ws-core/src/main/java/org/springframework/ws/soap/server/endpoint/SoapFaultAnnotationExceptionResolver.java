@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.ws.soap.server.endpoint;
 import javax.xml.namespace.QName;
 
 import org.springframework.util.StringUtils;
+import org.springframework.ws.server.endpoint.adapter.method.jaxb.PayloadValidationException;
 import org.springframework.ws.soap.server.endpoint.annotation.FaultCode;
 import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
 
@@ -26,7 +27,11 @@ import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
  * Implementation of the {@link org.springframework.ws.server.EndpointExceptionResolver} interface that uses the {@link
  * SoapFault} annotation to map exceptions to SOAP Faults.
  *
+ * <p>Additionally resolves a {@link PayloadValidationException} to a {@code Client} (SOAP 1.1) or {@code Sender}
+ * (SOAP 1.2) fault, as that exception is thrown by transport-neutral code, and therefore not annotated.
+ *
  * @author Arjen Poutsma
+ * @author Greg Turnquist
  * @since 1.0.0
  */
 public class SoapFaultAnnotationExceptionResolver extends AbstractSoapFaultDefinitionExceptionResolver {
@@ -46,6 +51,11 @@ public class SoapFaultAnnotationExceptionResolver extends AbstractSoapFaultDefin
 			definition.setLocale(StringUtils.parseLocaleString(faultAnnotation.locale()));
 			return definition;
 		}
+		else if (ex instanceof PayloadValidationException) {
+			SoapFaultDefinition definition = new SoapFaultDefinition();
+			definition.setFaultCode(FaultCode.CLIENT.value());
+			return definition;
+		}
 		else {
 			return null;
 		}
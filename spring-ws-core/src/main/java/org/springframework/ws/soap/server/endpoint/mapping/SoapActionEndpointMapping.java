@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.ws.soap.server.endpoint.mapping;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.CacheableEndpointMapping;
 import org.springframework.ws.server.EndpointInterceptor;
 import org.springframework.ws.server.EndpointInvocationChain;
 import org.springframework.ws.server.endpoint.mapping.AbstractMapBasedEndpointMapping;
@@ -50,7 +51,8 @@ import org.springframework.ws.soap.server.SoapEndpointMapping;
  * @author Arjen Poutsma
  * @since 1.0.0
  */
-public class SoapActionEndpointMapping extends AbstractMapBasedEndpointMapping implements SoapEndpointMapping {
+public class SoapActionEndpointMapping extends AbstractMapBasedEndpointMapping
+		implements SoapEndpointMapping, CacheableEndpointMapping {
 
 	private String[] actorsOrRoles;
 
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Thread-safe, size-bounded cache with optional per-entry expiry. Used internally by the various caches of Spring Web
+ * Services, so that they all bound their memory use in the same way.
+ *
+ * <p>Entries are kept in a {@link ConcurrentHashMap}, so lookups and updates take no locks. Only a put into a full
+ * cache sweeps the entries, under a lock that is not held by any other operation: expired entries are purged first,
+ * and if the cache is still full, the least recently used entries are evicted, in batches of a sixteenth of the
+ * maximum size, so that the cost of the sweep is spread over many puts. Caches that must not forget live entries, such
+ * as replay caches, can use {@link #putIfNotFull(Object, Object, long)} instead, which refuses new entries rather than
+ * evicting live ones.
+ *
+ * <p>Since the size is checked without locking, concurrent puts can exceed the maximum size by at most the number of
+ * threads putting at the same time. Expired entries are removed lazily, on access or when the cache is full.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+public class BoundedCache<K, V> {
+
+	/** Expiry time of entries that never expire. */
+	public static final long NEVER = Long.MAX_VALUE;
+
+	private final int maxSize;
+
+	private final ConcurrentMap<K, CacheEntry<V>> entries;
+
+	/** Lower bound of the expiry times of all entries, used to skip purging when nothing can have expired. */
+	private final AtomicLong earliestExpiry = new AtomicLong(NEVER);
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private final Object sweepMonitor = new Object();
+
+	/**
+	 * Creates a new cache with the given maximum number of entries.
+	 *
+	 * @param maxSize the maximum number of entries
+	 */
+	public BoundedCache(int maxSize) {
+		Assert.isTrue(maxSize > 0, "'maxSize' must be larger than 0");
+		this.maxSize = maxSize;
+		this.entries = new ConcurrentHashMap<K, CacheEntry<V>>(Math.min(maxSize, 1024));
+	}
+
+	/** Returns the maximum number of entries. */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the value cached for the given key, or {@code null} if none is cached, or if it has expired.
+	 */
+	public V get(K key) {
+		CacheEntry<V> entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expires != NEVER && entry.expires <= System.currentTimeMillis()) {
+			entries.remove(key, entry);
+			return null;
+		}
+		entry.lastAccess = System.nanoTime();
+		return entry.value;
+	}
+
+	/**
+	 * Caches the given value, without expiry. If the cache is full, the least recently used entries are evicted.
+	 */
+	public void put(K key, V value) {
+		put(key, value, NEVER);
+	}
+
+	/**
+	 * Caches the given value until the given time. If the cache is full, expired entries are purged, and if the cache is
+	 * still full, the least recently used entries are evicted.
+	 *
+	 * @param key     the key
+	 * @param value   the value
+	 * @param expires the time at which the entry expires, in milliseconds since the epoch, or {@link #NEVER}
+	 */
+	public void put(K key, V value, long expires) {
+		if (isFull(key)) {
+			evictLeastRecentlyUsed();
+		}
+		putEntry(key, value, expires);
+	}
+
+	/**
+	 * Caches the given value until the given time, unless the cache is full of entries that have not expired yet. As
+	 * opposed to {@link #put(Object, Object, long)}, this method never evicts live entries.
+	 *
+	 * @param key     the key
+	 * @param value   the value
+	 * @param expires the time at which the entry expires, in milliseconds since the epoch, or {@link #NEVER}
+	 * @return {@code true} if the value was cached; {@code false} if the cache is full
+	 */
+	public boolean putIfNotFull(K key, V value, long expires) {
+		if (isFull(key)) {
+			return false;
+		}
+		putEntry(key, value, expires);
+		return true;
+	}
+
+	/**
+	 * Replaces the value cached for the given key, but only if it is currently mapped to the given value.
+	 *
+	 * @return {@code true} if the value was replaced
+	 */
+	public boolean replace(K key, V oldValue, V newValue, long expires) {
+		while (true) {
+			CacheEntry<V> entry = entries.get(key);
+			if (entry == null || !ObjectUtils.nullSafeEquals(entry.value, oldValue)) {
+				return false;
+			}
+			if (entries.replace(key, entry, new CacheEntry<V>(newValue, expires))) {
+				lowerEarliestExpiry(expires);
+				return true;
+			}
+		}
+	}
+
+	/** Removes the value cached for the given key. */
+	public V remove(K key) {
+		CacheEntry<V> entry = entries.remove(key);
+		return entry != null ? entry.value : null;
+	}
+
+	/**
+	 * Removes the value cached for the given key, but only if it is currently mapped to the given value.
+	 *
+	 * @return {@code true} if the value was removed
+	 */
+	public boolean remove(K key, V value) {
+		while (true) {
+			CacheEntry<V> entry = entries.get(key);
+			if (entry == null || !ObjectUtils.nullSafeEquals(entry.value, value)) {
+				return false;
+			}
+			if (entries.remove(key, entry)) {
+				return true;
+			}
+		}
+	}
+
+	/** Removes all entries. */
+	public void clear() {
+		entries.clear();
+	}
+
+	/** Returns the number of entries, including expired ones that have not been purged yet. */
+	public int size() {
+		return entries.size();
+	}
+
+	/** Returns the number of live entries that were evicted because the cache was full. */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Returns a snapshot of the entries that have not expired, mapped to their expiry time, from least to most recently
+	 * used.
+	 */
+	public Map<K, Long> getExpiryTimes() {
+		long now = System.currentTimeMillis();
+		List<Map.Entry<K, CacheEntry<V>>> live = new ArrayList<Map.Entry<K, CacheEntry<V>>>(entries.size());
+		for (Map.Entry<K, CacheEntry<V>> entry : entries.entrySet()) {
+			if (entry.getValue().expires > now) {
+				live.add(entry);
+			}
+		}
+		Collections.sort(live, new LastAccessComparator<K, V>());
+		Map<K, Long> result = new LinkedHashMap<K, Long>(live.size());
+		for (Map.Entry<K, CacheEntry<V>> entry : live) {
+			result.put(entry.getKey(), entry.getValue().expires);
+		}
+		return result;
+	}
+
+	/**
+	 * Indicates whether this cache is full of entries that have not expired yet. Purges expired entries if necessary.
+	 */
+	public boolean isFull() {
+		if (entries.size() < maxSize) {
+			return false;
+		}
+		if (earliestExpiry.get() <= System.currentTimeMillis()) {
+			synchronized (sweepMonitor) {
+				purgeExpired();
+			}
+		}
+		return entries.size() >= maxSize;
+	}
+
+	/**
+	 * Indicates whether adding the given key requires room to be made, after purging expired entries.
+	 */
+	private boolean isFull(K key) {
+		return !entries.containsKey(key) && isFull();
+	}
+
+	private void purgeExpired() {
+		long now = System.currentTimeMillis();
+		if (earliestExpiry.get() > now) {
+			return;
+		}
+		// puts that happen during the sweep lower the bound again, puts before it are seen by the iteration
+		earliestExpiry.set(NEVER);
+		long earliest = NEVER;
+		for (Iterator<CacheEntry<V>> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+			long expires = iterator.next().expires;
+			if (expires <= now) {
+				iterator.remove();
+			}
+			else if (expires < earliest) {
+				earliest = expires;
+			}
+		}
+		lowerEarliestExpiry(earliest);
+	}
+
+	private void evictLeastRecentlyUsed() {
+		synchronized (sweepMonitor) {
+			int batchSize = Math.max(1, maxSize / 16);
+			int excess = entries.size() - maxSize + batchSize;
+			if (excess <= 0) {
+				return;
+			}
+			Comparator<Map.Entry<K, CacheEntry<V>>> comparator =
+					Collections.reverseOrder(new LastAccessComparator<K, V>());
+			PriorityQueue<Map.Entry<K, CacheEntry<V>>> leastRecentlyUsed =
+					new PriorityQueue<Map.Entry<K, CacheEntry<V>>>(excess, comparator);
+			for (Map.Entry<K, CacheEntry<V>> entry : entries.entrySet()) {
+				leastRecentlyUsed.add(entry);
+				if (leastRecentlyUsed.size() > excess) {
+					leastRecentlyUsed.poll();
+				}
+			}
+			for (Map.Entry<K, CacheEntry<V>> entry : leastRecentlyUsed) {
+				if (entries.remove(entry.getKey(), entry.getValue())) {
+					evictionCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	private void putEntry(K key, V value, long expires) {
+		entries.put(key, new CacheEntry<V>(value, expires));
+		lowerEarliestExpiry(expires);
+	}
+
+	private void lowerEarliestExpiry(long expires) {
+		long current;
+		while (expires < (current = earliestExpiry.get())) {
+			if (earliestExpiry.compareAndSet(current, expires)) {
+				return;
+			}
+		}
+	}
+
+	private static class CacheEntry<V> {
+
+		private final V value;
+
+		private final long expires;
+
+		private volatile long lastAccess = System.nanoTime();
+
+		private CacheEntry(V value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+
+	private static class LastAccessComparator<K, V> implements Comparator<Map.Entry<K, CacheEntry<V>>> {
+
+		@Override
+		public int compare(Map.Entry<K, CacheEntry<V>> entry1, Map.Entry<K, CacheEntry<V>> entry2) {
+			long lastAccess1 = entry1.getValue().lastAccess;
+			long lastAccess2 = entry2.getValue().lastAccess;
+			return lastAccess1 < lastAccess2 ? -1 : (lastAccess1 == lastAccess2 ? 0 : 1);
+		}
+	}
+
+}
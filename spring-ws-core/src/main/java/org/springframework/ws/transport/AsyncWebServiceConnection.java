@@ -0,0 +1,45 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ws.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.ws.WebServiceMessage;
+
+/**
+ * Sub-interface of {@link WebServiceConnection} for transports that can send a message without blocking the calling
+ * thread. Used by the asynchronous methods of {@link org.springframework.ws.client.core.WebServiceTemplate}.
+ *
+ * <p>The future returned by {@link #sendAsync(WebServiceMessage)} completes once the response, if any, has been
+ * received. Subsequent calls to {@link #hasError()}, {@link #getErrorMessage()}, and {@link
+ * #receive(org.springframework.ws.WebServiceMessageFactory) receive(WebServiceMessageFactory)} must not block.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ * @see org.springframework.ws.client.core.AsyncWebServiceOperations
+ */
+public interface AsyncWebServiceConnection extends WebServiceConnection {
+
+	/**
+	 * Sends the given message using this connection, without blocking.
+	 *
+	 * @param message the message to be sent
+	 * @return a future that completes when the response has been received, or completes exceptionally with an
+	 * {@link java.io.IOException} in case of I/O errors
+	 */
+	CompletableFuture<Void> sendAsync(WebServiceMessage message);
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.support.BoundedCache;
+
+/**
+ * Cache of serialized WSDL and XSD documents, used by {@link WsdlDefinitionHandlerAdapter} and {@link
+ * XsdSchemaHandlerAdapter}. Entries are keyed by the handler and, if locations are transformed, by the location that
+ * the root path transforms to for the request, as this determines the transformed locations. Requests that result in
+ * the same document therefore share an entry; if {@link LocationTransformerObjectSupport#transformLocation(String,
+ * HttpServletRequest)} is overridden to return a configured location, all requests do.
+ *
+ * <p>When the cache is full, the least recently used entries are evicted, so that requests with arbitrary {@code Host}
+ * headers cannot disable caching for legitimate ones.
+ *
+ * <p>Cached responses carry an {@code ETag}, and can optionally be served gzip-compressed to clients that accept it.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+class DocumentResponseCache {
+
+	/** Maximum number of entries; protects against unbounded growth caused by arbitrary {@code Host} headers. */
+	static final int MAX_ENTRIES = 256;
+
+	private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+	private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+
+	private static final String HEADER_ETAG = "ETag";
+
+	private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+	private static final String HEADER_VARY = "Vary";
+
+	private static final String GZIP = "gzip";
+
+	private final BoundedCache<Key, CachedResponse> responses = new BoundedCache<Key, CachedResponse>(MAX_ENTRIES);
+
+	private final boolean compress;
+
+	DocumentResponseCache(boolean compress) {
+		this.compress = compress;
+	}
+
+	/**
+	 * Returns the cached response for the given handler and location, or {@code null} if none is cached.
+	 *
+	 * @param handler the WSDL definition or XSD schema
+	 * @param location the transformed root location for the current request, or {@code null} if locations are not
+	 * transformed
+	 */
+	CachedResponse get(Object handler, String location) {
+		return responses.get(new Key(handler, location));
+	}
+
+	/** Caches the given serialized document for the given handler and location, and returns the cached response. */
+	CachedResponse put(Object handler, String location, String contentType, byte[] content) throws IOException {
+		CachedResponse response = new CachedResponse(contentType, content, compress ? gzip(content) : null);
+		responses.put(new Key(handler, location), response);
+		return response;
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(content.length / 4);
+		GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bos);
+		gzipOutputStream.write(content);
+		gzipOutputStream.close();
+		return bos.toByteArray();
+	}
+
+	/** A serialized document, with an optional gzip-compressed variant. */
+	static class CachedResponse {
+
+		private final String contentType;
+
+		private final byte[] content;
+
+		private final byte[] gzippedContent;
+
+		private final String eTag;
+
+		private CachedResponse(String contentType, byte[] content, byte[] gzippedContent) {
+			this.contentType = contentType;
+			this.content = content;
+			this.gzippedContent = gzippedContent;
+			this.eTag = "\"" + DigestUtils.md5DigestAsHex(content) + "\"";
+		}
+
+		/**
+		 * Writes this response. Responds with {@code 304 Not Modified} if the request has a matching
+		 * {@code If-None-Match} header.
+		 */
+		void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+			response.setHeader(HEADER_ETAG, eTag);
+			String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+			if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || "*".equals(ifNoneMatch.trim()))) {
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+			response.setContentType(contentType);
+			byte[] body = content;
+			if (gzippedContent != null) {
+				response.setHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+				if (acceptsGzip(request.getHeader(HEADER_ACCEPT_ENCODING))) {
+					response.setHeader(HEADER_CONTENT_ENCODING, GZIP);
+					body = gzippedContent;
+				}
+			}
+			response.setContentLength(body.length);
+			response.getOutputStream().write(body);
+		}
+	}
+
+	/**
+	 * Indicates whether the given {@code Accept-Encoding} header value accepts gzip, i.e. whether it lists {@code gzip},
+	 * or else {@code *}, with a non-zero quality value.
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (!StringUtils.hasLength(acceptEncoding)) {
+			return false;
+		}
+		Float gzipQuality = null;
+		Float wildcardQuality = null;
+		for (String coding : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			String[] parameters = StringUtils.tokenizeToStringArray(coding, ";");
+			if (parameters.length == 0) {
+				continue;
+			}
+			float quality = 1.0f;
+			for (int i = 1; i < parameters.length; i++) {
+				if (parameters[i].startsWith("q=") || parameters[i].startsWith("Q=")) {
+					try {
+						quality = Float.parseFloat(parameters[i].substring(2).trim());
+					}
+					catch (NumberFormatException ex) {
+						quality = 0.0f;
+					}
+				}
+			}
+			String name = parameters[0].toLowerCase();
+			if (GZIP.equals(name) || ("x-" + GZIP).equals(name)) {
+				gzipQuality = quality;
+			}
+			else if ("*".equals(name)) {
+				wildcardQuality = quality;
+			}
+		}
+		if (gzipQuality != null) {
+			return gzipQuality > 0;
+		}
+		return wildcardQuality != null && wildcardQuality > 0;
+	}
+
+	private static class Key {
+
+		private final Object handler;
+
+		private final String location;
+
+		private Key(Object handler, String location) {
+			this.handler = handler;
+			this.location = location;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return handler == other.handler && ObjectUtils.nullSafeEquals(location, other.location);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(handler) + ObjectUtils.nullSafeHashCode(location);
+		}
+	}
+
+}
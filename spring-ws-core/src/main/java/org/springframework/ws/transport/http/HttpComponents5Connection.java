@@ -0,0 +1,400 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http.nio.support.classic.ContentOutputStream;
+import org.apache.hc.core5.http.nio.support.classic.SharedOutputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.transport.AsyncWebServiceConnection;
+import org.springframework.ws.transport.WebServiceConnection;
+
+/**
+ * Implementation of {@link WebServiceConnection} that is based on Apache HttpClient 5. Exposes the {@link
+ * BasicHttpRequest} and {@link HttpResponse}.
+ *
+ * <p>The request is started as soon as the message starts being written, and the written bytes are streamed into the
+ * request entity through a fixed-size buffer, rather than buffering the whole message first. The response body is
+ * read completely before it is made available, so that the connection can be released to the pool, or the HTTP/2
+ * stream closed, without waiting for the caller. Responses larger than the maximum response size fail with an
+ * {@code IOException} as soon as that size is exceeded.
+ *
+ * @author Greg Turnquist
+ * @see HttpComponents5MessageSender
+ * @since 3.0.8
+ */
+public class HttpComponents5Connection extends AbstractHttpSenderConnection implements AsyncWebServiceConnection {
+
+	private final CloseableHttpAsyncClient httpClient;
+
+	private final BasicHttpRequest httpRequest;
+
+	private final HttpContext httpContext;
+
+	private final int bufferSize;
+
+	private final long maxResponseSize;
+
+	private String contentType;
+
+	private StreamingEntityProducer entityProducer;
+
+	private CompletableFuture<Message<HttpResponse, byte[]>> responseFuture;
+
+	private Message<HttpResponse, byte[]> response;
+
+	private boolean async;
+
+	protected HttpComponents5Connection(CloseableHttpAsyncClient httpClient, BasicHttpRequest httpRequest,
+			HttpContext httpContext, int bufferSize, long maxResponseSize) {
+		Assert.notNull(httpClient, "httpClient must not be null");
+		Assert.notNull(httpRequest, "httpRequest must not be null");
+		Assert.isTrue(bufferSize > 0, "bufferSize must be positive");
+		Assert.isTrue(maxResponseSize > 0, "maxResponseSize must be positive");
+		this.httpClient = httpClient;
+		this.httpRequest = httpRequest;
+		this.httpContext = httpContext;
+		this.bufferSize = bufferSize;
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	public BasicHttpRequest getHttpRequest() {
+		return httpRequest;
+	}
+
+	public HttpResponse getHttpResponse() {
+		return response != null ? response.getHead() : null;
+	}
+
+	@Override
+	public void onClose() throws IOException {
+		if (entityProducer != null) {
+			entityProducer.releaseResources();
+		}
+		if (responseFuture != null && !responseFuture.isDone()) {
+			responseFuture.cancel(true);
+		}
+	}
+
+	/*
+	 * URI
+	 */
+
+	@Override
+	public URI getUri() throws URISyntaxException {
+		return httpRequest.getUri();
+	}
+
+	/*
+	 * Sending request
+	 */
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p><b>Note</b> that the request body is written on the calling thread, and that writing blocks whenever the
+	 * streaming buffer is full, until the I/O reactor has sent its contents. Only waiting for the response is
+	 * asynchronous. Callers that must not block while a large request is sent should invoke this method from a
+	 * separate thread.
+	 */
+	@Override
+	public CompletableFuture<Void> sendAsync(WebServiceMessage message) {
+		final CompletableFuture<Void> result = new CompletableFuture<Void>();
+		async = true;
+		try {
+			send(message);
+		}
+		catch (IOException ex) {
+			result.completeExceptionally(ex);
+			return result;
+		}
+		responseFuture.whenComplete(new BiConsumer<Message<HttpResponse, byte[]>, Throwable>() {
+
+			@Override
+			public void accept(Message<HttpResponse, byte[]> message, Throwable ex) {
+				if (ex != null) {
+					result.completeExceptionally(ex instanceof IOException ? ex : new IOException(ex.getMessage(), ex));
+				}
+				else {
+					response = message;
+					result.complete(null);
+				}
+			}
+		});
+		return result;
+	}
+
+	@Override
+	protected void onSendBeforeWrite(WebServiceMessage message) throws IOException {
+		entityProducer = new StreamingEntityProducer(bufferSize);
+		responseFuture = null;
+		response = null;
+	}
+
+	@Override
+	public void addRequestHeader(String name, String value) throws IOException {
+		// these headers are determined by the entity, and rejected by HttpClient if set explicitly
+		if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+			contentType = value;
+		}
+		else if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) &&
+				!HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+			httpRequest.addHeader(name, value);
+		}
+	}
+
+	@Override
+	protected OutputStream getRequestOutputStream() throws IOException {
+		// all headers have been added by now, so the request can be started
+		execute();
+		return entityProducer.getOutputStream();
+	}
+
+	@Override
+	protected void onSendAfterWrite(WebServiceMessage message) throws IOException {
+		execute();
+		entityProducer.writeCompleted();
+		if (!async) {
+			awaitResponse();
+		}
+	}
+
+	private void execute() {
+		if (responseFuture != null) {
+			return;
+		}
+		final CompletableFuture<Message<HttpResponse, byte[]>> future =
+				new CompletableFuture<Message<HttpResponse, byte[]>>();
+		responseFuture = future;
+		httpClient.execute(new BasicRequestProducer(httpRequest, entityProducer),
+				new BasicResponseConsumer<byte[]>(new BoundedEntityConsumer(maxResponseSize)), httpContext,
+				new FutureCallback<Message<HttpResponse, byte[]>>() {
+
+					@Override
+					public void completed(Message<HttpResponse, byte[]> result) {
+						future.complete(result);
+					}
+
+					@Override
+					public void failed(Exception ex) {
+						entityProducer.failed(ex);
+						future.completeExceptionally(ex);
+					}
+
+					@Override
+					public void cancelled() {
+						entityProducer.releaseResources();
+						future.cancel(false);
+					}
+				});
+	}
+
+	private void awaitResponse() throws IOException {
+		try {
+			response = responseFuture.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			responseFuture.cancel(true);
+			throw new InterruptedIOException("Interrupted while waiting for response");
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause.getMessage(), cause);
+		}
+	}
+
+	/*
+	 * Receiving response
+	 */
+
+	@Override
+	protected int getResponseCode() throws IOException {
+		return response.getHead().getCode();
+	}
+
+	@Override
+	protected String getResponseMessage() throws IOException {
+		return response.getHead().getReasonPhrase();
+	}
+
+	@Override
+	protected long getResponseContentLength() throws IOException {
+		byte[] body = response.getBody();
+		return body != null ? body.length : 0;
+	}
+
+	@Override
+	protected InputStream getRawResponseInputStream() throws IOException {
+		byte[] body = response.getBody();
+		if (body != null) {
+			return new ByteArrayInputStream(body);
+		}
+		throw new IllegalStateException("Response has no enclosing response entity, cannot create input stream");
+	}
+
+	@Override
+	public Iterator<String> getResponseHeaderNames() throws IOException {
+		Header[] headers = response.getHead().getHeaders();
+		String[] names = new String[headers.length];
+		for (int i = 0; i < headers.length; i++) {
+			names[i] = headers[i].getName();
+		}
+		return Arrays.asList(names).iterator();
+	}
+
+	@Override
+	public Iterator<String> getResponseHeaders(String name) throws IOException {
+		Header[] headers = response.getHead().getHeaders(name);
+		String[] values = new String[headers.length];
+		for (int i = 0; i < headers.length; i++) {
+			values[i] = headers[i].getValue();
+		}
+		return Arrays.asList(values).iterator();
+	}
+
+	/**
+	 * {@link BasicAsyncEntityConsumer} that fails once the response body exceeds a maximum size, rather than buffering
+	 * it without limit.
+	 */
+	private static class BoundedEntityConsumer extends BasicAsyncEntityConsumer {
+
+		private final long maxSize;
+
+		private long size;
+
+		private BoundedEntityConsumer(long maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+			size += src.remaining();
+			if (size > maxSize) {
+				throw new IOException("Response body exceeds the maximum size of " + maxSize + " bytes");
+			}
+			super.data(src, endOfStream);
+		}
+	}
+
+	/**
+	 * {@link AsyncEntityProducer} that streams the bytes written to its output stream. Writes block while the buffer
+	 * is full, until the I/O reactor has sent its contents.
+	 */
+	private class StreamingEntityProducer implements AsyncEntityProducer {
+
+		private final SharedOutputBuffer buffer;
+
+		private final OutputStream outputStream;
+
+		private StreamingEntityProducer(int bufferSize) {
+			this.buffer = new SharedOutputBuffer(bufferSize);
+			this.outputStream = new ContentOutputStream(buffer);
+		}
+
+		private OutputStream getOutputStream() {
+			return outputStream;
+		}
+
+		private void writeCompleted() throws IOException {
+			buffer.writeCompleted();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+
+		@Override
+		public String getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public int available() {
+			return buffer.length();
+		}
+
+		@Override
+		public String getContentEncoding() {
+			return null;
+		}
+
+		@Override
+		public boolean isChunked() {
+			return true;
+		}
+
+		@Override
+		public Set<String> getTrailerNames() {
+			return null;
+		}
+
+		@Override
+		public void produce(DataStreamChannel channel) throws IOException {
+			buffer.flush(channel);
+		}
+
+		@Override
+		public void failed(Exception cause) {
+			buffer.abort();
+		}
+
+		@Override
+		public void releaseResources() {
+			buffer.abort();
+		}
+	}
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.http;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorStatus;
+import org.apache.hc.core5.util.Timeout;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.ws.transport.WebServiceConnection;
+
+/**
+ * {@code WebServiceMessageSender} implementation that uses the asynchronous client of <a
+ * href="http://hc.apache.org/httpcomponents-client-5.0.x">Apache HttpClient 5</a> to execute POST requests.
+ *
+ * <p>The same client serves blocking and non-blocking exchanges: the connections created by this sender wait for the
+ * response when used through the {@code WebServiceTemplate.sendAndReceive} methods, and complete a future when used
+ * through its asynchronous methods. The request body is streamed into the request as it is written, on the calling
+ * thread. The response body is buffered, up to the {@linkplain #setMaxResponseSize(long) maximum response size}.
+ *
+ * <p>By default, HTTP/2 is negotiated through TLS ALPN, falling back to HTTP/1.1. With HTTP/2, all requests to a host
+ * are multiplexed over a single connection. The {@linkplain #setVersionPolicy(HttpVersionPolicy) version policy} can
+ * be set to {@link HttpVersionPolicy#FORCE_HTTP_2} to use HTTP/2 over plain-text connections as well, which requires
+ * a server that supports HTTP/2 with prior knowledge.
+ *
+ * <p>Allows to use a pre-configured {@link CloseableHttpAsyncClient} instance, in which case the properties of this
+ * sender that configure the client are ignored.
+ *
+ * @author Greg Turnquist
+ * @see HttpComponents5Connection
+ * @since 3.0.8
+ */
+public class HttpComponents5MessageSender extends AbstractHttpWebServiceMessageSender
+		implements InitializingBean, DisposableBean {
+
+	private static final int DEFAULT_CONNECTION_TIMEOUT_MILLISECONDS = (60 * 1000);
+
+	private static final int DEFAULT_READ_TIMEOUT_MILLISECONDS = (60 * 1000);
+
+	private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+	private static final long DEFAULT_MAX_RESPONSE_SIZE = 10 * 1024 * 1024;
+
+	private CloseableHttpAsyncClient httpClient;
+
+	private boolean defaultClient;
+
+	private HttpVersionPolicy versionPolicy = HttpVersionPolicy.NEGOTIATE;
+
+	private int connectionTimeout = DEFAULT_CONNECTION_TIMEOUT_MILLISECONDS;
+
+	private int readTimeout = DEFAULT_READ_TIMEOUT_MILLISECONDS;
+
+	private int maxTotalConnections = 25;
+
+	private int maxConnectionsPerRoute = 5;
+
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	private long maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+
+	/**
+	 * Create a new instance of the {@code HttpComponents5MessageSender}, which creates a {@link
+	 * CloseableHttpAsyncClient} with a pooling connection manager when {@linkplain #afterPropertiesSet() initialized}.
+	 */
+	public HttpComponents5MessageSender() {
+		this.defaultClient = true;
+	}
+
+	/**
+	 * Create a new instance of the {@code HttpComponents5MessageSender} with the given {@link
+	 * CloseableHttpAsyncClient} instance.
+	 *
+	 * <p>This constructor does not change the given client in any way. As such, it does not set timeouts or the HTTP
+	 * version policy. The client is started if necessary, and closed when this sender is destroyed.
+	 *
+	 * @param httpClient the HttpClient instance to use for this sender
+	 */
+	public HttpComponents5MessageSender(CloseableHttpAsyncClient httpClient) {
+		Assert.notNull(httpClient, "httpClient must not be null");
+		this.httpClient = httpClient;
+	}
+
+	/**
+	 * Returns the {@code CloseableHttpAsyncClient} used by this message sender, creating and starting it if
+	 * necessary.
+	 */
+	public synchronized CloseableHttpAsyncClient getHttpClient() {
+		if (httpClient == null) {
+			httpClient = createHttpClient();
+		}
+		if (httpClient.getStatus() == IOReactorStatus.INACTIVE) {
+			httpClient.start();
+		}
+		return httpClient;
+	}
+
+	/**
+	 * Sets the HTTP version policy of the default client. Default is {@link HttpVersionPolicy#NEGOTIATE}.
+	 */
+	public void setVersionPolicy(HttpVersionPolicy versionPolicy) {
+		Assert.notNull(versionPolicy, "versionPolicy must not be null");
+		this.versionPolicy = versionPolicy;
+	}
+
+	/**
+	 * Sets the timeout until a connection is established. A value of 0 means <em>never</em> timeout.
+	 *
+	 * @param timeout the timeout value in milliseconds
+	 * @see RequestConfig.Builder#setConnectTimeout(Timeout)
+	 */
+	public void setConnectionTimeout(int timeout) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout must be a non-negative value");
+		}
+		this.connectionTimeout = timeout;
+	}
+
+	/**
+	 * Set the timeout until the response is received. A value of 0 means <em>never</em> timeout.
+	 *
+	 * @param timeout the timeout value in milliseconds
+	 * @see RequestConfig.Builder#setResponseTimeout(Timeout)
+	 */
+	public void setReadTimeout(int timeout) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout must be a non-negative value");
+		}
+		this.readTimeout = timeout;
+	}
+
+	/**
+	 * Sets the maximum number of connections of the default client. Default is 25.
+	 *
+	 * <p>With HTTP/2, a single connection per host is used, and this limit does not restrict the number of concurrent
+	 * requests.
+	 *
+	 * @param maxTotalConnections the maximum number of connections allowed
+	 */
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		if (maxTotalConnections <= 0) {
+			throw new IllegalArgumentException("maxTotalConnections must be a positive value");
+		}
+		this.maxTotalConnections = maxTotalConnections;
+	}
+
+	/**
+	 * Sets the maximum number of connections per host of the default client. Default is 5.
+	 *
+	 * @param maxConnectionsPerRoute the maximum number of connections per host
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		if (maxConnectionsPerRoute <= 0) {
+			throw new IllegalArgumentException("maxConnectionsPerRoute must be a positive value");
+		}
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Sets the size of the buffer through which request bodies are streamed. Writing a message blocks while this
+	 * buffer is full. Default is 8 KB.
+	 */
+	public void setBufferSize(int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be a positive value");
+		}
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Sets the maximum size, in bytes, of a response body. Since response bodies are buffered in memory, larger
+	 * responses fail with an {@code IOException} once this size is exceeded. Default is 10 MB.
+	 */
+	public void setMaxResponseSize(long maxResponseSize) {
+		if (maxResponseSize <= 0) {
+			throw new IllegalArgumentException("maxResponseSize must be a positive value");
+		}
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		getHttpClient();
+	}
+
+	/**
+	 * Creates the default client. Called on first use, so that all properties of this sender have been set.
+	 */
+	private CloseableHttpAsyncClient createHttpClient() {
+		return HttpAsyncClients.custom()
+				.setVersionPolicy(versionPolicy)
+				.setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+						.setMaxConnTotal(maxTotalConnections)
+						.setMaxConnPerRoute(maxConnectionsPerRoute)
+						.build())
+				.build();
+	}
+
+	@Override
+	public WebServiceConnection createConnection(URI uri) throws IOException {
+		BasicHttpRequest httpRequest = new BasicHttpRequest(Method.POST, uri);
+		if (isAcceptGzipEncoding()) {
+			httpRequest.addHeader(HttpTransportConstants.HEADER_ACCEPT_ENCODING,
+					HttpTransportConstants.CONTENT_ENCODING_GZIP);
+		}
+		HttpContext httpContext = createContext(uri);
+		return new HttpComponents5Connection(getHttpClient(), httpRequest, httpContext, bufferSize,
+				maxResponseSize);
+	}
+
+	/**
+	 * Template method that allows for creation of a {@link HttpContext} for the given uri. Default implementation
+	 * returns a context with the timeouts of this sender if the default client is used, or {@code null} otherwise.
+	 *
+	 * @param uri the URI to create the context for
+	 * @return the context, or {@code null}
+	 */
+	protected HttpContext createContext(URI uri) {
+		if (!defaultClient) {
+			return null;
+		}
+		HttpClientContext context = HttpClientContext.create();
+		context.setRequestConfig(RequestConfig.custom()
+				.setConnectTimeout(Timeout.ofMilliseconds(connectionTimeout))
+				.setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+				.build());
+		return context;
+	}
+
+	@Override
+	public synchronized void destroy() throws Exception {
+		if (httpClient != null) {
+			httpClient.close(CloseMode.GRACEFUL);
+			if (defaultClient) {
+				httpClient = null;
+			}
+		}
+	}
+
+}
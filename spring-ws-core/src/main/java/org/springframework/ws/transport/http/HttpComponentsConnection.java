@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,20 +16,32 @@
 
 package org.springframework.ws.transport.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
@@ -42,6 +54,12 @@ import org.springframework.ws.transport.WebServiceConnection;
  * Implementation of {@link WebServiceConnection} that is based on Apache HttpClient. Exposes a {@link HttpPost} and
  * {@link HttpResponse}.
  *
+ * <p>By default, the request is buffered in memory before it is sent, so that HttpClient can retry it. If a
+ * {@linkplain #setStreamingExecutor(Executor) streaming executor} is set, the request is executed by that executor as
+ * soon as the message starts being written, and the message is written directly to the connection, using chunked
+ * transfer encoding. Streamed requests cannot be retried. The writing thread waits for a connection for at most the
+ * {@linkplain #setStreamingTimeout(long) streaming timeout}.
+ *
  * @author Alan Stewart
  * @author Barry Pitman
  * @author Arjen Poutsma
@@ -60,6 +78,26 @@ public class HttpComponentsConnection extends AbstractHttpSenderConnection {
 
 	private ByteArrayOutputStream requestBuffer;
 
+	private Executor streamingExecutor;
+
+	private long streamingTimeout;
+
+	private StreamingEntity streamingEntity;
+
+	private CompletableFuture<HttpResponse> streamingResponse;
+
+	private CountingOutputStream requestOutputStream;
+
+	private long requestStart;
+
+	private HttpComponentsMessageSenderListener listener;
+
+	private long requestBytes;
+
+	private long latency;
+
+	private CountingInputStream responseInputStream;
+
 	protected HttpComponentsConnection(HttpClient httpClient, HttpPost httpPost, HttpContext httpContext) {
 		Assert.notNull(httpClient, "httpClient must not be null");
 		Assert.notNull(httpPost, "httpPost must not be null");
@@ -76,10 +114,44 @@ public class HttpComponentsConnection extends AbstractHttpSenderConnection {
 		return httpResponse;
 	}
 
+	/** Sets the listener to notify of the outcome of the request. */
+	void setListener(HttpComponentsMessageSenderListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the executor that executes streamed requests. If {@code null}, the default, requests are buffered.
+	 */
+	void setStreamingExecutor(Executor streamingExecutor) {
+		this.streamingExecutor = streamingExecutor;
+	}
+
+	/**
+	 * Sets the maximum time in milliseconds to wait for HttpClient to obtain a connection for a streamed request, before
+	 * the request is aborted. A value of 0, the default, means <em>never</em> timeout.
+	 */
+	void setStreamingTimeout(long streamingTimeout) {
+		this.streamingTimeout = streamingTimeout;
+	}
+
 	@Override
 	public void onClose() throws IOException {
-		if (httpResponse != null && httpResponse.getEntity() != null) {
-			EntityUtils.consume(httpResponse.getEntity());
+		if (streamingEntity != null) {
+			// releases the executing thread if the message was not written completely
+			streamingEntity.abort();
+		}
+		try {
+			if (httpResponse != null && listener != null) {
+				long responseBytes = responseInputStream != null ? responseInputStream.count : 0;
+				listener.requestCompleted(httpPost.getURI(), httpResponse.getStatusLine().getStatusCode(), requestBytes,
+						responseBytes, latency);
+			}
+		}
+		finally {
+			// releases the connection, even if the listener fails
+			if (httpResponse != null && httpResponse.getEntity() != null) {
+				EntityUtils.consume(httpResponse.getEntity());
+			}
 		}
 	}
 
@@ -97,7 +169,9 @@ public class HttpComponentsConnection extends AbstractHttpSenderConnection {
 
 	@Override
 	protected void onSendBeforeWrite(WebServiceMessage message) throws IOException {
-		requestBuffer = new ByteArrayOutputStream();
+		if (streamingExecutor == null) {
+			requestBuffer = new ByteArrayOutputStream();
+		}
 	}
 
 	@Override
@@ -107,19 +181,121 @@ public class HttpComponentsConnection extends AbstractHttpSenderConnection {
 
 	@Override
 	protected OutputStream getRequestOutputStream() throws IOException {
-		return requestBuffer;
+		if (streamingExecutor == null) {
+			return requestBuffer;
+		}
+		// all headers have been added by now, so the request can be started
+		startStreamingRequest();
+		try {
+			requestOutputStream = new CountingOutputStream(streamingEntity.awaitOutputStream(streamingTimeout));
+		}
+		catch (ConnectionPoolTimeoutException ex) {
+			// the request might still be queued on the executor, or waiting for a connection
+			streamingResponse.completeExceptionally(ex);
+			streamingEntity.abort();
+			httpPost.abort();
+			requestFailed(ex);
+			throw ex;
+		}
+		catch (IOException ex) {
+			requestFailed(ex);
+			throw ex;
+		}
+		return requestOutputStream;
 	}
 
 	@Override
 	protected void onSendAfterWrite(WebServiceMessage message) throws IOException {
+		if (streamingExecutor != null) {
+			if (streamingEntity == null) {
+				startStreamingRequest();
+			}
+			streamingEntity.writeCompleted();
+			requestBytes = requestOutputStream != null ? requestOutputStream.count : 0;
+			httpResponse = awaitStreamingResponse();
+			latency = System.nanoTime() - requestStart;
+			return;
+		}
 		httpPost.setEntity(new ByteArrayEntity(requestBuffer.toByteArray()));
+		requestBytes = requestBuffer.size();
 		requestBuffer = null;
+		requestStart = System.nanoTime();
+		try {
+			httpResponse = execute();
+		}
+		catch (IOException ex) {
+			requestFailed(ex);
+			throw ex;
+		}
+		latency = System.nanoTime() - requestStart;
+	}
+
+	private HttpResponse execute() throws IOException {
 		if (httpContext != null) {
-			httpResponse = httpClient.execute(httpPost, httpContext);
+			return httpClient.execute(httpPost, httpContext);
 		}
 		else {
-			httpResponse = httpClient.execute(httpPost);
+			return httpClient.execute(httpPost);
+		}
+	}
+
+	private void startStreamingRequest() {
+		final StreamingEntity entity = new StreamingEntity();
+		final CompletableFuture<HttpResponse> response = new CompletableFuture<HttpResponse>();
+		streamingEntity = entity;
+		streamingResponse = response;
+		httpPost.setEntity(entity);
+		requestStart = System.nanoTime();
+		streamingExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				if (response.isDone()) {
+					// aborted while queued
+					return;
+				}
+				try {
+					HttpResponse result = execute();
+					// HttpClient might not have asked for the body, for instance after an expect-continue rejection
+					entity.discard();
+					response.complete(result);
+				}
+				catch (Throwable ex) {
+					entity.failed(ex);
+					response.completeExceptionally(ex);
+				}
+			}
+		});
+	}
+
+	private HttpResponse awaitStreamingResponse() throws IOException {
+		try {
+			return streamingResponse.get();
 		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			streamingEntity.abort();
+			httpPost.abort();
+			throw new InterruptedIOException("Interrupted while waiting for response");
+		}
+		catch (ExecutionException ex) {
+			IOException ioException = toIOException(ex.getCause());
+			requestFailed(ioException);
+			throw ioException;
+		}
+	}
+
+	private void requestFailed(IOException ex) {
+		if (listener != null) {
+			listener.requestFailed(httpPost.getURI(), ex, System.nanoTime() - requestStart);
+		}
+	}
+
+	private static IOException toIOException(Throwable ex) {
+		if (ex instanceof IOException) {
+			return (IOException) ex;
+		}
+		return new IOException(ex.getMessage(), ex);
 	}
 
 	/*
@@ -149,6 +325,10 @@ public class HttpComponentsConnection extends AbstractHttpSenderConnection {
 	protected InputStream getRawResponseInputStream() throws IOException {
 		HttpEntity entity = httpResponse.getEntity();
 		if (entity != null) {
+			if (listener != null) {
+				responseInputStream = new CountingInputStream(entity.getContent());
+				return responseInputStream;
+			}
 			return entity.getContent();
 		}
 		throw new IllegalStateException("Response has no enclosing response entity, cannot create input stream");
@@ -173,4 +353,187 @@ public class HttpComponentsConnection extends AbstractHttpSenderConnection {
 		}
 		return Arrays.asList(values).iterator();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Non-repeatable entity that hands the connection output stream over to the thread that writes the message, and
+	 * blocks the executing thread until the message has been written.
+	 */
+	private static class StreamingEntity extends AbstractHttpEntity {
+
+		private final CompletableFuture<OutputStream> outputStream = new CompletableFuture<OutputStream>();
+
+		private final CountDownLatch written = new CountDownLatch(1);
+
+		private volatile boolean aborted;
+
+		/** The request body, if buffered by {@link #getContent()}. */
+		private volatile byte[] content;
+
+		private StreamingEntity() {
+			setChunked(true);
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		/**
+		 * Returns the request body, once it has been written completely. HttpClient only uses {@link #writeTo(OutputStream)}
+		 * for sending the request, but interceptors might call this method, in which case the body is buffered, like
+		 * {@link org.apache.http.entity.EntityTemplate} does, and sent from the buffer.
+		 */
+		@Override
+		public InputStream getContent() throws IOException {
+			if (content == null) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				writeTo(out);
+				content = out.toByteArray();
+			}
+			return new ByteArrayInputStream(content);
+		}
+
+		@Override
+		public boolean isStreaming() {
+			return false;
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			if (content != null) {
+				out.write(content);
+				return;
+			}
+			if (!outputStream.complete(out)) {
+				throw new IOException("Streaming entity can only be written once");
+			}
+			try {
+				written.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for request body");
+			}
+			if (aborted) {
+				throw new IOException("Request body was not written completely");
+			}
+		}
+
+		/**
+		 * Returns the connection output stream, once HttpClient is ready to send the request body.
+		 *
+		 * @param timeout the maximum time to wait in milliseconds, or 0 to wait indefinitely
+		 */
+		private OutputStream awaitOutputStream(long timeout) throws IOException {
+			try {
+				if (timeout > 0) {
+					return outputStream.get(timeout, TimeUnit.MILLISECONDS);
+				}
+				return outputStream.get();
+			}
+			catch (TimeoutException ex) {
+				throw new ConnectionPoolTimeoutException("Timeout waiting for connection");
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				abort();
+				throw new InterruptedIOException("Interrupted while waiting for connection");
+			}
+			catch (ExecutionException ex) {
+				throw toIOException(ex.getCause());
+			}
+		}
+
+		private void writeCompleted() {
+			written.countDown();
+		}
+
+		private void failed(Throwable ex) {
+			outputStream.completeExceptionally(ex);
+		}
+
+		private void discard() {
+			outputStream.complete(new OutputStream() {
+
+				@Override
+				public void write(int b) {
+				}
+			});
+		}
+
+		private void abort() {
+			if (written.getCount() > 0) {
+				aborted = true;
+				written.countDown();
+			}
+		}
+	}
+
+	/** Output stream that counts the number of bytes written, and does not close the connection stream. */
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+
+	/** Input stream that counts the number of bytes read. */
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+}
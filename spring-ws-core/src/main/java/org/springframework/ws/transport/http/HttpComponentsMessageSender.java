@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,13 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpException;
@@ -31,13 +38,19 @@ import org.apache.http.auth.Credentials;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
 import org.springframework.ws.transport.WebServiceConnection;
 
 /**
@@ -48,6 +61,14 @@ import org.springframework.ws.transport.WebServiceConnection;
  * Authentication can also be set by injecting a {@link Credentials} instance (such as the {@link
  * UsernamePasswordCredentials}).
  *
+ * <p>Requests can be instrumented by setting a {@link HttpComponentsMessageSenderListener}, and the state of the
+ * connection pool is available through {@link #getTotalPoolStats()} and {@link #getPoolStats(URI)}. Idle and expired
+ * connections can be evicted in the background by setting a {@linkplain #setConnectionEvictionInterval(long) connection
+ * eviction interval}.
+ *
+ * <p>By default, requests are buffered in memory before they are sent. For large requests, such as MTOM attachments,
+ * the request body can be {@linkplain #setStreamRequestBody(boolean) streamed} directly to the connection instead.
+ *
  * @author Alan Stewart
  * @author Barry Pitman
  * @author Arjen Poutsma
@@ -63,19 +84,35 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 
 	private static final int DEFAULT_READ_TIMEOUT_MILLISECONDS = (60 * 1000);
 
+	private static final int DEFAULT_STREAMING_POOL_SIZE = 20;
+
 	private HttpClient httpClient;
 
 	private Credentials credentials;
 
 	private AuthScope authScope = AuthScope.ANY;
 
+	private volatile HttpComponentsMessageSenderListener listener;
+
+	private long connectionEvictionInterval;
+
+	private long maxIdleTime;
+
+	private ScheduledExecutorService connectionEvictor;
+
+	private boolean streamRequestBody;
+
+	private volatile TaskExecutor streamingTaskExecutor;
+
+	private ExecutorService defaultStreamingExecutor;
+
 	/**
 	 * Create a new instance of the {@code HttpClientMessageSender} with a default {@link HttpClient} that uses a
 	 * default {@link org.apache.http.impl.conn.PoolingClientConnectionManager}.
 	 */
 	public HttpComponentsMessageSender() {
 		org.apache.http.impl.client.DefaultHttpClient defaultClient =
-				new org.apache.http.impl.client.DefaultHttpClient(new org.apache.http.impl.conn.PoolingClientConnectionManager());
+				new org.apache.http.impl.client.DefaultHttpClient(new InstrumentedConnectionManager());
 		defaultClient.addRequestInterceptor(new RemoveSoapHeadersInterceptor(), 0);
 
 		this.httpClient = defaultClient;
@@ -195,14 +232,7 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 
 		for (Map.Entry<String, String> entry : maxConnectionsPerHost.entrySet()) {
 			URI uri = new URI(entry.getKey());
-			HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
-			final HttpRoute route;
-
-			if (uri.getScheme().equals("https")) {
-				route = new HttpRoute(host, null, true);
-			} else {
-				route = new HttpRoute(host);
-			}
+			HttpRoute route = createRoute(uri);
 
 			int max = Integer.parseInt(entry.getValue());
 
@@ -210,6 +240,108 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 		}
 	}
 
+	private static HttpRoute createRoute(URI uri) {
+		HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+		if (uri.getScheme().equals("https")) {
+			return new HttpRoute(host, null, true);
+		} else {
+			return new HttpRoute(host);
+		}
+	}
+
+	/**
+	 * Sets the listener that is notified of connection leases, and of the outcome of each request.
+	 */
+	public void setListener(HttpComponentsMessageSenderListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the interval at which idle and expired connections are closed by a background thread. A value of 0, the
+	 * default, means connections are not evicted in the background.
+	 *
+	 * @param connectionEvictionInterval the interval in milliseconds
+	 * @see #setMaxIdleTime(long)
+	 */
+	public void setConnectionEvictionInterval(long connectionEvictionInterval) {
+		if (connectionEvictionInterval < 0) {
+			throw new IllegalArgumentException("connectionEvictionInterval must be a non-negative value");
+		}
+		this.connectionEvictionInterval = connectionEvictionInterval;
+	}
+
+	/**
+	 * Sets the time after which an idle connection is closed by the background eviction. A value of 0, the default,
+	 * means that only expired connections are closed.
+	 *
+	 * @param maxIdleTime the maximum idle time in milliseconds
+	 * @see #setConnectionEvictionInterval(long)
+	 */
+	public void setMaxIdleTime(long maxIdleTime) {
+		if (maxIdleTime < 0) {
+			throw new IllegalArgumentException("maxIdleTime must be a non-negative value");
+		}
+		this.maxIdleTime = maxIdleTime;
+	}
+
+	/**
+	 * Sets whether the request body is written directly to the connection, using chunked transfer encoding, rather
+	 * than buffered in memory. Default is {@code false}.
+	 *
+	 * <p>Streaming avoids holding a serialized copy of the request in memory, and sends the first bytes before the
+	 * message has been written completely. However, a streamed request cannot be retried by HttpClient, and the
+	 * server must support chunked requests. The writing thread waits for a connection for at most the connection
+	 * request timeout plus the {@linkplain #setConnectionTimeout(int) connection timeout}, after which the request is
+	 * aborted.
+	 *
+	 * @see #setStreamingTaskExecutor(TaskExecutor)
+	 */
+	public void setStreamRequestBody(boolean streamRequestBody) {
+		this.streamRequestBody = streamRequestBody;
+	}
+
+	/**
+	 * Sets the executor that executes streamed requests, while the calling thread writes the request body. Defaults
+	 * to a pool of daemon threads, sized to the maximum number of connections of the default connection manager (or
+	 * 20 for other connection managers), which queues further requests; idle threads are stopped after a minute.
+	 * The default pool is shut down when this sender is {@linkplain #destroy() destroyed}, a given executor is not.
+	 *
+	 * @see #setStreamRequestBody(boolean)
+	 */
+	public void setStreamingTaskExecutor(TaskExecutor streamingTaskExecutor) {
+		Assert.notNull(streamingTaskExecutor, "streamingTaskExecutor must not be null");
+		this.streamingTaskExecutor = streamingTaskExecutor;
+	}
+
+	/**
+	 * Returns the statistics of the connection pool: leased, pending, and available connections. Returns
+	 * {@code null} if the connection manager is not pooling.
+	 */
+	public PoolStats getTotalPoolStats() {
+		ConnPoolControl<HttpRoute> poolControl = getPoolControl();
+		return poolControl != null ? poolControl.getTotalStats() : null;
+	}
+
+	/**
+	 * Returns the statistics of the connection pool for the given destination. Returns {@code null} if the
+	 * connection manager is not pooling.
+	 *
+	 * @param uri the destination URI, with scheme and port
+	 */
+	public PoolStats getPoolStats(URI uri) {
+		ConnPoolControl<HttpRoute> poolControl = getPoolControl();
+		return poolControl != null ? poolControl.getStats(createRoute(uri)) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ConnPoolControl<HttpRoute> getPoolControl() {
+		org.apache.http.conn.ClientConnectionManager connectionManager = getHttpClient().getConnectionManager();
+		if (connectionManager instanceof ConnPoolControl) {
+			return (ConnPoolControl<HttpRoute>) connectionManager;
+		}
+		return null;
+	}
+
 	/**
 	 * Sets the authentication scope to be used. Only used when the {@code credentials} property has been set.
 	 *
@@ -228,6 +360,35 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 			((org.apache.http.impl.client.DefaultHttpClient) getHttpClient())
 					.getCredentialsProvider().setCredentials(authScope, credentials);
 		}
+		if (connectionEvictionInterval > 0 && connectionEvictor == null) {
+			connectionEvictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "http-connection-evictor");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			connectionEvictor.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					// an exception would cancel all subsequent evictions
+					try {
+						org.apache.http.conn.ClientConnectionManager connectionManager =
+								getHttpClient().getConnectionManager();
+						connectionManager.closeExpiredConnections();
+						if (maxIdleTime > 0) {
+							connectionManager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+						}
+					}
+					catch (RuntimeException ex) {
+						logger.warn("Could not evict idle connections", ex);
+					}
+				}
+			}, connectionEvictionInterval, connectionEvictionInterval, TimeUnit.MILLISECONDS);
+		}
 	}
 
 	@Override
@@ -238,7 +399,64 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 					HttpTransportConstants.CONTENT_ENCODING_GZIP);
 		}
 		HttpContext httpContext = createContext(uri);
-		return new HttpComponentsConnection(getHttpClient(), httpPost, httpContext);
+		HttpComponentsConnection connection = new HttpComponentsConnection(getHttpClient(), httpPost, httpContext);
+		connection.setListener(listener);
+		if (streamRequestBody) {
+			connection.setStreamingExecutor(getStreamingTaskExecutor());
+			connection.setStreamingTimeout(getStreamingTimeout());
+		}
+		return connection;
+	}
+
+	private TaskExecutor getStreamingTaskExecutor() {
+		if (streamingTaskExecutor == null) {
+			synchronized (this) {
+				if (streamingTaskExecutor == null) {
+					defaultStreamingExecutor = createDefaultStreamingExecutor();
+					streamingTaskExecutor = new TaskExecutorAdapter(defaultStreamingExecutor);
+				}
+			}
+		}
+		return streamingTaskExecutor;
+	}
+
+	/**
+	 * Creates the default streaming executor. More threads than connections would only wait for a connection, so the
+	 * pool is sized to the maximum number of connections.
+	 */
+	private ExecutorService createDefaultStreamingExecutor() {
+		int poolSize = DEFAULT_STREAMING_POOL_SIZE;
+		org.apache.http.conn.ClientConnectionManager connectionManager = getHttpClient().getConnectionManager();
+		if (connectionManager instanceof org.apache.http.impl.conn.PoolingClientConnectionManager) {
+			poolSize = ((org.apache.http.impl.conn.PoolingClientConnectionManager) connectionManager).getMaxTotal();
+		}
+		final CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("http-request-");
+		threadCreator.setDaemon(true);
+		ThreadFactory threadFactory = new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return threadCreator.createThread(runnable);
+			}
+		};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Returns the time to wait for a connection for a streamed request: the connection request timeout, plus the
+	 * connection timeout, since the connection must also be established before the request body can be written.
+	 * Returns 0, meaning <em>never</em> timeout, if the connection request timeout is 0.
+	 */
+	private long getStreamingTimeout() {
+		org.apache.http.params.HttpParams params = getHttpClient().getParams();
+		long connectionRequestTimeout = org.apache.http.client.params.HttpClientParams.getConnectionManagerTimeout(params);
+		if (connectionRequestTimeout <= 0) {
+			return 0;
+		}
+		return connectionRequestTimeout + org.apache.http.params.HttpConnectionParams.getConnectionTimeout(params);
 	}
 
 	/**
@@ -254,9 +472,51 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 
 	@Override
 	public void destroy() throws Exception {
+		if (connectionEvictor != null) {
+			connectionEvictor.shutdownNow();
+			connectionEvictor = null;
+		}
+		synchronized (this) {
+			if (defaultStreamingExecutor != null) {
+				defaultStreamingExecutor.shutdown();
+				defaultStreamingExecutor = null;
+				streamingTaskExecutor = null;
+			}
+		}
 		getHttpClient().getConnectionManager().shutdown();
 	}
 
+	/**
+	 * Pooling connection manager that reports the time spent waiting for a connection to the {@linkplain
+	 * #setListener(HttpComponentsMessageSenderListener) listener}.
+	 */
+	private class InstrumentedConnectionManager extends org.apache.http.impl.conn.PoolingClientConnectionManager {
+
+		@Override
+		public org.apache.http.conn.ClientConnectionRequest requestConnection(final HttpRoute route, Object state) {
+			final org.apache.http.conn.ClientConnectionRequest request = super.requestConnection(route, state);
+			return new org.apache.http.conn.ClientConnectionRequest() {
+
+				@Override
+				public org.apache.http.conn.ManagedClientConnection getConnection(long timeout, TimeUnit tunit)
+						throws InterruptedException, ConnectionPoolTimeoutException {
+					long start = System.nanoTime();
+					org.apache.http.conn.ManagedClientConnection connection = request.getConnection(timeout, tunit);
+					HttpComponentsMessageSenderListener listener = HttpComponentsMessageSender.this.listener;
+					if (listener != null) {
+						listener.connectionLeased(route, System.nanoTime() - start);
+					}
+					return connection;
+				}
+
+				@Override
+				public void abortRequest() {
+					request.abortRequest();
+				}
+			};
+		}
+	}
+
 	/**
 	 * HttpClient {@link org.apache.http.HttpRequestInterceptor} implementation that removes {@code Content-Length} and
 	 * {@code Transfer-Encoding} headers from the request. Necessary, because some SAAJ and other SOAP implementations set these
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.http;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * Callback interface for instrumentation of the {@link HttpComponentsMessageSender}. Implementations can record the
+ * reported values in a metrics library of choice, such as Micrometer.
+ *
+ * <p>Implementations are invoked on the thread that sends the request, and should therefore return quickly. All times
+ * are in nanoseconds.
+ *
+ * @author Greg Turnquist
+ * @see HttpComponentsMessageSender#setListener(HttpComponentsMessageSenderListener)
+ * @since 3.0.8
+ */
+public interface HttpComponentsMessageSenderListener {
+
+	/**
+	 * Called when a connection has been leased from the pool. Only called for the connection manager created by the
+	 * default {@link HttpComponentsMessageSender#HttpComponentsMessageSender() constructor}.
+	 *
+	 * @param route the route of the connection
+	 * @param waitTime the time spent waiting for the connection
+	 */
+	void connectionLeased(HttpRoute route, long waitTime);
+
+	/**
+	 * Called when a response has been received, and the connection is closed.
+	 *
+	 * @param uri the destination URI
+	 * @param statusCode the HTTP status code of the response
+	 * @param requestBytes the number of bytes in the request body
+	 * @param responseBytes the number of bytes read from the response body
+	 * @param latency the time between sending the request and receiving the response headers
+	 */
+	void requestCompleted(URI uri, int statusCode, long requestBytes, long responseBytes, long latency);
+
+	/**
+	 * Called when a request could not be executed.
+	 *
+	 * @param uri the destination URI
+	 * @param ex the exception that caused the failure
+	 * @param latency the time between sending the request and the failure
+	 */
+	void requestFailed(URI uri, IOException ex, long latency);
+
+}
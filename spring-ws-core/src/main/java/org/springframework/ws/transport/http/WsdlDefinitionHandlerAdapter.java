@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,12 @@
 
 package org.springframework.ws.transport.http;
 
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.dom.DOMResult;
@@ -59,6 +61,9 @@ import org.springframework.xml.xpath.XPathExpressionFactory;
  * are changed by default. This behavior can be customized by changing the {@code locationExpression} property,
  * which is an XPath expression that matches the attributes to change.
  *
+ * <p>If the property {@code responseCaching} is set to {@code true}, the serialized definition is cached, so that
+ * repeated requests do not need to transform it again.
+ *
  * @author Arjen Poutsma
  * @see WsdlDefinition
  * @see #setTransformLocations(boolean)
@@ -90,6 +95,12 @@ public class WsdlDefinitionHandlerAdapter extends LocationTransformerObjectSuppo
 
 	private boolean transformSchemaLocations = false;
 
+	private boolean responseCaching = false;
+
+	private boolean responseCompression = false;
+
+	private DocumentResponseCache responseCache;
+
 	/**
 	 * Sets the XPath expression used for extracting the {@code location} attributes from the WSDL 1.1 definition.
 	 *
@@ -124,6 +135,27 @@ public class WsdlDefinitionHandlerAdapter extends LocationTransformerObjectSuppo
 		this.transformSchemaLocations = transformSchemaLocations;
 	}
 
+	/**
+	 * Sets whether the serialized {@code WSDL definition} is cached, rather than being transformed and serialized for every
+	 * request. Cached responses carry an {@code ETag} header, and requests with a matching {@code If-None-Match} header
+	 * are answered with {@code 304 Not Modified}. Defaults to {@code false}.
+	 *
+	 * <p>When locations are transformed, a response is cached per {@linkplain #transformLocation(String,
+	 * HttpServletRequest) transformed location}, and the least recently used responses are evicted when the cache is
+	 * full. The WSDL definition itself is assumed not to change after it has been cached.
+	 */
+	public void setResponseCaching(boolean responseCaching) {
+		this.responseCaching = responseCaching;
+	}
+
+	/**
+	 * Sets whether a gzip-compressed variant of each {@linkplain #setResponseCaching(boolean) cached} response is
+	 * kept, and sent to clients that accept gzip encoding. Defaults to {@code false}.
+	 */
+	public void setResponseCompression(boolean responseCompression) {
+		this.responseCompression = responseCompression;
+	}
+
 	@Override
 	public long getLastModified(HttpServletRequest request, Object handler) {
 		Source definitionSource = ((WsdlDefinition) handler).getSource();
@@ -135,26 +167,22 @@ public class WsdlDefinitionHandlerAdapter extends LocationTransformerObjectSuppo
 			throws Exception {
 		if (HttpTransportConstants.METHOD_GET.equals(request.getMethod())) {
 			WsdlDefinition definition = (WsdlDefinition) handler;
+			boolean requestDependent = transformLocations || transformSchemaLocations;
 
-			Transformer transformer = createTransformer();
-			Source definitionSource = definition.getSource();
-
-			if (transformLocations || transformSchemaLocations) {
-				DOMResult domResult = new DOMResult();
-				transformer.transform(definitionSource, domResult);
-				Document definitionDocument = (Document) domResult.getNode();
-				if (transformLocations) {
-					transformLocations(definitionDocument, request);
-				}
-				if (transformSchemaLocations) {
-					transformSchemaLocations(definitionDocument, request);
+			if (responseCache != null) {
+				String location = requestDependent ? transformLocation("/", request) : null;
+				DocumentResponseCache.CachedResponse cachedResponse = responseCache.get(definition, location);
+				if (cachedResponse == null) {
+					ByteArrayOutputStream bos = new ByteArrayOutputStream();
+					writeDefinition(definition, request, new StreamResult(bos));
+					cachedResponse = responseCache.put(definition, location, CONTENT_TYPE, bos.toByteArray());
 				}
-				definitionSource = new DOMSource(definitionDocument);
+				cachedResponse.writeTo(request, response);
+			}
+			else {
+				response.setContentType(CONTENT_TYPE);
+				writeDefinition(definition, request, new StreamResult(response.getOutputStream()));
 			}
-
-			response.setContentType(CONTENT_TYPE);
-			StreamResult responseResult = new StreamResult(response.getOutputStream());
-			transformer.transform(definitionSource, responseResult);
 		}
 		else {
 			response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
@@ -162,6 +190,27 @@ public class WsdlDefinitionHandlerAdapter extends LocationTransformerObjectSuppo
 		return null;
 	}
 
+	private void writeDefinition(WsdlDefinition definition, HttpServletRequest request, Result result)
+			throws Exception {
+		Transformer transformer = createTransformer();
+		Source definitionSource = definition.getSource();
+
+		if (transformLocations || transformSchemaLocations) {
+			DOMResult domResult = new DOMResult();
+			transformer.transform(definitionSource, domResult);
+			Document definitionDocument = (Document) domResult.getNode();
+			if (transformLocations) {
+				transformLocations(definitionDocument, request);
+			}
+			if (transformSchemaLocations) {
+				transformSchemaLocations(definitionDocument, request);
+			}
+			definitionSource = new DOMSource(definitionDocument);
+		}
+
+		transformer.transform(definitionSource, result);
+	}
+
 	@Override
 	public boolean supports(Object handler) {
 		return handler instanceof WsdlDefinition;
@@ -173,6 +222,7 @@ public class WsdlDefinitionHandlerAdapter extends LocationTransformerObjectSuppo
 				XPathExpressionFactory.createXPathExpression(locationExpression, expressionNamespaces);
 		schemaLocationXPathExpression =
 				XPathExpressionFactory.createXPathExpression(schemaLocationExpression, expressionNamespaces);
+		responseCache = responseCaching ? new DocumentResponseCache(responseCompression) : null;
 	}
 
 	/**
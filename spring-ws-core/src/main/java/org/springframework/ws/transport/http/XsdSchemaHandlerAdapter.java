@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,12 @@
 
 package org.springframework.ws.transport.http;
 
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.dom.DOMResult;
@@ -41,6 +43,9 @@ import org.springframework.xml.xsd.XsdSchema;
  * <p>Reads the source from the mapped {@link XsdSchema} implementation, and writes that as the result to the
  * {@code HttpServletResponse}. Allows for post-processing the schema in subclasses.
  *
+ * <p>If the property {@code responseCaching} is set to {@code true}, the serialized schema is cached, so that repeated
+ * requests do not need to transform it again.
+ *
  * @author Arjen Poutsma
  * @see XsdSchema
  * @see #getSchemaSource(XsdSchema)
@@ -64,6 +69,12 @@ public class XsdSchemaHandlerAdapter extends LocationTransformerObjectSupport
 
 	private boolean transformSchemaLocations = false;
 
+	private boolean responseCaching = false;
+
+	private boolean responseCompression = false;
+
+	private DocumentResponseCache responseCache;
+
 	/**
 	 * Sets the XPath expression used for extracting the {@code schemaLocation} attributes from the WSDL 1.1 definition.
 	 *
@@ -81,6 +92,27 @@ public class XsdSchemaHandlerAdapter extends LocationTransformerObjectSupport
 		this.transformSchemaLocations = transformSchemaLocations;
 	}
 
+	/**
+	 * Sets whether the serialized {@code schema} is cached, rather than being transformed and serialized for every
+	 * request. Cached responses carry an {@code ETag} header, and requests with a matching {@code If-None-Match} header
+	 * are answered with {@code 304 Not Modified}. Defaults to {@code false}.
+	 *
+	 * <p>When locations are transformed, a response is cached per {@linkplain #transformLocation(String,
+	 * HttpServletRequest) transformed location}, and the least recently used responses are evicted when the cache is
+	 * full. The schema itself is assumed not to change after it has been cached.
+	 */
+	public void setResponseCaching(boolean responseCaching) {
+		this.responseCaching = responseCaching;
+	}
+
+	/**
+	 * Sets whether a gzip-compressed variant of each {@linkplain #setResponseCaching(boolean) cached} response is
+	 * kept, and sent to clients that accept gzip encoding. Defaults to {@code false}.
+	 */
+	public void setResponseCompression(boolean responseCompression) {
+		this.responseCompression = responseCompression;
+	}
+
 	@Override
 	public long getLastModified(HttpServletRequest request, Object handler) {
 		Source schemaSource = ((XsdSchema) handler).getSource();
@@ -91,20 +123,22 @@ public class XsdSchemaHandlerAdapter extends LocationTransformerObjectSupport
 	public ModelAndView handle(HttpServletRequest request, HttpServletResponse response, Object handler)
 			throws Exception {
 		if (HttpTransportConstants.METHOD_GET.equals(request.getMethod())) {
-			Transformer transformer = createTransformer();
-			Source schemaSource = getSchemaSource((XsdSchema) handler);
-
-			if (transformSchemaLocations) {
-				DOMResult domResult = new DOMResult();
-				transformer.transform(schemaSource, domResult);
-				Document schemaDocument = (Document) domResult.getNode();
-				transformSchemaLocations(schemaDocument, request);
-				schemaSource = new DOMSource(schemaDocument);
+			XsdSchema schema = (XsdSchema) handler;
+
+			if (responseCache != null) {
+				String location = transformSchemaLocations ? transformLocation("/", request) : null;
+				DocumentResponseCache.CachedResponse cachedResponse = responseCache.get(schema, location);
+				if (cachedResponse == null) {
+					ByteArrayOutputStream bos = new ByteArrayOutputStream();
+					writeSchema(schema, request, new StreamResult(bos));
+					cachedResponse = responseCache.put(schema, location, CONTENT_TYPE, bos.toByteArray());
+				}
+				cachedResponse.writeTo(request, response);
+			}
+			else {
+				response.setContentType(CONTENT_TYPE);
+				writeSchema(schema, request, new StreamResult(response.getOutputStream()));
 			}
-
-			response.setContentType(CONTENT_TYPE);
-			StreamResult responseResult = new StreamResult(response.getOutputStream());
-			transformer.transform(schemaSource, responseResult);
 		}
 		else {
 			response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
@@ -112,6 +146,21 @@ public class XsdSchemaHandlerAdapter extends LocationTransformerObjectSupport
 		return null;
 	}
 
+	private void writeSchema(XsdSchema schema, HttpServletRequest request, Result result) throws Exception {
+		Transformer transformer = createTransformer();
+		Source schemaSource = getSchemaSource(schema);
+
+		if (transformSchemaLocations) {
+			DOMResult domResult = new DOMResult();
+			transformer.transform(schemaSource, domResult);
+			Document schemaDocument = (Document) domResult.getNode();
+			transformSchemaLocations(schemaDocument, request);
+			schemaSource = new DOMSource(schemaDocument);
+		}
+
+		transformer.transform(schemaSource, result);
+	}
+
 	@Override
 	public boolean supports(Object handler) {
 		return handler instanceof XsdSchema;
@@ -121,6 +170,7 @@ public class XsdSchemaHandlerAdapter extends LocationTransformerObjectSupport
 	public void afterPropertiesSet() throws Exception {
 		schemaLocationXPathExpression =
 				XPathExpressionFactory.createXPathExpression(schemaLocationExpression, expressionNamespaces);
+		responseCache = responseCaching ? new DocumentResponseCache(responseCompression) : null;
 	}
 
 	/**
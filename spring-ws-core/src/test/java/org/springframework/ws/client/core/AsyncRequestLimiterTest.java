@@ -0,0 +1,118 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.core.task.SyncTaskExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncRequestLimiterTest {
+
+	@Test
+	public void testManyQueuedRequestsCompletingImmediately() throws Exception {
+		AsyncRequestLimiter limiter = new AsyncRequestLimiter(1);
+		CompletableFuture<Object> first = new CompletableFuture<Object>();
+		limiter.submit(first, new SyncTaskExecutor(), new NoOpRequest());
+
+		final AtomicInteger started = new AtomicInteger();
+		int count = 100000;
+		for (int i = 0; i < count; i++) {
+			final CompletableFuture<Object> future = new CompletableFuture<Object>();
+			limiter.submit(future, new SyncTaskExecutor(), new Runnable() {
+
+				public void run() {
+					started.incrementAndGet();
+					future.complete(null);
+				}
+			});
+		}
+		assertEquals("Invalid waiting count", count, limiter.getWaitingCount());
+
+		first.complete(null);
+		assertEquals("Not all requests started", count, started.get());
+		assertEquals("Invalid active count", 0, limiter.getActiveCount());
+		assertEquals("Invalid waiting count", 0, limiter.getWaitingCount());
+	}
+
+	@Test
+	public void testStartsOnExecutor() throws Exception {
+		AsyncRequestLimiter limiter = new AsyncRequestLimiter(1);
+		CompletableFuture<Object> first = new CompletableFuture<Object>();
+		limiter.submit(first, new SyncTaskExecutor(), new NoOpRequest());
+
+		final AtomicInteger executed = new AtomicInteger();
+		Executor executor = new Executor() {
+
+			public void execute(Runnable command) {
+				executed.incrementAndGet();
+			}
+		};
+		CompletableFuture<Object> second = new CompletableFuture<Object>();
+		limiter.submit(second, executor, new NoOpRequest());
+		assertEquals("Request started before limit permits", 0, executed.get());
+
+		first.complete(null);
+		assertEquals("Request not started on executor", 1, executed.get());
+		assertEquals("Invalid active count", 1, limiter.getActiveCount());
+	}
+
+	@Test
+	public void testSkipsCompletedAndRejectedRequests() throws Exception {
+		AsyncRequestLimiter limiter = new AsyncRequestLimiter(1);
+		CompletableFuture<Object> first = new CompletableFuture<Object>();
+		limiter.submit(first, new SyncTaskExecutor(), new NoOpRequest());
+
+		final AtomicInteger started = new AtomicInteger();
+		CompletableFuture<Object> cancelled = new CompletableFuture<Object>();
+		limiter.submit(cancelled, new SyncTaskExecutor(), new Runnable() {
+
+			public void run() {
+				started.incrementAndGet();
+			}
+		});
+		cancelled.cancel(false);
+
+		CompletableFuture<Object> rejected = new CompletableFuture<Object>();
+		limiter.submit(rejected, new Executor() {
+
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		}, new NoOpRequest());
+
+		first.complete(null);
+		assertTrue("Rejected request not completed", rejected.isCompletedExceptionally());
+		assertEquals("Cancelled request started", 0, started.get());
+		assertEquals("Invalid active count", 0, limiter.getActiveCount());
+		assertEquals("Invalid waiting count", 0, limiter.getWaitingCount());
+	}
+
+	private static class NoOpRequest implements Runnable {
+
+		public void run() {
+		}
+	}
+
+}
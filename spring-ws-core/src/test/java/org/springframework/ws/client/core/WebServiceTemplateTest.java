@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,14 @@ package org.springframework.ws.client.core;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.oxm.Marshaller;
 import org.springframework.oxm.Unmarshaller;
 import org.springframework.ws.MockWebServiceMessage;
@@ -34,6 +36,7 @@ import org.springframework.ws.client.support.destination.DestinationProvider;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.AsyncWebServiceConnection;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
 import org.springframework.ws.transport.WebServiceConnection;
 import org.springframework.ws.transport.WebServiceMessageSender;
@@ -460,6 +463,117 @@ public class WebServiceTemplateTest {
 		verify(connectionMock, interceptorMock1, interceptorMock2, requestCallback, extractorMock);
 	}
 	
+	@Test
+	public void testSendAndReceiveAsync() throws Exception {
+		template.setAsyncTaskExecutor(new SyncTaskExecutor());
+
+		ClientInterceptor interceptorMock = createStrictMock(ClientInterceptor.class);
+		template.setInterceptors(new ClientInterceptor[]{interceptorMock});
+		expect(interceptorMock.handleRequest(isA(MessageContext.class))).andReturn(true);
+		expect(interceptorMock.handleResponse(isA(MessageContext.class))).andReturn(true);
+		interceptorMock.afterCompletion(isA(MessageContext.class), (Exception)isNull());
+
+		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
+		Object extracted = new Object();
+		expect(extractorMock.extractData(isA(WebServiceMessage.class))).andReturn(extracted);
+
+		connectionMock.send(isA(WebServiceMessage.class));
+		expect(connectionMock.hasError()).andReturn(false);
+		expect(connectionMock.receive(messageFactory)).andReturn(new MockWebServiceMessage("<response/>"));
+		expect(connectionMock.hasFault()).andReturn(false);
+		connectionMock.close();
+
+		replay(connectionMock, interceptorMock, extractorMock);
+
+		CompletableFuture<Object> result = template.sendAndReceiveAsync(null, extractorMock);
+		assertEquals("Invalid response", extracted, result.get());
+
+		verify(connectionMock, interceptorMock, extractorMock);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMaxConcurrentAsyncRequestsAfterSend() throws Exception {
+		template.setAsyncTaskExecutor(new SyncTaskExecutor());
+		template.setMaxConcurrentAsyncRequests(1);
+		template.setMessageSender(new WebServiceMessageSender() {
+
+			@Override
+			public WebServiceConnection createConnection(URI uri) throws IOException {
+				throw new IOException("Connection refused");
+			}
+
+			@Override
+			public boolean supports(URI uri) {
+				return true;
+			}
+		});
+		WebServiceMessageExtractor<Object> extractorMock = createMock(WebServiceMessageExtractor.class);
+		CompletableFuture<Object> result = template.sendAndReceiveAsync(null, extractorMock);
+		assertTrue("Request not completed", result.isCompletedExceptionally());
+
+		template.setMaxConcurrentAsyncRequests(2);
+	}
+
+	@Test
+	public void testSendAndReceiveAsyncConnection() throws Exception {
+		template.setAsyncTaskExecutor(new SyncTaskExecutor());
+		template.setMaxConcurrentAsyncRequests(1);
+
+		final AsyncWebServiceConnection asyncConnectionMock = createMock(AsyncWebServiceConnection.class);
+		expect(asyncConnectionMock.getUri()).andReturn(new URI("http://www.springframework.org/spring-ws")).anyTimes();
+		template.setMessageSender(new WebServiceMessageSender() {
+
+			@Override
+			public WebServiceConnection createConnection(URI uri) throws IOException {
+				return asyncConnectionMock;
+			}
+
+			@Override
+			public boolean supports(URI uri) {
+				return true;
+			}
+		});
+
+		ClientInterceptor interceptorMock = createMock(ClientInterceptor.class);
+		template.setInterceptors(new ClientInterceptor[]{interceptorMock});
+		expect(interceptorMock.handleRequest(isA(MessageContext.class))).andReturn(true).times(2);
+		expect(interceptorMock.handleResponse(isA(MessageContext.class))).andReturn(true).times(2);
+		interceptorMock.afterCompletion(isA(MessageContext.class), (Exception)isNull());
+		expectLastCall().times(2);
+
+		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
+		Object extracted = new Object();
+		expect(extractorMock.extractData(isA(WebServiceMessage.class))).andReturn(extracted).times(2);
+
+		CompletableFuture<Void> firstSend = new CompletableFuture<Void>();
+		CompletableFuture<Void> secondSend = new CompletableFuture<Void>();
+		expect(asyncConnectionMock.sendAsync(isA(WebServiceMessage.class))).andReturn(firstSend).andReturn(secondSend);
+		expect(asyncConnectionMock.hasError()).andReturn(false).times(2);
+		expect(asyncConnectionMock.receive(messageFactory)).andReturn(new MockWebServiceMessage("<response/>"))
+				.times(2);
+		asyncConnectionMock.close();
+		expectLastCall().times(2);
+
+		replay(asyncConnectionMock, interceptorMock, extractorMock);
+
+		CompletableFuture<Object> first = template.sendAndReceiveAsync(null, extractorMock);
+		CompletableFuture<Object> second = template.sendAndReceiveAsync(null, extractorMock);
+		assertFalse("First request completed before response", first.isDone());
+		assertEquals("Invalid active count", 1, template.getActiveAsyncRequestCount());
+		assertEquals("Second request not queued", 1, template.getQueuedAsyncRequestCount());
+
+		firstSend.complete(null);
+		assertEquals("Invalid response", extracted, first.get());
+		assertFalse("Second request completed before response", second.isDone());
+		assertEquals("Second request not started", 0, template.getQueuedAsyncRequestCount());
+
+		secondSend.complete(null);
+		assertEquals("Invalid response", extracted, second.get());
+		assertEquals("Invalid active count", 0, template.getActiveAsyncRequestCount());
+
+		verify(asyncConnectionMock, interceptorMock, extractorMock);
+	}
+
 	@Test
 	public void testDestinationResolver() throws Exception {
 		DestinationProvider providerMock = createMock(DestinationProvider.class);
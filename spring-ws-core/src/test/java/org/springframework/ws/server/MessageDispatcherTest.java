@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2012 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.ws.server;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import org.springframework.context.support.StaticApplicationContext;
@@ -26,6 +27,7 @@ import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.endpoint.adapter.PayloadEndpointAdapter;
 import org.springframework.ws.server.endpoint.mapping.PayloadRootQNameEndpointMapping;
+import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
 import org.springframework.ws.soap.server.endpoint.SimpleSoapExceptionResolver;
 
 import org.junit.Assert;
@@ -105,6 +107,74 @@ public class MessageDispatcherTest {
 		verify(adapterMock, factoryMock);
 	}
 
+	@Test
+	public void testEndpointResolutionCaching() throws Exception {
+		dispatcher.setEndpointResolutionCaching(true);
+		messageContext = new DefaultMessageContext(
+				new MockWebServiceMessage("<root xmlns='http://springframework.org'/>"), factoryMock);
+
+		EndpointMapping mappingMock1 = createMock("mapping1", CacheableEndpointMapping.class);
+		EndpointMapping mappingMock2 = createMock("mapping2", CacheableEndpointMapping.class);
+		dispatcher.setEndpointMappings(Arrays.asList(mappingMock1, mappingMock2));
+		EndpointAdapter adapterMock = createMock(EndpointAdapter.class);
+		dispatcher.setEndpointAdapters(Collections.singletonList(adapterMock));
+
+		Object endpoint = new Object();
+		EndpointInvocationChain chain = new EndpointInvocationChain(endpoint);
+
+		expect(mappingMock1.getEndpoint(messageContext)).andReturn(null).once();
+		expect(mappingMock2.getEndpoint(messageContext)).andReturn(chain).times(2);
+		expect(adapterMock.supports(endpoint)).andReturn(true).once();
+
+		replay(mappingMock1, mappingMock2, adapterMock, factoryMock);
+
+		for (int i = 0; i < 2; i++) {
+			EndpointInvocationChain result = dispatcher.getEndpoint(messageContext);
+			Assert.assertEquals("getEndpoint returns invalid EndpointInvocationChain", chain, result);
+			Assert.assertEquals("getEndpointAdapter returns invalid EndpointAdapter", adapterMock,
+					dispatcher.getEndpointAdapter(result.getEndpoint()));
+		}
+
+		verify(mappingMock1, mappingMock2, adapterMock, factoryMock);
+
+		Assert.assertEquals("Invalid hit count", 1, dispatcher.getEndpointResolutionCacheHitCount());
+		Assert.assertEquals("Invalid miss count", 1, dispatcher.getEndpointResolutionCacheMissCount());
+		Assert.assertEquals("Invalid hit rate", 0.5, dispatcher.getEndpointResolutionCacheHitRate(), 0.0);
+		Assert.assertFalse("Payload root name not removed after resolution",
+				messageContext.containsProperty(PayloadRootUtils.PAYLOAD_ROOT_QNAME_PROPERTY_NAME));
+	}
+
+	@Test
+	public void testEndpointResolutionCachingConsultsNonCacheableMappings() throws Exception {
+		dispatcher.setEndpointResolutionCaching(true);
+		messageContext = new DefaultMessageContext(
+				new MockWebServiceMessage("<root xmlns='http://springframework.org'/>"), factoryMock);
+
+		EndpointMapping mappingMock1 = createMock("mapping1", CacheableEndpointMapping.class);
+		EndpointMapping mappingMock2 = createMock("mapping2", EndpointMapping.class);
+		EndpointMapping mappingMock3 = createMock("mapping3", CacheableEndpointMapping.class);
+		dispatcher.setEndpointMappings(Arrays.asList(mappingMock1, mappingMock2, mappingMock3));
+
+		EndpointInvocationChain chain1 = new EndpointInvocationChain(new Object());
+		EndpointInvocationChain chain2 = new EndpointInvocationChain(new Object());
+
+		expect(mappingMock1.getEndpoint(messageContext)).andReturn(null).once();
+		expect(mappingMock2.getEndpoint(messageContext)).andReturn(null).once();
+		expect(mappingMock3.getEndpoint(messageContext)).andReturn(chain1).once();
+		expect(mappingMock2.getEndpoint(messageContext)).andReturn(chain2).once();
+
+		replay(mappingMock1, mappingMock2, mappingMock3, factoryMock);
+
+		Assert.assertEquals("getEndpoint returns invalid EndpointInvocationChain", chain1,
+				dispatcher.getEndpoint(messageContext));
+		Assert.assertEquals("Non-cacheable mapping skipped", chain2, dispatcher.getEndpoint(messageContext));
+
+		verify(mappingMock1, mappingMock2, mappingMock3, factoryMock);
+
+		Assert.assertEquals("Invalid hit count", 0, dispatcher.getEndpointResolutionCacheHitCount());
+		Assert.assertEquals("Invalid miss count", 2, dispatcher.getEndpointResolutionCacheMissCount());
+	}
+
 	@Test
 	public void testResolveException() throws Exception {
 		final Exception ex = new Exception();
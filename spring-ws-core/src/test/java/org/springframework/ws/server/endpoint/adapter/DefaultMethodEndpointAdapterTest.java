@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -149,6 +149,30 @@ public class DefaultMethodEndpointAdapterTest {
 		verify(argumentResolver1, argumentResolver2, returnValueHandler);
 	}
 
+	@Test
+	public void invokeResolvesOnce() throws Exception {
+		MockWebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'/>");
+		MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+
+		String value = "Foo";
+
+		expect(argumentResolver1.supportsParameter(isA(MethodParameter.class))).andReturn(true).once();
+		expect(argumentResolver1.resolveArgument(eq(messageContext), isA(MethodParameter.class))).andReturn(value)
+				.times(2);
+
+		expect(returnValueHandler.supportsReturnType(isA(MethodParameter.class))).andReturn(true).once();
+		returnValueHandler.handleReturnValue(eq(messageContext), isA(MethodParameter.class), isNull());
+		expectLastCall().times(2);
+
+		replay(argumentResolver1, argumentResolver2, returnValueHandler);
+
+		assertTrue("adapter does not support method", adapter.supports(nullReturnValue));
+		adapter.invoke(messageContext, nullReturnValue);
+		adapter.invoke(messageContext, new MethodEndpoint(this, "nullReturnValue", String.class));
+
+		verify(argumentResolver1, argumentResolver2, returnValueHandler);
+	}
+
 	@Test
 	public void invokeNullReturnValue() throws Exception {
 		MockWebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'/>");
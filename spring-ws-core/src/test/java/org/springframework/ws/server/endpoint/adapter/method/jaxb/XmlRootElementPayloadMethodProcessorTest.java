@@ -19,7 +19,13 @@ package org.springframework.ws.server.endpoint.adapter.method.jaxb;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
@@ -27,6 +33,8 @@ import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -54,6 +62,7 @@ import static org.custommonkey.xmlunit.XMLAssert.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class XmlRootElementPayloadMethodProcessorTest {
 
@@ -98,6 +107,50 @@ public class XmlRootElementPayloadMethodProcessorTest {
 		assertEquals("invalid result", "Foo", rootElement.getString());
 	}
 
+	@Test
+	public void resolveArgumentPooledUnmarshaller() throws JAXBException {
+		final AtomicInteger created = new AtomicInteger();
+		processor = new XmlRootElementPayloadMethodProcessor() {
+			@Override
+			protected Unmarshaller createUnmarshaller(JAXBContext jaxbContext) throws JAXBException {
+				created.incrementAndGet();
+				return super.createUnmarshaller(jaxbContext);
+			}
+		};
+		for (int i = 0; i < 3; i++) {
+			WebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'><string>Foo</string></root>");
+			MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+
+			MyRootElement rootElement = (MyRootElement) processor.resolveArgument(messageContext, rootElementParameter);
+			assertEquals("invalid result", "Foo", rootElement.getString());
+		}
+		assertEquals("Unmarshaller not reused", 1, created.get());
+	}
+
+	@Test
+	public void resolveArgumentValidating() throws Exception {
+		String schema = "<schema xmlns='http://www.w3.org/2001/XMLSchema' targetNamespace='http://springframework.org' " +
+				"elementFormDefault='qualified'><element name='root'><complexType><sequence>" +
+				"<element name='string' type='string'/></sequence></complexType></element></schema>";
+		SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		processor.setSchema(schemaFactory.newSchema(new StreamSource(new StringReader(schema))));
+
+		WebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'><string>Foo</string></root>");
+		MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+		MyRootElement rootElement = (MyRootElement) processor.resolveArgument(messageContext, rootElementParameter);
+		assertEquals("invalid result", "Foo", rootElement.getString());
+
+		request = new MockWebServiceMessage("<root xmlns='http://springframework.org'><number>42</number></root>");
+		messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+		try {
+			processor.resolveArgument(messageContext, rootElementParameter);
+			fail("PayloadValidationException expected");
+		}
+		catch (PayloadValidationException ex) {
+			// expected
+		}
+	}
+
 	@Test
 	public void resolveArgumentType() throws JAXBException {
 		WebServiceMessage request = new MockWebServiceMessage("<type xmlns='http://springframework.org'><string>Foo</string></type>");
@@ -239,6 +292,31 @@ public class XmlRootElementPayloadMethodProcessorTest {
 
 	}
 
+	@Test
+	public void handleReturnValueAxiomRestoresMarshallerProperties() throws Exception {
+		final Marshaller[] created = new Marshaller[1];
+		processor = new XmlRootElementPayloadMethodProcessor() {
+			@Override
+			protected Marshaller createMarshaller(JAXBContext jaxbContext) throws JAXBException {
+				Marshaller marshaller = super.createMarshaller(jaxbContext);
+				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+				created[0] = marshaller;
+				return marshaller;
+			}
+		};
+		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+		messageFactory.setPayloadCaching(false);
+		MessageContext messageContext = new DefaultMessageContext(messageFactory);
+
+		MyRootElement rootElement = new MyRootElement();
+		rootElement.setString("Foo");
+		processor.handleReturnValue(messageContext, rootElementReturnType, rootElement);
+		messageContext.getResponse().writeTo(new ByteArrayOutputStream());
+
+		assertEquals("Configured property overwritten", Boolean.TRUE,
+				created[0].getProperty(Marshaller.JAXB_FRAGMENT));
+	}
+
 	@ResponsePayload
 	public MyRootElement rootElement(@RequestPayload MyRootElement rootElement) {
 		return rootElement;
@@ -35,6 +35,11 @@ import org.w3c.dom.Element;
 import org.xml.sax.InputSource;
 
 import org.springframework.util.xml.StaxUtils;
+import org.springframework.ws.MockWebServiceMessage;
+import org.springframework.ws.MockWebServiceMessageFactory;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
 import org.springframework.xml.XMLInputFactoryUtils;
 import org.springframework.xml.transform.TransformerFactoryUtils;
 import org.springframework.xml.DocumentBuilderFactoryUtils;
@@ -109,4 +114,26 @@ public class PayloadRootUtilsTest {
 		QName qName = PayloadRootUtils.getPayloadRootQName(null, TransformerFactoryUtils.newInstance());
 		Assert.assertNull("Qname returned", qName);
 	}
+
+	@Test
+	public void testGetQNameForMessageContext() throws Exception {
+		final int[] reads = new int[1];
+		WebServiceMessage request = new MockWebServiceMessage("<prefix:localname xmlns:prefix='namespace'/>") {
+
+			@Override
+			public Source getPayloadSource() {
+				reads[0]++;
+				return super.getPayloadSource();
+			}
+		};
+		MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+		QName qName = PayloadRootUtils.getRequestPayloadRootQName(messageContext, TransformerFactoryUtils.newInstance());
+		Assert.assertEquals("Invalid QName", new QName("namespace", "localname"), qName);
+		Assert.assertEquals("Payload not read", 1, reads[0]);
+
+		messageContext.setProperty(PayloadRootUtils.PAYLOAD_ROOT_QNAME_PROPERTY_NAME, new QName("namespace", "cached"));
+		Assert.assertEquals("Property not used", new QName("namespace", "cached"),
+				PayloadRootUtils.getRequestPayloadRootQName(messageContext, TransformerFactoryUtils.newInstance()));
+		Assert.assertEquals("Payload read again", 1, reads[0]);
+	}
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2012 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,16 @@ package org.springframework.ws.soap.axiom;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 
 import org.custommonkey.xmlunit.XMLAssert;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import org.springframework.ws.InvalidXmlException;
 import org.springframework.ws.WebServiceMessage;
@@ -64,6 +68,55 @@ public class AxiomSoap11MessageFactoryTest extends AbstractSoap11MessageFactoryT
 		assertEquals("Invalid charset", "utf-8", messageFactory.getCharSetEncoding("application/xop+xml;type=\"text/xml; charset=utf-8\""));
 	}
 
+	@Test
+	public void testDomCompatible() throws Exception {
+		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+		messageFactory.setDomCompatible(true);
+		messageFactory.afterPropertiesSet();
+
+		String xml = "<soapenv:Envelope xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'><soapenv:Body>" +
+				"<root xmlns='http://springframework.org/spring-ws'><child /></root>" +
+				"</soapenv:Body></soapenv:Envelope>";
+		TransportInputStream tis = new MockTransportInputStream(new ByteArrayInputStream(xml.getBytes()));
+		AxiomSoapMessage message = (AxiomSoapMessage) messageFactory.createWebServiceMessage(tis);
+
+		assertTrue("Envelope not a DOM element", message.getAxiomMessage().getSOAPEnvelope() instanceof Element);
+		Document document = message.getDocument();
+		assertSame("Document not shared", document,
+				((Element) message.getAxiomMessage().getSOAPEnvelope()).getOwnerDocument());
+
+		org.apache.axiom.soap.SOAPMessage axiomMessage = message.getAxiomMessage();
+		message.setDocument(document);
+		assertSame("Axiom message replaced", axiomMessage, message.getAxiomMessage());
+
+		StringResult result = new StringResult();
+		transformer.transform(message.getPayloadSource(), result);
+		XMLAssert.assertXMLEqual("<root xmlns='http://springframework.org/spring-ws'><child /></root>",
+				result.toString());
+	}
+
+	@Test
+	public void testDomCompatibleMtom() throws Exception {
+		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+		messageFactory.setDomCompatible(true);
+		messageFactory.afterPropertiesSet();
+
+		InputStream is = AbstractSoap11MessageFactoryTestCase.class.getResourceAsStream("soap11-mtom.bin");
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Content-Type", "multipart/related;" + "start-info=\"text/xml\";" +
+				"type=\"application/xop+xml\";" + "start=\"<0.urn:uuid:492264AB42E57108E01176731445508@apache.org>\";" +
+				"boundary=\"MIMEBoundaryurn_uuid_492264AB42E57108E01176731445507\"");
+		TransportInputStream tis = new MockTransportInputStream(is, headers);
+		AxiomSoapMessage message = (AxiomSoapMessage) messageFactory.createWebServiceMessage(tis);
+
+		assertTrue("Message not a XOP package", message.isXopPackage());
+		assertTrue("Envelope not a DOM element", message.getAxiomMessage().getSOAPEnvelope() instanceof Element);
+		assertSame("Document not shared", message.getDocument(),
+				((Element) message.getAxiomMessage().getSOAPEnvelope()).getOwnerDocument());
+		assertNotNull("No attachment read",
+				message.getAttachment("<1.urn:uuid:492264AB42E57108E01176731445504@apache.org>"));
+	}
+
 	@Test
 	public void testRepetitiveReadCaching() throws Exception {
 		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
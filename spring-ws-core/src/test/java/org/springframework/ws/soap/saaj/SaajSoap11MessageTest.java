@@ -16,6 +16,7 @@
 
 package org.springframework.ws.soap.saaj;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Iterator;
 import javax.xml.soap.MessageFactory;
 import javax.xml.soap.SOAPBody;
@@ -26,6 +27,8 @@ import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.soap11.AbstractSoap11MessageTestCase;
@@ -34,6 +37,7 @@ import org.springframework.xml.transform.StringSource;
 
 import static org.custommonkey.xmlunit.XMLAssert.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class SaajSoap11MessageTest extends AbstractSoap11MessageTestCase {
@@ -90,4 +94,24 @@ public class SaajSoap11MessageTest extends AbstractSoap11MessageTestCase {
 		assertEquals("Invalid child node created", "child", bodyElement.getElementName().getLocalName());
 	}
 
+	@Test
+	public void testGetSharedDocument() throws Exception {
+		SaajSoapMessage saajSoapMessage = (SaajSoapMessage) soapMessage;
+		saajSoapMessage.setDocumentSharing(true);
+
+		Document document = saajSoapMessage.getDocument();
+		assertSame("Document not shared", saajMessage.getSOAPPart(), document);
+
+		Element payload = document.createElementNS("http://www.springframework.org", "payload");
+		saajMessage.getSOAPBody().appendChild(payload);
+		saajSoapMessage.setDocument(document);
+		assertSame("SAAJ message replaced", saajMessage, saajSoapMessage.getSaajMessage());
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		saajSoapMessage.writeTo(bos);
+		assertXMLEqual("<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<SOAP-ENV:Body><payload xmlns='http://www.springframework.org'/></SOAP-ENV:Body></SOAP-ENV:Envelope>",
+				bos.toString("UTF-8"));
+	}
+
 }
@@ -25,9 +25,11 @@ import javax.xml.soap.SOAPMessage;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.xml.sax.SAXException;
 
 import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.adapter.method.jaxb.PayloadValidationException;
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.SoapMessageFactory;
 import org.springframework.ws.soap.SoapVersion;
@@ -65,6 +67,22 @@ public class SoapFaultAnnotationExceptionResolverTest {
 		Assert.assertNull("Detail on fault", fault.getFaultDetail());
 	}
 
+	@Test
+	public void testResolvePayloadValidationException() throws Exception {
+		MessageFactory saajFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_1_PROTOCOL);
+		SoapMessageFactory factory = new SaajSoapMessageFactory(saajFactory);
+		MessageContext context = new DefaultMessageContext(factory);
+
+		boolean result = resolver.resolveException(context, null,
+				new PayloadValidationException(new SAXException("Invalid content")));
+		Assert.assertTrue("resolveException returns false", result);
+		SoapMessage response = (SoapMessage) context.getResponse();
+		Assert.assertTrue("Resonse has no fault", response.getSoapBody().hasFault());
+		Soap11Fault fault = (Soap11Fault) response.getSoapBody().getFault();
+		Assert.assertEquals("Invalid fault code on fault", SoapVersion.SOAP_11.getClientOrSenderFaultName(),
+				fault.getFaultCode());
+	}
+
 	@Test
 	public void testResolveExceptionSenderSoap12() throws Exception {
 		MessageFactory saajFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL);
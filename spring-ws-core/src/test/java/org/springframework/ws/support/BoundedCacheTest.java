@@ -0,0 +1,116 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedCacheTest {
+
+	private BoundedCache<String, String> cache;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new BoundedCache<String, String>(2);
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		cache.put("a", "A");
+		cache.put("b", "B");
+		assertEquals("Invalid value", "A", cache.get("a"));
+		cache.put("c", "C");
+
+		assertEquals("Invalid size", 2, cache.size());
+		assertNull("Least recently used entry not evicted", cache.get("b"));
+		assertEquals("Recently used entry evicted", "A", cache.get("a"));
+		assertEquals("Invalid eviction count", 1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testPurgesExpiredBeforeEvicting() throws Exception {
+		long now = System.currentTimeMillis();
+		cache.put("a", "A", now + 60000);
+		cache.put("b", "B", now - 1);
+		cache.put("c", "C", now + 60000);
+
+		assertEquals("Live entry evicted", "A", cache.get("a"));
+		assertEquals("Invalid value", "C", cache.get("c"));
+		assertEquals("Invalid eviction count", 0, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testPutIfNotFull() throws Exception {
+		long now = System.currentTimeMillis();
+		assertTrue("Entry not added", cache.putIfNotFull("a", "A", now + 60000));
+		assertTrue("Entry not added", cache.putIfNotFull("b", "B", now + 60000));
+		assertFalse("Entry added to full cache", cache.putIfNotFull("c", "C", now + 60000));
+		assertEquals("Live entry evicted", "A", cache.get("a"));
+		assertEquals("Live entry evicted", "B", cache.get("b"));
+	}
+
+	@Test
+	public void testReplaceAndRemove() throws Exception {
+		cache.put("a", "A");
+		assertFalse("Entry replaced", cache.replace("a", "B", "C", BoundedCache.NEVER));
+		assertTrue("Entry not replaced", cache.replace("a", "A", "C", BoundedCache.NEVER));
+		assertFalse("Entry removed", cache.remove("a", "A"));
+		assertTrue("Entry not removed", cache.remove("a", "C"));
+		assertNull("Entry found", cache.get("a"));
+	}
+
+	@Test
+	public void testConcurrentPutsStayBounded() throws Exception {
+		final BoundedCache<Integer, Integer> concurrentCache = new BoundedCache<Integer, Integer>(100);
+		final CountDownLatch done = new CountDownLatch(4);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		for (int i = 0; i < 4; i++) {
+			final int offset = i * 10000;
+			new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 10000; j++) {
+							concurrentCache.put(offset + j, j);
+							concurrentCache.get(offset + j / 2);
+						}
+					}
+					catch (Throwable ex) {
+						failure.set(ex);
+					}
+					finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+		done.await();
+
+		assertNull("Put failed", failure.get());
+		assertTrue("Cache not bounded", concurrentCache.size() <= 100 + 4);
+	}
+
+}
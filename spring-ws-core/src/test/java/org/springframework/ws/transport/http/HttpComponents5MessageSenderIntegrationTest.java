@@ -0,0 +1,117 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.xml.soap.MessageFactory;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.servlet.Context;
+import org.mortbay.jetty.servlet.ServletHolder;
+
+import org.springframework.util.FileCopyUtils;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.AsyncWebServiceConnection;
+import org.springframework.ws.transport.WebServiceConnection;
+
+public class HttpComponents5MessageSenderIntegrationTest
+		extends AbstractHttpWebServiceMessageSenderIntegrationTestCase<HttpComponents5MessageSender> {
+
+	@Override
+	protected HttpComponents5MessageSender createMessageSender() {
+		return new HttpComponents5MessageSender();
+	}
+
+	@After
+	public void destroyMessageSender() throws Exception {
+		messageSender.destroy();
+	}
+
+	@Test
+	public void testSendAsync() throws Exception {
+		MessageFactory messageFactory = MessageFactory.newInstance();
+		Server jettyServer = new Server(connectionUri.getPort());
+		Context jettyContext = new Context(jettyServer, "/");
+		jettyContext.addServlet(new ServletHolder(new EchoServlet()), "/");
+		jettyServer.start();
+		WebServiceConnection connection = messageSender.createConnection(connectionUri);
+		try {
+			assertTrue("Connection is not asynchronous", connection instanceof AsyncWebServiceConnection);
+			CompletableFuture<Void> future =
+					((AsyncWebServiceConnection) connection).sendAsync(new SaajSoapMessage(messageFactory.createMessage()));
+			future.get(10, TimeUnit.SECONDS);
+			assertFalse("Connection has error", connection.hasError());
+			WebServiceMessage response = connection.receive(new SaajSoapMessageFactory(messageFactory));
+			assertNotNull("No response", response);
+		}
+		finally {
+			connection.close();
+			if (jettyServer.isRunning()) {
+				jettyServer.stop();
+			}
+		}
+	}
+
+	@Test
+	public void testMaxResponseSize() throws Exception {
+		MessageFactory messageFactory = MessageFactory.newInstance();
+		Server jettyServer = new Server(connectionUri.getPort());
+		Context jettyContext = new Context(jettyServer, "/");
+		jettyContext.addServlet(new ServletHolder(new EchoServlet()), "/");
+		jettyServer.start();
+		messageSender.setMaxResponseSize(16);
+		WebServiceConnection connection = messageSender.createConnection(connectionUri);
+		try {
+			connection.send(new SaajSoapMessage(messageFactory.createMessage()));
+			fail("IOException expected");
+		}
+		catch (IOException ex) {
+			// expected
+		}
+		finally {
+			connection.close();
+			if (jettyServer.isRunning()) {
+				jettyServer.stop();
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class EchoServlet extends HttpServlet {
+
+		@Override
+		protected void doPost(HttpServletRequest request, HttpServletResponse response)
+				throws ServletException, IOException {
+			response.setContentType("text/xml");
+			FileCopyUtils.copy(request.getInputStream(), response.getOutputStream());
+		}
+	}
+
+}
@@ -24,6 +24,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -35,6 +37,7 @@ import org.apache.commons.httpclient.URIException;
 import org.apache.http.HttpHost;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.junit.Test;
 import org.mortbay.jetty.Server;
 import org.mortbay.jetty.servlet.Context;
@@ -135,6 +138,123 @@ public class HttpComponentsMessageSenderIntegrationTest
 
 	}
 
+	@Test
+	public void testStreamRequestBody() throws Exception {
+		MessageFactory messageFactory = MessageFactory.newInstance();
+		int port = FreePortScanner.getFreePort();
+		Server jettyServer = new Server(port);
+		Context jettyContext = new Context(jettyServer, "/");
+		jettyContext.addServlet(new ServletHolder(new EchoServlet()), "/");
+		jettyServer.start();
+		final AtomicLong requestBytes = new AtomicLong();
+		final AtomicLong responseBytes = new AtomicLong();
+		HttpComponentsMessageSender messageSender = new HttpComponentsMessageSender();
+		try {
+			messageSender.setStreamRequestBody(true);
+			messageSender.setListener(new HttpComponentsMessageSenderListener() {
+
+				@Override
+				public void connectionLeased(HttpRoute route, long waitTime) {
+				}
+
+				@Override
+				public void requestCompleted(URI uri, int status, long requestSize, long responseSize, long latency) {
+					requestBytes.set(requestSize);
+					responseBytes.set(responseSize);
+				}
+
+				@Override
+				public void requestFailed(URI uri, IOException ex, long latency) {
+					fail("Request failed: " + ex);
+				}
+			});
+			messageSender.afterPropertiesSet();
+
+			WebServiceConnection connection = messageSender.createConnection(new URI("http://localhost:" + port));
+			try {
+				connection.send(new SaajSoapMessage(messageFactory.createMessage()));
+				assertFalse("Connection has error", connection.hasError());
+				assertNotNull("No response", connection.receive(new SaajSoapMessageFactory(messageFactory)));
+			}
+			finally {
+				connection.close();
+			}
+
+			assertTrue(requestBytes.get() > 0);
+			assertThat(responseBytes.get(), equalTo(requestBytes.get()));
+		}
+		finally {
+			messageSender.destroy();
+			if (jettyServer.isRunning()) {
+				jettyServer.stop();
+			}
+		}
+	}
+
+	@Test
+	public void testListener() throws Exception {
+		MessageFactory messageFactory = MessageFactory.newInstance();
+		int port = FreePortScanner.getFreePort();
+		Server jettyServer = new Server(port);
+		Context jettyContext = new Context(jettyServer, "/");
+		jettyContext.addServlet(new ServletHolder(new EchoServlet()), "/");
+		jettyServer.start();
+		final AtomicInteger leaseCount = new AtomicInteger();
+		final AtomicInteger statusCode = new AtomicInteger();
+		final AtomicLong requestBytes = new AtomicLong();
+		final AtomicLong responseBytes = new AtomicLong();
+		HttpComponentsMessageSender messageSender = new HttpComponentsMessageSender();
+		try {
+			messageSender.setListener(new HttpComponentsMessageSenderListener() {
+
+				@Override
+				public void connectionLeased(HttpRoute route, long waitTime) {
+					leaseCount.incrementAndGet();
+				}
+
+				@Override
+				public void requestCompleted(URI uri, int status, long requestSize, long responseSize, long latency) {
+					statusCode.set(status);
+					requestBytes.set(requestSize);
+					responseBytes.set(responseSize);
+				}
+
+				@Override
+				public void requestFailed(URI uri, IOException ex, long latency) {
+					fail("Request failed: " + ex);
+				}
+			});
+			messageSender.setConnectionEvictionInterval(1000);
+			messageSender.afterPropertiesSet();
+
+			URI uri = new URI("http://localhost:" + port);
+			WebServiceConnection connection = messageSender.createConnection(uri);
+			try {
+				connection.send(new SaajSoapMessage(messageFactory.createMessage()));
+				connection.receive(new SaajSoapMessageFactory(messageFactory));
+			}
+			finally {
+				connection.close();
+			}
+
+			assertThat(leaseCount.get(), equalTo(1));
+			assertThat(statusCode.get(), equalTo(200));
+			assertTrue(requestBytes.get() > 0);
+			assertThat(responseBytes.get(), equalTo(requestBytes.get()));
+
+			PoolStats poolStats = messageSender.getPoolStats(uri);
+			assertThat(poolStats.getLeased(), equalTo(0));
+			assertThat(poolStats.getAvailable(), equalTo(1));
+			assertThat(messageSender.getTotalPoolStats().getAvailable(), equalTo(1));
+		}
+		finally {
+			messageSender.destroy();
+			if (jettyServer.isRunning()) {
+				jettyServer.stop();
+			}
+		}
+	}
+
 	@SuppressWarnings("serial")
 	private class EchoServlet extends HttpServlet {
 
@@ -18,7 +18,9 @@ package org.springframework.ws.transport.http;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.util.zip.GZIPInputStream;
 import javax.servlet.http.HttpServletResponse;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -31,6 +33,7 @@ import org.w3c.dom.Document;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.ws.wsdl.WsdlDefinition;
 import org.springframework.ws.wsdl.wsdl11.SimpleWsdl11Definition;
 import org.springframework.xml.transform.StringSource;
@@ -72,6 +75,53 @@ public class WsdlDefinitionHandlerAdapterTest {
 		verify(definitionMock);
 	}
 
+	@Test
+	public void handleGetCached() throws Exception {
+		adapter.setResponseCaching(true);
+		adapter.setResponseCompression(true);
+		adapter.afterPropertiesSet();
+		request.setMethod(HttpTransportConstants.METHOD_GET);
+		String definition = "<definition xmlns='http://schemas.xmlsoap.org/wsdl/'/>";
+		expect(definitionMock.getSource()).andReturn(new StringSource(definition)).once();
+
+		replay(definitionMock);
+
+		adapter.handle(request, response, definitionMock);
+		assertXMLEqual(definition, response.getContentAsString());
+		String eTag = response.getHeader("ETag");
+		Assert.assertNotNull("No ETag set", eTag);
+
+		MockHttpServletResponse secondResponse = new MockHttpServletResponse();
+		adapter.handle(request, secondResponse, definitionMock);
+		assertXMLEqual(definition, secondResponse.getContentAsString());
+		Assert.assertEquals("Invalid ETag", eTag, secondResponse.getHeader("ETag"));
+
+		MockHttpServletRequest conditionalRequest = new MockHttpServletRequest(HttpTransportConstants.METHOD_GET, "/");
+		conditionalRequest.addHeader("If-None-Match", eTag);
+		MockHttpServletResponse notModifiedResponse = new MockHttpServletResponse();
+		adapter.handle(conditionalRequest, notModifiedResponse, definitionMock);
+		Assert.assertEquals("NOT_MODIFIED expected", HttpServletResponse.SC_NOT_MODIFIED,
+				notModifiedResponse.getStatus());
+
+		MockHttpServletRequest gzipRequest = new MockHttpServletRequest(HttpTransportConstants.METHOD_GET, "/");
+		gzipRequest.addHeader("Accept-Encoding", "gzip, deflate");
+		MockHttpServletResponse gzipResponse = new MockHttpServletResponse();
+		adapter.handle(gzipRequest, gzipResponse, definitionMock);
+		Assert.assertEquals("Invalid Content-Encoding", "gzip", gzipResponse.getHeader("Content-Encoding"));
+		InputStream gzipInputStream =
+				new GZIPInputStream(new ByteArrayInputStream(gzipResponse.getContentAsByteArray()));
+		assertXMLEqual(definition, FileCopyUtils.copyToString(new InputStreamReader(gzipInputStream, "UTF-8")));
+
+		MockHttpServletRequest noGzipRequest = new MockHttpServletRequest(HttpTransportConstants.METHOD_GET, "/");
+		noGzipRequest.addHeader("Accept-Encoding", "gzip;q=0, deflate");
+		MockHttpServletResponse noGzipResponse = new MockHttpServletResponse();
+		adapter.handle(noGzipRequest, noGzipResponse, definitionMock);
+		Assert.assertNull("Content-Encoding set", noGzipResponse.getHeader("Content-Encoding"));
+		assertXMLEqual(definition, noGzipResponse.getContentAsString());
+
+		verify(definitionMock);
+	}
+
 	@Test
 	public void handleNonGet() throws Exception {
 		request.setMethod(HttpTransportConstants.METHOD_POST);
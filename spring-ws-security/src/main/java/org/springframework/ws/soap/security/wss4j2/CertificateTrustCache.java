@@ -0,0 +1,189 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security.wss4j2;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wss4j.common.crypto.Crypto;
+import org.apache.wss4j.common.ext.WSSecurityException;
+
+import org.springframework.ws.support.BoundedCache;
+
+/**
+ * Cache of certificate trust decisions, used by the {@link Wss4jSecurityInterceptor}. Entries are keyed by the SHA-256
+ * fingerprint of the certificate, the {@link Crypto} it was verified against, and whether revocation was checked.
+ *
+ * <p>Successful decisions are kept for {@code timeToLive} milliseconds, but never beyond the end of the validity period
+ * of the certificate; failed decisions are kept for {@code failureTimeToLive} milliseconds. A cached failure is
+ * reported with the error code of the original failure. When the cache is full, the least recently used decisions are
+ * evicted.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+class CertificateTrustCache {
+
+	/** Maximum number of entries; protects against unbounded growth caused by arbitrary certificates. */
+	static final int MAX_ENTRIES = 256;
+
+	private final BoundedCache<Key, Entry> entries = new BoundedCache<Key, Entry>(MAX_ENTRIES);
+
+	private final long timeToLive;
+
+	private final long failureTimeToLive;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param timeToLive the time to keep successful decisions, in milliseconds
+	 * @param failureTimeToLive the time to keep failed decisions, in milliseconds; {@code 0} disables negative caching
+	 */
+	CertificateTrustCache(long timeToLive, long failureTimeToLive) {
+		this.timeToLive = timeToLive;
+		this.failureTimeToLive = failureTimeToLive;
+	}
+
+	/**
+	 * Verifies the trust of the given certificate, using a cached decision if available, or the given verification
+	 * otherwise.
+	 *
+	 * @throws WSSecurityException if the certificate is not trusted
+	 */
+	void verify(X509Certificate certificate, Crypto crypto, boolean enableRevocation, TrustVerification verification)
+			throws WSSecurityException {
+		Key key = new Key(fingerprint(certificate), crypto, enableRevocation);
+		long now = System.currentTimeMillis();
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			hitCount.incrementAndGet();
+			if (entry.errorCode != null) {
+				throw new WSSecurityException(entry.errorCode);
+			}
+			return;
+		}
+		missCount.incrementAndGet();
+		try {
+			verification.verify();
+		}
+		catch (WSSecurityException ex) {
+			if (failureTimeToLive > 0) {
+				entries.put(key, new Entry(ex.getErrorCode()), now + failureTimeToLive);
+			}
+			throw ex;
+		}
+		long expires = now + timeToLive;
+		Date notAfter = certificate.getNotAfter();
+		if (notAfter != null) {
+			expires = Math.min(expires, notAfter.getTime());
+		}
+		entries.put(key, new Entry(null), expires);
+	}
+
+	/** Returns the number of verifications answered from the cache. */
+	long getHitCount() {
+		return hitCount.get();
+	}
+
+	/** Returns the number of verifications that required a full trust validation. */
+	long getMissCount() {
+		return missCount.get();
+	}
+
+	/** Returns the number of cached decisions, including expired ones that have not been evicted yet. */
+	int size() {
+		return entries.size();
+	}
+
+	/** Removes all cached decisions. */
+	void clear() {
+		entries.clear();
+	}
+
+	private static byte[] fingerprint(X509Certificate certificate) throws WSSecurityException {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded());
+		}
+		catch (CertificateEncodingException ex) {
+			throw new WSSecurityException(WSSecurityException.ErrorCode.FAILED_CHECK, ex);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE, ex);
+		}
+	}
+
+	/** Callback that performs the actual trust validation on a cache miss. */
+	interface TrustVerification {
+
+		void verify() throws WSSecurityException;
+	}
+
+	private static class Entry {
+
+		private final WSSecurityException.ErrorCode errorCode;
+
+		private Entry(WSSecurityException.ErrorCode errorCode) {
+			this.errorCode = errorCode;
+		}
+	}
+
+	private static class Key {
+
+		private final byte[] fingerprint;
+
+		private final Crypto crypto;
+
+		private final boolean enableRevocation;
+
+		private Key(byte[] fingerprint, Crypto crypto, boolean enableRevocation) {
+			this.fingerprint = fingerprint;
+			this.crypto = crypto;
+			this.enableRevocation = enableRevocation;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return crypto == other.crypto && enableRevocation == other.enableRevocation &&
+					Arrays.equals(fingerprint, other.fingerprint);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = Arrays.hashCode(fingerprint);
+			result = 31 * result + System.identityHashCode(crypto);
+			result = 31 * result + (enableRevocation ? 1 : 0);
+			return result;
+		}
+	}
+
+}
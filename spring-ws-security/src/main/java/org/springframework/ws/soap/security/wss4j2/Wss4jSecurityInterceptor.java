@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import javax.security.auth.callback.CallbackHandler;
 import javax.security.auth.callback.UnsupportedCallbackException;
 
 import org.apache.wss4j.common.ConfigurationConstants;
+import org.apache.wss4j.common.cache.ReplayCache;
 import org.apache.wss4j.common.crypto.Crypto;
 import org.apache.wss4j.common.ext.WSSecurityException;
 import org.apache.wss4j.common.principal.WSUsernameTokenPrincipalImpl;
@@ -151,6 +152,14 @@ public class Wss4jSecurityInterceptor extends AbstractWsSecurityInterceptor impl
 	// To maintain same behavior as default, this flag is set to true
 	private boolean removeSecurityHeader = true;
 
+	private int certificateTrustCacheTimeToLive;
+
+	private int certificateTrustCacheFailureTimeToLive = 30;
+
+	private CertificateTrustCache certificateTrustCache;
+
+	private ReplayCache validationReplayCache;
+
 	/**
 	 * Create a {@link WSSecurityEngine} by default.
 	 */
@@ -426,6 +435,16 @@ public class Wss4jSecurityInterceptor extends AbstractWsSecurityInterceptor impl
 		this.validationCallbackHandler = new CallbackHandlerChain(callbackHandler);
 	}
 
+	/**
+	 * Sets the cache used to detect replayed {@code UsernameToken} nonces and {@code Timestamp}s in incoming messages.
+	 * By default, no replay detection is performed.
+	 *
+	 * @see org.springframework.ws.soap.security.wss4j2.support.InMemoryReplayCache
+	 */
+	public void setValidationReplayCache(ReplayCache validationReplayCache) {
+		this.validationReplayCache = validationReplayCache;
+	}
+
 	/** Sets the Crypto to use to decrypt incoming messages */
 	public void setValidationDecryptionCrypto(Crypto decryptionCrypto) {
 		this.validationDecryptionCrypto = decryptionCrypto;
@@ -434,6 +453,7 @@ public class Wss4jSecurityInterceptor extends AbstractWsSecurityInterceptor impl
 	/** Sets the Crypto to use to verify the signature of incoming messages */
 	public void setValidationSignatureCrypto(Crypto signatureCrypto) {
 		this.validationSignatureCrypto = signatureCrypto;
+		clearCertificateTrustCache();
 	}
 
 	/** Whether to enable signatureConfirmation or not. By default signatureConfirmation is enabled */
@@ -494,6 +514,49 @@ public class Wss4jSecurityInterceptor extends AbstractWsSecurityInterceptor impl
 	 */
 	public void setEnableRevocation(boolean enableRevocation) {
 		this.enableRevocation = enableRevocation;
+		clearCertificateTrustCache();
+	}
+
+	/**
+	 * Sets the time in seconds that a successful certificate trust decision is cached. Within this time, messages
+	 * signed with the same certificate are not subjected to path validation (and revocation checks) again. Default is
+	 * {@code 0}, which disables the cache.
+	 */
+	public void setCertificateTrustCacheTimeToLive(int certificateTrustCacheTimeToLive) {
+		if (certificateTrustCacheTimeToLive < 0) {
+			throw new IllegalArgumentException("certificateTrustCacheTimeToLive must not be negative");
+		}
+		this.certificateTrustCacheTimeToLive = certificateTrustCacheTimeToLive;
+	}
+
+	/**
+	 * Sets the time in seconds that a failed certificate trust decision is cached, when the cache is enabled. Default
+	 * is 30 seconds; {@code 0} disables caching of failures.
+	 *
+	 * @see #setCertificateTrustCacheTimeToLive(int)
+	 */
+	public void setCertificateTrustCacheFailureTimeToLive(int certificateTrustCacheFailureTimeToLive) {
+		if (certificateTrustCacheFailureTimeToLive < 0) {
+			throw new IllegalArgumentException("certificateTrustCacheFailureTimeToLive must not be negative");
+		}
+		this.certificateTrustCacheFailureTimeToLive = certificateTrustCacheFailureTimeToLive;
+	}
+
+	/** Returns the number of certificate trust verifications answered from the cache. */
+	public long getCertificateTrustCacheHitCount() {
+		return certificateTrustCache != null ? certificateTrustCache.getHitCount() : 0;
+	}
+
+	/** Returns the number of certificate trust verifications that required path validation. */
+	public long getCertificateTrustCacheMissCount() {
+		return certificateTrustCache != null ? certificateTrustCache.getMissCount() : 0;
+	}
+
+	/** Removes all cached certificate trust decisions, for instance after the trust store has changed. */
+	public void clearCertificateTrustCache() {
+		if (certificateTrustCache != null) {
+			certificateTrustCache.clear();
+		}
 	}
 
 	/**
@@ -544,6 +607,13 @@ public class Wss4jSecurityInterceptor extends AbstractWsSecurityInterceptor impl
 				Assert.notNull(validationSignatureCrypto, "validationSignatureCrypto is required");
 			}
 		}
+		if (certificateTrustCacheTimeToLive > 0) {
+			certificateTrustCache = new CertificateTrustCache(certificateTrustCacheTimeToLive * 1000L,
+					certificateTrustCacheFailureTimeToLive * 1000L);
+		}
+		else {
+			certificateTrustCache = null;
+		}
 		// securement actions are not to be validated at start up as they could
 		// be configured dynamically via the message context
 
@@ -635,6 +705,11 @@ public class Wss4jSecurityInterceptor extends AbstractWsSecurityInterceptor impl
 		
 		requestData.setCallbackHandler(validationCallbackHandler);
 
+		if (validationReplayCache != null) {
+			requestData.setNonceReplayCache(validationReplayCache);
+			requestData.setTimestampReplayCache(validationReplayCache);
+		}
+
 		messageContext.setProperty(WSHandlerConstants.TTL_TIMESTAMP, Integer.toString(validationTimeToLive));
 
 		requestData.setAllowRSA15KeyTransportAlgorithm(allowRSA15KeyTransportAlgorithm);
@@ -746,18 +821,34 @@ public class Wss4jSecurityInterceptor extends AbstractWsSecurityInterceptor impl
 
 		if (!CollectionUtils.isEmpty(results)) {
 			WSSecurityEngineResult actionResult = results.get(0);
-			X509Certificate returnCert =
+			final X509Certificate returnCert =
 					(X509Certificate) actionResult.get(WSSecurityEngineResult.TAG_X509_CERTIFICATE);
-			Credential credential = new Credential();
-			credential.setCertificates(new X509Certificate[] { returnCert});
+			if (certificateTrustCache != null && returnCert != null) {
+				certificateTrustCache.verify(returnCert, validationSignatureCrypto, enableRevocation,
+						new CertificateTrustCache.TrustVerification() {
+
+							@Override
+							public void verify() throws WSSecurityException {
+								validateCertificateTrust(returnCert);
+							}
+						});
+			}
+			else {
+				validateCertificateTrust(returnCert);
+			}
+		}
+	}
 
-			RequestData requestData = new RequestData();
-			requestData.setSigVerCrypto(validationSignatureCrypto);
-			requestData.setEnableRevocation(enableRevocation);
+	private void validateCertificateTrust(X509Certificate certificate) throws WSSecurityException {
+		Credential credential = new Credential();
+		credential.setCertificates(new X509Certificate[] { certificate});
 
-			SignatureTrustValidator validator = new SignatureTrustValidator();
-			validator.validate(credential, requestData);
-		}
+		RequestData requestData = new RequestData();
+		requestData.setSigVerCrypto(validationSignatureCrypto);
+		requestData.setEnableRevocation(enableRevocation);
+
+		SignatureTrustValidator validator = new SignatureTrustValidator();
+		validator.validate(credential, requestData);
 	}
 
 	/** Verifies the timestamp.
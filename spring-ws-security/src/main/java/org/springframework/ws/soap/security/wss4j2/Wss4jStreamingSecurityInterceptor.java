@@ -0,0 +1,600 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security.wss4j2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.CallbackHandler;
+import javax.security.auth.callback.UnsupportedCallbackException;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPMessage;
+import org.apache.wss4j.common.ConfigurationConstants;
+import org.apache.wss4j.common.crypto.Crypto;
+import org.apache.wss4j.common.ext.WSPasswordCallback;
+import org.apache.wss4j.common.ext.WSSecurityException;
+import org.apache.wss4j.stax.ext.WSSConstants;
+import org.apache.wss4j.stax.ext.WSSSecurityProperties;
+import org.apache.wss4j.stax.securityEvent.WSSecurityEventConstants;
+import org.apache.wss4j.stax.setup.ConfigurationConverter;
+import org.apache.wss4j.stax.setup.InboundWSSec;
+import org.apache.wss4j.stax.setup.OutboundWSSec;
+import org.apache.wss4j.stax.setup.WSSec;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.securityEvent.AbstractSecuredElementSecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
+import org.apache.xml.security.stax.securityEvent.SecurityEventListener;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessage;
+import org.springframework.ws.soap.axiom.XmlStreamWriterFactory;
+import org.springframework.ws.soap.security.AbstractWsSecurityInterceptor;
+import org.springframework.ws.soap.security.WsSecuritySecurementException;
+import org.springframework.ws.soap.security.WsSecurityValidationException;
+import org.springframework.ws.soap.security.callback.CallbackHandlerChain;
+import org.springframework.ws.soap.security.callback.CleanupCallback;
+
+/**
+ * A WS-Security endpoint interceptor based on the streaming (StAX) engine of Apache's WSS4J. Contrary to the {@link
+ * Wss4jSecurityInterceptor}, which converts every message into a DOM document, this interceptor secures and validates
+ * messages while their contents stream through Axiom. Signature verification and decryption therefore happen in a
+ * single pass, without a DOM copy of the message.
+ *
+ * <p>Outgoing messages are secured while they are written to the transport. Securement errors that occur at that
+ * point are therefore thrown by {@link AxiomSoapMessage#writeTo(OutputStream)}, rather than handled by this
+ * interceptor. Incoming messages are read completely through the security engine before the endpoint is invoked, so
+ * that every signature digest is verified and every encrypted part is decrypted; the verified message is kept as an
+ * Axiom tree. The {@code Signature} and {@code Encrypt} validation actions require the SOAP Body to be signed or
+ * encrypted, respectively.
+ *
+ * <p>This interceptor only supports messages created by the {@link org.springframework.ws.soap.axiom.AxiomSoapMessageFactory}.
+ * Use the {@link Wss4jSecurityInterceptor} for SAAJ-based messages.
+ *
+ * <p>Like the {@link Wss4jSecurityInterceptor}, the actions are configured via the {@code validationActions} and
+ * {@code securementActions} properties, as space-separated strings. Supported actions are {@code UsernameToken},
+ * {@code Timestamp}, {@code Encrypt}, {@code Signature}, and {@code NoSecurity}.
+ *
+ * <p>The security events of a validated request are kept in the message context, so that they are available when the
+ * response is secured (for instance for signature confirmation).
+ *
+ * @author Greg Turnquist
+ * @see <a href="http://ws.apache.org/wss4j/streaming.html">WSS4J Streaming (StAX-based) WS-Security</a>
+ * @since 3.0.8
+ */
+public class Wss4jStreamingSecurityInterceptor extends AbstractWsSecurityInterceptor implements InitializingBean {
+
+	/** Name of the message context property that holds the security events of the validated message. */
+	public static final String SECURITY_EVENTS_PROPERTY_NAME = "Wss4jStreamingSecurityInterceptor.securityEvents";
+
+	/** Keys are constants from {@link ConfigurationConstants}; values are strings. */
+	private final Map<String, Object> securementOptions = new HashMap<String, Object>();
+
+	/** Keys are constants from {@link ConfigurationConstants}; values are strings. */
+	private final Map<String, Object> validationOptions = new HashMap<String, Object>();
+
+	private String securementActions;
+
+	private String securementPassword;
+
+	private CallbackHandler securementCallbackHandler;
+
+	private Crypto securementSignatureCrypto;
+
+	private Crypto securementEncryptionCrypto;
+
+	private String validationActions;
+
+	private CallbackHandler validationCallbackHandler;
+
+	private Crypto validationSignatureCrypto;
+
+	private Crypto validationDecryptionCrypto;
+
+	private boolean removeSecurityHeader = true;
+
+	private OutboundWSSec outboundSecurity;
+
+	private InboundWSSec inboundSecurity;
+
+	private List<XMLSecurityConstants.Action> requiredValidationActions;
+
+	public Wss4jStreamingSecurityInterceptor() {
+		securementOptions.put(ConfigurationConstants.MUST_UNDERSTAND, Boolean.toString(true));
+	}
+
+	/** Sets the securement actions to be executed by the interceptor. */
+	public void setSecurementActions(String securementActions) {
+		this.securementActions = securementActions;
+	}
+
+	/** The actor name of the {@code wsse:Security} header of outgoing messages. */
+	public void setSecurementActor(String securementActor) {
+		securementOptions.put(ConfigurationConstants.ACTOR, securementActor);
+	}
+
+	/**
+	 * Sets the username for securement username token or/and the alias of the private key for securement signature.
+	 */
+	public void setSecurementUsername(String securementUsername) {
+		securementOptions.put(ConfigurationConstants.USER, securementUsername);
+	}
+
+	/**
+	 * Sets the password for the securement username token or the private key. Ignored when a {@link
+	 * #setSecurementCallbackHandler(CallbackHandler) securementCallbackHandler} is set.
+	 */
+	public void setSecurementPassword(String securementPassword) {
+		this.securementPassword = securementPassword;
+	}
+
+	/** Sets the {@link WSPasswordCallback} handler that provides passwords for outgoing messages. */
+	public void setSecurementCallbackHandler(CallbackHandler securementCallbackHandler) {
+		this.securementCallbackHandler = securementCallbackHandler;
+	}
+
+	/**
+	 * Specific parameter for UsernameToken action to define the encoding of the password. Either {@code PasswordDigest}
+	 * or {@code PasswordText}.
+	 */
+	public void setSecurementPasswordType(String securementPasswordType) {
+		securementOptions.put(ConfigurationConstants.PASSWORD_TYPE, securementPasswordType);
+	}
+
+	public void setSecurementSignatureCrypto(Crypto securementSignatureCrypto) {
+		this.securementSignatureCrypto = securementSignatureCrypto;
+	}
+
+	/** Defines which signature algorithm to use. */
+	public void setSecurementSignatureAlgorithm(String securementSignatureAlgorithm) {
+		securementOptions.put(ConfigurationConstants.SIG_ALGO, securementSignatureAlgorithm);
+	}
+
+	/** Defines which signature digest algorithm to use. */
+	public void setSecurementSignatureDigestAlgorithm(String digestAlgorithm) {
+		securementOptions.put(ConfigurationConstants.SIG_DIGEST_ALGO, digestAlgorithm);
+	}
+
+	/**
+	 * Defines which key identifier type to use for signatures, for instance {@code IssuerSerial} or
+	 * {@code DirectReference}.
+	 */
+	public void setSecurementSignatureKeyIdentifier(String securementSignatureKeyIdentifier) {
+		securementOptions.put(ConfigurationConstants.SIG_KEY_ID, securementSignatureKeyIdentifier);
+	}
+
+	/**
+	 * Defines which parts of the message shall be signed.
+	 *
+	 * @see Wss4jSecurityInterceptor#setSecurementSignatureParts(String)
+	 */
+	public void setSecurementSignatureParts(String securementSignatureParts) {
+		securementOptions.put(ConfigurationConstants.SIGNATURE_PARTS, securementSignatureParts);
+	}
+
+	/** The user's name for signature, used as alias in the keystore. */
+	public void setSecurementSignatureUser(String securementSignatureUser) {
+		securementOptions.put(ConfigurationConstants.SIGNATURE_USER, securementSignatureUser);
+	}
+
+	public void setSecurementEncryptionCrypto(Crypto securementEncryptionCrypto) {
+		this.securementEncryptionCrypto = securementEncryptionCrypto;
+	}
+
+	/**
+	 * Defines which key identifier type to use for encryption, for instance {@code IssuerSerial} or
+	 * {@code DirectReference}.
+	 */
+	public void setSecurementEncryptionKeyIdentifier(String securementEncryptionKeyIdentifier) {
+		securementOptions.put(ConfigurationConstants.ENC_KEY_ID, securementEncryptionKeyIdentifier);
+	}
+
+	/** Defines which algorithm to use to encrypt the generated symmetric key. */
+	public void setSecurementEncryptionKeyTransportAlgorithm(String securementEncryptionKeyTransportAlgorithm) {
+		securementOptions.put(ConfigurationConstants.ENC_KEY_TRANSPORT, securementEncryptionKeyTransportAlgorithm);
+	}
+
+	/**
+	 * Defines which parts of the message shall be encrypted.
+	 *
+	 * @see Wss4jSecurityInterceptor#setSecurementEncryptionParts(String)
+	 */
+	public void setSecurementEncryptionParts(String securementEncryptionParts) {
+		securementOptions.put(ConfigurationConstants.ENCRYPTION_PARTS, securementEncryptionParts);
+	}
+
+	/** Defines which symmetric encryption algorithm to use. */
+	public void setSecurementEncryptionSymAlgorithm(String securementEncryptionSymAlgorithm) {
+		securementOptions.put(ConfigurationConstants.ENC_SYM_ALGO, securementEncryptionSymAlgorithm);
+	}
+
+	/** The user's name for encryption, used as alias of the certificate in the keystore. */
+	public void setSecurementEncryptionUser(String securementEncryptionUser) {
+		securementOptions.put(ConfigurationConstants.ENCRYPTION_USER, securementEncryptionUser);
+	}
+
+	/**
+	 * Enables the {@code mustUnderstand} attribute on WS-Security headers on outgoing messages. Default is
+	 * {@code true}.
+	 */
+	public void setSecurementMustUnderstand(boolean securementMustUnderstand) {
+		securementOptions.put(ConfigurationConstants.MUST_UNDERSTAND, Boolean.toString(securementMustUnderstand));
+	}
+
+	/** Sets the time to live on the outgoing message, in seconds. */
+	public void setSecurementTimeToLive(int securementTimeToLive) {
+		Assert.isTrue(securementTimeToLive > 0, "timeToLive must be positive");
+		securementOptions.put(ConfigurationConstants.TTL_TIMESTAMP, Integer.toString(securementTimeToLive));
+	}
+
+	/** Sets the validation actions to be executed by the interceptor. */
+	public void setValidationActions(String validationActions) {
+		this.validationActions = validationActions;
+	}
+
+	/** The actor name of the {@code wsse:Security} header of incoming messages. */
+	public void setValidationActor(String validationActor) {
+		validationOptions.put(ConfigurationConstants.ACTOR, validationActor);
+	}
+
+	/** Sets the {@link WSPasswordCallback} handler to use when validating messages. */
+	public void setValidationCallbackHandler(CallbackHandler callbackHandler) {
+		this.validationCallbackHandler = callbackHandler;
+	}
+
+	/** Sets the {@link WSPasswordCallback} handlers to use when validating messages. */
+	public void setValidationCallbackHandlers(CallbackHandler[] callbackHandler) {
+		this.validationCallbackHandler = new CallbackHandlerChain(callbackHandler);
+	}
+
+	/** Sets the Crypto to use to decrypt incoming messages. */
+	public void setValidationDecryptionCrypto(Crypto decryptionCrypto) {
+		this.validationDecryptionCrypto = decryptionCrypto;
+	}
+
+	/** Sets the Crypto to use to verify the signature of incoming messages. */
+	public void setValidationSignatureCrypto(Crypto signatureCrypto) {
+		this.validationSignatureCrypto = signatureCrypto;
+	}
+
+	/** Sets the server-side time to live, in seconds. */
+	public void setValidationTimeToLive(int validationTimeToLive) {
+		Assert.isTrue(validationTimeToLive > 0, "timeToLive must be positive");
+		validationOptions.put(ConfigurationConstants.TTL_TIMESTAMP, Integer.toString(validationTimeToLive));
+	}
+
+	/**
+	 * Sets the time in seconds in the future within which the Created time of an incoming Timestamp is valid. The
+	 * default is 60 seconds.
+	 */
+	public void setFutureTimeToLive(int futureTimeToLive) {
+		Assert.isTrue(futureTimeToLive > 0, "futureTimeToLive must be positive");
+		validationOptions.put(ConfigurationConstants.TTL_FUTURE_TIMESTAMP, Integer.toString(futureTimeToLive));
+	}
+
+	/** Sets whether or not timestamp verification is done with the server-side time to live. */
+	public void setTimestampStrict(boolean timestampStrict) {
+		validationOptions.put(ConfigurationConstants.TIMESTAMP_STRICT, Boolean.toString(timestampStrict));
+	}
+
+	/** Set whether to enable CRL checking or not when verifying trust in a certificate. */
+	public void setEnableRevocation(boolean enableRevocation) {
+		validationOptions.put(ConfigurationConstants.ENABLE_REVOCATION, Boolean.toString(enableRevocation));
+	}
+
+	/** Sets whether the RSA 1.5 key transport algorithm is allowed. */
+	public void setAllowRSA15KeyTransportAlgorithm(boolean allow) {
+		validationOptions.put(ConfigurationConstants.ALLOW_RSA15_KEY_TRANSPORT_ALGORITHM, Boolean.toString(allow));
+	}
+
+	public boolean getRemoveSecurityHeader() {
+		return removeSecurityHeader;
+	}
+
+	/** Sets whether the {@code wsse:Security} header is removed after validation. Default is {@code true}. */
+	public void setRemoveSecurityHeader(boolean removeSecurityHeader) {
+		this.removeSecurityHeader = removeSecurityHeader;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		Assert.isTrue(validationActions != null || securementActions != null,
+				"validationActions or securementActions are required");
+		if (StringUtils.hasText(securementActions)) {
+			WSSSecurityProperties properties = createSecurementProperties();
+			if (!properties.getActions().isEmpty()) {
+				outboundSecurity = WSSec.getOutboundWSSec(properties);
+			}
+		}
+		if (StringUtils.hasText(validationActions)) {
+			WSSSecurityProperties properties = createValidationProperties();
+			requiredValidationActions = new ArrayList<XMLSecurityConstants.Action>(properties.getActions());
+			if (requiredValidationActions.contains(WSSConstants.USERNAMETOKEN)) {
+				Assert.notNull(validationCallbackHandler, "validationCallbackHandler is required");
+			}
+			if (requiredValidationActions.contains(XMLSecurityConstants.SIGNATURE)) {
+				Assert.notNull(validationSignatureCrypto, "validationSignatureCrypto is required");
+			}
+			if (requiredValidationActions.contains(XMLSecurityConstants.ENCRYPT)) {
+				Assert.notNull(validationDecryptionCrypto, "validationDecryptionCrypto is required");
+			}
+			if (!requiredValidationActions.isEmpty()) {
+				inboundSecurity = WSSec.getInboundWSSec(properties);
+			}
+		}
+	}
+
+	/**
+	 * Creates the security properties for outgoing messages. Subclasses can override this method to customize
+	 * properties that are not exposed by this interceptor.
+	 */
+	protected WSSSecurityProperties createSecurementProperties() {
+		Map<String, Object> config = new HashMap<String, Object>(securementOptions);
+		config.put(ConfigurationConstants.ACTION, securementActions);
+		WSSSecurityProperties properties = ConfigurationConverter.convert(config);
+		properties.setSignatureCrypto(securementSignatureCrypto);
+		properties.setEncryptionCrypto(securementEncryptionCrypto);
+		if (securementCallbackHandler != null) {
+			properties.setCallbackHandler(securementCallbackHandler);
+		}
+		else if (securementPassword != null) {
+			properties.setCallbackHandler(new PasswordCallbackHandler(securementPassword));
+		}
+		return properties;
+	}
+
+	/**
+	 * Creates the security properties for incoming messages. Subclasses can override this method to customize
+	 * properties that are not exposed by this interceptor.
+	 */
+	protected WSSSecurityProperties createValidationProperties() {
+		Map<String, Object> config = new HashMap<String, Object>(validationOptions);
+		config.put(ConfigurationConstants.ACTION, validationActions);
+		WSSSecurityProperties properties = ConfigurationConverter.convert(config);
+		properties.setSignatureVerificationCrypto(validationSignatureCrypto);
+		properties.setDecryptionCrypto(validationDecryptionCrypto);
+		properties.setCallbackHandler(validationCallbackHandler);
+		return properties;
+	}
+
+	@Override
+	protected void secureMessage(SoapMessage soapMessage, MessageContext messageContext)
+			throws WsSecuritySecurementException {
+		if (outboundSecurity == null) {
+			return;
+		}
+		if (!(soapMessage instanceof AxiomSoapMessage)) {
+			throw new Wss4jSecuritySecurementException(
+					"Streaming WS-Security requires an AxiomSoapMessage, not [" + soapMessage + "]");
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Securing message [" + soapMessage + "] with actions [" + securementActions + "]");
+		}
+		AxiomSoapMessage axiomSoapMessage = (AxiomSoapMessage) soapMessage;
+		if (axiomSoapMessage.getAttachments().hasNext()) {
+			throw new Wss4jSecuritySecurementException(
+					"Streaming WS-Security does not support messages with attachments");
+		}
+		// the message is secured while it is written to the transport
+		final List<SecurityEvent> requestSecurityEvents = getSecurityEvents(messageContext);
+		axiomSoapMessage.setXmlStreamWriterFactory(new XmlStreamWriterFactory() {
+
+			@Override
+			public XMLStreamWriter createXmlStreamWriter(OutputStream outputStream, String encoding)
+					throws XMLStreamException {
+				try {
+					return outboundSecurity.processOutMessage(outputStream, encoding, requestSecurityEvents);
+				}
+				catch (WSSecurityException ex) {
+					throw new XMLStreamException(ex.getMessage(), ex);
+				}
+			}
+		});
+	}
+
+	@Override
+	protected void validateMessage(SoapMessage soapMessage, MessageContext messageContext)
+			throws WsSecurityValidationException {
+		if (inboundSecurity == null) {
+			return;
+		}
+		if (!(soapMessage instanceof AxiomSoapMessage)) {
+			throw new Wss4jSecurityValidationException(
+					"Streaming WS-Security requires an AxiomSoapMessage, not [" + soapMessage + "]");
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Validating message [" + soapMessage + "] with actions [" + validationActions + "]");
+		}
+		AxiomSoapMessage axiomSoapMessage = (AxiomSoapMessage) soapMessage;
+		SOAPMessage axiomMessage = axiomSoapMessage.getAxiomMessage();
+		final List<SecurityEvent> securityEvents = new ArrayList<SecurityEvent>();
+		SOAPMessage validatedMessage;
+		try {
+			XMLStreamReader reader = inboundSecurity.processInMessage(axiomMessage.getXMLStreamReaderWithoutCaching(),
+					getSecurityEvents(messageContext), new SecurityEventListener() {
+
+						@Override
+						public void registerSecurityEvent(SecurityEvent securityEvent) throws XMLSecurityException {
+							securityEvents.add(securityEvent);
+						}
+					});
+			OMMetaFactory metaFactory = axiomMessage.getOMFactory().getMetaFactory();
+			validatedMessage = OMXMLBuilderFactory.createStAXSOAPModelBuilder(metaFactory, reader).getSOAPMessage();
+			// pulls the whole message through the security engine, which verifies the digests of signed parts when
+			// their end is reached, so that the endpoint never sees data that has not been verified
+			validatedMessage.build();
+		}
+		catch (WSSecurityException ex) {
+			throw new Wss4jSecurityValidationException(ex.getMessage(), ex);
+		}
+		catch (XMLStreamException ex) {
+			throw new Wss4jSecurityValidationException(ex.getMessage(), ex);
+		}
+		catch (OMException ex) {
+			throw new Wss4jSecurityValidationException(ex.getMessage(), ex);
+		}
+		catch (IllegalStateException ex) {
+			// Axiom wraps errors of the underlying reader, such as a failed security check, in this exception
+			if (ex.getCause() instanceof XMLStreamException) {
+				throw new Wss4jSecurityValidationException(ex.getCause().getMessage(), ex.getCause());
+			}
+			throw ex;
+		}
+
+		checkSecurityEvents(securityEvents, requiredValidationActions);
+
+		messageContext.setProperty(SECURITY_EVENTS_PROPERTY_NAME, securityEvents);
+		replaceAxiomMessage(axiomSoapMessage, validatedMessage);
+
+		if (getRemoveSecurityHeader()) {
+			soapMessage.getEnvelope().getHeader().removeHeaderElement(WS_SECURITY_NAME);
+		}
+	}
+
+	/**
+	 * Checks whether the received security events match the configured validation actions: the {@code Signature} and
+	 * {@code Encrypt} actions require a signed or encrypted SOAP Body, like the default signature and encryption parts
+	 * of the {@link Wss4jSecurityInterceptor}. Subclasses could override this method for custom verification behavior.
+	 *
+	 * @param securityEvents the security events raised while processing the message
+	 * @param validationActions the configured validation actions
+	 * @throws Wss4jSecurityValidationException if the events are deemed invalid
+	 */
+	protected void checkSecurityEvents(List<SecurityEvent> securityEvents,
+			List<XMLSecurityConstants.Action> validationActions) throws Wss4jSecurityValidationException {
+		if (securityEvents.isEmpty()) {
+			throw new Wss4jSecurityValidationException("No WS-Security header found");
+		}
+		for (XMLSecurityConstants.Action action : validationActions) {
+			SecurityEventConstants.Event expected = getExpectedEvent(action);
+			if (expected == null) {
+				continue;
+			}
+			boolean bodyRequired = WSSecurityEventConstants.SIGNED_PART.equals(expected) ||
+					WSSecurityEventConstants.ENCRYPTED_PART.equals(expected);
+			if (!containsEvent(securityEvents, expected, bodyRequired)) {
+				throw new Wss4jSecurityValidationException("Security processing failed (actions mismatch)");
+			}
+		}
+	}
+
+	private static SecurityEventConstants.Event getExpectedEvent(XMLSecurityConstants.Action action) {
+		if (WSSConstants.TIMESTAMP.equals(action)) {
+			return WSSecurityEventConstants.TIMESTAMP;
+		}
+		else if (WSSConstants.USERNAMETOKEN.equals(action)) {
+			return WSSecurityEventConstants.USERNAME_TOKEN;
+		}
+		else if (XMLSecurityConstants.SIGNATURE.equals(action)) {
+			return WSSecurityEventConstants.SIGNED_PART;
+		}
+		else if (XMLSecurityConstants.ENCRYPT.equals(action)) {
+			return WSSecurityEventConstants.ENCRYPTED_PART;
+		}
+		return null;
+	}
+
+	private static boolean containsEvent(List<SecurityEvent> securityEvents, SecurityEventConstants.Event expected,
+			boolean bodyRequired) {
+		for (SecurityEvent securityEvent : securityEvents) {
+			if (expected.equals(securityEvent.getSecurityEventType()) &&
+					(!bodyRequired || isBodyEvent(securityEvent))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isBodyEvent(SecurityEvent securityEvent) {
+		if (!(securityEvent instanceof AbstractSecuredElementSecurityEvent)) {
+			return false;
+		}
+		List<QName> elementPath = ((AbstractSecuredElementSecurityEvent) securityEvent).getElementPath();
+		if (elementPath == null || elementPath.size() != 2) {
+			return false;
+		}
+		QName element = elementPath.get(1);
+		return WSSConstants.TAG_SOAP11_BODY.equals(element) || WSSConstants.TAG_SOAP12_BODY.equals(element);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<SecurityEvent> getSecurityEvents(MessageContext messageContext) {
+		return (List<SecurityEvent>) messageContext.getProperty(SECURITY_EVENTS_PROPERTY_NAME);
+	}
+
+	private static void replaceAxiomMessage(AxiomSoapMessage soapMessage, SOAPMessage axiomMessage) {
+		// setAxiomMessage clears the SOAP Action
+		String soapAction = soapMessage.getSoapAction();
+		soapMessage.setAxiomMessage(axiomMessage);
+		soapMessage.setSoapAction(soapAction);
+	}
+
+	@Override
+	protected void cleanUp() {
+		if (validationCallbackHandler != null) {
+			try {
+				CleanupCallback cleanupCallback = new CleanupCallback();
+				validationCallbackHandler.handle(new Callback[]{cleanupCallback});
+			}
+			catch (IOException ex) {
+				logger.warn("Cleanup callback resulted in IOException", ex);
+			}
+			catch (UnsupportedCallbackException ex) {
+				// ignore
+			}
+		}
+	}
+
+	/** Callback handler that provides a fixed password for all outgoing messages. */
+	private static class PasswordCallbackHandler implements CallbackHandler {
+
+		private final String password;
+
+		private PasswordCallbackHandler(String password) {
+			this.password = password;
+		}
+
+		@Override
+		public void handle(Callback[] callbacks) throws IOException, UnsupportedCallbackException {
+			for (Callback callback : callbacks) {
+				if (callback instanceof WSPasswordCallback) {
+					((WSPasswordCallback) callback).setPassword(password);
+				}
+				else {
+					throw new UnsupportedCallbackException(callback);
+				}
+			}
+		}
+	}
+
+}
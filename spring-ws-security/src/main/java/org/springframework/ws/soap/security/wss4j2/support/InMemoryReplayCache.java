@@ -0,0 +1,284 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security.wss4j2.support;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.wss4j.common.cache.ReplayCache;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.ws.support.BoundedCache;
+
+/**
+ * In-memory implementation of the WSS4J {@link ReplayCache}, for detecting replayed UsernameToken nonces and
+ * Timestamps. Identifiers are kept in a {@link BoundedCache}, so lookups and additions take no locks.
+ *
+ * <p>Entries expire after the time to live given by WSS4J, which is based on the time to live of the validated token;
+ * entries added without a time to live use the {@linkplain #setTimeToLive(int) time to live} of this cache. The number
+ * of entries
+ * is bounded by {@code maxEntries}. Identifiers that have not expired are never evicted, as that would allow them to
+ * be replayed: while the cache is full of live identifiers, new identifiers are not added, and {@link
+ * #contains(String)} reports every unknown identifier as replayed, so that such messages are rejected.
+ *
+ * <p>Optionally, the cache is written to a {@linkplain #setPersistenceFile(File) file} when {@linkplain #close()
+ * closed}, and read back in {@link #afterPropertiesSet()}, so that replay protection survives restarts. Identifiers
+ * added since the cache was last written are lost if the process ends without closing the cache, for instance when it
+ * crashes; set a {@linkplain #setPersistenceInterval(int) persistence interval} to also write the cache periodically,
+ * which limits the loss to the identifiers added during the last interval. When defined as a bean, the cache is
+ * closed when the application context is; otherwise, {@link #afterPropertiesSet()} and {@link #close()} have to be
+ * called explicitly.
+ *
+ * @author Greg Turnquist
+ * @see org.springframework.ws.soap.security.wss4j2.Wss4jSecurityInterceptor#setValidationReplayCache(ReplayCache)
+ * @since 3.0.8
+ */
+public class InMemoryReplayCache implements ReplayCache, InitializingBean, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(InMemoryReplayCache.class);
+
+	private static final String ENCODING = "UTF-8";
+
+	private volatile BoundedCache<String, Boolean> entries = new BoundedCache<String, Boolean>(100000);
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong rejectionCount = new AtomicLong();
+
+	private long timeToLive = 300 * 1000L;
+
+	private File persistenceFile;
+
+	private int persistenceInterval;
+
+	private ScheduledExecutorService persister;
+
+	/**
+	 * Sets the maximum number of identifiers in this cache. Default is 100000. Identifiers that are already cached are
+	 * discarded, so this property should be set before the cache is used.
+	 */
+	public void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "'maxEntries' must be larger than 0");
+		this.entries = new BoundedCache<String, Boolean>(maxEntries);
+	}
+
+	/**
+	 * Sets the time in seconds that identifiers added without an expiry are kept. Default is 300 seconds, the default
+	 * {@code validationTimeToLive} of the {@code Wss4jSecurityInterceptor}.
+	 */
+	public void setTimeToLive(int timeToLive) {
+		Assert.isTrue(timeToLive > 0, "'timeToLive' must be positive");
+		this.timeToLive = timeToLive * 1000L;
+	}
+
+	/**
+	 * Sets the file in which this cache is persisted when closed. If the file exists, the identifiers that have not
+	 * expired yet are loaded from it in {@link #afterPropertiesSet()}.
+	 */
+	public void setPersistenceFile(File persistenceFile) {
+		this.persistenceFile = persistenceFile;
+	}
+
+	/**
+	 * Sets the interval in seconds at which this cache is written to the {@linkplain #setPersistenceFile(File)
+	 * persistence file}, in addition to when it is closed. A value of 0, the default, means the cache is only written
+	 * when closed.
+	 */
+	public void setPersistenceInterval(int persistenceInterval) {
+		Assert.isTrue(persistenceInterval >= 0, "'persistenceInterval' must not be negative");
+		this.persistenceInterval = persistenceInterval;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws IOException {
+		if (persistenceFile != null && persistenceFile.exists()) {
+			load(persistenceFile);
+		}
+		if (persistenceFile != null && persistenceInterval > 0 && persister == null) {
+			persister = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "replay-cache-persister");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			persister.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					// an exception would cancel all subsequent writes
+					try {
+						persist();
+					}
+					catch (IOException ex) {
+						logger.warn("Could not persist replay cache to [" + persistenceFile + "]", ex);
+					}
+					catch (RuntimeException ex) {
+						logger.warn("Could not persist replay cache to [" + persistenceFile + "]", ex);
+					}
+				}
+			}, persistenceInterval, persistenceInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void add(String identifier) {
+		addUntil(identifier, System.currentTimeMillis() + timeToLive);
+	}
+
+	/**
+	 * Adds the given identifier, to be kept for the given time in seconds. A time to live that is not positive is
+	 * replaced by the {@linkplain #setTimeToLive(int) time to live} of this cache.
+	 */
+	@Override
+	public void add(String identifier, long timeToLive) {
+		long ttl = timeToLive > 0 ? timeToLive * 1000L : this.timeToLive;
+		addUntil(identifier, System.currentTimeMillis() + ttl);
+	}
+
+	private void addUntil(String identifier, long expires) {
+		Assert.hasLength(identifier, "'identifier' must not be empty");
+		if (!entries.putIfNotFull(identifier, Boolean.TRUE, expires)) {
+			rejectionCount.incrementAndGet();
+			logger.warn("Replay cache is full; identifier [" + identifier + "] not added");
+		}
+	}
+
+	/**
+	 * Indicates whether the given identifier is in this cache. Returns {@code true} for any identifier while the cache
+	 * is full of identifiers that have not expired, so that messages that cannot be checked for replay are rejected.
+	 */
+	@Override
+	public boolean contains(String identifier) {
+		if (entries.get(identifier) != null) {
+			hitCount.incrementAndGet();
+			return true;
+		}
+		if (entries.isFull()) {
+			rejectionCount.incrementAndGet();
+			logger.warn("Replay cache is full; treating identifier [" + identifier + "] as replayed");
+			return true;
+		}
+		return false;
+	}
+
+	/** Returns the number of identifiers in this cache, including expired ones that have not been purged yet. */
+	public int size() {
+		return entries.size();
+	}
+
+	/** Returns the number of replayed identifiers detected by this cache. */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/** Returns the number of identifiers that were rejected or not added, because the cache was full. */
+	public long getRejectionCount() {
+		return rejectionCount.get();
+	}
+
+	/** Closes this cache when the application context is closed. */
+	@Override
+	public void destroy() throws IOException {
+		close();
+	}
+
+	/**
+	 * Stops the periodic writes, and writes the identifiers that have not expired to the {@linkplain
+	 * #setPersistenceFile(File) persistence file}.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (persister != null) {
+			persister.shutdownNow();
+			persister = null;
+		}
+		if (persistenceFile != null) {
+			persist();
+		}
+	}
+
+	/**
+	 * Writes the identifiers to a temporary file, which then replaces the persistence file, so that a crash while
+	 * writing does not leave a truncated file behind.
+	 */
+	private synchronized void persist() throws IOException {
+		File tempFile = new File(persistenceFile.getPath() + ".tmp");
+		BufferedWriter writer =
+				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), ENCODING));
+		try {
+			for (Map.Entry<String, Long> entry : entries.getExpiryTimes().entrySet()) {
+				writer.write(Long.toString(entry.getValue()));
+				writer.write(' ');
+				writer.write(entry.getKey());
+				writer.newLine();
+			}
+		}
+		finally {
+			writer.close();
+		}
+		Files.move(tempFile.toPath(), persistenceFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void load(File file) throws IOException {
+		long now = System.currentTimeMillis();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int idx = line.indexOf(' ');
+				if (idx <= 0 || idx == line.length() - 1) {
+					continue;
+				}
+				try {
+					long expires = Long.parseLong(line.substring(0, idx));
+					if (expires > now) {
+						entries.putIfNotFull(line.substring(idx + 1), Boolean.TRUE, expires);
+					}
+				}
+				catch (NumberFormatException ex) {
+					logger.warn("Ignoring invalid replay cache entry [" + line + "]");
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+}
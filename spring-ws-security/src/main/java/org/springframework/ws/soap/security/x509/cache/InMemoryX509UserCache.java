@@ -0,0 +1,316 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security.x509.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.Assert;
+import org.springframework.ws.soap.security.x509.X509AuthoritiesPopulator;
+import org.springframework.ws.support.BoundedCache;
+
+/**
+ * Caches {@code User} objects in memory, without the need for an external cache provider. Entries are keyed by the
+ * SHA-256 fingerprint of the certificate, and are kept in a {@link BoundedCache}, so lookups take no locks.
+ *
+ * <p>Entries expire after the {@linkplain #setTimeToLive(int) time to live}, and the number of entries is bounded by
+ * {@linkplain #setMaxSize(int) maxSize}; when the cache is full, the least recently used entries are evicted.
+ *
+ * <p>If an {@link X509AuthoritiesPopulator} is set, entries older than the {@linkplain #setRefreshAfter(int) refresh
+ * time} are refreshed asynchronously on access, while the cached {@code UserDetails} continue to be returned. A hot
+ * certificate is therefore never looked up on a request thread after it is first cached. If the refresh fails with an
+ * {@link AuthenticationException}, the entry is removed, so that the next request is authenticated again. The default
+ * refresh executor is shut down when the cache is {@linkplain #destroy() destroyed}.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+public class InMemoryX509UserCache implements X509UserCache, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(InMemoryX509UserCache.class);
+
+	/** The number of threads of the default refresh executor. */
+	private static final int DEFAULT_REFRESH_THREADS = 2;
+
+	/** The number of refreshes the default refresh executor queues before rejecting further ones. */
+	private static final int DEFAULT_REFRESH_QUEUE_CAPACITY = 100;
+
+	private volatile BoundedCache<Fingerprint, CacheEntry> entries = new BoundedCache<Fingerprint, CacheEntry>(1000);
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong refreshCount = new AtomicLong();
+
+	private long timeToLive = 300 * 1000L;
+
+	private long refreshAfter = -1;
+
+	private X509AuthoritiesPopulator x509AuthoritiesPopulator;
+
+	private TaskExecutor refreshExecutor;
+
+	private ThreadPoolExecutor defaultRefreshExecutor;
+
+	/**
+	 * Sets the maximum number of cached users. Default is 1000. Users that are already cached are discarded, so this
+	 * property should be set before the cache is used.
+	 */
+	public void setMaxSize(int maxSize) {
+		Assert.isTrue(maxSize > 0, "'maxSize' must be larger than 0");
+		this.entries = new BoundedCache<Fingerprint, CacheEntry>(maxSize);
+	}
+
+	/** Sets the time in seconds after which cached users expire. Default is 300 seconds. */
+	public void setTimeToLive(int timeToLive) {
+		Assert.isTrue(timeToLive > 0, "'timeToLive' must be positive");
+		this.timeToLive = timeToLive * 1000L;
+	}
+
+	/**
+	 * Sets the time in seconds after which a cached user is refreshed in the background on access. Should be smaller
+	 * than the {@linkplain #setTimeToLive(int) time to live}. Requires an {@link X509AuthoritiesPopulator}; by
+	 * default, cached users are not refreshed.
+	 *
+	 * @see #setX509AuthoritiesPopulator(X509AuthoritiesPopulator)
+	 */
+	public void setRefreshAfter(int refreshAfter) {
+		Assert.isTrue(refreshAfter >= 0, "'refreshAfter' must not be negative");
+		this.refreshAfter = refreshAfter * 1000L;
+	}
+
+	/**
+	 * Sets the populator used to refresh cached users. Typically the same populator as the one of the {@link
+	 * org.springframework.ws.soap.security.x509.X509AuthenticationProvider}.
+	 */
+	public void setX509AuthoritiesPopulator(X509AuthoritiesPopulator x509AuthoritiesPopulator) {
+		this.x509AuthoritiesPopulator = x509AuthoritiesPopulator;
+	}
+
+	/**
+	 * Sets the executor that refreshes cached users. Defaults to a small pool of two daemon threads, which skips
+	 * refreshes when more than a hundred are pending; a skipped refresh is retried on a later access.
+	 */
+	public void setRefreshExecutor(TaskExecutor refreshExecutor) {
+		Assert.notNull(refreshExecutor, "'refreshExecutor' must not be null");
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	@Override
+	public UserDetails getUserFromCache(X509Certificate userCert) {
+		Fingerprint key = fingerprint(userCert);
+		CacheEntry entry = key != null ? entries.get(key) : null;
+		long now = System.currentTimeMillis();
+		if (entry == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		if (logger.isDebugEnabled()) {
+			logger.debug("X.509 Cache hit. SubjectDN: " + userCert.getSubjectDN());
+		}
+		if (x509AuthoritiesPopulator != null && refreshAfter >= 0 && now - entry.created >= refreshAfter &&
+				entry.refreshing.compareAndSet(false, true)) {
+			refresh(key, entry, userCert);
+		}
+		return entry.user;
+	}
+
+	private void refresh(final Fingerprint key, final CacheEntry entry, final X509Certificate userCert) {
+		try {
+			getRefreshExecutor().execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						UserDetails user = x509AuthoritiesPopulator.getUserDetails(userCert);
+						if (user != null) {
+							CacheEntry refreshed = new CacheEntry(user);
+							entries.replace(key, entry, refreshed, refreshed.created + timeToLive);
+							refreshCount.incrementAndGet();
+						}
+						else {
+							entries.remove(key, entry);
+						}
+					}
+					catch (AuthenticationException ex) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Cache refresh rejected " + userCert.getSubjectDN() + ": " + ex.getMessage());
+						}
+						entries.remove(key, entry);
+					}
+					catch (RuntimeException ex) {
+						logger.warn("Could not refresh cached user " + userCert.getSubjectDN(), ex);
+						entry.refreshing.set(false);
+					}
+				}
+			});
+		}
+		catch (TaskRejectedException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cache refresh skipped " + userCert.getSubjectDN() + ": " + ex.getMessage());
+			}
+			entry.refreshing.set(false);
+		}
+	}
+
+	private synchronized TaskExecutor getRefreshExecutor() {
+		if (refreshExecutor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("x509-user-cache-");
+			threadFactory.setDaemon(true);
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_REFRESH_THREADS, DEFAULT_REFRESH_THREADS,
+					60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(DEFAULT_REFRESH_QUEUE_CAPACITY),
+					threadFactory);
+			executor.allowCoreThreadTimeOut(true);
+			defaultRefreshExecutor = executor;
+			refreshExecutor = new ConcurrentTaskExecutor(executor);
+		}
+		return refreshExecutor;
+	}
+
+	/**
+	 * Shuts down the default refresh executor, if it was created; cached users are no longer refreshed afterwards. A
+	 * {@linkplain #setRefreshExecutor(TaskExecutor) given} executor is not shut down.
+	 */
+	@Override
+	public synchronized void destroy() {
+		if (defaultRefreshExecutor != null) {
+			defaultRefreshExecutor.shutdownNow();
+		}
+	}
+
+	@Override
+	public void putUserInCache(X509Certificate userCert, UserDetails user) {
+		Fingerprint key = fingerprint(userCert);
+		if (key == null || user == null) {
+			return;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Cache put: " + userCert.getSubjectDN());
+		}
+		CacheEntry entry = new CacheEntry(user);
+		entries.put(key, entry, entry.created + timeToLive);
+	}
+
+	@Override
+	public void removeUserFromCache(X509Certificate userCert) {
+		Fingerprint key = fingerprint(userCert);
+		if (key == null) {
+			return;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Cache remove: " + userCert.getSubjectDN());
+		}
+		entries.remove(key);
+	}
+
+	/** Returns the number of cached users, including expired ones that have not been evicted yet. */
+	public int size() {
+		return entries.size();
+	}
+
+	/** Returns the number of lookups that returned a cached user. */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/** Returns the number of lookups that did not return a cached user. */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/** Returns the number of cached users that were refreshed in the background. */
+	public long getRefreshCount() {
+		return refreshCount.get();
+	}
+
+	/** Returns the number of cached users that were evicted because the cache was full. */
+	public long getEvictionCount() {
+		return entries.getEvictionCount();
+	}
+
+	private static Fingerprint fingerprint(X509Certificate userCert) {
+		if (userCert == null) {
+			return null;
+		}
+		try {
+			return new Fingerprint(MessageDigest.getInstance("SHA-256").digest(userCert.getEncoded()));
+		}
+		catch (CertificateEncodingException ex) {
+			logger.warn("Could not encode certificate " + userCert.getSubjectDN(), ex);
+			return null;
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static class CacheEntry {
+
+		private final UserDetails user;
+
+		private final long created = System.currentTimeMillis();
+
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private CacheEntry(UserDetails user) {
+			this.user = user;
+		}
+	}
+
+	private static class Fingerprint {
+
+		private final byte[] digest;
+
+		private final int hashCode;
+
+		private Fingerprint(byte[] digest) {
+			this.digest = digest;
+			this.hashCode = Arrays.hashCode(digest);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return this == o || (o instanceof Fingerprint && Arrays.equals(digest, ((Fingerprint) o).digest));
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+}
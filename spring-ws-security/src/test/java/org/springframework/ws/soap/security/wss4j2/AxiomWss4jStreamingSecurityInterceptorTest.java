@@ -0,0 +1,248 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security.wss4j2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.wss4j.common.crypto.Crypto;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessage;
+import org.springframework.ws.soap.security.WsSecurityValidationException;
+import org.springframework.ws.soap.security.wss4j2.callback.KeyStoreCallbackHandler;
+import org.springframework.ws.soap.security.wss4j2.support.CryptoFactoryBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AxiomWss4jStreamingSecurityInterceptorTest extends Wss4jTestCase {
+
+	@Test
+	public void testAddTimestamp() throws Exception {
+		Wss4jStreamingSecurityInterceptor interceptor = new Wss4jStreamingSecurityInterceptor();
+		interceptor.setSecurementActions("Timestamp");
+		interceptor.afterPropertiesSet();
+		SoapMessage message = loadSoap11Message("empty-soap.xml");
+		message.setSoapAction("http://example.com/action");
+		MessageContext context = getSoap11MessageContext(message);
+		interceptor.secureMessage(message, context);
+		assertEquals("SOAP Action not retained", "\"http://example.com/action\"", message.getSoapAction());
+		assertXpathExists("timestamp header not found",
+				"/SOAP-ENV:Envelope/SOAP-ENV:Header/wsse:Security/wsu:Timestamp", getDocument(writeAndRead(message)));
+	}
+
+	@Test
+	public void testSignatureRoundTrip() throws Exception {
+		Crypto crypto = createCrypto();
+		Wss4jStreamingSecurityInterceptor securementInterceptor = new Wss4jStreamingSecurityInterceptor();
+		securementInterceptor.setSecurementActions("Signature");
+		securementInterceptor.setSecurementUsername("rsaKey");
+		securementInterceptor.setSecurementPassword("123456");
+		securementInterceptor.setSecurementSignatureCrypto(crypto);
+		securementInterceptor.afterPropertiesSet();
+		Wss4jStreamingSecurityInterceptor validationInterceptor = new Wss4jStreamingSecurityInterceptor();
+		validationInterceptor.setValidationActions("Signature");
+		validationInterceptor.setValidationSignatureCrypto(crypto);
+		validationInterceptor.afterPropertiesSet();
+
+		SoapMessage message = loadSoap11Message("empty-soap.xml");
+		securementInterceptor.secureMessage(message, getSoap11MessageContext(message));
+		SoapMessage signed = writeAndRead(message);
+		Document signedDocument = getDocument(signed);
+		assertXpathExists("Signature not found",
+				"/SOAP-ENV:Envelope/SOAP-ENV:Header/wsse:Security/ds:Signature", signedDocument);
+
+		SoapMessage received = writeAndRead(signed);
+		validationInterceptor.validateMessage(received, new DefaultMessageContext(received, getSoap11MessageFactory()));
+		Document document = getDocument(received);
+		assertXpathEvaluatesTo("Invalid payload", "QQQ", "/SOAP-ENV:Envelope/SOAP-ENV:Body/*/text()", document);
+		assertXpathNotExists("Security Header not removed", "/SOAP-ENV:Envelope/SOAP-ENV:Header/wsse:Security",
+				document);
+	}
+
+	@Test(expected = WsSecurityValidationException.class)
+	public void testValidateTamperedPayload() throws Exception {
+		Crypto crypto = createCrypto();
+		Wss4jStreamingSecurityInterceptor securementInterceptor = new Wss4jStreamingSecurityInterceptor();
+		securementInterceptor.setSecurementActions("Signature");
+		securementInterceptor.setSecurementUsername("rsaKey");
+		securementInterceptor.setSecurementPassword("123456");
+		securementInterceptor.setSecurementSignatureCrypto(crypto);
+		securementInterceptor.afterPropertiesSet();
+		Wss4jStreamingSecurityInterceptor validationInterceptor = new Wss4jStreamingSecurityInterceptor();
+		validationInterceptor.setValidationActions("Signature");
+		validationInterceptor.setValidationSignatureCrypto(crypto);
+		validationInterceptor.afterPropertiesSet();
+
+		SoapMessage message = loadSoap11Message("empty-soap.xml");
+		securementInterceptor.secureMessage(message, getSoap11MessageContext(message));
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		message.writeTo(os);
+		String signed = os.toString("UTF-8");
+		assertTrue("Payload not found", signed.contains(">QQQ<"));
+		SoapMessage tampered = read(signed.replace(">QQQ<", ">XXX<").getBytes("UTF-8"));
+
+		validationInterceptor.validateMessage(tampered, new DefaultMessageContext(tampered, getSoap11MessageFactory()));
+	}
+
+	@Test(expected = WsSecurityValidationException.class)
+	public void testValidateUnsignedBody() throws Exception {
+		Crypto crypto = createCrypto();
+		Wss4jStreamingSecurityInterceptor securementInterceptor = new Wss4jStreamingSecurityInterceptor();
+		securementInterceptor.setSecurementActions("Signature");
+		securementInterceptor.setSecurementSignatureParts("{}{http://example.com}header");
+		securementInterceptor.setSecurementUsername("rsaKey");
+		securementInterceptor.setSecurementPassword("123456");
+		securementInterceptor.setSecurementSignatureCrypto(crypto);
+		securementInterceptor.afterPropertiesSet();
+		Wss4jStreamingSecurityInterceptor validationInterceptor = new Wss4jStreamingSecurityInterceptor();
+		validationInterceptor.setValidationActions("Signature");
+		validationInterceptor.setValidationSignatureCrypto(crypto);
+		validationInterceptor.afterPropertiesSet();
+
+		SoapMessage message = read(("<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<SOAP-ENV:Header><ex:header xmlns:ex='http://example.com'>value</ex:header></SOAP-ENV:Header>" +
+				"<SOAP-ENV:Body><ex:payload xmlns:ex='http://example.com'>QQQ</ex:payload></SOAP-ENV:Body>" +
+				"</SOAP-ENV:Envelope>").getBytes("UTF-8"));
+		securementInterceptor.secureMessage(message, getSoap11MessageContext(message));
+		SoapMessage received = writeAndRead(message);
+
+		validationInterceptor.validateMessage(received, new DefaultMessageContext(received, getSoap11MessageFactory()));
+	}
+
+	@Test(expected = WsSecurityValidationException.class)
+	public void testValidateMissingSignature() throws Exception {
+		Wss4jStreamingSecurityInterceptor interceptor = new Wss4jStreamingSecurityInterceptor();
+		interceptor.setValidationActions("Signature");
+		interceptor.setValidationSignatureCrypto(createCrypto());
+		interceptor.afterPropertiesSet();
+		SoapMessage message = getMessageWithTimestamp();
+		interceptor.validateMessage(message, new DefaultMessageContext(message, getSoap11MessageFactory()));
+	}
+
+	@Test
+	public void testEncryptionRoundTrip() throws Exception {
+		Crypto crypto = createCrypto();
+		Wss4jStreamingSecurityInterceptor securementInterceptor = new Wss4jStreamingSecurityInterceptor();
+		securementInterceptor.setSecurementActions("Encrypt");
+		securementInterceptor.setSecurementEncryptionUser("rsakey");
+		securementInterceptor.setSecurementEncryptionCrypto(crypto);
+		securementInterceptor.afterPropertiesSet();
+		Wss4jStreamingSecurityInterceptor validationInterceptor = new Wss4jStreamingSecurityInterceptor();
+		validationInterceptor.setValidationActions("Encrypt");
+		KeyStoreCallbackHandler callbackHandler = new KeyStoreCallbackHandler();
+		callbackHandler.setPrivateKeyPassword("123456");
+		validationInterceptor.setValidationCallbackHandler(callbackHandler);
+		validationInterceptor.setValidationDecryptionCrypto(crypto);
+		validationInterceptor.afterPropertiesSet();
+
+		SoapMessage message = loadSoap11Message("empty-soap.xml");
+		securementInterceptor.secureMessage(message, getSoap11MessageContext(message));
+		SoapMessage encrypted = writeAndRead(message);
+		Document encryptedDocument = getDocument(encrypted);
+		assertXpathExists("EncryptedKey not found",
+				"/SOAP-ENV:Envelope/SOAP-ENV:Header/wsse:Security/xenc:EncryptedKey", encryptedDocument);
+		assertXpathExists("EncryptedData not found", "/SOAP-ENV:Envelope/SOAP-ENV:Body/xenc:EncryptedData",
+				encryptedDocument);
+
+		SoapMessage received = writeAndRead(encrypted);
+		validationInterceptor.validateMessage(received, new DefaultMessageContext(received, getSoap11MessageFactory()));
+		assertXpathEvaluatesTo("Decryption error", "QQQ", "/SOAP-ENV:Envelope/SOAP-ENV:Body/*/text()",
+				getDocument(received));
+	}
+
+	@Test
+	public void testValidateTimestamp() throws Exception {
+		Wss4jStreamingSecurityInterceptor interceptor = new Wss4jStreamingSecurityInterceptor();
+		interceptor.setValidationActions("Timestamp");
+		interceptor.afterPropertiesSet();
+		SoapMessage message = getMessageWithTimestamp();
+		MessageContext context = new DefaultMessageContext(message, getSoap11MessageFactory());
+		interceptor.validateMessage(message, context);
+		assertXpathNotExists("Security Header not removed", "/SOAP-ENV:Envelope/SOAP-ENV:Header/wsse:Security",
+				getDocument(message));
+		assertNotNull("No security events in context",
+				context.getProperty(Wss4jStreamingSecurityInterceptor.SECURITY_EVENTS_PROPERTY_NAME));
+	}
+
+	@Test(expected = WsSecurityValidationException.class)
+	public void testValidateMissingTimestamp() throws Exception {
+		Wss4jStreamingSecurityInterceptor interceptor = new Wss4jStreamingSecurityInterceptor();
+		interceptor.setValidationActions("Timestamp");
+		interceptor.afterPropertiesSet();
+		SoapMessage message = loadSoap11Message("empty-soap.xml");
+		MessageContext context = new DefaultMessageContext(message, getSoap11MessageFactory());
+		interceptor.validateMessage(message, context);
+	}
+
+	@Test(expected = WsSecurityValidationException.class)
+	public void testValidateTimestampWithExpiredTtl() throws Exception {
+		Wss4jStreamingSecurityInterceptor interceptor = new Wss4jStreamingSecurityInterceptor();
+		interceptor.setValidationActions("Timestamp");
+		interceptor.afterPropertiesSet();
+		SoapMessage message = loadSoap11Message("expiredTimestamp-soap.xml");
+		MessageContext context = new DefaultMessageContext(message, getSoap11MessageFactory());
+		interceptor.validateMessage(message, context);
+	}
+
+	private Crypto createCrypto() throws Exception {
+		CryptoFactoryBean cryptoFactoryBean = new CryptoFactoryBean();
+		Properties cryptoFactoryBeanConfig = new Properties();
+		cryptoFactoryBeanConfig.setProperty("org.apache.ws.security.crypto.provider",
+				"org.apache.ws.security.components.crypto.Merlin");
+		cryptoFactoryBeanConfig.setProperty("org.apache.ws.security.crypto.merlin.keystore.type", "jceks");
+		cryptoFactoryBeanConfig.setProperty("org.apache.ws.security.crypto.merlin.keystore.password", "123456");
+		// from the class path
+		cryptoFactoryBeanConfig.setProperty("org.apache.ws.security.crypto.merlin.file", "private.jks");
+		cryptoFactoryBean.setConfiguration(cryptoFactoryBeanConfig);
+		cryptoFactoryBean.afterPropertiesSet();
+		return cryptoFactoryBean.getObject();
+	}
+
+	/** Writes the given message, as it would be written to the transport, and reads it back. */
+	private AxiomSoapMessage writeAndRead(SoapMessage message) throws Exception {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		message.writeTo(os);
+		return read(os.toByteArray());
+	}
+
+	private AxiomSoapMessage read(byte[] bytes) throws Exception {
+		SOAPModelBuilder builder = OMXMLBuilderFactory.createSOAPModelBuilder(new ByteArrayInputStream(bytes), null);
+		org.apache.axiom.soap.SOAPMessage soapMessage = builder.getSOAPMessage();
+		builder.detach();
+		return new AxiomSoapMessage(soapMessage, "", true, true);
+	}
+
+	private SoapMessage getMessageWithTimestamp() throws Exception {
+		Wss4jSecurityInterceptor interceptor = new Wss4jSecurityInterceptor();
+		interceptor.setSecurementActions("Timestamp");
+		interceptor.afterPropertiesSet();
+		SoapMessage message = loadSoap11Message("empty-soap.xml");
+		MessageContext context = getSoap11MessageContext(message);
+		interceptor.secureMessage(message, context);
+		return message;
+	}
+}
@@ -27,6 +27,7 @@ import org.springframework.ws.soap.security.wss4j2.support.CryptoFactoryBean;
 import org.junit.Test;
 import org.w3c.dom.Document;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 public abstract class Wss4jMessageInterceptorSignTestCase extends Wss4jTestCase {
@@ -69,6 +70,26 @@ public abstract class Wss4jMessageInterceptorSignTestCase extends Wss4jTestCase
 				getDocument(message));
 	}
 
+	@Test
+	public void testValidateCertificateWithTrustCache() throws Exception {
+		interceptor.setCertificateTrustCacheTimeToLive(60);
+		interceptor.afterPropertiesSet();
+
+		for (int i = 0; i < 2; i++) {
+			SoapMessage message = loadSoap11Message("signed-soap.xml");
+			MessageContext messageContext = new DefaultMessageContext(message, getSoap11MessageFactory());
+			interceptor.validateMessage(message, messageContext);
+		}
+		assertEquals("Invalid cache miss count", 1, interceptor.getCertificateTrustCacheMissCount());
+		assertEquals("Invalid cache hit count", 1, interceptor.getCertificateTrustCacheHitCount());
+
+		interceptor.clearCertificateTrustCache();
+		SoapMessage message = loadSoap11Message("signed-soap.xml");
+		MessageContext messageContext = new DefaultMessageContext(message, getSoap11MessageFactory());
+		interceptor.validateMessage(message, messageContext);
+		assertEquals("Invalid cache miss count", 2, interceptor.getCertificateTrustCacheMissCount());
+	}
+
 	@Test
 	public void testValidateCertificateWithSignatureConfirmation() throws Exception {
 		SoapMessage message = loadSoap11Message("signed-soap.xml");
@@ -16,7 +16,9 @@
 
 package org.springframework.ws.soap.security.wss4j2;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 
 import java.util.Properties;
 
@@ -25,7 +27,9 @@ import org.junit.Test;
 import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.security.WsSecurityValidationException;
 import org.springframework.ws.soap.security.wss4j2.callback.SimplePasswordValidationCallbackHandler;
+import org.springframework.ws.soap.security.wss4j2.support.InMemoryReplayCache;
 import org.w3c.dom.Document;
 
 public abstract class Wss4jMessageInterceptorUsernameTokenTestCase extends Wss4jTestCase {
@@ -63,6 +67,30 @@ public abstract class Wss4jMessageInterceptorUsernameTokenTestCase extends Wss4j
 		assertValidateUsernameToken(message);
 	}
 
+	@Test
+	public void testValidateUsernameTokenReplay() throws Exception {
+		Wss4jSecurityInterceptor interceptor = prepareInterceptor("UsernameToken", false, true);
+		interceptor.setSecurementUsername("Bert");
+		interceptor.setSecurementPassword("Ernie");
+		SoapMessage message = loadSoap11Message("empty-soap.xml");
+		MessageContext messageContext = getSoap11MessageContext(message);
+		interceptor.secureMessage(message, messageContext);
+
+		InMemoryReplayCache replayCache = new InMemoryReplayCache();
+		interceptor = prepareInterceptor("UsernameToken", true, true);
+		interceptor.setValidationReplayCache(replayCache);
+		interceptor.setRemoveSecurityHeader(false);
+		interceptor.validateMessage(message, new DefaultMessageContext(message, getSoap11MessageFactory()));
+		assertEquals("Nonce not cached", 1, replayCache.size());
+		try {
+			interceptor.validateMessage(message, new DefaultMessageContext(message, getSoap11MessageFactory()));
+			fail("WsSecurityValidationException expected for replayed nonce");
+		}
+		catch (WsSecurityValidationException ex) {
+			assertEquals("Replay not detected", 1, replayCache.getHitCount());
+		}
+	}
+
 	@Test
 	public void testValidateUsernameTokenWithQualifiedType() throws Exception {
 		Wss4jSecurityInterceptor interceptor = prepareInterceptor("UsernameToken", true, false);
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security.wss4j2.support;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryReplayCacheTest {
+
+	private InMemoryReplayCache replayCache;
+
+	@Before
+	public void setUp() throws Exception {
+		replayCache = new InMemoryReplayCache();
+	}
+
+	@Test
+	public void testContains() throws Exception {
+		assertFalse("Identifier found", replayCache.contains("nonce"));
+		replayCache.add("nonce");
+		assertTrue("Identifier not found", replayCache.contains("nonce"));
+		assertEquals("Invalid hit count", 1, replayCache.getHitCount());
+	}
+
+	@Test
+	public void testExpired() throws Exception {
+		replayCache.add("nonce", 1);
+		Thread.sleep(1100);
+		assertFalse("Expired identifier found", replayCache.contains("nonce"));
+		assertEquals("Expired identifier not removed", 0, replayCache.size());
+	}
+
+	@Test
+	public void testFailsClosedWhenFull() throws Exception {
+		replayCache.setMaxEntries(10);
+		for (int i = 0; i < 10; i++) {
+			replayCache.add("nonce" + i, 60 + i);
+		}
+		replayCache.add("nonce10", 300);
+		assertTrue("Live identifier evicted", replayCache.contains("nonce0"));
+		assertEquals("Identifier added to full cache", 10, replayCache.size());
+		assertTrue("Unknown identifier accepted while full", replayCache.contains("nonce11"));
+		assertEquals("Invalid rejection count", 2, replayCache.getRejectionCount());
+	}
+
+	@Test
+	public void testPurgesExpiredWhenFull() throws Exception {
+		replayCache.setMaxEntries(1);
+		replayCache.add("expired", 1);
+		Thread.sleep(1100);
+		assertFalse("Identifier found", replayCache.contains("nonce"));
+		replayCache.add("nonce");
+		assertTrue("Identifier not added", replayCache.contains("nonce"));
+	}
+
+	@Test
+	public void testPersistence() throws Exception {
+		File file = File.createTempFile("replayCache", ".txt");
+		file.delete();
+		try {
+			replayCache.setPersistenceFile(file);
+			replayCache.afterPropertiesSet();
+			replayCache.add("nonce");
+			replayCache.add("expired", 1);
+			Thread.sleep(1100);
+			replayCache.destroy();
+
+			InMemoryReplayCache restored = new InMemoryReplayCache();
+			restored.setPersistenceFile(file);
+			restored.afterPropertiesSet();
+			assertTrue("Identifier not restored", restored.contains("nonce"));
+			assertEquals("Expired identifier restored", 1, restored.size());
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPeriodicPersistence() throws Exception {
+		File file = File.createTempFile("replayCache", ".txt");
+		file.delete();
+		try {
+			replayCache.setPersistenceFile(file);
+			replayCache.setPersistenceInterval(1);
+			replayCache.afterPropertiesSet();
+			replayCache.add("nonce");
+			for (int i = 0; i < 50 && !file.exists(); i++) {
+				Thread.sleep(100);
+			}
+
+			InMemoryReplayCache restored = new InMemoryReplayCache();
+			restored.setPersistenceFile(file);
+			restored.afterPropertiesSet();
+			assertTrue("Identifier not persisted before close", restored.contains("nonce"));
+			replayCache.close();
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security.x509.cache;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.ws.soap.security.x509.X509AuthoritiesPopulator;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class InMemoryX509UserCacheTest {
+
+	private InMemoryX509UserCache cache;
+
+	private X509Certificate certificate;
+
+	private UserDetails user;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new InMemoryX509UserCache();
+		certificate = createCertificate(new byte[]{1, 2, 3});
+		user = createUser("bert");
+	}
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		assertNull("User found", cache.getUserFromCache(certificate));
+		cache.putUserInCache(certificate, user);
+		assertSame("User not found", user, cache.getUserFromCache(createCertificate(new byte[]{1, 2, 3})));
+		assertEquals("Invalid hit count", 1, cache.getHitCount());
+		assertEquals("Invalid miss count", 1, cache.getMissCount());
+
+		cache.removeUserFromCache(certificate);
+		assertNull("User not removed", cache.getUserFromCache(certificate));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		cache.setMaxSize(2);
+		cache.putUserInCache(certificate, user);
+		cache.putUserInCache(createCertificate(new byte[]{4}), user);
+		cache.putUserInCache(createCertificate(new byte[]{5}), user);
+		assertEquals("Invalid size", 2, cache.size());
+		assertEquals("Invalid eviction count", 1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testRefresh() throws Exception {
+		final UserDetails refreshed = createUser("ernie");
+		cache.setRefreshAfter(0);
+		cache.setRefreshExecutor(new SyncTaskExecutor());
+		cache.setX509AuthoritiesPopulator(new X509AuthoritiesPopulator() {
+
+			@Override
+			public UserDetails getUserDetails(X509Certificate userCertificate) throws AuthenticationException {
+				return refreshed;
+			}
+		});
+		cache.putUserInCache(certificate, user);
+
+		assertSame("Stale user not returned during refresh", user, cache.getUserFromCache(certificate));
+		assertEquals("Invalid refresh count", 1, cache.getRefreshCount());
+		assertSame("Refreshed user not returned", refreshed, cache.getUserFromCache(certificate));
+	}
+
+	@Test
+	public void testRefreshRejected() throws Exception {
+		cache.setRefreshAfter(0);
+		cache.setRefreshExecutor(new SyncTaskExecutor());
+		cache.setX509AuthoritiesPopulator(new X509AuthoritiesPopulator() {
+
+			@Override
+			public UserDetails getUserDetails(X509Certificate userCertificate) throws AuthenticationException {
+				throw new BadCredentialsException("Revoked");
+			}
+		});
+		cache.putUserInCache(certificate, user);
+
+		assertSame("Stale user not returned during refresh", user, cache.getUserFromCache(certificate));
+		assertNull("Rejected user not removed", cache.getUserFromCache(certificate));
+	}
+
+	@Test
+	public void testDestroyShutsDownDefaultRefreshExecutor() throws Exception {
+		cache.setRefreshAfter(0);
+		cache.setX509AuthoritiesPopulator(new X509AuthoritiesPopulator() {
+
+			@Override
+			public UserDetails getUserDetails(X509Certificate userCertificate) throws AuthenticationException {
+				return user;
+			}
+		});
+		cache.putUserInCache(certificate, user);
+		cache.getUserFromCache(certificate);
+		for (int i = 0; i < 100 && cache.getRefreshCount() == 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals("Invalid refresh count", 1, cache.getRefreshCount());
+
+		cache.destroy();
+		assertSame("User not returned", user, cache.getUserFromCache(certificate));
+		Thread.sleep(100);
+		assertEquals("User refreshed after destroy", 1, cache.getRefreshCount());
+	}
+
+	private static X509Certificate createCertificate(byte[] encoded) throws Exception {
+		X509Certificate certificate = createNiceMock(X509Certificate.class);
+		expect(certificate.getEncoded()).andReturn(encoded).anyTimes();
+		replay(certificate);
+		return certificate;
+	}
+
+	private static UserDetails createUser(String username) {
+		return new User(username, "secret", Collections.<GrantedAuthority>emptyList());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,13 @@
 package org.springframework.ws.transport.http;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import org.springframework.ws.transport.support.SimpleWebServiceMessageReceiverObjectSupport;
+import org.springframework.ws.transport.support.VirtualThreadTaskExecutor;
 
 /**
  * {@link HttpHandler} that can be used to handle incoming {@link HttpExchange} service requests. Designed for Sun's JRE
@@ -32,6 +34,10 @@ import org.springframework.ws.transport.support.SimpleWebServiceMessageReceiverO
  * org.springframework.ws.transport.WebServiceMessageReceiver} {@link #setMessageReceiver(org.springframework.ws.transport.WebServiceMessageReceiver)
  * registered}.
  *
+ * <p>By default, requests are handled by the thread of the HTTP server, which is the single dispatcher thread if the
+ * server has no executor. If an {@linkplain #setExecutor(Executor) executor} is set, each request is handled by that
+ * executor instead, for instance in a virtual thread using the {@link VirtualThreadTaskExecutor}.
+ *
  * @author Arjen Poutsma
  * @see org.springframework.remoting.support.SimpleHttpServerFactoryBean
  * @since 1.5.0
@@ -41,21 +47,37 @@ public class WebServiceMessageReceiverHttpHandler extends SimpleWebServiceMessag
 
 	private boolean chunkedEncoding = false;
 
+	private Executor executor;
+
 	/** Enables chunked encoding on response bodies. Defaults to {@code false}. */
 	public void setChunkedEncoding(boolean chunkedEncoding) {
 		this.chunkedEncoding = chunkedEncoding;
 	}
 
+	/**
+	 * Sets the executor that handles requests. If not set, the default, requests are handled by the calling thread of
+	 * the HTTP server.
+	 *
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
 	@Override
-	public void handle(HttpExchange httpExchange) throws IOException {
+	public void handle(final HttpExchange httpExchange) throws IOException {
 		if (HttpTransportConstants.METHOD_POST.equals(httpExchange.getRequestMethod())) {
-			HttpExchangeConnection connection = new HttpExchangeConnection(httpExchange);
-			connection.setChunkedEncoding(chunkedEncoding);
-			try {
-				handleConnection(connection);
+			if (executor != null) {
+				executor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						handlePost(httpExchange);
+					}
+				});
 			}
-			catch (Exception ex) {
-				logger.error(ex);
+			else {
+				handlePost(httpExchange);
 			}
 		}
 		else {
@@ -63,4 +85,15 @@ public class WebServiceMessageReceiverHttpHandler extends SimpleWebServiceMessag
 			httpExchange.close();
 		}
 	}
+
+	private void handlePost(HttpExchange httpExchange) {
+		HttpExchangeConnection connection = new HttpExchangeConnection(httpExchange);
+		connection.setChunkedEncoding(chunkedEncoding);
+		try {
+			handleConnection(connection);
+		}
+		catch (Exception ex) {
+			logger.error(ex);
+		}
+	}
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.jms;
+
+import java.net.URI;
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+/**
+ * Callback interface for instrumentation of the batched one-way sends of a {@link JmsMessageSender}. Implementations
+ * can record the reported values in a metrics library of choice, such as Micrometer, and handle messages that could
+ * not be delivered.
+ *
+ * <p>Implementations are invoked on the thread that sends the batch, which may be the thread that sends a request or a
+ * background thread, and should therefore return quickly. All times are in nanoseconds.
+ *
+ * @author Greg Turnquist
+ * @see JmsMessageSender#setBatchListener(JmsBatchListener)
+ * @since 3.0.8
+ */
+public interface JmsBatchListener {
+
+	/**
+	 * Called when a batch has been committed.
+	 *
+	 * @param messageCount the number of messages that were committed
+	 * @param failedCount the number of messages of the batch that could not be sent, and were therefore not committed
+	 * @param queueTime the time the oldest message of the batch waited before the batch was sent
+	 * @param sendTime the time spent sending and committing the batch
+	 */
+	void batchCommitted(int messageCount, int failedCount, long queueTime, long sendTime);
+
+	/**
+	 * Called when a batch could not be committed, and has been rolled back. {@link #messageFailed(URI, Message,
+	 * JMSException)} has been called for every message of the batch.
+	 *
+	 * @param messageCount the number of messages in the batch
+	 * @param ex the exception that caused the failure
+	 */
+	void batchFailed(int messageCount, JMSException ex);
+
+	/**
+	 * Called when a message could not be sent, or its batch could not be committed.
+	 *
+	 * @param uri the destination URI of the message
+	 * @param message the JMS message, or {@code null} if it could not be created
+	 * @param ex the exception that caused the failure
+	 */
+	void messageFailed(URI uri, Message message, JMSException ex);
+
+}
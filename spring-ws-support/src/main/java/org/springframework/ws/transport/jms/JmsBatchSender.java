@@ -0,0 +1,367 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.jms;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.jms.BytesMessage;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jms.core.MessagePostProcessor;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.destination.DestinationResolver;
+import org.springframework.ws.transport.jms.support.JmsTransportUtils;
+
+/**
+ * Sends one-way requests of a {@link JmsMessageSender} in batches, using a single transacted session that is committed
+ * once per batch. A batch is sent when it is full, by the thread that adds the last request, or when its oldest request
+ * has waited for the linger time, by a background thread. While a batch is being sent, threads that add requests wait,
+ * which throttles senders that outpace the broker.
+ *
+ * <p>A request that cannot be sent, for instance because the message post processor throws an exception, is reported
+ * to the {@link JmsBatchListener}, and left out of the batch. If the batch cannot be committed, it is rolled back, and
+ * all its requests are reported. When the connection reports an exception,
+ * the pending batch is sent if possible, and this sender is destroyed; the message sender then creates a new one for
+ * the next request.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+class JmsBatchSender implements ExceptionListener {
+
+	private static final Log logger = LogFactory.getLog(JmsBatchSender.class);
+
+	private final int batchSize;
+
+	private final long lingerTime;
+
+	private final String textMessageEncoding;
+
+	private final MessagePostProcessor postProcessor;
+
+	private final JmsBatchListener listener;
+
+	private final DestinationResolver destinationResolver;
+
+	private final boolean pubSubDomain;
+
+	private final Connection connection;
+
+	private final Session session;
+
+	private final Map<String, MessageProducer> producers = new HashMap<String, MessageProducer>();
+
+	private final ScheduledExecutorService scheduler;
+
+	private List<BatchedRequest> pendingRequests = new ArrayList<BatchedRequest>();
+
+	private ScheduledFuture<?> scheduledFlush;
+
+	private volatile boolean active = true;
+
+	/**
+	 * Creates a new batch sender, using a new connection from the given connection factory.
+	 *
+	 * @param connectionFactory the connection factory
+	 * @param destinationResolver the resolver for destination names
+	 * @param pubSubDomain whether destination names are resolved to topics, rather than queues
+	 * @param batchSize the maximum number of requests per batch
+	 * @param lingerTime the maximum time a request waits for its batch to be sent, in milliseconds
+	 * @param textMessageEncoding the encoding of {@code TextMessage} requests
+	 * @param postProcessor the post processor of requests, or {@code null}
+	 * @param listener the listener to notify, or {@code null}
+	 */
+	JmsBatchSender(ConnectionFactory connectionFactory, DestinationResolver destinationResolver, boolean pubSubDomain,
+			int batchSize, long lingerTime, String textMessageEncoding, MessagePostProcessor postProcessor,
+			JmsBatchListener listener) throws JMSException {
+		this.destinationResolver = destinationResolver;
+		this.pubSubDomain = pubSubDomain;
+		this.batchSize = batchSize;
+		this.lingerTime = lingerTime;
+		this.textMessageEncoding = textMessageEncoding;
+		this.postProcessor = postProcessor;
+		this.listener = listener;
+		Connection connection = null;
+		Session session = null;
+		try {
+			connection = connectionFactory.createConnection();
+			session = connection.createSession(true, Session.SESSION_TRANSACTED);
+			connection.setExceptionListener(this);
+			this.connection = connection;
+			this.session = session;
+		}
+		catch (JMSException ex) {
+			JmsUtils.closeSession(session);
+			JmsUtils.closeConnection(connection);
+			throw ex;
+		}
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "jms-batch-sender");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/** Indicates whether this sender can still accept requests. */
+	boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Adds the given request to the pending batch, and sends the batch if it is full.
+	 *
+	 * @param uri the destination URI of the request
+	 * @param headers the transport headers of the request
+	 * @param content the content of the request
+	 * @throws JMSException if this sender has been destroyed
+	 */
+	synchronized void add(URI uri, Map<String, String> headers, byte[] content) throws JMSException {
+		if (!active) {
+			throw new JMSException("Batch sender has been destroyed");
+		}
+		pendingRequests.add(new BatchedRequest(uri, headers, content));
+		if (pendingRequests.size() >= batchSize) {
+			flush();
+		}
+		else if (scheduledFlush == null) {
+			scheduledFlush = scheduler.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						flush();
+					}
+					catch (RuntimeException ex) {
+						logger.error("Could not send batch after linger time", ex);
+					}
+				}
+			}, lingerTime, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/** Sends the pending batch, if any. */
+	synchronized void flush() {
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+		if (pendingRequests.isEmpty()) {
+			return;
+		}
+		List<BatchedRequest> batch = pendingRequests;
+		pendingRequests = new ArrayList<BatchedRequest>();
+		long startTime = System.nanoTime();
+		List<BatchedRequest> sent = new ArrayList<BatchedRequest>(batch.size());
+		boolean completed = false;
+		try {
+			for (BatchedRequest request : batch) {
+				try {
+					send(request);
+					sent.add(request);
+				}
+				catch (JMSException ex) {
+					messageFailed(request, ex);
+				}
+				catch (RuntimeException ex) {
+					messageFailed(request, asJmsException(ex));
+				}
+			}
+			completed = true;
+		}
+		finally {
+			if (!completed) {
+				// do not leave sent messages in the session, to be committed with the next batch
+				logger.warn("Sending batch aborted; rolling back " + sent.size() + " messages");
+				rollback();
+			}
+		}
+		if (sent.isEmpty()) {
+			return;
+		}
+		try {
+			session.commit();
+		}
+		catch (JMSException ex) {
+			batchFailed(sent, ex);
+			return;
+		}
+		catch (RuntimeException ex) {
+			batchFailed(sent, asJmsException(ex));
+			return;
+		}
+		if (listener != null) {
+			long endTime = System.nanoTime();
+			listener.batchCommitted(sent.size(), batch.size() - sent.size(), startTime - batch.get(0).queuedAt,
+					endTime - startTime);
+		}
+	}
+
+	private void batchFailed(List<BatchedRequest> sent, JMSException ex) {
+		rollback();
+		for (BatchedRequest request : sent) {
+			messageFailed(request, ex);
+		}
+		logger.warn("Could not commit batch of " + sent.size() + " messages", ex);
+		if (listener != null) {
+			listener.batchFailed(sent.size(), ex);
+		}
+	}
+
+	private void rollback() {
+		try {
+			session.rollback();
+		}
+		catch (JMSException ex) {
+			logger.debug("Could not roll back batch", ex);
+		}
+		catch (RuntimeException ex) {
+			logger.debug("Could not roll back batch", ex);
+		}
+	}
+
+	private void send(BatchedRequest request) throws JMSException {
+		int messageType = JmsTransportUtils.getMessageType(request.uri);
+		if (messageType == JmsTransportConstants.BYTES_MESSAGE_TYPE) {
+			BytesMessage bytesMessage = session.createBytesMessage();
+			bytesMessage.writeBytes(request.content);
+			request.message = bytesMessage;
+		}
+		else if (messageType == JmsTransportConstants.TEXT_MESSAGE_TYPE) {
+			TextMessage textMessage = session.createTextMessage();
+			try {
+				textMessage.setText(new String(request.content, textMessageEncoding));
+			}
+			catch (UnsupportedEncodingException ex) {
+				throw new IllegalStateException(ex);
+			}
+			request.message = textMessage;
+		}
+		else {
+			throw new IllegalArgumentException("Invalid message type [" + messageType + "].");
+		}
+		for (Map.Entry<String, String> header : request.headers.entrySet()) {
+			JmsTransportUtils.addHeader(request.message, header.getKey(), header.getValue());
+		}
+		if (postProcessor != null) {
+			request.message = postProcessor.postProcessMessage(request.message);
+		}
+		MessageProducer producer = getProducer(JmsTransportUtils.getDestinationName(request.uri));
+		producer.send(request.message, JmsTransportUtils.getDeliveryMode(request.uri),
+				JmsTransportUtils.getPriority(request.uri), JmsTransportUtils.getTimeToLive(request.uri));
+	}
+
+	private MessageProducer getProducer(String destinationName) throws JMSException {
+		MessageProducer producer = producers.get(destinationName);
+		if (producer == null) {
+			Destination destination =
+					destinationResolver.resolveDestinationName(session, destinationName, pubSubDomain);
+			producer = session.createProducer(destination);
+			producers.put(destinationName, producer);
+		}
+		return producer;
+	}
+
+	private void messageFailed(BatchedRequest request, JMSException ex) {
+		if (listener != null) {
+			listener.messageFailed(request.uri, request.message, ex);
+		}
+		else {
+			logger.warn("Could not send message to [" + request.uri + "]", ex);
+		}
+	}
+
+	private static JMSException asJmsException(RuntimeException ex) {
+		JMSException jmsException = new JMSException(ex.toString());
+		jmsException.setLinkedException(ex);
+		jmsException.initCause(ex);
+		return jmsException;
+	}
+
+	@Override
+	public void onException(JMSException ex) {
+		logger.warn("Batch sender connection failed; a new one will be created for the next request", ex);
+		destroy();
+	}
+
+	/** Sends the pending batch, and closes the session and the connection. */
+	void destroy() {
+		synchronized (this) {
+			if (!active) {
+				return;
+			}
+			try {
+				flush();
+			}
+			catch (RuntimeException ex) {
+				logger.warn("Could not send pending batch", ex);
+			}
+			active = false;
+		}
+		scheduler.shutdownNow();
+		for (MessageProducer producer : producers.values()) {
+			JmsUtils.closeMessageProducer(producer);
+		}
+		JmsUtils.closeSession(session);
+		JmsUtils.closeConnection(connection);
+	}
+
+	/** A request that waits for its batch to be sent. */
+	private static class BatchedRequest {
+
+		private final URI uri;
+
+		private final Map<String, String> headers;
+
+		private final byte[] content;
+
+		private final long queuedAt = System.nanoTime();
+
+		private Message message;
+
+		private BatchedRequest(URI uri, Map<String, String> headers, byte[] content) {
+			this.uri = uri;
+			this.headers = new LinkedHashMap<String, String>(headers);
+			this.content = content;
+		}
+	}
+
+}
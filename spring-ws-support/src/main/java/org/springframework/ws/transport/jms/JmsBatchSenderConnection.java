@@ -0,0 +1,144 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.jms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.jms.JMSException;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.transport.AbstractSenderConnection;
+import org.springframework.ws.transport.WebServiceConnection;
+
+/**
+ * Implementation of {@link WebServiceConnection} that is used for batched, one-way JMS sends. The request is buffered,
+ * and handed to the batch sender of the {@link JmsMessageSender} when sent. This connection never has a response.
+ *
+ * <p>Failures that occur after the request has been added to a batch are not thrown, but reported to the {@link
+ * JmsBatchListener}.
+ *
+ * @author Greg Turnquist
+ * @see JmsMessageSender#setBatchSize(int)
+ * @since 3.0.8
+ */
+public class JmsBatchSenderConnection extends AbstractSenderConnection {
+
+	private final JmsBatchSender batchSender;
+
+	private final URI uri;
+
+	private final Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+
+	private ByteArrayOutputStream requestBuffer;
+
+	JmsBatchSenderConnection(JmsBatchSender batchSender, URI uri) {
+		Assert.notNull(batchSender, "'batchSender' must not be null");
+		Assert.notNull(uri, "'uri' must not be null");
+		this.batchSender = batchSender;
+		this.uri = uri;
+	}
+
+	/*
+	 * URI
+	 */
+
+	@Override
+	public URI getUri() throws URISyntaxException {
+		return uri;
+	}
+
+	/*
+	 * Errors
+	 */
+
+	@Override
+	public boolean hasError() throws IOException {
+		return false;
+	}
+
+	@Override
+	public String getErrorMessage() throws IOException {
+		return null;
+	}
+
+	/*
+	 * Sending
+	 */
+
+	@Override
+	protected void onSendBeforeWrite(WebServiceMessage message) throws IOException {
+		requestHeaders.clear();
+		requestBuffer = new ByteArrayOutputStream();
+	}
+
+	@Override
+	public void addRequestHeader(String name, String value) throws IOException {
+		requestHeaders.put(name, value);
+	}
+
+	@Override
+	protected OutputStream getRequestOutputStream() throws IOException {
+		return requestBuffer;
+	}
+
+	@Override
+	protected void onSendAfterWrite(WebServiceMessage message) throws IOException {
+		try {
+			batchSender.add(uri, requestHeaders, requestBuffer.toByteArray());
+		}
+		catch (JMSException ex) {
+			throw new JmsTransportException(ex);
+		}
+		finally {
+			requestBuffer = null;
+		}
+	}
+
+	/*
+	 * Receiving
+	 */
+
+	@Override
+	protected boolean hasResponse() throws IOException {
+		return false;
+	}
+
+	@Override
+	public Iterator<String> getResponseHeaderNames() throws IOException {
+		return Collections.<String>emptyList().iterator();
+	}
+
+	@Override
+	public Iterator<String> getResponseHeaders(String name) throws IOException {
+		return Collections.<String>emptyList().iterator();
+	}
+
+	@Override
+	protected InputStream getResponseInputStream() throws IOException {
+		throw new IllegalStateException("Batched one-way requests have no response");
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,10 +31,12 @@ import javax.jms.Session;
 import javax.jms.TextMessage;
 import javax.jms.Topic;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.jms.connection.ConnectionFactoryUtils;
 import org.springframework.jms.core.MessagePostProcessor;
 import org.springframework.jms.support.JmsUtils;
 import org.springframework.jms.support.destination.JmsDestinationAccessor;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.transport.WebServiceConnection;
 import org.springframework.ws.transport.WebServiceMessageSender;
@@ -79,7 +81,23 @@ import org.springframework.ws.transport.jms.support.JmsTransportUtils;
  *	   </table>
  * </blockquote>
  *
- * <p>If the <tt>replyToName</tt> is not set, a {@link Session#createTemporaryQueue() temporary queue} is used.
+ * <p>If the <tt>replyToName</tt> is not set, a {@link Session#createTemporaryQueue() temporary queue} is used. By
+ * default, a new temporary queue is created for every request. When the {@link #setSharedReplyQueue(boolean)
+ * sharedReplyQueue} property is set, a single temporary queue with one long-lived consumer is used for all requests
+ * instead, and responses are matched to requests by their {@code JMSCorrelationID}. The number of requests waiting for
+ * a response at the same time can be limited using {@link #setMaxInFlightRequests(int)}.
+ *
+ * <p>By default, every request uses a new connection and session from the connection factory, which should therefore
+ * be a caching or pooling one under load. Alternatively, the {@link #setSessionCacheSize(int) sessionCacheSize}
+ * property enables a built-in pool: all requests then share a single connection, idle sessions and their producers
+ * are cached per request destination, and resolved destinations are cached by name. When the shared connection
+ * reports an exception, the pool is discarded, and a new one is created for the next request.
+ *
+ * <p>For high volumes of one-way messages, the {@link #setBatchSize(int) batchSize} property enables batched sends:
+ * requests are then queued, and sent in batches using a single transacted session, which is committed once per batch.
+ * A batch is sent when it is full, or when its oldest request has waited for the {@link #setBatchLingerTime(long)
+ * batchLingerTime}. Since a batched request is sent after the connection returns, no response can be received, and
+ * send failures are reported to the {@linkplain #setBatchListener(JmsBatchListener) batch listener} instead of thrown.
  *
  * <p>This class uses {@link BytesMessage} messages by default, but can be configured to send {@link TextMessage} messages
  * instead. <b>Note</b> that {@code BytesMessages} are preferred, since {@code TextMessages} do not support
@@ -94,7 +112,7 @@ import org.springframework.ws.transport.jms.support.JmsTransportUtils;
  * @see <a href="http://tools.ietf.org/id/draft-merrick-jms-iri-00.txt">IRI Scheme for Java(tm) Message Service 1.0</a>
  * @since 1.5.0
  */
-public class JmsMessageSender extends JmsDestinationAccessor implements WebServiceMessageSender {
+public class JmsMessageSender extends JmsDestinationAccessor implements WebServiceMessageSender, DisposableBean {
 
 	/** Default timeout for receive operations: -1 indicates a blocking receive without timeout. */
 	public static final long DEFAULT_RECEIVE_TIMEOUT = -1;
@@ -102,12 +120,44 @@ public class JmsMessageSender extends JmsDestinationAccessor implements WebServi
 	/** Default encoding used to read fromn and write to {@link TextMessage} messages. */
 	public static final String DEFAULT_TEXT_MESSAGE_ENCODING = "UTF-8";
 
+	/** Default time, in milliseconds, that a batched request waits for its batch to be sent. */
+	public static final long DEFAULT_BATCH_LINGER_TIME = 100;
+
+	/** Default time, in milliseconds, that a request waits for an in-flight slot on the shared reply queue. */
+	public static final long DEFAULT_IN_FLIGHT_TIMEOUT = 5000;
+
 	private long receiveTimeout = DEFAULT_RECEIVE_TIMEOUT;
 
 	private String textMessageEncoding = DEFAULT_TEXT_MESSAGE_ENCODING;
 
 	private MessagePostProcessor postProcessor;
 
+	private boolean sharedReplyQueue = false;
+
+	private int maxInFlightRequests = 0;
+
+	private long inFlightTimeout = DEFAULT_IN_FLIGHT_TIMEOUT;
+
+	private volatile SharedReplyQueue replyQueue;
+
+	private final Object replyQueueMonitor = new Object();
+
+	private int sessionCacheSize = 0;
+
+	private volatile JmsResourcePool resourcePool;
+
+	private final Object resourcePoolMonitor = new Object();
+
+	private int batchSize = 0;
+
+	private long batchLingerTime = DEFAULT_BATCH_LINGER_TIME;
+
+	private JmsBatchListener batchListener;
+
+	private volatile JmsBatchSender batchSender;
+
+	private final Object batchSenderMonitor = new Object();
+
 	/**
 	 * Create a new {@code JmsMessageSender}
 	 *
@@ -151,8 +201,134 @@ public class JmsMessageSender extends JmsDestinationAccessor implements WebServi
 		this.postProcessor = postProcessor;
 	}
 
+	/**
+	 * Indicates whether all requests without a <tt>replyToName</tt> should share a single temporary reply queue, rather
+	 * than creating a temporary queue per request. Default is {@code false}.
+	 *
+	 * <p>Requests are correlated to responses by their {@code JMSCorrelationID}, which is generated if not set by the
+	 * {@linkplain #setPostProcessor(MessagePostProcessor) post processor}. This requires the service to copy the
+	 * correlation ID of the request to the response, as the {@link WebServiceMessageListener} does.
+	 */
+	public void setSharedReplyQueue(boolean sharedReplyQueue) {
+		this.sharedReplyQueue = sharedReplyQueue;
+	}
+
+	/**
+	 * Sets the maximum number of requests that wait for a response on the {@linkplain #setSharedReplyQueue(boolean)
+	 * shared reply queue} at the same time. When reached, new requests wait for at most the {@linkplain
+	 * #setInFlightTimeout(long) in-flight timeout} for another request to complete. Default is {@code 0}, meaning no
+	 * limit.
+	 */
+	public void setMaxInFlightRequests(int maxInFlightRequests) {
+		this.maxInFlightRequests = maxInFlightRequests;
+	}
+
+	/**
+	 * Sets the time, in milliseconds, that a request waits for another request to complete when the {@linkplain
+	 * #setMaxInFlightRequests(int) maximum number of in-flight requests} is reached. The request then fails with a
+	 * {@code JMSException}. Unlike the {@linkplain #setReceiveTimeout(long) receive timeout}, this timeout is always
+	 * finite, so that callers do not block forever on a saturated reply queue. Default is 5 seconds.
+	 */
+	public void setInFlightTimeout(long inFlightTimeout) {
+		Assert.isTrue(inFlightTimeout >= 0, "'inFlightTimeout' must not be negative");
+		this.inFlightTimeout = inFlightTimeout;
+	}
+
+	/**
+	 * Sets the maximum number of idle sessions that are cached per request destination. If set, all requests share a
+	 * single connection, and sessions, producers and resolved destinations are reused across requests. Default is
+	 * {@code 0}, meaning every request uses a new connection and session from the connection factory.
+	 *
+	 * <p>Like the connections created by {@link #createConnection()}, the shared connection is not synchronized with
+	 * Spring-managed transactions.
+	 */
+	public void setSessionCacheSize(int sessionCacheSize) {
+		Assert.isTrue(sessionCacheSize >= 0, "'sessionCacheSize' must not be negative");
+		this.sessionCacheSize = sessionCacheSize;
+	}
+
+	/**
+	 * Returns the number of sessions that are idle in the pool, if {@linkplain #setSessionCacheSize(int) session
+	 * caching} is enabled.
+	 */
+	public int getIdleSessionCount() {
+		JmsResourcePool resourcePool = this.resourcePool;
+		return resourcePool != null ? resourcePool.getIdleSessionCount() : 0;
+	}
+
+	/**
+	 * Sets the maximum number of one-way requests that are sent in a single transacted batch. If set, all requests of
+	 * this sender are sent as batched one-way messages, and no responses are received; use a separate sender for
+	 * request-response operations. Default is {@code 0}, meaning every request is sent immediately.
+	 *
+	 * @see #setBatchLingerTime(long)
+	 * @see #setBatchListener(JmsBatchListener)
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize >= 0, "'batchSize' must not be negative");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the maximum time, in milliseconds, that a batched request waits for its batch to fill up before the batch is
+	 * sent. Only used if {@link #setBatchSize(int) batchSize} is set. Default is {@value #DEFAULT_BATCH_LINGER_TIME}.
+	 */
+	public void setBatchLingerTime(long batchLingerTime) {
+		Assert.isTrue(batchLingerTime > 0, "'batchLingerTime' must be positive");
+		this.batchLingerTime = batchLingerTime;
+	}
+
+	/**
+	 * Sets the listener that is notified of sent batches, and of batched requests that could not be sent. If not set,
+	 * failures are logged.
+	 */
+	public void setBatchListener(JmsBatchListener batchListener) {
+		this.batchListener = batchListener;
+	}
+
+	/** Sends the pending batch of one-way requests, if any, without waiting for the batch linger time. */
+	public void flushBatch() {
+		JmsBatchSender batchSender = this.batchSender;
+		if (batchSender != null) {
+			batchSender.flush();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		synchronized (replyQueueMonitor) {
+			if (replyQueue != null) {
+				replyQueue.destroy();
+				replyQueue = null;
+			}
+		}
+		synchronized (resourcePoolMonitor) {
+			if (resourcePool != null) {
+				resourcePool.destroy();
+				resourcePool = null;
+			}
+		}
+		synchronized (batchSenderMonitor) {
+			if (batchSender != null) {
+				batchSender.destroy();
+				batchSender = null;
+			}
+		}
+	}
+
 	@Override
 	public WebServiceConnection createConnection(URI uri) throws IOException {
+		if (batchSize > 0) {
+			try {
+				return new JmsBatchSenderConnection(getBatchSender(), uri);
+			}
+			catch (JMSException ex) {
+				throw new JmsTransportException(ex);
+			}
+		}
+		if (sessionCacheSize > 0) {
+			return createPooledConnection(uri);
+		}
 		Connection jmsConnection = null;
 		Session jmsSession = null;
 		try {
@@ -163,14 +339,7 @@ public class JmsMessageSender extends JmsDestinationAccessor implements WebServi
 			JmsSenderConnection wsConnection =
 					new JmsSenderConnection(getConnectionFactory(), jmsConnection, jmsSession, requestDestination,
 							requestMessage);
-			wsConnection.setDeliveryMode(JmsTransportUtils.getDeliveryMode(uri));
-			wsConnection.setPriority(JmsTransportUtils.getPriority(uri));
-			wsConnection.setReceiveTimeout(receiveTimeout);
-			wsConnection.setResponseDestination(resolveResponseDestination(jmsSession, uri));
-			wsConnection.setTimeToLive(JmsTransportUtils.getTimeToLive(uri));
-			wsConnection.setTextMessageEncoding(textMessageEncoding);
-			wsConnection.setSessionTransacted(isSessionTransacted());
-			wsConnection.setPostProcessor(postProcessor);
+			configureConnection(wsConnection, jmsSession, uri);
 			return wsConnection;
 		}
 		catch (JMSException ex) {
@@ -180,18 +349,106 @@ public class JmsMessageSender extends JmsDestinationAccessor implements WebServi
 		}
 	}
 
+	private WebServiceConnection createPooledConnection(URI uri) throws IOException {
+		JmsResourcePool.PooledSession pooledSession = null;
+		try {
+			pooledSession = getResourcePool().borrowSession(JmsTransportUtils.getDestinationName(uri));
+			Session jmsSession = pooledSession.getSession();
+			Message requestMessage = createRequestMessage(jmsSession, uri);
+			JmsSenderConnection wsConnection =
+					new JmsSenderConnection(getConnectionFactory(), pooledSession.getConnection(), jmsSession,
+							pooledSession.getDestination(), requestMessage);
+			wsConnection.setPooledSession(pooledSession);
+			configureConnection(wsConnection, jmsSession, uri);
+			return wsConnection;
+		}
+		catch (JMSException ex) {
+			if (pooledSession != null) {
+				pooledSession.release(false);
+			}
+			throw new JmsTransportException(ex);
+		}
+	}
+
+	private void configureConnection(JmsSenderConnection wsConnection, Session jmsSession, URI uri)
+			throws JMSException {
+		wsConnection.setDeliveryMode(JmsTransportUtils.getDeliveryMode(uri));
+		wsConnection.setPriority(JmsTransportUtils.getPriority(uri));
+		wsConnection.setReceiveTimeout(receiveTimeout);
+		Destination responseDestination = resolveResponseDestination(jmsSession, uri);
+		wsConnection.setResponseDestination(responseDestination);
+		if (responseDestination == null && sharedReplyQueue) {
+			wsConnection.setSharedReplyQueue(getSharedReplyQueue());
+		}
+		wsConnection.setTimeToLive(JmsTransportUtils.getTimeToLive(uri));
+		wsConnection.setTextMessageEncoding(textMessageEncoding);
+		wsConnection.setSessionTransacted(isSessionTransacted());
+		wsConnection.setPostProcessor(postProcessor);
+	}
+
 	@Override
 	public boolean supports(URI uri) {
 		return uri.getScheme().equals(JmsTransportConstants.JMS_URI_SCHEME);
 	}
 
+	private SharedReplyQueue getSharedReplyQueue() throws JMSException {
+		SharedReplyQueue replyQueue = this.replyQueue;
+		if (replyQueue == null || !replyQueue.isActive()) {
+			synchronized (replyQueueMonitor) {
+				replyQueue = this.replyQueue;
+				if (replyQueue == null || !replyQueue.isActive()) {
+					replyQueue = new SharedReplyQueue(getConnectionFactory(), maxInFlightRequests, inFlightTimeout);
+					this.replyQueue = replyQueue;
+				}
+			}
+		}
+		return replyQueue;
+	}
+
+	private JmsBatchSender getBatchSender() throws JMSException {
+		JmsBatchSender batchSender = this.batchSender;
+		if (batchSender == null || !batchSender.isActive()) {
+			synchronized (batchSenderMonitor) {
+				batchSender = this.batchSender;
+				if (batchSender == null || !batchSender.isActive()) {
+					batchSender = new JmsBatchSender(getConnectionFactory(), getDestinationResolver(), isPubSubDomain(),
+							batchSize, batchLingerTime, textMessageEncoding, postProcessor, batchListener);
+					this.batchSender = batchSender;
+				}
+			}
+		}
+		return batchSender;
+	}
+
+	private JmsResourcePool getResourcePool() throws JMSException {
+		JmsResourcePool resourcePool = this.resourcePool;
+		if (resourcePool == null || !resourcePool.isActive()) {
+			synchronized (resourcePoolMonitor) {
+				resourcePool = this.resourcePool;
+				if (resourcePool == null || !resourcePool.isActive()) {
+					resourcePool = new JmsResourcePool(getConnectionFactory(), sessionCacheSize, isSessionTransacted(),
+							getSessionAcknowledgeMode(), getDestinationResolver(), isPubSubDomain());
+					this.resourcePool = resourcePool;
+				}
+			}
+		}
+		return resourcePool;
+	}
+
 	private Destination resolveRequestDestination(Session session, URI uri) throws JMSException {
 		return resolveDestinationName(session, JmsTransportUtils.getDestinationName(uri));
 	}
 
 	private Destination resolveResponseDestination(Session session, URI uri) throws JMSException {
 		String destinationName = JmsTransportUtils.getReplyToName(uri);
-		return StringUtils.hasLength(destinationName) ? resolveDestinationName(session, destinationName) : null;
+		if (!StringUtils.hasLength(destinationName)) {
+			return null;
+		}
+		JmsResourcePool resourcePool = this.resourcePool;
+		if (sessionCacheSize > 0 && resourcePool != null) {
+			return resourcePool.resolveDestination(session, destinationName);
+		}
+		return resolveDestinationName(session, destinationName);
 	}
 
 	private Message createRequestMessage(Session session, URI uri) throws JMSException {
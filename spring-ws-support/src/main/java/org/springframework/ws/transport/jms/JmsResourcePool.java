@@ -0,0 +1,262 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.jms;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.destination.DestinationResolver;
+
+/**
+ * Pool of JMS resources that is shared by all {@link JmsSenderConnection}s of a {@link JmsMessageSender}. Holds a
+ * single, long-lived connection, a cache of idle sessions with a producer for each request destination, and a cache of
+ * resolved destinations.
+ *
+ * <p>Sessions are only returned to the pool if they were used without errors. When the connection reports an
+ * exception, the pool is destroyed, and sessions that are still in use are closed when released; the sender then
+ * creates a new pool for the next request. Apart from that {@link ExceptionListener}, idle sessions are only checked
+ * for having been closed when they are borrowed: JMS offers no way to test whether a session still works without
+ * using it.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+class JmsResourcePool implements ExceptionListener {
+
+	private static final Log logger = LogFactory.getLog(JmsResourcePool.class);
+
+	private final ConcurrentMap<String, BlockingDeque<PooledSession>> idleSessions =
+			new ConcurrentHashMap<String, BlockingDeque<PooledSession>>();
+
+	private final ConcurrentMap<String, Destination> destinations = new ConcurrentHashMap<String, Destination>();
+
+	private final int sessionCacheSize;
+
+	private final boolean sessionTransacted;
+
+	private final int sessionAcknowledgeMode;
+
+	private final DestinationResolver destinationResolver;
+
+	private final boolean pubSubDomain;
+
+	private final Connection connection;
+
+	private volatile boolean active = true;
+
+	/**
+	 * Creates a new resource pool, using a new connection from the given connection factory.
+	 *
+	 * @param connectionFactory the connection factory
+	 * @param sessionCacheSize the maximum number of idle sessions per request destination
+	 * @param sessionTransacted whether sessions are transacted
+	 * @param sessionAcknowledgeMode the acknowledge mode of the sessions
+	 * @param destinationResolver the resolver for destination names
+	 * @param pubSubDomain whether destination names are resolved to topics, rather than queues
+	 */
+	JmsResourcePool(ConnectionFactory connectionFactory, int sessionCacheSize, boolean sessionTransacted,
+			int sessionAcknowledgeMode, DestinationResolver destinationResolver, boolean pubSubDomain)
+			throws JMSException {
+		this.sessionCacheSize = sessionCacheSize;
+		this.sessionTransacted = sessionTransacted;
+		this.sessionAcknowledgeMode = sessionAcknowledgeMode;
+		this.destinationResolver = destinationResolver;
+		this.pubSubDomain = pubSubDomain;
+		Connection connection = connectionFactory.createConnection();
+		try {
+			connection.setExceptionListener(this);
+			connection.start();
+		}
+		catch (JMSException ex) {
+			JmsUtils.closeConnection(connection);
+			throw ex;
+		}
+		this.connection = connection;
+	}
+
+	/** Indicates whether this pool can still provide sessions. */
+	boolean isActive() {
+		return active;
+	}
+
+	/** Returns the number of idle sessions for all destinations. */
+	int getIdleSessionCount() {
+		int count = 0;
+		for (BlockingDeque<PooledSession> sessions : idleSessions.values()) {
+			count += sessions.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns an idle session with a producer for the given destination, or creates a new one. The session must be
+	 * {@linkplain PooledSession#release(boolean) released} after use.
+	 */
+	PooledSession borrowSession(String destinationName) throws JMSException {
+		BlockingDeque<PooledSession> sessions = idleSessions.get(destinationName);
+		if (sessions != null) {
+			PooledSession pooledSession;
+			while ((pooledSession = sessions.pollFirst()) != null) {
+				if (pooledSession.isOpen()) {
+					return pooledSession;
+				}
+				pooledSession.close();
+			}
+		}
+		Session session = connection.createSession(sessionTransacted, sessionAcknowledgeMode);
+		try {
+			Destination destination = resolveDestination(session, destinationName);
+			MessageProducer producer = session.createProducer(destination);
+			return new PooledSession(destinationName, session, producer, destination);
+		}
+		catch (JMSException ex) {
+			JmsUtils.closeSession(session);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Resolves the given destination name, using the cache of previously resolved destinations.
+	 */
+	Destination resolveDestination(Session session, String destinationName) throws JMSException {
+		Destination destination = destinations.get(destinationName);
+		if (destination == null) {
+			destination = destinationResolver.resolveDestinationName(session, destinationName, pubSubDomain);
+			destinations.put(destinationName, destination);
+		}
+		return destination;
+	}
+
+	private void release(PooledSession pooledSession, boolean reusable) {
+		if (reusable && active) {
+			BlockingDeque<PooledSession> sessions = idleSessions.get(pooledSession.destinationName);
+			if (sessions == null) {
+				BlockingDeque<PooledSession> newSessions = new LinkedBlockingDeque<PooledSession>(sessionCacheSize);
+				sessions = idleSessions.putIfAbsent(pooledSession.destinationName, newSessions);
+				if (sessions == null) {
+					sessions = newSessions;
+				}
+			}
+			// most recently used first, so that surplus sessions are the ones that remain idle
+			if (sessions.offerFirst(pooledSession)) {
+				if (!active) {
+					// destroyed in the meantime
+					sessions.remove(pooledSession);
+					pooledSession.close();
+				}
+				return;
+			}
+		}
+		pooledSession.close();
+	}
+
+	@Override
+	public void onException(JMSException ex) {
+		logger.warn("Pooled JMS connection failed; a new one will be created for the next request", ex);
+		destroy();
+	}
+
+	/** Closes all idle sessions and the connection. Sessions in use are closed when released. */
+	void destroy() {
+		active = false;
+		for (BlockingDeque<PooledSession> sessions : idleSessions.values()) {
+			PooledSession pooledSession;
+			while ((pooledSession = sessions.pollFirst()) != null) {
+				pooledSession.close();
+			}
+		}
+		destinations.clear();
+		JmsUtils.closeConnection(connection);
+	}
+
+	/** A session of this pool, with a producer for a request destination. */
+	class PooledSession {
+
+		private final String destinationName;
+
+		private final Session session;
+
+		private final MessageProducer producer;
+
+		private final Destination destination;
+
+		private PooledSession(String destinationName, Session session, MessageProducer producer,
+				Destination destination) {
+			this.destinationName = destinationName;
+			this.session = session;
+			this.producer = producer;
+			this.destination = destination;
+		}
+
+		Connection getConnection() {
+			return connection;
+		}
+
+		Session getSession() {
+			return session;
+		}
+
+		MessageProducer getProducer() {
+			return producer;
+		}
+
+		Destination getDestination() {
+			return destination;
+		}
+
+		/**
+		 * Returns this session to the pool, or closes it.
+		 *
+		 * @param reusable {@code false} if an error occurred while using this session, in which case it is closed
+		 */
+		void release(boolean reusable) {
+			JmsResourcePool.this.release(this, reusable);
+		}
+
+		/** Indicates whether this session has not been closed, for instance by the JMS provider. */
+		private boolean isOpen() {
+			try {
+				// throws an IllegalStateException if the session is closed
+				session.getAcknowledgeMode();
+				return true;
+			}
+			catch (JMSException ex) {
+				logger.debug("Discarding closed pooled session", ex);
+				return false;
+			}
+		}
+
+		private void close() {
+			JmsUtils.closeMessageProducer(producer);
+			JmsUtils.closeSession(session);
+		}
+	}
+
+}
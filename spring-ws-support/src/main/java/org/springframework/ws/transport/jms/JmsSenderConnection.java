@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Iterator;
+import java.util.UUID;
 import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -83,6 +84,16 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 
 	private boolean temporaryResponseQueueCreated = false;
 
+	private boolean temporaryResponseQueueDeleted = false;
+
+	private SharedReplyQueue sharedReplyQueue;
+
+	private String correlationId;
+
+	private JmsResourcePool.PooledSession pooledSession;
+
+	private boolean pooledSessionFailed = false;
+
 	/** Constructs a new JMS connection with the given parameters. */
 	protected JmsSenderConnection(ConnectionFactory connectionFactory,
 								  Connection connection,
@@ -118,6 +129,11 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 	 * Package-friendly setters
 	 */
 
+	/** Returns the session of this connection. */
+	Session getSession() {
+		return session;
+	}
+
 	void setResponseDestination(Destination responseDestination) {
 		this.responseDestination = responseDestination;
 	}
@@ -150,6 +166,18 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 		this.sessionTransacted = sessionTransacted;
 	}
 
+	void setSharedReplyQueue(SharedReplyQueue sharedReplyQueue) {
+		this.sharedReplyQueue = sharedReplyQueue;
+	}
+
+	/**
+	 * Sets the pooled session that holds the session and producer of this connection. If set, the session is
+	 * returned to its pool when this connection is closed, rather than closed.
+	 */
+	void setPooledSession(JmsResourcePool.PooledSession pooledSession) {
+		this.pooledSession = pooledSession;
+	}
+
 	/*
 	 * URI
 	 */
@@ -210,18 +238,34 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 	protected void onSendAfterWrite(WebServiceMessage message) throws IOException {
 		MessageProducer messageProducer = null;
 		try {
-			messageProducer = session.createProducer(requestDestination);
+			messageProducer = pooledSession != null ? pooledSession.getProducer() :
+					session.createProducer(requestDestination);
 			messageProducer.setDeliveryMode(deliveryMode);
 			messageProducer.setTimeToLive(timeToLive);
 			messageProducer.setPriority(priority);
 			if (responseDestination == null) {
-				responseDestination = session.createTemporaryQueue();
-				temporaryResponseQueueCreated = true;
+				if (sharedReplyQueue != null) {
+					responseDestination = sharedReplyQueue.getDestination();
+				}
+				else {
+					responseDestination = session.createTemporaryQueue();
+					temporaryResponseQueueCreated = true;
+				}
 			}
 			requestMessage.setJMSReplyTo(responseDestination);
 			if (postProcessor != null) {
 				requestMessage = postProcessor.postProcessMessage(requestMessage);
 			}
+			if (sharedReplyQueue != null) {
+				String requestCorrelationId = requestMessage.getJMSCorrelationID();
+				if (requestCorrelationId == null) {
+					requestCorrelationId = UUID.randomUUID().toString();
+					requestMessage.setJMSCorrelationID(requestCorrelationId);
+				}
+				// register before sending, so that an early response is not lost
+				sharedReplyQueue.register(requestCorrelationId);
+				correlationId = requestCorrelationId;
+			}
 			connection.start();
 			messageProducer.send(requestMessage);
 			if (session.getTransacted() && isSessionLocallyTransacted(session)) {
@@ -229,10 +273,14 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 			}
 		}
 		catch (JMSException ex) {
+			pooledSessionFailed = true;
+			unregisterFromSharedReplyQueue();
 			throw new JmsTransportException(ex);
 		}
 		finally {
-			JmsUtils.closeMessageProducer(messageProducer);
+			if (pooledSession == null) {
+				JmsUtils.closeMessageProducer(messageProducer);
+			}
 		}
 	}
 
@@ -247,6 +295,18 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 
 	@Override
 	protected void onReceiveBeforeRead() throws IOException {
+		if (correlationId != null) {
+			try {
+				setResponseMessage(sharedReplyQueue.receive(correlationId, receiveTimeout));
+				return;
+			}
+			catch (JMSException ex) {
+				throw new JmsTransportException(ex);
+			}
+			finally {
+				correlationId = null;
+			}
+		}
 		MessageConsumer messageConsumer = null;
 		try {
 			if (temporaryResponseQueueCreated) {
@@ -258,31 +318,48 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 				messageConsumer = session.createConsumer(responseDestination, messageSelector);
 			}
 			Message message = receiveTimeout >= 0 ? messageConsumer.receive(receiveTimeout) : messageConsumer.receive();
-			if (message instanceof BytesMessage || message instanceof TextMessage) {
-				responseMessage = message;
-			}
-			else if (message != null) {
-				throw new IllegalArgumentException(
-						"Wrong message type: [" + message.getClass() + "]. " +
-								"Only BytesMessages or TextMessages can be handled.");
-			}
+			setResponseMessage(message);
 		}
 		catch (JMSException ex) {
+			pooledSessionFailed = true;
 			throw new JmsTransportException(ex);
 		}
 		finally {
 			JmsUtils.closeMessageConsumer(messageConsumer);
-			if (temporaryResponseQueueCreated) {
-				try {
-					((TemporaryQueue) responseDestination).delete();
-				}
-				catch (JMSException ex) {
-					// ignore
-				}
+			deleteTemporaryResponseQueue();
+		}
+	}
+
+	private void deleteTemporaryResponseQueue() {
+		if (temporaryResponseQueueCreated && !temporaryResponseQueueDeleted) {
+			temporaryResponseQueueDeleted = true;
+			try {
+				((TemporaryQueue) responseDestination).delete();
+			}
+			catch (JMSException ex) {
+				// ignore
 			}
 		}
 	}
 
+	private void setResponseMessage(Message message) {
+		if (message instanceof BytesMessage || message instanceof TextMessage) {
+			responseMessage = message;
+		}
+		else if (message != null) {
+			throw new IllegalArgumentException(
+					"Wrong message type: [" + message.getClass() + "]. " +
+							"Only BytesMessages or TextMessages can be handled.");
+		}
+	}
+
+	private void unregisterFromSharedReplyQueue() {
+		if (correlationId != null) {
+			sharedReplyQueue.unregister(correlationId);
+			correlationId = null;
+		}
+	}
+
 	@Override
 	protected boolean hasResponse() throws IOException {
 		return responseMessage != null;
@@ -325,7 +402,16 @@ public class JmsSenderConnection extends AbstractSenderConnection {
 
 	@Override
 	protected void onClose() throws IOException {
-		JmsUtils.closeSession(session);
-		ConnectionFactoryUtils.releaseConnection(connection, connectionFactory, true);
+		unregisterFromSharedReplyQueue();
+		// not deleted if no response was received; the temporary queue would otherwise live as long as the
+		// pooled connection
+		deleteTemporaryResponseQueue();
+		if (pooledSession != null) {
+			pooledSession.release(!pooledSessionFailed);
+		}
+		else {
+			JmsUtils.closeSession(session);
+			ConnectionFactoryUtils.releaseConnection(connection, connectionFactory, true);
+		}
 	}
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.jms;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Temporary reply queue that is shared by all {@link JmsSenderConnection}s of a {@link JmsMessageSender}. A single,
+ * long-lived consumer receives all responses, and hands each one to the caller waiting for its
+ * {@code JMSCorrelationID}.
+ *
+ * <p>Optionally limits the number of requests that are waiting for a response at the same time.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+class SharedReplyQueue implements MessageListener, ExceptionListener {
+
+	private static final Log logger = LogFactory.getLog(SharedReplyQueue.class);
+
+	/** Handed to pending requests instead of a response when this queue is destroyed. */
+	private static final Object DESTROYED = new Object();
+
+	private final ConcurrentMap<String, BlockingQueue<Object>> pendingReplies =
+			new ConcurrentHashMap<String, BlockingQueue<Object>>();
+
+	private final Semaphore inFlightPermits;
+
+	private final long inFlightTimeout;
+
+	private final Connection connection;
+
+	private final Session session;
+
+	private final TemporaryQueue destination;
+
+	private final MessageConsumer consumer;
+
+	private volatile boolean active = true;
+
+	/**
+	 * Creates a new shared reply queue, using a new connection from the given connection factory.
+	 *
+	 * @param connectionFactory the connection factory
+	 * @param maxInFlightRequests the maximum number of pending requests, or {@code 0} for no limit
+	 * @param inFlightTimeout the time to wait for a pending request to complete when the limit is reached, in
+	 * milliseconds
+	 */
+	SharedReplyQueue(ConnectionFactory connectionFactory, int maxInFlightRequests, long inFlightTimeout)
+			throws JMSException {
+		Assert.isTrue(inFlightTimeout >= 0, "'inFlightTimeout' must not be negative");
+		this.inFlightPermits = maxInFlightRequests > 0 ? new Semaphore(maxInFlightRequests) : null;
+		this.inFlightTimeout = inFlightTimeout;
+		Connection connection = null;
+		Session session = null;
+		try {
+			connection = connectionFactory.createConnection();
+			session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+			this.destination = session.createTemporaryQueue();
+			this.consumer = session.createConsumer(destination);
+			this.consumer.setMessageListener(this);
+			connection.setExceptionListener(this);
+			connection.start();
+			this.connection = connection;
+			this.session = session;
+		}
+		catch (JMSException ex) {
+			JmsUtils.closeSession(session);
+			JmsUtils.closeConnection(connection);
+			throw ex;
+		}
+	}
+
+	/** Returns the destination that responses should be sent to. */
+	Destination getDestination() {
+		return destination;
+	}
+
+	/** Indicates whether this queue can still receive responses. */
+	boolean isActive() {
+		return active;
+	}
+
+	/** Returns the number of requests currently waiting for a response. */
+	int getPendingCount() {
+		return pendingReplies.size();
+	}
+
+	/**
+	 * Registers a request with the given correlation ID. Must be called before the request is sent, so that an early
+	 * response is not lost.
+	 *
+	 * @throws JMSException when the maximum number of in-flight requests is reached, and no request completes in time;
+	 * or when another request with the same correlation ID is still pending
+	 */
+	void register(String correlationId) throws JMSException {
+		if (inFlightPermits != null) {
+			boolean acquired;
+			try {
+				acquired = inFlightPermits.tryAcquire(inFlightTimeout, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				acquired = false;
+			}
+			if (!acquired) {
+				throw new JMSException("Maximum number of in-flight requests reached");
+			}
+		}
+		BlockingQueue<Object> reply = new ArrayBlockingQueue<Object>(1);
+		if (pendingReplies.putIfAbsent(correlationId, reply) != null) {
+			if (inFlightPermits != null) {
+				inFlightPermits.release();
+			}
+			throw new JMSException("A request with correlation ID [" + correlationId + "] is already pending");
+		}
+		if (!active) {
+			// destroyed concurrently; make sure the request does not wait for a response that never arrives
+			reply.offer(DESTROYED);
+		}
+	}
+
+	/**
+	 * Waits for the response with the given correlation ID, and unregisters the request.
+	 *
+	 * @param correlationId the correlation ID of the request
+	 * @param timeout the timeout in milliseconds; -1 indicates no timeout
+	 * @return the response, or {@code null} if none arrived in time
+	 * @throws JMSException when this queue was destroyed before the response arrived
+	 */
+	Message receive(String correlationId, long timeout) throws JMSException {
+		BlockingQueue<Object> reply = pendingReplies.get(correlationId);
+		if (reply == null) {
+			throw new IllegalStateException("No request registered for correlation ID [" + correlationId + "]");
+		}
+		try {
+			Object response = timeout >= 0 ? reply.poll(timeout, TimeUnit.MILLISECONDS) : reply.take();
+			if (response == DESTROYED) {
+				throw new JMSException("Shared reply queue was closed before the response for correlation ID [" +
+						correlationId + "] arrived");
+			}
+			return (Message) response;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		finally {
+			unregister(correlationId);
+		}
+	}
+
+	/**
+	 * Unregisters the request with the given correlation ID, if still registered. A response arriving afterwards is
+	 * discarded.
+	 */
+	void unregister(String correlationId) {
+		if (pendingReplies.remove(correlationId) != null && inFlightPermits != null) {
+			inFlightPermits.release();
+		}
+	}
+
+	@Override
+	public void onMessage(Message message) {
+		try {
+			String correlationId = message.getJMSCorrelationID();
+			BlockingQueue<Object> reply = correlationId != null ? pendingReplies.get(correlationId) : null;
+			if (reply != null) {
+				reply.offer(message);
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Discarding response with unknown correlation ID [" + correlationId + "]");
+			}
+		}
+		catch (JMSException ex) {
+			logger.warn("Could not read correlation ID of response", ex);
+		}
+	}
+
+	@Override
+	public void onException(JMSException ex) {
+		logger.warn("Shared reply queue connection failed; a new one will be created for the next request", ex);
+		destroy();
+	}
+
+	/**
+	 * Closes the consumer, deletes the temporary queue, and closes the connection. Requests that are still waiting for a
+	 * response fail with a {@link JMSException}.
+	 */
+	void destroy() {
+		active = false;
+		for (BlockingQueue<Object> reply : pendingReplies.values()) {
+			reply.offer(DESTROYED);
+		}
+		JmsUtils.closeMessageConsumer(consumer);
+		try {
+			destination.delete();
+		}
+		catch (JMSException ex) {
+			// ignore
+		}
+		JmsUtils.closeSession(session);
+		JmsUtils.closeConnection(connection);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -47,6 +47,10 @@ import org.springframework.ws.transport.support.AbstractAsyncStandaloneMessageRe
  * is not explicitly set, this receiver will use the {@link Pop3PollingMonitoringStrategy} for POP3 servers, and the
  * {@link PollingMonitoringStrategy} for IMAP servers.
  *
+ * <p>Each new message is handled by a separate task. To limit the number of threads during bursts of messages, set
+ * {@link #setMaxConcurrentTasks(int) maxConcurrentTasks}: when all threads are busy and the {@link
+ * #setTaskQueueCapacity(int) task queue} is full, the folder is not monitored until a message has been handled.
+ *
  * @author Arjen Poutsma
  * @since 1.5.0
  */
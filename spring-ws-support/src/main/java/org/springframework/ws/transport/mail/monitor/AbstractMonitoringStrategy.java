@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import javax.mail.search.SearchTerm;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sun.mail.imap.IMAPFolder;
+
 /**
  * Abstract base class for the {@link MonitoringStrategy} interface. Exposes a {@link #setDeleteMessages(boolean)
  * deleteMessages} property, and includes a basic workflow for message monitoring.
@@ -42,6 +44,8 @@ public abstract class AbstractMonitoringStrategy implements MonitoringStrategy {
 
 	private boolean deleteMessages = true;
 
+	private boolean fetchContent = false;
+
 	/**
 	 * Sets whether messages should be marked as {@link javax.mail.Flags.Flag#DELETED DELETED} after they have been
 	 * read. Default is {@code true}.
@@ -50,6 +54,17 @@ public abstract class AbstractMonitoringStrategy implements MonitoringStrategy {
 		this.deleteMessages = deleteMessages;
 	}
 
+	/**
+	 * Sets whether the content of new messages is fetched together with their envelopes, in a single request to the
+	 * server, before the messages are handled. Otherwise, the content of each message is retrieved separately when it
+	 * is handled. Only supported for IMAP folders. Default is {@code false}.
+	 *
+	 * @see IMAPFolder.FetchProfileItem#MESSAGE
+	 */
+	public void setFetchContent(boolean fetchContent) {
+		this.fetchContent = fetchContent;
+	}
+
 	@Override
 	public int getFolderOpenMode() {
 		return deleteMessages ? Folder.READ_WRITE : Folder.READ_ONLY;
@@ -136,7 +151,8 @@ public abstract class AbstractMonitoringStrategy implements MonitoringStrategy {
 
 	/**
 	 * Fetches the specified messages from the specified folder. Default implementation {@link Folder#fetch(Message[],
-	 * FetchProfile) fetches} every {@link javax.mail.FetchProfile.Item}.
+	 * FetchProfile) fetches} every {@link javax.mail.FetchProfile.Item}, and the entire messages if {@link
+	 * #setFetchContent(boolean) fetchContent} is {@code true} and the folder is an IMAP folder.
 	 *
 	 * @param folder   the folder to fetch messages from
 	 * @param messages the messages to fetch
@@ -147,6 +163,9 @@ public abstract class AbstractMonitoringStrategy implements MonitoringStrategy {
 		contentsProfile.add(FetchProfile.Item.ENVELOPE);
 		contentsProfile.add(FetchProfile.Item.CONTENT_INFO);
 		contentsProfile.add(FetchProfile.Item.FLAGS);
+		if (fetchContent && folder instanceof IMAPFolder) {
+			contentsProfile.add(IMAPFolder.FetchProfileItem.MESSAGE);
+		}
 		folder.fetch(messages, contentsProfile);
 	}
 
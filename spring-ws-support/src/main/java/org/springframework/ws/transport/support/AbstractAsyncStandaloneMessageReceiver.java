@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,31 @@
 
 package org.springframework.ws.transport.support;
 
+import java.util.concurrent.Semaphore;
+
 import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.SchedulingAwareRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
 /**
  * Abstract base class for asynchronous standalone, server-side transport objects. Contains a Spring {@link
  * TaskExecutor}, and various lifecycle callbacks.
  *
+ * <p>By default, every task runs in a new thread. If {@link #setMaxConcurrentTasks(int) maxConcurrentTasks} is set,
+ * short-lived tasks run in a bounded thread pool instead, and at most {@link #setTaskQueueCapacity(int)
+ * taskQueueCapacity} tasks wait for a thread. When both are exhausted, {@link #execute(Runnable)} blocks the caller
+ * until a task has completed, which throttles the source of the tasks, such as a mail folder monitor.
+ *
+ * <p>On Java 21 or later, short-lived tasks can run in {@linkplain #setVirtualThreads(boolean) virtual threads}
+ * instead. Long-lived tasks always run in a platform thread, as they typically block inside third-party code that
+ * holds a monitor, which would pin the carrier thread of a virtual thread.
+ *
  * @author Arjen Poutsma
  */
 public abstract class AbstractAsyncStandaloneMessageReceiver extends AbstractStandaloneMessageReceiver
@@ -37,6 +53,16 @@ public abstract class AbstractAsyncStandaloneMessageReceiver extends AbstractSta
 
 	private String beanName;
 
+	private boolean virtualThreads = false;
+
+	private int maxConcurrentTasks = 0;
+
+	private int taskQueueCapacity = 0;
+
+	private Semaphore taskPermits;
+
+	private DisposableBean defaultTaskExecutor;
+
 	/**
 	 * Set the Spring {@link TaskExecutor} to use for running the listener threads. Default is {@link
 	 * SimpleAsyncTaskExecutor}, starting up a number of new threads.
@@ -48,6 +74,40 @@ public abstract class AbstractAsyncStandaloneMessageReceiver extends AbstractSta
 		this.taskExecutor = taskExecutor;
 	}
 
+	/**
+	 * Sets whether the default task executor runs every short-lived task, such as the handling of a single message, in
+	 * a new virtual thread, rather than a platform thread. Requires Java 21 or later. If {@link
+	 * #setMaxConcurrentTasks(int) maxConcurrentTasks} is set as well, it still limits the number of concurrent tasks,
+	 * but no thread pool is used. Default is {@code false}.
+	 *
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * Sets the maximum number of short-lived tasks, such as the handling of a single message, that are executed
+	 * concurrently. If set, the default task executor is a thread pool of this size. Long-lived tasks, such as
+	 * monitoring, do not count towards this limit. Default is {@code 0}, meaning no limit.
+	 *
+	 * @see #setTaskQueueCapacity(int)
+	 */
+	public void setMaxConcurrentTasks(int maxConcurrentTasks) {
+		Assert.isTrue(maxConcurrentTasks >= 0, "'maxConcurrentTasks' must not be negative");
+		this.maxConcurrentTasks = maxConcurrentTasks;
+	}
+
+	/**
+	 * Sets the number of short-lived tasks that can wait for a thread when {@link #setMaxConcurrentTasks(int)
+	 * maxConcurrentTasks} tasks are running. Further tasks block the caller of {@link #execute(Runnable)} until a task
+	 * has completed. Only used if {@code maxConcurrentTasks} is set. Default is {@code 0}.
+	 */
+	public void setTaskQueueCapacity(int taskQueueCapacity) {
+		Assert.isTrue(taskQueueCapacity >= 0, "'taskQueueCapacity' must not be negative");
+		this.taskQueueCapacity = taskQueueCapacity;
+	}
+
 	@Override
 	public void setBeanName(String beanName) {
 		this.beanName = beanName;
@@ -57,29 +117,135 @@ public abstract class AbstractAsyncStandaloneMessageReceiver extends AbstractSta
 	public void afterPropertiesSet() throws Exception {
 		if (taskExecutor == null) {
 			taskExecutor = createDefaultTaskExecutor();
+			if (taskExecutor instanceof DisposableBean) {
+				defaultTaskExecutor = (DisposableBean) taskExecutor;
+			}
+		}
+		if (maxConcurrentTasks > 0) {
+			taskPermits = new Semaphore(maxConcurrentTasks + taskQueueCapacity);
 		}
 		super.afterPropertiesSet();
 	}
 
+	@Override
+	public void destroy() {
+		super.destroy();
+		if (defaultTaskExecutor != null) {
+			try {
+				defaultTaskExecutor.destroy();
+			}
+			catch (Exception ex) {
+				logger.warn("Could not destroy task executor", ex);
+			}
+		}
+	}
+
 	/**
 	 * Create a default TaskExecutor. Called if no explicit TaskExecutor has been specified.
 	 *
 	 * <p>The default implementation builds a {@link org.springframework.core.task.SimpleAsyncTaskExecutor} with the
-	 * specified bean name (or the class name, if no bean name specified) as thread name prefix.
+	 * specified bean name (or the class name, if no bean name specified) as thread name prefix. If {@link
+	 * #setMaxConcurrentTasks(int) maxConcurrentTasks} is set, short-lived tasks are executed by a {@link
+	 * ThreadPoolTaskExecutor} of that size instead. If {@link #setVirtualThreads(boolean) virtualThreads} is
+	 * {@code true}, short-lived tasks are executed by a {@link VirtualThreadTaskExecutor}.
 	 *
 	 * @see org.springframework.core.task.SimpleAsyncTaskExecutor#SimpleAsyncTaskExecutor(String)
 	 */
 	protected TaskExecutor createDefaultTaskExecutor() {
 		String threadNamePrefix = beanName != null ? beanName + "-" : DEFAULT_THREAD_NAME_PREFIX;
-		return new SimpleAsyncTaskExecutor(threadNamePrefix);
+		if (virtualThreads) {
+			return new RoutingTaskExecutor(new SimpleAsyncTaskExecutor(threadNamePrefix),
+					new VirtualThreadTaskExecutor(threadNamePrefix));
+		}
+		if (maxConcurrentTasks <= 0) {
+			return new SimpleAsyncTaskExecutor(threadNamePrefix);
+		}
+		// the number of queued tasks is limited by the task permits, so the pool itself does not reject tasks
+		ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor();
+		threadPool.setThreadNamePrefix(threadNamePrefix);
+		threadPool.setCorePoolSize(maxConcurrentTasks);
+		threadPool.setMaxPoolSize(maxConcurrentTasks);
+		threadPool.initialize();
+		return new RoutingTaskExecutor(new SimpleAsyncTaskExecutor(threadNamePrefix), threadPool);
 	}
 
 	/**
 	 * Executes the given {@link Runnable} via this receiver's {@link TaskExecutor}.
 	 *
+	 * <p>If {@link #setMaxConcurrentTasks(int) maxConcurrentTasks} is set, and the given runnable is not a {@linkplain
+	 * SchedulingAwareRunnable#isLongLived() long-lived} task, this method blocks while the maximum number of tasks is
+	 * running and the queue is full.
+	 *
+	 * @throws TaskRejectedException if the calling thread is interrupted while waiting
 	 * @see #setTaskExecutor(TaskExecutor)
 	 */
-	protected void execute(Runnable runnable) {
-		taskExecutor.execute(runnable);
+	protected void execute(final Runnable runnable) {
+		if (taskPermits == null || isLongLived(runnable)) {
+			taskExecutor.execute(runnable);
+			return;
+		}
+		try {
+			taskPermits.acquire();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TaskRejectedException("Interrupted while waiting to execute " + runnable, ex);
+		}
+		try {
+			taskExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						runnable.run();
+					}
+					finally {
+						taskPermits.release();
+					}
+				}
+			});
+		}
+		catch (RuntimeException ex) {
+			taskPermits.release();
+			throw ex;
+		}
+	}
+
+	private static boolean isLongLived(Runnable runnable) {
+		return runnable instanceof SchedulingAwareRunnable && ((SchedulingAwareRunnable) runnable).isLongLived();
+	}
+
+	/**
+	 * Default task executor if {@link #setMaxConcurrentTasks(int) maxConcurrentTasks} or {@link
+	 * #setVirtualThreads(boolean) virtualThreads} is set: executes long-lived tasks in a new platform thread, and all
+	 * other tasks with the thread pool or in a virtual thread.
+	 */
+	private static class RoutingTaskExecutor implements TaskExecutor, DisposableBean {
+
+		private final TaskExecutor longLivedTaskExecutor;
+
+		private final TaskExecutor shortLivedTaskExecutor;
+
+		private RoutingTaskExecutor(TaskExecutor longLivedTaskExecutor, TaskExecutor shortLivedTaskExecutor) {
+			this.longLivedTaskExecutor = longLivedTaskExecutor;
+			this.shortLivedTaskExecutor = shortLivedTaskExecutor;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			if (isLongLived(task)) {
+				longLivedTaskExecutor.execute(task);
+			}
+			else {
+				shortLivedTaskExecutor.execute(task);
+			}
+		}
+
+		@Override
+		public void destroy() throws Exception {
+			if (shortLivedTaskExecutor instanceof DisposableBean) {
+				((DisposableBean) shortLivedTaskExecutor).destroy();
+			}
+		}
 	}
 }
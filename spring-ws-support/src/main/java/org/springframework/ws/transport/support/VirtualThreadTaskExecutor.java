@@ -0,0 +1,87 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.support;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link TaskExecutor} that runs every task in a new virtual thread. Virtual threads are cheap to create and to block,
+ * so that blocking endpoint code can serve many concurrent exchanges without a large thread pool.
+ *
+ * <p>Requires a Java runtime with virtual threads (Java 21 or later); use {@link #isSupported()} to check. The
+ * executor can be used by the {@link AbstractAsyncStandaloneMessageReceiver}, the {@link
+ * org.springframework.ws.transport.xmpp.XmppMessageReceiver}, the {@link
+ * org.springframework.ws.transport.http.WebServiceMessageReceiverHttpHandler}, or as executor of the JDK {@code
+ * HttpServer} itself.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+public class VirtualThreadTaskExecutor implements TaskExecutor {
+
+	private static final Method ofVirtualMethod = ClassUtils.getMethodIfAvailable(Thread.class, "ofVirtual");
+
+	private final ThreadFactory threadFactory;
+
+	/** Creates a new executor, with virtual threads named {@code virtual-0}, {@code virtual-1}, and so on. */
+	public VirtualThreadTaskExecutor() {
+		this("virtual-");
+	}
+
+	/**
+	 * Creates a new executor.
+	 *
+	 * @param threadNamePrefix the prefix of the thread names, followed by a counter
+	 * @throws IllegalStateException if the Java runtime does not support virtual threads
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		Assert.notNull(threadNamePrefix, "'threadNamePrefix' must not be null");
+		Assert.state(isSupported(), "Virtual threads require Java 21 or later");
+		this.threadFactory = createThreadFactory(threadNamePrefix);
+	}
+
+	/** Indicates whether the current Java runtime supports virtual threads. */
+	public static boolean isSupported() {
+		return ofVirtualMethod != null;
+	}
+
+	private static ThreadFactory createThreadFactory(String threadNamePrefix) {
+		try {
+			// Thread.ofVirtual().name(threadNamePrefix, 0).factory(), without compiling against Java 21
+			Object builder = ofVirtualMethod.invoke(null);
+			Class<?> builderClass = ClassUtils.forName("java.lang.Thread$Builder", Thread.class.getClassLoader());
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		}
+		catch (Exception ex) {
+			ReflectionUtils.handleReflectionException(ex);
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		threadFactory.newThread(task).start();
+	}
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.xmpp;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * Dispatches tasks to an {@link Executor}, while preserving the order of the tasks of each sender. Every sender has
+ * its own bounded queue, of which at most one task runs at a time, so that a slow sender only delays its own tasks.
+ * Queues are created on demand, and removed when they are empty. The number of senders with queued tasks is bounded
+ * as well.
+ *
+ * <p>After each task, the queue of its sender is resubmitted to the executor, so that busy senders do not hold on to
+ * a worker thread while others are waiting. If the executor rejects a queue, its tasks are discarded.
+ *
+ * <p>Discarded tasks are logged, counted, and reported to the listener.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+class SenderOrderedDispatcher {
+
+	private static final Log logger = LogFactory.getLog(SenderOrderedDispatcher.class);
+
+	/** Returned by {@link SenderQueue#offer(Runnable)} when the queue is full. */
+	private static final int FULL = 0;
+
+	/** Returned by {@link SenderQueue#offer(Runnable)} when the queue has been removed. */
+	private static final int REMOVED = -1;
+
+	/** Returned by {@link SenderQueue#offer(Runnable)} when the executor rejected the queue. */
+	private static final int DISCARDED = -2;
+
+	private final Executor executor;
+
+	private final int maxQueuedTasksPerSender;
+
+	private final int maxSenders;
+
+	private final XmppMessageReceiverListener listener;
+
+	private final ConcurrentMap<String, SenderQueue> senderQueues = new ConcurrentHashMap<String, SenderQueue>();
+
+	private final AtomicInteger queuedTasks = new AtomicInteger();
+
+	private final AtomicLong rejectedTasks = new AtomicLong();
+
+	SenderOrderedDispatcher(Executor executor, int maxQueuedTasksPerSender, int maxSenders,
+			XmppMessageReceiverListener listener) {
+		Assert.notNull(executor, "'executor' must not be null");
+		Assert.isTrue(maxQueuedTasksPerSender > 0, "'maxQueuedTasksPerSender' must be positive");
+		Assert.isTrue(maxSenders > 0, "'maxSenders' must be positive");
+		this.executor = executor;
+		this.maxQueuedTasksPerSender = maxQueuedTasksPerSender;
+		this.maxSenders = maxSenders;
+		this.listener = listener;
+	}
+
+	/** Returns the number of queued tasks of all senders, including the running ones. */
+	int getQueuedTaskCount() {
+		return queuedTasks.get();
+	}
+
+	/** Returns the number of senders that have queued tasks. */
+	int getSenderCount() {
+		return senderQueues.size();
+	}
+
+	/** Returns the number of tasks that have been discarded since this dispatcher was created. */
+	long getRejectedTaskCount() {
+		return rejectedTasks.get();
+	}
+
+	/**
+	 * Queues the given task after the previous tasks of the given sender.
+	 *
+	 * @param sender the sender of the task
+	 * @param task the task to run
+	 * @return {@code true} if the task was queued; {@code false} if it was discarded, because the queue of the sender is
+	 * full, too many senders have queued tasks, or the executor rejected it
+	 */
+	boolean dispatch(String sender, Runnable task) {
+		while (true) {
+			SenderQueue senderQueue = senderQueues.get(sender);
+			if (senderQueue == null) {
+				if (senderQueues.size() >= maxSenders) {
+					reject(sender, 1, "too many senders with queued messages");
+					return false;
+				}
+				SenderQueue newQueue = new SenderQueue(sender);
+				senderQueue = senderQueues.putIfAbsent(sender, newQueue);
+				if (senderQueue == null) {
+					senderQueue = newQueue;
+				}
+			}
+			// counted before offering, as the task might already have finished once offer returns
+			int total = queuedTasks.incrementAndGet();
+			int result = senderQueue.offer(task);
+			if (result == REMOVED) {
+				// the queue has just been removed, retry with a new one
+				queuedTasks.decrementAndGet();
+				continue;
+			}
+			if (result == FULL) {
+				queuedTasks.decrementAndGet();
+				reject(sender, 1, "too many queued messages");
+				return false;
+			}
+			if (result == DISCARDED) {
+				// already counted and reported
+				return false;
+			}
+			if (listener != null) {
+				listener.messageQueued(sender, result, total);
+			}
+			return true;
+		}
+	}
+
+	private void reject(String sender, int count, String reason) {
+		rejectedTasks.addAndGet(count);
+		if (logger.isWarnEnabled()) {
+			logger.warn("Discarding " + count + " message(s) from [" + sender + "]: " + reason);
+		}
+		if (listener != null) {
+			for (int i = 0; i < count; i++) {
+				listener.messageRejected(sender);
+			}
+		}
+	}
+
+	private static class QueuedTask {
+
+		private final Runnable task;
+
+		private final long queuedAt = System.nanoTime();
+
+		private QueuedTask(Runnable task) {
+			this.task = task;
+		}
+	}
+
+	/**
+	 * The queue of a single sender. Runs its head task when submitted to the executor, and is resubmitted as long as it
+	 * is not empty.
+	 */
+	private class SenderQueue implements Runnable {
+
+		private final String sender;
+
+		private final Queue<QueuedTask> tasks = new ArrayDeque<QueuedTask>();
+
+		private boolean scheduled;
+
+		private boolean removed;
+
+		private SenderQueue(String sender) {
+			this.sender = sender;
+		}
+
+		/**
+		 * Adds the given task to this queue, and schedules this queue if it was idle.
+		 *
+		 * @return the new size of this queue; {@link #FULL} if it is full; {@link #REMOVED} if it has been removed; or
+		 * {@link #DISCARDED} if the executor rejected this queue, and its tasks have been discarded
+		 */
+		private int offer(Runnable task) {
+			boolean schedule;
+			int size;
+			synchronized (this) {
+				if (removed) {
+					return REMOVED;
+				}
+				if (tasks.size() >= maxQueuedTasksPerSender) {
+					return FULL;
+				}
+				tasks.add(new QueuedTask(task));
+				size = tasks.size();
+				schedule = !scheduled;
+				scheduled = true;
+			}
+			if (schedule && !schedule()) {
+				return DISCARDED;
+			}
+			return size;
+		}
+
+		/**
+		 * Submits this queue to the executor. If rejected, all queued tasks are discarded, and this queue is removed, so
+		 * that it does not stall waiting for a run that never comes.
+		 *
+		 * @return {@code true} if submitted; {@code false} if rejected
+		 */
+		private boolean schedule() {
+			try {
+				executor.execute(this);
+				return true;
+			}
+			catch (RuntimeException ex) {
+				int discarded;
+				synchronized (this) {
+					discarded = tasks.size();
+					tasks.clear();
+					scheduled = false;
+					removed = true;
+					senderQueues.remove(sender, this);
+				}
+				queuedTasks.addAndGet(-discarded);
+				reject(sender, discarded, "task executor rejected the message: " + ex);
+				return false;
+			}
+		}
+
+		@Override
+		public void run() {
+			QueuedTask queuedTask;
+			synchronized (this) {
+				queuedTask = tasks.peek();
+			}
+			long startedAt = System.nanoTime();
+			try {
+				queuedTask.task.run();
+			}
+			finally {
+				long finishedAt = System.nanoTime();
+				queuedTasks.decrementAndGet();
+				if (listener != null) {
+					listener.messageHandled(sender, startedAt - queuedTask.queuedAt, finishedAt - startedAt);
+				}
+				boolean schedule;
+				synchronized (this) {
+					// the running task stays at the head of the queue, so that it counts towards the capacity
+					tasks.remove();
+					schedule = !tasks.isEmpty();
+					if (!schedule) {
+						scheduled = false;
+						removed = true;
+						senderQueues.remove(sender, this);
+					}
+				}
+				if (schedule) {
+					schedule();
+				}
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2016 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,7 +28,10 @@ import org.jivesoftware.smack.packet.Message;
 import org.jivesoftware.smack.packet.Stanza;
 import org.jivesoftware.smack.tcp.XMPPTCPConnection;
 
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
 import org.springframework.ws.transport.support.AbstractStandaloneMessageReceiver;
+import org.springframework.ws.transport.support.VirtualThreadTaskExecutor;
 
 /**
  * Server-side component for receiving XMPP (Jabber) messages.	Requires a {@linkplain #setConnection(XMPPConnection)
@@ -36,6 +39,18 @@ import org.springframework.ws.transport.support.AbstractStandaloneMessageReceive
  * messageFactory} and {@link #setMessageReceiver(org.springframework.ws.transport.WebServiceMessageReceiver)
  * messageReceiver} required by the base class.
  *
+ * <p>By default, messages are handled by the listener thread of the connection. If a {@linkplain
+ * #setTaskExecutor(TaskExecutor) task executor} is set, each message is handled by that executor instead, for
+ * instance in a virtual thread using the {@link VirtualThreadTaskExecutor}.
+ *
+ * <p>Messages handled by a task executor are handled in any order. If {@linkplain #setOrderedDispatch(boolean) ordered
+ * dispatch} is enabled, the messages of each sender are queued, and handled one at a time in the order in which they
+ * were received, while the messages of different senders are handled concurrently. The queue of each sender is
+ * bounded by {@link #setMaxQueuedMessagesPerSender(int) maxQueuedMessagesPerSender}, and the number of senders with
+ * queued messages by {@link #setMaxSenders(int) maxSenders}. Messages received while either limit is reached, or that
+ * the task executor rejects, are discarded. Discarded messages are logged, counted, and reported to the {@linkplain
+ * #setListener(XmppMessageReceiverListener) listener}.
+ *
  * @author Gildas Cuisinier
  * @author Arjen Poutsma
  * @author Greg Turnquist
@@ -47,12 +62,30 @@ public class XmppMessageReceiver extends AbstractStandaloneMessageReceiver {
 	/** Default encoding used to read from and write to {@link org.jivesoftware.smack.packet.Message} messages. */
 	public static final String DEFAULT_MESSAGE_ENCODING = "UTF-8";
 
+	/** Default maximum number of queued messages per sender, if ordered dispatch is enabled. */
+	public static final int DEFAULT_MAX_QUEUED_MESSAGES_PER_SENDER = 100;
+
+	/** Default maximum number of senders with queued messages, if ordered dispatch is enabled. */
+	public static final int DEFAULT_MAX_SENDERS = 1000;
+
 	private XMPPTCPConnection connection;
 
 	private WebServicePacketListener packetListener;
 
 	private String messageEncoding = DEFAULT_MESSAGE_ENCODING;
 
+	private TaskExecutor taskExecutor;
+
+	private boolean orderedDispatch = false;
+
+	private int maxQueuedMessagesPerSender = DEFAULT_MAX_QUEUED_MESSAGES_PER_SENDER;
+
+	private int maxSenders = DEFAULT_MAX_SENDERS;
+
+	private XmppMessageReceiverListener listener;
+
+	private SenderOrderedDispatcher dispatcher;
+
 	public XmppMessageReceiver() {
 	}
 
@@ -61,6 +94,72 @@ public class XmppMessageReceiver extends AbstractStandaloneMessageReceiver {
 		this.connection = connection;
 	}
 
+	/**
+	 * Sets the {@code TaskExecutor} that handles received messages. If not set, the default, messages are handled by
+	 * the listener thread of the connection.
+	 *
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets whether the messages of each sender are handled in the order in which they were received. Requires a
+	 * {@linkplain #setTaskExecutor(TaskExecutor) task executor}. Default is {@code false}.
+	 */
+	public void setOrderedDispatch(boolean orderedDispatch) {
+		this.orderedDispatch = orderedDispatch;
+	}
+
+	/**
+	 * Sets the maximum number of messages of a single sender that are queued, including the one being handled, if
+	 * ordered dispatch is enabled. Default is {@value #DEFAULT_MAX_QUEUED_MESSAGES_PER_SENDER}.
+	 */
+	public void setMaxQueuedMessagesPerSender(int maxQueuedMessagesPerSender) {
+		Assert.isTrue(maxQueuedMessagesPerSender > 0, "'maxQueuedMessagesPerSender' must be positive");
+		this.maxQueuedMessagesPerSender = maxQueuedMessagesPerSender;
+	}
+
+	/**
+	 * Sets the maximum number of senders that have queued messages at the same time, if ordered dispatch is enabled.
+	 * Messages of further senders are discarded until the queue of another sender is empty. Default is {@value
+	 * #DEFAULT_MAX_SENDERS}.
+	 */
+	public void setMaxSenders(int maxSenders) {
+		Assert.isTrue(maxSenders > 0, "'maxSenders' must be positive");
+		this.maxSenders = maxSenders;
+	}
+
+	/** Sets the listener that is notified of queued and handled messages, if ordered dispatch is enabled. */
+	public void setListener(XmppMessageReceiverListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Returns the number of messages that are queued or being handled, if ordered dispatch is enabled; or {@code 0}
+	 * otherwise.
+	 */
+	public int getQueuedMessageCount() {
+		return dispatcher != null ? dispatcher.getQueuedTaskCount() : 0;
+	}
+
+	/**
+	 * Returns the number of messages that have been discarded, if ordered dispatch is enabled; or {@code 0} otherwise.
+	 */
+	public long getRejectedMessageCount() {
+		return dispatcher != null ? dispatcher.getRejectedTaskCount() : 0;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (orderedDispatch) {
+			Assert.notNull(taskExecutor, "Ordered dispatch requires a 'taskExecutor'");
+			dispatcher = new SenderOrderedDispatcher(taskExecutor, maxQueuedMessagesPerSender, maxSenders, listener);
+		}
+		super.afterPropertiesSet();
+	}
+
 	@Override
 	protected void onActivate() throws XMPPException, IOException, SmackException {
 		if (!connection.isConnected()) {
@@ -79,7 +178,13 @@ public class XmppMessageReceiver extends AbstractStandaloneMessageReceiver {
 		}
 		packetListener = new WebServicePacketListener();
 		StanzaFilter packetFilter = new StanzaTypeFilter(Message.class);
-		connection.addAsyncStanzaListener(packetListener, packetFilter);
+		if (dispatcher != null) {
+			// synchronous listeners are invoked in the order in which stanzas are received
+			connection.addSyncStanzaListener(packetListener, packetFilter);
+		}
+		else {
+			connection.addAsyncStanzaListener(packetListener, packetFilter);
+		}
 	}
 
 	@Override
@@ -87,7 +192,12 @@ public class XmppMessageReceiver extends AbstractStandaloneMessageReceiver {
 		if (logger.isInfoEnabled()) {
 			logger.info("Stopping XMPP receiver [" + connection.getUser() + "]");
 		}
-		connection.removeAsyncStanzaListener(packetListener);
+		if (dispatcher != null) {
+			connection.removeSyncStanzaListener(packetListener);
+		}
+		else {
+			connection.removeAsyncStanzaListener(packetListener);
+		}
 		packetListener = null;
 	}
 
@@ -105,19 +215,42 @@ public class XmppMessageReceiver extends AbstractStandaloneMessageReceiver {
 
 		@Override
 		public void processStanza(Stanza packet) {
-			logger.info("Received " + packet);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Received " + packet);
+			}
 			if (packet instanceof Message) {
-				Message message = (Message) packet;
-				try {
-					XmppReceiverConnection wsConnection = new XmppReceiverConnection(connection, message);
-					wsConnection.setMessageEncoding(messageEncoding);
-					handleConnection(wsConnection);
+				final Message message = (Message) packet;
+				Runnable handler = new Runnable() {
+
+					@Override
+					public void run() {
+						handleMessage(message);
+					}
+				};
+				if (dispatcher != null) {
+					String sender = String.valueOf(message.getFrom());
+					// discarded messages are reported by the dispatcher
+					dispatcher.dispatch(sender, handler);
+				}
+				else if (taskExecutor != null) {
+					taskExecutor.execute(handler);
 				}
-				catch (Exception ex) {
-					logger.error(ex);
+				else {
+					handleMessage(message);
 				}
 			}
 		}
+
+		private void handleMessage(Message message) {
+			try {
+				XmppReceiverConnection wsConnection = new XmppReceiverConnection(connection, message);
+				wsConnection.setMessageEncoding(messageEncoding);
+				handleConnection(wsConnection);
+			}
+			catch (Exception ex) {
+				logger.error(ex);
+			}
+		}
 	}
 
 }
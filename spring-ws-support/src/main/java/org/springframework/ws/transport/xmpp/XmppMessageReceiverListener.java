@@ -0,0 +1,59 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.xmpp;
+
+/**
+ * Callback interface for instrumentation of the {@link XmppMessageReceiver} when {@linkplain
+ * XmppMessageReceiver#setOrderedDispatch(boolean) ordered dispatch} is enabled. Implementations can record the reported
+ * values in a metrics library of choice, such as Micrometer.
+ *
+ * <p>Implementations are invoked on the listener thread of the connection or on a worker thread, and should therefore
+ * return quickly. All times are in nanoseconds.
+ *
+ * @author Greg Turnquist
+ * @see XmppMessageReceiver#setListener(XmppMessageReceiverListener)
+ * @since 3.0.8
+ */
+public interface XmppMessageReceiverListener {
+
+	/**
+	 * Called when a message has been queued for handling.
+	 *
+	 * @param sender the address of the sender
+	 * @param senderQueueDepth the number of queued messages of the sender, including this one
+	 * @param totalQueueDepth the number of queued messages of all senders, including this one
+	 */
+	void messageQueued(String sender, int senderQueueDepth, int totalQueueDepth);
+
+	/**
+	 * Called when a message has been discarded, because the queue of its sender is full, too many senders have queued
+	 * messages, or the task executor rejected it.
+	 *
+	 * @param sender the address of the sender
+	 */
+	void messageRejected(String sender);
+
+	/**
+	 * Called when a message has been handled, successfully or not.
+	 *
+	 * @param sender the address of the sender
+	 * @param queueTime the time the message spent in the queue
+	 * @param handlingTime the time spent handling the message
+	 */
+	void messageHandled(String sender, long queueTime, long handlingTime);
+
+}
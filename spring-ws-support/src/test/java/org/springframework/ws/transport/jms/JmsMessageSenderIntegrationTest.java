@@ -18,7 +18,11 @@ package org.springframework.ws.transport.jms;
 
 import java.io.ByteArrayOutputStream;
 import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.jms.BytesMessage;
+import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.Session;
@@ -54,6 +58,9 @@ public class JmsMessageSenderIntegrationTest {
 	@Autowired
 	private JmsTemplate jmsTemplate;
 
+	@Autowired
+	private ConnectionFactory connectionFactory;
+
 	private MessageFactory messageFactory;
 
 	private static final String SOAP_ACTION = "\"http://springframework.org/DoIt\"";
@@ -102,6 +109,272 @@ public class JmsMessageSenderIntegrationTest {
 		}
 	}
 
+	@Test
+	public void testSendAndReceiveQueueBytesMessageSharedReplyQueue() throws Exception {
+		JmsMessageSender sharedMessageSender = new JmsMessageSender(connectionFactory);
+		sharedMessageSender.setReceiveTimeout(500);
+		sharedMessageSender.setSharedReplyQueue(true);
+		sharedMessageSender.setMaxInFlightRequests(10);
+		try {
+			for (int i = 0; i < 2; i++) {
+				WebServiceConnection connection = null;
+				try {
+					URI uri = new URI("jms:SenderRequestQueue?deliveryMode=NON_PERSISTENT");
+					connection = sharedMessageSender.createConnection(uri);
+					SoapMessage soapRequest = new SaajSoapMessage(messageFactory.createMessage());
+					soapRequest.setSoapAction(SOAP_ACTION);
+					connection.send(soapRequest);
+
+					final BytesMessage request = (BytesMessage) jmsTemplate.receive();
+					assertNotNull("No message received", request);
+					assertNotNull("No correlation ID set", request.getJMSCorrelationID());
+					ByteArrayOutputStream bos = new ByteArrayOutputStream();
+					messageFactory.createMessage().writeTo(bos);
+					final byte[] buf = bos.toByteArray();
+					jmsTemplate.send(request.getJMSReplyTo(), new MessageCreator() {
+
+						public Message createMessage(Session session) throws JMSException {
+							BytesMessage response = session.createBytesMessage();
+							response.setJMSCorrelationID(request.getJMSCorrelationID());
+							response.setStringProperty(JmsTransportConstants.PROPERTY_SOAP_ACTION, SOAP_ACTION);
+							response.setStringProperty(JmsTransportConstants.PROPERTY_CONTENT_TYPE,
+									SoapVersion.SOAP_11.getContentType());
+							response.writeBytes(buf);
+							return response;
+						}
+					});
+					SoapMessage response = (SoapMessage) connection.receive(new SaajSoapMessageFactory(messageFactory));
+					assertNotNull("No response received", response);
+					assertEquals("Invalid SOAPAction", SOAP_ACTION, response.getSoapAction());
+				}
+				finally {
+					if (connection != null) {
+						connection.close();
+					}
+				}
+			}
+		}
+		finally {
+			sharedMessageSender.destroy();
+		}
+	}
+
+	@Test
+	public void testSharedReplyQueueDestroyWakesPendingRequests() throws Exception {
+		SharedReplyQueue replyQueue = new SharedReplyQueue(connectionFactory, 2, 0);
+		try {
+			replyQueue.register("42");
+			try {
+				replyQueue.register("42");
+				fail("JMSException expected");
+			}
+			catch (JMSException ex) {
+				// expected
+			}
+			// the rejected duplicate must not hold on to its permit
+			replyQueue.register("43");
+			assertEquals("Invalid pending count", 2, replyQueue.getPendingCount());
+		}
+		finally {
+			replyQueue.destroy();
+		}
+		try {
+			replyQueue.receive("42", -1);
+			fail("JMSException expected");
+		}
+		catch (JMSException ex) {
+			// expected
+		}
+		assertEquals("Invalid pending count", 1, replyQueue.getPendingCount());
+	}
+
+	@Test
+	public void testSharedReplyQueueInFlightTimeout() throws Exception {
+		SharedReplyQueue replyQueue = new SharedReplyQueue(connectionFactory, 1, 100);
+		try {
+			replyQueue.register("42");
+			try {
+				replyQueue.register("43");
+				fail("JMSException expected");
+			}
+			catch (JMSException ex) {
+				// expected
+			}
+			replyQueue.unregister("42");
+			replyQueue.register("43");
+			assertEquals("Invalid pending count", 1, replyQueue.getPendingCount());
+		}
+		finally {
+			replyQueue.destroy();
+		}
+	}
+
+	@Test
+	public void testSendAndReceiveQueueBytesMessagePooledSession() throws Exception {
+		JmsMessageSender pooledMessageSender = new JmsMessageSender(connectionFactory);
+		pooledMessageSender.setSessionCacheSize(1);
+		Session pooledSession = null;
+		try {
+			for (int i = 0; i < 2; i++) {
+				WebServiceConnection connection = null;
+				try {
+					URI uri = new URI("jms:SenderRequestQueue?deliveryMode=NON_PERSISTENT");
+					connection = pooledMessageSender.createConnection(uri);
+					Session session = ((JmsSenderConnection) connection).getSession();
+					if (pooledSession == null) {
+						pooledSession = session;
+					}
+					else {
+						assertSame("Pooled session not reused", pooledSession, session);
+					}
+					assertEquals("Session not borrowed", 0, pooledMessageSender.getIdleSessionCount());
+					SoapMessage soapRequest = new SaajSoapMessage(messageFactory.createMessage());
+					soapRequest.setSoapAction(SOAP_ACTION);
+					connection.send(soapRequest);
+
+					BytesMessage request = (BytesMessage) jmsTemplate.receive();
+					assertNotNull("No message received", request);
+					ByteArrayOutputStream bos = new ByteArrayOutputStream();
+					messageFactory.createMessage().writeTo(bos);
+					final byte[] buf = bos.toByteArray();
+					jmsTemplate.send(request.getJMSReplyTo(), new MessageCreator() {
+
+						public Message createMessage(Session session) throws JMSException {
+							BytesMessage response = session.createBytesMessage();
+							response.setStringProperty(JmsTransportConstants.PROPERTY_SOAP_ACTION, SOAP_ACTION);
+							response.setStringProperty(JmsTransportConstants.PROPERTY_CONTENT_TYPE,
+									SoapVersion.SOAP_11.getContentType());
+							response.writeBytes(buf);
+							return response;
+						}
+					});
+					SoapMessage response = (SoapMessage) connection.receive(new SaajSoapMessageFactory(messageFactory));
+					assertNotNull("No response received", response);
+					assertEquals("Invalid SOAPAction", SOAP_ACTION, response.getSoapAction());
+				}
+				finally {
+					if (connection != null) {
+						connection.close();
+					}
+				}
+				assertEquals("Session not returned to pool", 1, pooledMessageSender.getIdleSessionCount());
+			}
+		}
+		finally {
+			pooledMessageSender.destroy();
+		}
+	}
+
+	@Test
+	public void testSendBatch() throws Exception {
+		final CountDownLatch committed = new CountDownLatch(1);
+		final AtomicInteger committedCount = new AtomicInteger();
+		JmsMessageSender batchMessageSender = new JmsMessageSender(connectionFactory);
+		batchMessageSender.setBatchSize(2);
+		batchMessageSender.setBatchListener(new JmsBatchListener() {
+
+			@Override
+			public void batchCommitted(int messageCount, int failedCount, long queueTime, long sendTime) {
+				committedCount.addAndGet(messageCount);
+				committed.countDown();
+			}
+
+			@Override
+			public void batchFailed(int messageCount, JMSException ex) {
+			}
+
+			@Override
+			public void messageFailed(URI uri, Message message, JMSException ex) {
+			}
+		});
+		try {
+			URI uri = new URI("jms:SenderRequestQueue?deliveryMode=NON_PERSISTENT");
+			for (int i = 0; i < 2; i++) {
+				WebServiceConnection connection = batchMessageSender.createConnection(uri);
+				try {
+					SoapMessage soapRequest = new SaajSoapMessage(messageFactory.createMessage());
+					soapRequest.setSoapAction(SOAP_ACTION);
+					connection.send(soapRequest);
+					assertNull("Response received", connection.receive(new SaajSoapMessageFactory(messageFactory)));
+				}
+				finally {
+					connection.close();
+				}
+			}
+			assertTrue("Batch not committed", committed.await(5, TimeUnit.SECONDS));
+			assertEquals("Invalid number of committed messages", 2, committedCount.get());
+			for (int i = 0; i < 2; i++) {
+				BytesMessage request = (BytesMessage) jmsTemplate.receive();
+				assertNotNull("No message received", request);
+				assertEquals("Invalid SOAPAction", SOAP_ACTION,
+						request.getStringProperty(JmsTransportConstants.PROPERTY_SOAP_ACTION));
+			}
+		}
+		finally {
+			batchMessageSender.destroy();
+		}
+	}
+
+	@Test
+	public void testSendBatchPostProcessorFailure() throws Exception {
+		final CountDownLatch committed = new CountDownLatch(1);
+		final AtomicInteger committedCount = new AtomicInteger();
+		final AtomicInteger failedCount = new AtomicInteger();
+		final AtomicInteger messageFailedCount = new AtomicInteger();
+		final AtomicInteger processedCount = new AtomicInteger();
+		JmsMessageSender batchMessageSender = new JmsMessageSender(connectionFactory);
+		batchMessageSender.setBatchSize(2);
+		batchMessageSender.setPostProcessor(new MessagePostProcessor() {
+
+			@Override
+			public Message postProcessMessage(Message message) throws JMSException {
+				if (processedCount.getAndIncrement() == 0) {
+					throw new IllegalStateException("Post processing failed");
+				}
+				return message;
+			}
+		});
+		batchMessageSender.setBatchListener(new JmsBatchListener() {
+
+			@Override
+			public void batchCommitted(int messageCount, int failed, long queueTime, long sendTime) {
+				committedCount.addAndGet(messageCount);
+				failedCount.addAndGet(failed);
+				committed.countDown();
+			}
+
+			@Override
+			public void batchFailed(int messageCount, JMSException ex) {
+			}
+
+			@Override
+			public void messageFailed(URI uri, Message message, JMSException ex) {
+				assertTrue("Invalid cause", ex.getLinkedException() instanceof IllegalStateException);
+				messageFailedCount.incrementAndGet();
+			}
+		});
+		try {
+			URI uri = new URI("jms:SenderRequestQueue?deliveryMode=NON_PERSISTENT");
+			for (int i = 0; i < 2; i++) {
+				WebServiceConnection connection = batchMessageSender.createConnection(uri);
+				try {
+					connection.send(new SaajSoapMessage(messageFactory.createMessage()));
+				}
+				finally {
+					connection.close();
+				}
+			}
+			assertTrue("Batch not committed", committed.await(5, TimeUnit.SECONDS));
+			assertEquals("Invalid number of committed messages", 1, committedCount.get());
+			assertEquals("Invalid number of failed messages", 1, failedCount.get());
+			assertEquals("Failed message not reported", 1, messageFailedCount.get());
+			assertNotNull("No message received", jmsTemplate.receive());
+		}
+		finally {
+			batchMessageSender.destroy();
+		}
+	}
+
 	@Test
 	public void testSendAndReceiveQueueBytesMessagePermanentQueue() throws Exception {
 		WebServiceConnection connection = null;
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.scheduling.SchedulingAwareRunnable;
+
+import static org.junit.Assert.*;
+
+public class AbstractAsyncStandaloneMessageReceiverTest {
+
+	private TestMessageReceiver receiver;
+
+	@Before
+	public void setUp() throws Exception {
+		receiver = new TestMessageReceiver();
+		receiver.setBeanName("receiver");
+		receiver.setMaxConcurrentTasks(1);
+		receiver.setTaskQueueCapacity(1);
+		receiver.setAutoStartup(false);
+		receiver.afterPropertiesSet();
+	}
+
+	@After
+	public void tearDown() {
+		receiver.destroy();
+	}
+
+	@Test
+	public void testExecuteBlocksWhenQueueIsFull() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger completed = new AtomicInteger();
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				completed.incrementAndGet();
+			}
+		};
+		// one running, one queued
+		receiver.execute(task);
+		receiver.execute(task);
+
+		final CountDownLatch submitted = new CountDownLatch(1);
+		final Runnable blockedTask = task;
+		Thread submitter = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				receiver.execute(blockedTask);
+				submitted.countDown();
+			}
+		});
+		submitter.start();
+		assertFalse("Task submitted while queue is full", submitted.await(200, TimeUnit.MILLISECONDS));
+
+		release.countDown();
+		assertTrue("Task not submitted after queue drained", submitted.await(5, TimeUnit.SECONDS));
+		submitter.join(5000);
+		for (int i = 0; i < 50 && completed.get() < 3; i++) {
+			Thread.sleep(100);
+		}
+		assertEquals("Invalid number of completed tasks", 3, completed.get());
+	}
+
+	@Test
+	public void testLongLivedTaskIsNotBounded() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(3);
+		for (int i = 0; i < 3; i++) {
+			receiver.execute(new SchedulingAwareRunnable() {
+
+				@Override
+				public void run() {
+					started.countDown();
+					try {
+						release.await();
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				@Override
+				public boolean isLongLived() {
+					return true;
+				}
+			});
+		}
+		try {
+			assertTrue("Long-lived tasks not started", started.await(5, TimeUnit.SECONDS));
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	private static class TestMessageReceiver extends AbstractAsyncStandaloneMessageReceiver {
+
+		@Override
+		protected void onActivate() {
+		}
+
+		@Override
+		protected void onStart() {
+		}
+
+		@Override
+		protected void onStop() {
+		}
+
+		@Override
+		protected void onShutdown() {
+		}
+	}
+
+}
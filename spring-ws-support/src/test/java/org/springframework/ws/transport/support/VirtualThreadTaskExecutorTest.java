@@ -0,0 +1,53 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VirtualThreadTaskExecutorTest {
+
+	@Before
+	public void assumeVirtualThreads() {
+		Assume.assumeTrue("Virtual threads not supported", VirtualThreadTaskExecutor.isSupported());
+	}
+
+	@Test
+	public void testExecute() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicReference<String> threadName = new AtomicReference<String>();
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				threadName.set(Thread.currentThread().getName());
+				done.countDown();
+			}
+		});
+		assertTrue("Task not executed", done.await(5, TimeUnit.SECONDS));
+		assertTrue("Invalid thread name", threadName.get().startsWith("test-"));
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.xmpp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SenderOrderedDispatcherTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testOrderPerSender() throws Exception {
+		SenderOrderedDispatcher dispatcher = new SenderOrderedDispatcher(executor, 1000, 10, null);
+		final List<Integer> first = Collections.synchronizedList(new ArrayList<Integer>());
+		final List<Integer> second = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch done = new CountDownLatch(200);
+		for (int i = 0; i < 100; i++) {
+			assertTrue("Task not queued", dispatcher.dispatch("first", new RecordingTask(first, i, done)));
+			assertTrue("Task not queued", dispatcher.dispatch("second", new RecordingTask(second, i, done)));
+		}
+		assertTrue("Tasks not completed", done.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < 100; i++) {
+			assertEquals("Invalid order", Integer.valueOf(i), first.get(i));
+			assertEquals("Invalid order", Integer.valueOf(i), second.get(i));
+		}
+	}
+
+	@Test
+	public void testSlowSenderDoesNotBlockOthers() throws Exception {
+		SenderOrderedDispatcher dispatcher = new SenderOrderedDispatcher(executor, 10, 10, null);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch handled = new CountDownLatch(1);
+		dispatcher.dispatch("slow", new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			dispatcher.dispatch("fast", new Runnable() {
+
+				@Override
+				public void run() {
+					handled.countDown();
+				}
+			});
+			assertTrue("Message of other sender not handled", handled.await(5, TimeUnit.SECONDS));
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testRejectWhenQueueIsFull() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch rejected = new CountDownLatch(1);
+		final CountDownLatch handled = new CountDownLatch(2);
+		SenderOrderedDispatcher dispatcher = new SenderOrderedDispatcher(executor, 2, 10, new XmppMessageReceiverListener() {
+
+			@Override
+			public void messageQueued(String sender, int senderQueueDepth, int totalQueueDepth) {
+			}
+
+			@Override
+			public void messageRejected(String sender) {
+				rejected.countDown();
+			}
+
+			@Override
+			public void messageHandled(String sender, long queueTime, long handlingTime) {
+				handled.countDown();
+			}
+		});
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		assertTrue("Task not queued", dispatcher.dispatch("sender", task));
+		assertTrue("Task not queued", dispatcher.dispatch("sender", task));
+		assertFalse("Task queued", dispatcher.dispatch("sender", task));
+		assertEquals("Listener not notified", 0, rejected.getCount());
+		assertEquals("Invalid queued task count", 2, dispatcher.getQueuedTaskCount());
+
+		release.countDown();
+		assertTrue("Tasks not handled", handled.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 50 && dispatcher.getSenderCount() > 0; i++) {
+			Thread.sleep(100);
+		}
+		assertEquals("Invalid queued task count", 0, dispatcher.getQueuedTaskCount());
+		assertEquals("Sender queue not removed", 0, dispatcher.getSenderCount());
+		assertEquals("Invalid rejected task count", 1, dispatcher.getRejectedTaskCount());
+	}
+
+	@Test
+	public void testRejectWhenTooManySenders() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		SenderOrderedDispatcher dispatcher = new SenderOrderedDispatcher(executor, 10, 1, null);
+		try {
+			assertTrue("Task not queued", dispatcher.dispatch("first", new AwaitingTask(release)));
+			assertFalse("Task queued", dispatcher.dispatch("second", new AwaitingTask(release)));
+			assertTrue("Task not queued", dispatcher.dispatch("first", new AwaitingTask(release)));
+			assertEquals("Invalid sender count", 1, dispatcher.getSenderCount());
+			assertEquals("Invalid rejected task count", 1, dispatcher.getRejectedTaskCount());
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testDiscardQueueWhenExecutorRejectsResubmission() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger executions = new AtomicInteger();
+		Executor rejectingExecutor = new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				if (executions.incrementAndGet() > 1) {
+					throw new RejectedExecutionException();
+				}
+				executor.execute(command);
+			}
+		};
+		SenderOrderedDispatcher dispatcher = new SenderOrderedDispatcher(rejectingExecutor, 10, 10, null);
+		assertTrue("Task not queued", dispatcher.dispatch("sender", new AwaitingTask(release)));
+		assertTrue("Task not queued", dispatcher.dispatch("sender", new AwaitingTask(release)));
+		assertTrue("Task not queued", dispatcher.dispatch("sender", new AwaitingTask(release)));
+		release.countDown();
+		for (int i = 0; i < 50 && dispatcher.getSenderCount() > 0; i++) {
+			Thread.sleep(100);
+		}
+		assertEquals("Sender queue not removed", 0, dispatcher.getSenderCount());
+		assertEquals("Invalid queued task count", 0, dispatcher.getQueuedTaskCount());
+		assertEquals("Invalid rejected task count", 2, dispatcher.getRejectedTaskCount());
+
+		// a new queue is created, and rejected right away
+		assertFalse("Task queued", dispatcher.dispatch("sender", new AwaitingTask(release)));
+		assertEquals("Sender queue not removed", 0, dispatcher.getSenderCount());
+		assertEquals("Invalid queued task count", 0, dispatcher.getQueuedTaskCount());
+		assertEquals("Invalid rejected task count", 3, dispatcher.getRejectedTaskCount());
+	}
+
+	private static class AwaitingTask implements Runnable {
+
+		private final CountDownLatch release;
+
+		private AwaitingTask(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void run() {
+			try {
+				release.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static class RecordingTask implements Runnable {
+
+		private final List<Integer> results;
+
+		private final int value;
+
+		private final CountDownLatch done;
+
+		private RecordingTask(List<Integer> results, int value, CountDownLatch done) {
+			this.results = results;
+			this.value = value;
+			this.done = done;
+		}
+
+		@Override
+		public void run() {
+			results.add(value);
+			done.countDown();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -56,6 +56,48 @@ abstract class Jaxp15ValidatorFactory {
 		}
 	}
 
+	static XmlValidator createPooledValidator(Resource[] resources, String schemaLanguage, int maxPoolSize)
+			throws IOException {
+		try {
+			Schema schema = SchemaLoaderUtils.loadSchema(resources, schemaLanguage);
+			return new PooledXmlValidator(schema, maxPoolSize);
+		}
+		catch (SAXException ex) {
+			throw new XmlValidationException("Could not create Schema: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Creates a new {@link Validator} for the given schema, with external DTD and schema access disabled.
+	 */
+	static Validator newValidator(Schema schema) {
+		Validator validator = schema.newValidator();
+		disableExternalAccess(validator);
+		return validator;
+	}
+
+	/**
+	 * Disables external DTD and schema access on the given validator. Has to be called again after
+	 * {@link Validator#reset()}, as that restores the original properties.
+	 */
+	static void disableExternalAccess(Validator validator) {
+		try {
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+		} catch (SAXNotRecognizedException | SAXNotSupportedException e) {
+			if (log.isWarnEnabled()) {
+				log.warn(XMLConstants.ACCESS_EXTERNAL_DTD + " property not supported by " + validator.getClass().getCanonicalName());
+			}
+		}
+
+		try {
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+		} catch (SAXNotRecognizedException | SAXNotSupportedException e) {
+			if (log.isWarnEnabled()) {
+				log.warn(XMLConstants.ACCESS_EXTERNAL_SCHEMA + " property not supported by " + validator.getClass().getCanonicalName());
+			}
+		}
+	}
+
 	private static class Jaxp15Validator implements XmlValidator {
 
 		private Schema schema;
@@ -74,24 +116,7 @@ abstract class Jaxp15ValidatorFactory {
 			if (errorHandler == null) {
 				errorHandler = new DefaultValidationErrorHandler();
 			}
-			Validator validator = schema.newValidator();
-
-			try {
-				validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-			} catch (SAXNotRecognizedException | SAXNotSupportedException e) {
-				if (log.isWarnEnabled()) {
-					log.warn(XMLConstants.ACCESS_EXTERNAL_DTD + " property not supported by " + validator.getClass().getCanonicalName());
-				}
-			}
-
-			try {
-				validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-			} catch (SAXNotRecognizedException | SAXNotSupportedException e) {
-				if (log.isWarnEnabled()) {
-					log.warn(XMLConstants.ACCESS_EXTERNAL_SCHEMA + " property not supported by " + validator.getClass().getCanonicalName());
-				}
-			}
-
+			Validator validator = newValidator(schema);
 			validator.setErrorHandler(errorHandler);
 			try {
 				validator.validate(source);
@@ -104,7 +129,7 @@ abstract class Jaxp15ValidatorFactory {
 	}
 
 	/** {@code ErrorHandler} implementation that stores errors and fatal errors in a list. */
-	private static class DefaultValidationErrorHandler implements ValidationErrorHandler {
+	static class DefaultValidationErrorHandler implements ValidationErrorHandler {
 
 		private List<SAXParseException> errors = new ArrayList<SAXParseException>();
 
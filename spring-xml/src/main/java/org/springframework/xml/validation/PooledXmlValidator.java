@@ -0,0 +1,181 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.xml.validation;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import org.springframework.util.Assert;
+
+/**
+ * Implementation of {@link XmlValidator} that keeps a bounded pool of JAXP {@link Validator} instances, rather than
+ * creating a new validator for every validation. Validators are not {@linkplain Validator#reset() reset} when they are
+ * returned to the pool, as a reset JDK validator cannot validate again; only their error handler is cleared. A
+ * validator that fails with an unexpected exception is discarded rather than returned.
+ *
+ * <p>At most {@code maxPoolSize} validators are created. When all of them are in use, callers wait for one to be
+ * returned; the time spent waiting is available through {@link #getWaitCount()} and {@link #getTotalWaitTime()}.
+ *
+ * <p>Can be created via {@link XmlValidatorFactory#createValidator(org.springframework.core.io.Resource[], String,
+ * int)}.
+ *
+ * @author Greg Turnquist
+ * @since 3.0.8
+ */
+public class PooledXmlValidator implements XmlValidator {
+
+	private final Schema schema;
+
+	private final int maxPoolSize;
+
+	private final BlockingQueue<Validator> idleValidators = new LinkedBlockingQueue<Validator>();
+
+	private final AtomicInteger poolSize = new AtomicInteger();
+
+	private final AtomicLong waitCount = new AtomicLong();
+
+	private final AtomicLong totalWaitTime = new AtomicLong();
+
+	/**
+	 * Creates a new {@code PooledXmlValidator} for the given schema.
+	 *
+	 * @param schema the schema to validate against
+	 * @param maxPoolSize the maximum number of validators to create
+	 */
+	public PooledXmlValidator(Schema schema, int maxPoolSize) {
+		Assert.notNull(schema, "'schema' must not be null");
+		Assert.isTrue(maxPoolSize > 0, "'maxPoolSize' must be larger than 0");
+		this.schema = schema;
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	/** Returns the maximum number of validators in this pool. */
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	/** Returns the number of validators created so far. */
+	public int getPoolSize() {
+		return poolSize.get();
+	}
+
+	/** Returns the number of validators that are currently not in use. */
+	public int getIdleCount() {
+		return idleValidators.size();
+	}
+
+	/** Returns the number of times a caller had to wait for a validator to become available. */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+
+	/** Returns the total time, in milliseconds, that callers waited for a validator to become available. */
+	public long getTotalWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get());
+	}
+
+	@Override
+	public SAXParseException[] validate(Source source) throws IOException {
+		return validate(source, null);
+	}
+
+	@Override
+	public SAXParseException[] validate(Source source, ValidationErrorHandler errorHandler) throws IOException {
+		if (errorHandler == null) {
+			errorHandler = new Jaxp15ValidatorFactory.DefaultValidationErrorHandler();
+		}
+		Validator validator = borrowValidator();
+		boolean reusable = false;
+		try {
+			validator.setErrorHandler(errorHandler);
+			validator.validate(source);
+			reusable = true;
+			return errorHandler.getErrors();
+		}
+		catch (SAXException ex) {
+			reusable = true;
+			throw new XmlValidationException("Could not validate source: " + ex.getMessage(), ex);
+		}
+		finally {
+			if (reusable) {
+				releaseValidator(validator);
+			}
+			else {
+				discardValidator();
+			}
+		}
+	}
+
+	private Validator borrowValidator() {
+		Validator validator = idleValidators.poll();
+		if (validator != null) {
+			return validator;
+		}
+		if (poolSize.incrementAndGet() <= maxPoolSize) {
+			try {
+				return Jaxp15ValidatorFactory.newValidator(schema);
+			}
+			catch (RuntimeException ex) {
+				poolSize.decrementAndGet();
+				throw ex;
+			}
+		}
+		poolSize.decrementAndGet();
+		long start = System.nanoTime();
+		try {
+			validator = idleValidators.take();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new XmlValidationException("Interrupted while waiting for a validator", ex);
+		}
+		waitCount.incrementAndGet();
+		totalWaitTime.addAndGet(System.nanoTime() - start);
+		return validator;
+	}
+
+	private void releaseValidator(Validator validator) {
+		validator.setErrorHandler(null);
+		idleValidators.offer(validator);
+	}
+
+	/** Replaces a validator that failed, so that callers waiting for a validator are not left waiting. */
+	private void discardValidator() {
+		poolSize.decrementAndGet();
+		if (poolSize.incrementAndGet() <= maxPoolSize) {
+			try {
+				idleValidators.offer(Jaxp15ValidatorFactory.newValidator(schema));
+				return;
+			}
+			catch (RuntimeException ex) {
+				// the next caller creates a new validator instead
+			}
+		}
+		poolSize.decrementAndGet();
+	}
+
+}
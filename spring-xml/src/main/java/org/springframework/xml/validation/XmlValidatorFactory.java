@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -80,6 +80,31 @@ public abstract class XmlValidatorFactory {
 	 * @see #SCHEMA_W3C_XML
 	 */
 	public static XmlValidator createValidator(Resource[] schemaResources, String schemaLanguage) throws IOException {
+		return createValidator(schemaResources, schemaLanguage, 0);
+	}
+
+	/**
+	 * Create a {@link XmlValidator} with the given schema resources and schema language type, which keeps a bounded
+	 * pool of underlying JAXP validators instead of creating one for every validation. The schema language must be one
+	 * of the {@code SCHEMA_XXX} constants.
+	 *
+	 * <p>If {@code maxPoolSize} is {@code 0}, or JAXP 1.5 is not available, this method behaves like
+	 * {@link #createValidator(Resource[], String)}.
+	 *
+	 * @param schemaResources an array of resource that locate the schemas to validate against
+	 * @param schemaLanguage  the language of the schemas
+	 * @param maxPoolSize	  the maximum number of pooled validators
+	 * @return a validator
+	 * @throws IOException				if the schema resource cannot be read
+	 * @throws IllegalArgumentException if the schema language is not supported
+	 * @throws IllegalStateException	if JAXP 1.0 cannot be located
+	 * @throws XmlValidationException	if a {@code XmlValidator} cannot be created
+	 * @see PooledXmlValidator
+	 * @since 3.0.8
+	 */
+	public static XmlValidator createValidator(Resource[] schemaResources, String schemaLanguage, int maxPoolSize)
+			throws IOException {
+		Assert.isTrue(maxPoolSize >= 0, "'maxPoolSize' must not be negative");
 		Assert.notEmpty(schemaResources, "No resources given");
 		Assert.hasLength(schemaLanguage, "No schema language provided");
 		Assert.isTrue(SCHEMA_W3C_XML.equals(schemaLanguage) || SCHEMA_RELAX_NG.equals(schemaLanguage),
@@ -89,6 +114,10 @@ public abstract class XmlValidatorFactory {
 			Assert.isTrue(schemaResource.exists(), "schema [" + schemaResource + "] does not exist");
 		}
 		if (JaxpVersion.getJaxpVersion() >= JaxpVersion.JAXP_15) {
+			if (maxPoolSize > 0) {
+				logger.trace("Creating pooled JAXP 1.5 XmlValidator");
+				return Jaxp15ValidatorFactory.createPooledValidator(schemaResources, schemaLanguage, maxPoolSize);
+			}
 			logger.trace("Creating JAXP 1.5 XmlValidator");
 			return Jaxp15ValidatorFactory.createValidator(schemaResources, schemaLanguage);
 		}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.xml.xpath;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMResult;
@@ -26,18 +29,37 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import org.springframework.xml.transform.TransformerObjectSupport;
 
 /**
  * Abstract base class for implementations of {@link XPathOperations}. Contains a namespaces property.
  *
+ * <p>Also contains the configuration of a LRU cache of compiled expressions, keyed by expression string and
+ * namespaces. Subclasses create a typed {@link CompiledExpressionCache}, implementing {@link
+ * CompiledExpressionCache#compile(String, Map)}. The size of the caches can be set using {@link #setCacheLimit(int)},
+ * and their effectiveness can be monitored via {@link #getCacheHitCount()} and {@link #getCacheMissCount()}.
+ *
  * @author Arjen Poutsma
  * @since 1.0.0
  */
 public abstract class AbstractXPathTemplate extends TransformerObjectSupport implements XPathOperations {
 
+	/** The default maximum number of cached compiled expressions. */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
 	private Map<String, String> namespaces;
 
+	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	/** Incremented when the cache limit changes, so that caches discard their entries. */
+	private volatile int cacheGeneration = 0;
+
+	private final AtomicLong cacheHitCount = new AtomicLong();
+
+	private final AtomicLong cacheMissCount = new AtomicLong();
+
 	/** Returns namespaces used in the XPath expression. */
 	public Map<String, String> getNamespaces() {
 		return namespaces;
@@ -48,6 +70,31 @@ public abstract class AbstractXPathTemplate extends TransformerObjectSupport imp
 		this.namespaces = namespaces;
 	}
 
+	/** Returns the maximum number of cached compiled expressions. */
+	public int getCacheLimit() {
+		return cacheLimit;
+	}
+
+	/**
+	 * Sets the maximum number of cached compiled expressions. Defaults to {@link #DEFAULT_CACHE_LIMIT}. Setting this
+	 * property to {@code 0} disables caching.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		Assert.isTrue(cacheLimit >= 0, "'cacheLimit' must not be negative");
+		this.cacheLimit = cacheLimit;
+		cacheGeneration++;
+	}
+
+	/** Returns the number of times a compiled expression was found in the cache. */
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	/** Returns the number of times an expression had to be compiled, because it was not found in the cache. */
+	public long getCacheMissCount() {
+		return cacheMissCount.get();
+	}
+
 	@Override
 	public final void evaluate(String expression, Source context, NodeCallbackHandler callbackHandler)
 			throws XPathException {
@@ -70,6 +117,105 @@ public abstract class AbstractXPathTemplate extends TransformerObjectSupport imp
 		}
 	}
 
+	/**
+	 * LRU cache of compiled expressions of type {@code E}, sized by the {@linkplain #setCacheLimit(int) cache limit} of
+	 * the enclosing template. Subclasses create an instance, and implement {@link #compile(String, Map)}.
+	 *
+	 * @param <E> the type of compiled expressions
+	 */
+	protected abstract class CompiledExpressionCache<E> {
+
+		/** Compiled expressions, in access order. Guarded by itself. */
+		private final Map<ExpressionKey, E> expressions = new LinkedHashMap<ExpressionKey, E>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ExpressionKey, E> eldest) {
+				return size() > cacheLimit;
+			}
+		};
+
+		private int generation = cacheGeneration;
+
+		/**
+		 * Returns the compiled form of the given expression, using the current {@linkplain #getNamespaces()
+		 * namespaces}. Returns a cached instance if available, or calls {@link #compile(String, Map)} and caches the
+		 * result otherwise.
+		 *
+		 * @param expression the XPath expression
+		 * @return the compiled expression
+		 * @throws XPathException in case of compilation errors
+		 */
+		public final E get(String expression) throws XPathException {
+			Map<String, String> namespaces = getNamespaces();
+			if (cacheLimit <= 0) {
+				cacheMissCount.incrementAndGet();
+				return compile(expression, namespaces);
+			}
+			ExpressionKey key = new ExpressionKey(expression, namespaces);
+			E compiled;
+			synchronized (expressions) {
+				if (generation != cacheGeneration) {
+					expressions.clear();
+					generation = cacheGeneration;
+				}
+				compiled = expressions.get(key);
+			}
+			if (compiled != null) {
+				cacheHitCount.incrementAndGet();
+				return compiled;
+			}
+			cacheMissCount.incrementAndGet();
+			compiled = compile(expression, namespaces);
+			// copy the namespaces, so that later changes to the map do not affect the key
+			key = new ExpressionKey(expression, namespaces != null ? new HashMap<String, String>(namespaces) : null);
+			synchronized (expressions) {
+				expressions.put(key, compiled);
+			}
+			return compiled;
+		}
+
+		/**
+		 * Compiles the given expression, using the given namespaces. The returned object is cached, and therefore has
+		 * to be thread-safe.
+		 *
+		 * @param expression the XPath expression
+		 * @param namespaces the namespaces, may be {@code null}
+		 * @return the compiled expression
+		 * @throws XPathException in case of compilation errors
+		 */
+		protected abstract E compile(String expression, Map<String, String> namespaces) throws XPathException;
+	}
+
+	/** Cache key consisting of an expression string and namespace bindings. */
+	private static class ExpressionKey {
+
+		private final String expression;
+
+		private final Map<String, String> namespaces;
+
+		private ExpressionKey(String expression, Map<String, String> namespaces) {
+			this.expression = expression;
+			this.namespaces = namespaces != null && !namespaces.isEmpty() ? namespaces : null;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ExpressionKey)) {
+				return false;
+			}
+			ExpressionKey other = (ExpressionKey) o;
+			return expression.equals(other.expression) && ObjectUtils.nullSafeEquals(namespaces, other.namespaces);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * expression.hashCode() + ObjectUtils.nullSafeHashCode(namespaces);
+		}
+	}
+
 	/**
 	 * Returns the root element of the given source.
 	 *
@@ -18,6 +18,7 @@ package org.springframework.xml.xpath;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
 
@@ -40,6 +41,24 @@ import org.w3c.dom.Node;
  */
 public class JaxenXPathTemplate extends AbstractXPathTemplate {
 
+	/** Cache of Jaxen {@link DOMXPath} instances, which are thread-safe once their namespace context has been set. */
+	private final CompiledExpressionCache<XPath> expressionCache = new CompiledExpressionCache<XPath>() {
+
+		@Override
+		protected XPath compile(String expression, Map<String, String> namespaces) throws XPathException {
+			try {
+				XPath xpath = new DOMXPath(expression);
+				if (namespaces != null && !namespaces.isEmpty()) {
+					xpath.setNamespaceContext(new SimpleNamespaceContext(namespaces));
+				}
+				return xpath;
+			}
+			catch (JaxenException ex) {
+				throw new XPathException("Could not compile XPath expression [" + expression + "]", ex);
+			}
+		}
+	};
+
 	@Override
 	public boolean evaluateAsBoolean(String expression, Source context) throws XPathException {
 		try {
@@ -169,11 +188,7 @@ public class JaxenXPathTemplate extends AbstractXPathTemplate {
 		}
 	}
 
-	private XPath createXPath(String expression) throws JaxenException {
-		XPath xpath = new DOMXPath(expression);
-		if (getNamespaces() != null && !getNamespaces().isEmpty()) {
-			xpath.setNamespaceContext(new SimpleNamespaceContext(getNamespaces()));
-		}
-		return xpath;
+	private XPath createXPath(String expression) {
+		return expressionCache.get(expression);
 	}
 }
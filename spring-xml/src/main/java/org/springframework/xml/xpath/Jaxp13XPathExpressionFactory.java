@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2016 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,11 @@
 package org.springframework.xml.xpath;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.xml.namespace.QName;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -34,6 +37,9 @@ import org.springframework.xml.namespace.SimpleNamespaceContext;
 /**
  * JAXP 1.3-specific factory creating {@link XPathExpression} objects.
  *
+ * <p>Since compiled JAXP expressions are not thread-safe, the created expressions keep a bounded pool of compiled
+ * copies, so that concurrent evaluations do not have to wait for each other.
+ *
  * @author Arjen Poutsma
  * @author Greg Turnquist
  * @see #createXPathExpression(String)
@@ -41,7 +47,17 @@ import org.springframework.xml.namespace.SimpleNamespaceContext;
  */
 abstract class Jaxp13XPathExpressionFactory {
 
-	private static XPathFactory xpathFactory = XPathFactory.newInstance();
+	/** {@code XPathFactory} is not thread-safe, so we keep one per thread rather than locking a shared one. */
+	private static final ThreadLocal<XPathFactory> xpathFactories = new ThreadLocal<XPathFactory>() {
+
+		@Override
+		protected XPathFactory initialValue() {
+			return XPathFactory.newInstance();
+		}
+	};
+
+	/** The maximum number of compiled copies kept per expression. */
+	private static final int MAX_POOLED_EXPRESSIONS = Runtime.getRuntime().availableProcessors() * 2;
 
 	/**
 	 * Creates a JAXP 1.3 {@code XPathExpression} from the given string expression.
@@ -52,9 +68,8 @@ abstract class Jaxp13XPathExpressionFactory {
 	 */
 	static XPathExpression createXPathExpression(String expression) {
 		try {
-			XPath xpath = createXPath();
-			javax.xml.xpath.XPathExpression xpathExpression = xpath.compile(expression);
-			return new Jaxp13XPathExpression(xpathExpression, expression);
+			javax.xml.xpath.XPathExpression xpathExpression = compile(expression, null);
+			return new Jaxp13XPathExpression(xpathExpression, expression, null);
 		}
 		catch (XPathExpressionException ex) {
 			throw new org.springframework.xml.xpath.XPathParseException(
@@ -72,12 +87,9 @@ abstract class Jaxp13XPathExpressionFactory {
 	 */
 	public static XPathExpression createXPathExpression(String expression, Map<String, String> namespaces) {
 		try {
-			XPath xpath = createXPath();
-			SimpleNamespaceContext namespaceContext = new SimpleNamespaceContext();
-			namespaceContext.setBindings(namespaces);
-			xpath.setNamespaceContext(namespaceContext);
-			javax.xml.xpath.XPathExpression xpathExpression = xpath.compile(expression);
-			return new Jaxp13XPathExpression(xpathExpression, expression);
+			Map<String, String> bindings = new HashMap<String, String>(namespaces);
+			javax.xml.xpath.XPathExpression xpathExpression = compile(expression, bindings);
+			return new Jaxp13XPathExpression(xpathExpression, expression, bindings);
 		}
 		catch (XPathExpressionException ex) {
 			throw new org.springframework.xml.xpath.XPathParseException(
@@ -85,20 +97,39 @@ abstract class Jaxp13XPathExpressionFactory {
 		}
 	}
 
-	private static synchronized XPath createXPath() {
-		return xpathFactory.newXPath();
+	private static javax.xml.xpath.XPathExpression compile(String expression, Map<String, String> namespaces)
+			throws XPathExpressionException {
+		XPath xpath = createXPath();
+		if (namespaces != null) {
+			SimpleNamespaceContext namespaceContext = new SimpleNamespaceContext();
+			namespaceContext.setBindings(namespaces);
+			xpath.setNamespaceContext(namespaceContext);
+		}
+		return xpath.compile(expression);
+	}
+
+	private static XPath createXPath() {
+		return xpathFactories.get().newXPath();
 	}
 
 
-	/** JAXP 1.3 implementation of the {@code XPathExpression} interface. */
+	/**
+	 * JAXP 1.3 implementation of the {@code XPathExpression} interface. As {@code javax.xml.xpath.XPathExpression} is
+	 * not thread-safe, every evaluation borrows a compiled expression from a pool, compiling a new copy when the pool is
+	 * empty.
+	 */
 	private static class Jaxp13XPathExpression implements XPathExpression {
 
-		private final javax.xml.xpath.XPathExpression xpathExpression;
+		private final BlockingQueue<javax.xml.xpath.XPathExpression> xpathExpressions =
+				new ArrayBlockingQueue<javax.xml.xpath.XPathExpression>(MAX_POOLED_EXPRESSIONS);
 		private final String expression;
+		private final Map<String, String> namespaces;
 
-		private Jaxp13XPathExpression(javax.xml.xpath.XPathExpression xpathExpression, String expression) {
-			this.xpathExpression = xpathExpression;
+		private Jaxp13XPathExpression(javax.xml.xpath.XPathExpression xpathExpression, String expression,
+				Map<String, String> namespaces) {
+			this.xpathExpressions.offer(xpathExpression);
 			this.expression = expression;
+			this.namespaces = namespaces;
 		}
 
 		@Override
@@ -119,10 +150,14 @@ abstract class Jaxp13XPathExpressionFactory {
 
 		private Object evaluate(Node node, QName returnType) {
 			try {
-				// XPathExpression is not thread-safe
-				synchronized (xpathExpression) {
-					return xpathExpression.evaluate(node, returnType);
+				javax.xml.xpath.XPathExpression xpathExpression = xpathExpressions.poll();
+				if (xpathExpression == null) {
+					xpathExpression = compile(expression, namespaces);
 				}
+				Object result = xpathExpression.evaluate(node, returnType);
+				// if the pool is full, the compiled expression is discarded
+				xpathExpressions.offer(xpathExpression);
+				return result;
 			}
 			catch (XPathExpressionException ex) {
 				throw new XPathException("Could not evaluate XPath expression:" + ex.getMessage(), ex);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,13 +20,15 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.dom.DOMResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
@@ -34,7 +36,6 @@ import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPathFactoryConfigurationException;
 
 import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -43,7 +44,6 @@ import org.xml.sax.XMLReader;
 
 import org.springframework.util.xml.StaxUtils;
 import org.springframework.xml.namespace.SimpleNamespaceContext;
-import org.springframework.xml.transform.TransformerHelper;
 import org.springframework.xml.transform.TraxUtils;
 
 /**
@@ -51,21 +51,58 @@ import org.springframework.xml.transform.TraxUtils;
  *
  * <p>Namespaces can be set using the {@code namespaces} property.
  *
+ * <p>Compiled expressions are cached, see {@link #setCacheLimit(int)}. Since JAXP expressions are not thread-safe,
+ * every cache entry holds a small pool of compiled copies, from which each evaluation borrows one.
+ *
  * @author Arjen Poutsma
  * @see #setNamespaces(java.util.Map)
  * @since 1.0.0
  */
 public class Jaxp13XPathTemplate extends AbstractXPathTemplate {
 
-	private XPathFactory xpathFactory;
+	/** The maximum number of compiled copies kept per cached expression. */
+	private static final int MAX_POOLED_EXPRESSIONS = Runtime.getRuntime().availableProcessors() * 2;
+
+	private final String xpathFactoryUri;
+
+	/** {@code XPathFactory} is not thread-safe, so we keep one per thread. */
+	private final ThreadLocal<XPathFactory> xpathFactories = new ThreadLocal<XPathFactory>() {
+
+		@Override
+		protected XPathFactory initialValue() {
+			return newXPathFactory(xpathFactoryUri);
+		}
+	};
+
+	/** Cache of pools of compiled expressions. */
+	private final CompiledExpressionCache<CompiledExpressions> expressionCache =
+			new CompiledExpressionCache<CompiledExpressions>() {
+
+				@Override
+				protected CompiledExpressions compile(String expression, Map<String, String> namespaces)
+						throws XPathException {
+					try {
+						CompiledExpressions compiledExpressions = new CompiledExpressions(expression, namespaces);
+						compiledExpressions.release(compiledExpressions.compile());
+						return compiledExpressions;
+					}
+					catch (XPathExpressionException ex) {
+						throw new XPathException("Could not compile XPath expression [" + expression + "]", ex);
+					}
+				}
+			};
 
 	public Jaxp13XPathTemplate() {
 		this(XPathFactory.DEFAULT_OBJECT_MODEL_URI);
 	}
 
 	public Jaxp13XPathTemplate(String xpathFactoryUri) {
+		this.xpathFactoryUri = xpathFactoryUri;
+	}
+
+	private static XPathFactory newXPathFactory(String xpathFactoryUri) {
 		try {
-			xpathFactory = XPathFactory.newInstance(xpathFactoryUri);
+			return XPathFactory.newInstance(xpathFactoryUri);
 		}
 		catch (XPathFactoryConfigurationException ex) {
 			throw new XPathException("Could not create XPathFactory", ex);
@@ -136,15 +173,12 @@ public class Jaxp13XPathTemplate extends AbstractXPathTemplate {
 	}
 
 	private Object evaluate(String expression, Source context, QName returnType) throws XPathException {
-		XPath xpath = createXPath();
-		if (getNamespaces() != null && !getNamespaces().isEmpty()) {
-			SimpleNamespaceContext namespaceContext = new SimpleNamespaceContext();
-			namespaceContext.setBindings(getNamespaces());
-			xpath.setNamespaceContext(namespaceContext);
-		}
+		CompiledExpressions compiledExpressions = expressionCache.get(expression);
 		try {
-			EvaluationCallback callback = new EvaluationCallback(xpath, expression, returnType);
+			javax.xml.xpath.XPathExpression xpathExpression = compiledExpressions.borrow();
+			EvaluationCallback callback = new EvaluationCallback(xpathExpression, returnType);
 			TraxUtils.doWithSource(context, callback);
+			compiledExpressions.release(xpathExpression);
 			return callback.result;
 		}
 		catch (javax.xml.xpath.XPathException ex) {
@@ -158,31 +192,65 @@ public class Jaxp13XPathTemplate extends AbstractXPathTemplate {
 		}
 	}
 
-	private synchronized XPath createXPath() {
-		return xpathFactory.newXPath();
+	private XPath createXPath() {
+		return xpathFactories.get().newXPath();
 	}
 
-	private static class EvaluationCallback implements TraxUtils.SourceCallback {
+	/**
+	 * Bounded pool of compiled copies of a single expression, as {@code javax.xml.xpath.XPathExpression} is not
+	 * thread-safe.
+	 */
+	private class CompiledExpressions {
 
-		private final XPath xpath;
+		private final BlockingQueue<javax.xml.xpath.XPathExpression> xpathExpressions =
+				new ArrayBlockingQueue<javax.xml.xpath.XPathExpression>(MAX_POOLED_EXPRESSIONS);
 
 		private final String expression;
 
-		private final QName returnType;
+		private final Map<String, String> namespaces;
 
-		private final TransformerHelper transformerHelper = new TransformerHelper();
+		private CompiledExpressions(String expression, Map<String, String> namespaces) {
+			this.expression = expression;
+			this.namespaces = namespaces;
+		}
+
+		private javax.xml.xpath.XPathExpression compile() throws XPathExpressionException {
+			XPath xpath = createXPath();
+			if (namespaces != null && !namespaces.isEmpty()) {
+				SimpleNamespaceContext namespaceContext = new SimpleNamespaceContext();
+				namespaceContext.setBindings(namespaces);
+				xpath.setNamespaceContext(namespaceContext);
+			}
+			return xpath.compile(expression);
+		}
+
+		private javax.xml.xpath.XPathExpression borrow() throws XPathExpressionException {
+			javax.xml.xpath.XPathExpression xpathExpression = xpathExpressions.poll();
+			return xpathExpression != null ? xpathExpression : compile();
+		}
+
+		private void release(javax.xml.xpath.XPathExpression xpathExpression) {
+			// if the pool is full, the compiled expression is discarded
+			xpathExpressions.offer(xpathExpression);
+		}
+	}
+
+	private class EvaluationCallback implements TraxUtils.SourceCallback {
+
+		private final javax.xml.xpath.XPathExpression xpathExpression;
+
+		private final QName returnType;
 
 		private Object result;
 
-		private EvaluationCallback(XPath xpath, String expression, QName returnType) {
-			this.xpath = xpath;
-			this.expression = expression;
+		private EvaluationCallback(javax.xml.xpath.XPathExpression xpathExpression, QName returnType) {
+			this.xpathExpression = xpathExpression;
 			this.returnType = returnType;
 		}
 
 		@Override
 		public void domSource(Node node) throws XPathExpressionException {
-			result = xpath.evaluate(expression, node, returnType);
+			result = xpathExpression.evaluate(node, returnType);
 		}
 
 		@Override
@@ -219,14 +287,7 @@ public class Jaxp13XPathTemplate extends AbstractXPathTemplate {
 		}
 
 		private void inputSource(InputSource inputSource) throws XPathExpressionException {
-			result = xpath.evaluate(expression, inputSource, returnType);
-		}
-
-		private Element getRootElement(Source source) throws TransformerException {
-			DOMResult domResult = new DOMResult();
-			transformerHelper.transform(source, domResult);
-			Document document = (Document) domResult.getNode();
-			return document.getDocumentElement();
+			result = xpathExpression.evaluate(inputSource, returnType);
 		}
 
 	}
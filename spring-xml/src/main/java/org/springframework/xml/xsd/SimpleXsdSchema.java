@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -106,8 +106,14 @@ public class SimpleXsdSchema implements XsdSchema, InitializingBean {
 
 	@Override
 	public XmlValidator createValidator() {
+		return createValidator(0);
+	}
+
+	@Override
+	public XmlValidator createValidator(int maxPoolSize) {
 		try {
-			return XmlValidatorFactory.createValidator(xsdResource, XmlValidatorFactory.SCHEMA_W3C_XML);
+			return XmlValidatorFactory.createValidator(new Resource[]{xsdResource}, XmlValidatorFactory.SCHEMA_W3C_XML,
+					maxPoolSize);
 		}
 		catch (IOException ex) {
 			throw new XsdSchemaException(ex.getMessage(), ex);
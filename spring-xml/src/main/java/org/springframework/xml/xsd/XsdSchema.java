@@ -1,5 +1,5 @@
 /*
- * Copyright 2008 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,4 +49,16 @@ public interface XsdSchema {
 	 * @return a validator for this schema
 	 */
 	XmlValidator createValidator();
+
+	/**
+	 * Creates a {@link XmlValidator} based on the schema, which keeps a pool of at most the given number of underlying
+	 * JAXP validators. The default implementation ignores the pool size, and returns {@link #createValidator()}.
+	 *
+	 * @param maxPoolSize the maximum number of pooled validators; {@code 0} for no pooling
+	 * @return a validator for this schema
+	 * @since 3.0.8
+	 */
+	default XmlValidator createValidator(int maxPoolSize) {
+		return createValidator();
+	}
 }
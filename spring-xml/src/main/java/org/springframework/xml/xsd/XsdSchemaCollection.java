@@ -1,5 +1,5 @@
 /*
- * Copyright 2008 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,4 +40,17 @@ public interface XsdSchemaCollection {
 	 */
 	XmlValidator createValidator();
 
+	/**
+	 * Creates a {@link XmlValidator} based on the schemas contained in this collection, which keeps a pool of at most
+	 * the given number of underlying JAXP validators. The default implementation ignores the pool size, and returns
+	 * {@link #createValidator()}.
+	 *
+	 * @param maxPoolSize the maximum number of pooled validators; {@code 0} for no pooling
+	 * @return a validator for this collection
+	 * @since 3.0.8
+	 */
+	default XmlValidator createValidator(int maxPoolSize) {
+		return createValidator();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -118,10 +118,15 @@ public class CommonsXsdSchema implements XsdSchema {
 
 	@Override
 	public XmlValidator createValidator() {
+		return createValidator(0);
+	}
+
+	@Override
+	public XmlValidator createValidator(int maxPoolSize) {
 		try {
 			Resource resource = new UrlResource(schema.getSourceURI());
 			return XmlValidatorFactory
-					.createValidator(resource, XmlValidatorFactory.SCHEMA_W3C_XML);
+					.createValidator(new Resource[]{resource}, XmlValidatorFactory.SCHEMA_W3C_XML, maxPoolSize);
 		}
 		catch (IOException ex) {
 			throw new CommonsXsdSchemaException(ex.getMessage(), ex);
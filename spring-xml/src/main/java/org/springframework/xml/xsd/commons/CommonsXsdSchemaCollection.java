@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -167,6 +167,11 @@ public class CommonsXsdSchemaCollection implements XsdSchemaCollection, Initiali
 
 	@Override
 	public XmlValidator createValidator() {
+		return createValidator(0);
+	}
+
+	@Override
+	public XmlValidator createValidator(int maxPoolSize) {
 		try {
 			Resource[] resources = new Resource[xmlSchemas.size()];
 			for (int i = xmlSchemas.size() - 1; i >= 0; i--) {
@@ -177,7 +182,7 @@ public class CommonsXsdSchemaCollection implements XsdSchemaCollection, Initiali
 				}
 			}
 			return XmlValidatorFactory
-					.createValidator(resources, XmlValidatorFactory.SCHEMA_W3C_XML);
+					.createValidator(resources, XmlValidatorFactory.SCHEMA_W3C_XML, maxPoolSize);
 		} catch (IOException ex) {
 			throw new CommonsXsdSchemaException(ex.getMessage(), ex);
 		}
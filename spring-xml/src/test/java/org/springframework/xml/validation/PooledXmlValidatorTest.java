@@ -0,0 +1,65 @@
+/*
+ * Copyright 2005-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.xml.validation;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.xml.transform.ResourceSource;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+
+public class PooledXmlValidatorTest extends AbstractValidatorFactoryTestCase {
+
+	@Override
+	protected XmlValidator createValidator(Resource[] schemaResources, String schemaLanguage) throws IOException {
+		return XmlValidatorFactory.createValidator(schemaResources, schemaLanguage, 2);
+	}
+
+	@Test
+	public void testValidatorReused() throws Exception {
+		Resource[] schemaResources =
+				new Resource[]{new ClassPathResource("schema.xsd", AbstractValidatorFactoryTestCase.class)};
+		PooledXmlValidator validator = (PooledXmlValidator) createValidator(schemaResources,
+				XmlValidatorFactory.SCHEMA_W3C_XML);
+		Resource invalid = new ClassPathResource("invalidDocument.xml", AbstractValidatorFactoryTestCase.class);
+		Resource valid = new ClassPathResource("validDocument.xml", AbstractValidatorFactoryTestCase.class);
+
+		SAXParseException[] errors = validator.validate(new ResourceSource(invalid));
+		Assert.assertEquals("ValidationErrors returned", 3, errors.length);
+		errors = validator.validate(new ResourceSource(valid));
+		Assert.assertEquals("ValidationErrors returned", 0, errors.length);
+
+		Assert.assertEquals("Validator not reused", 1, validator.getPoolSize());
+		Assert.assertEquals("Invalid idle count", 1, validator.getIdleCount());
+		Assert.assertEquals("Invalid wait count", 0, validator.getWaitCount());
+	}
+
+	@Test
+	public void testXsdSchemaPoolSize() throws Exception {
+		SimpleXsdSchema schema =
+				new SimpleXsdSchema(new ClassPathResource("schema.xsd", AbstractValidatorFactoryTestCase.class));
+		schema.afterPropertiesSet();
+		XmlValidator validator = schema.createValidator(2);
+		Assert.assertTrue("Not a pooled validator", validator instanceof PooledXmlValidator);
+		Assert.assertEquals("Invalid pool size", 2, ((PooledXmlValidator) validator).getMaxPoolSize());
+	}
+}
@@ -115,6 +115,20 @@ public abstract class AbstractXPathTemplateTestCase {
 		Assert.assertEquals("Invalid amount of results", 3, results.size());
 	}
 
+	@Test
+	public void testCompiledExpressionCache() throws Exception {
+		AbstractXPathTemplate xpathTemplate = (AbstractXPathTemplate) template;
+		for (int i = 0; i < 3; i++) {
+			// a ResourceSource can only be read once
+			Source source =
+					new ResourceSource(new ClassPathResource("nonamespaces.xml", AbstractXPathTemplateTestCase.class));
+			String result = template.evaluateAsString("/root/child/text", source);
+			Assert.assertEquals("Invalid result", "text", result);
+		}
+		Assert.assertEquals("Invalid cache miss count", 1, xpathTemplate.getCacheMissCount());
+		Assert.assertEquals("Invalid cache hit count", 2, xpathTemplate.getCacheHitCount());
+	}
+
 	@Test
 	public void testEvaluateAsStringNamespaces() throws IOException, SAXException {
 		String result = template.evaluateAsString("/prefix1:root/prefix2:child/prefix2:text", namespaces);
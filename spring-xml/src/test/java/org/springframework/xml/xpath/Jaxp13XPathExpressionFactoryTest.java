@@ -16,7 +16,21 @@
 
 package org.springframework.xml.xpath;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.parsers.DocumentBuilder;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import org.springframework.xml.DocumentBuilderFactoryUtils;
+
+import static org.junit.Assert.assertEquals;
 
 public class Jaxp13XPathExpressionFactoryTest extends AbstractXPathExpressionFactoryTestCase {
 
@@ -29,4 +43,33 @@ public class Jaxp13XPathExpressionFactoryTest extends AbstractXPathExpressionFac
 	protected XPathExpression createXPathExpression(String expression, Map<String, String> namespaces) {
 		return Jaxp13XPathExpressionFactory.createXPathExpression(expression, namespaces);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testConcurrentEvaluation() throws Exception {
+		final XPathExpression expression = createXPathExpression("/root/child/text()");
+		DocumentBuilder documentBuilder = DocumentBuilderFactoryUtils.newInstance().newDocumentBuilder();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 64; i++) {
+				final Document document = documentBuilder.newDocument();
+				document.appendChild(document.createElement("root"))
+						.appendChild(document.createElement("child"))
+						.appendChild(document.createTextNode("text" + i));
+				results.add(executor.submit(new Callable<String>() {
+
+					@Override
+					public String call() {
+						return expression.evaluateAsString(document);
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals("Invalid result", "text" + i, results.get(i).get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}